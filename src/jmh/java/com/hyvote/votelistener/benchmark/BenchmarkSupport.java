@@ -0,0 +1,133 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.google.gson.Gson;
+import com.hyvote.votelistener.config.Config;
+import com.hyvote.votelistener.config.RandomReward;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Shared fixtures for the benchmark suites.
+ */
+final class BenchmarkSupport {
+
+    /**
+     * Representative config: base commands, weighted random rewards, streak and milestone bonuses.
+     */
+    static final String CONFIG_JSON = """
+            {
+              "commands": [
+                "give %player% diamond 1",
+                "say %player% voted on %service% (%totalvotes% votes, %streak% day streak)"
+              ],
+              "randomRewardsEnabled": true,
+              "randomRewards": [
+                {"name": "common", "chance": 70.0, "commands": ["give %player% iron_ingot 5"]},
+                {"name": "rare", "chance": 25.0, "commands": ["give %player% gold_ingot 3"]},
+                {"name": "legendary", "chance": 5.0, "commands": ["give %player% diamond 5", "say %player% won %reward%!"]}
+              ],
+              "streakBonusEnabled": true,
+              "streakBonuses": [
+                {"streakDays": 3, "name": "3-day", "commands": ["give %player% emerald 1"]},
+                {"streakDays": 7, "name": "weekly", "commands": ["give %player% emerald 5"]}
+              ],
+              "milestoneBonusEnabled": true,
+              "milestoneBonuses": [
+                {"votesRequired": 10, "name": "10-votes", "commands": ["give %player% gold_block 1"]},
+                {"votesRequired": 100, "name": "100-votes", "commands": ["give %player% diamond_block 1"]}
+              ]
+            }
+            """;
+
+    private BenchmarkSupport() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Parses {@link #CONFIG_JSON} the same way ConfigManager does.
+     *
+     * @return Loaded config with compiled command templates and reward table
+     */
+    static Config loadConfig() {
+        Config config = new Gson().fromJson(CONFIG_JSON, Config.class);
+        config.compile();
+        return config;
+    }
+
+    /**
+     * Builds a list of rewards with random weights from a fixed seed.
+     *
+     * @param count Number of rewards
+     * @return Reward list
+     */
+    static List<RandomReward> randomRewards(int count) {
+        Random random = new Random(42);
+        List<RandomReward> rewards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rewards.add(new RandomReward("reward-" + i, 1.0 + random.nextInt(100),
+                    List.of("give %player% item_" + i + " 1")));
+        }
+        return rewards;
+    }
+
+    /**
+     * Gets the deterministic username of a synthetic player.
+     *
+     * @param index Player number
+     * @return Username
+     */
+    static String username(int index) {
+        return "player" + index;
+    }
+
+    /**
+     * Gets the deterministic UUID key of a synthetic player.
+     *
+     * @param index Player number
+     * @return UUID string
+     */
+    static String uuid(int index) {
+        return new UUID(0x5EED_0000_0000_0000L, index).toString();
+    }
+
+    /**
+     * Creates an empty scratch directory for a benchmark's data files.
+     *
+     * @param prefix Directory name prefix
+     * @return The directory
+     */
+    static Path createDataFolder(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes a scratch directory and everything in it.
+     *
+     * @param folder The directory, may be null
+     */
+    static void deleteDataFolder(Path folder) {
+        if (folder == null || !Files.exists(folder)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
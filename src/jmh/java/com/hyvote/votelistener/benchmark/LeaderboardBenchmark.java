@@ -0,0 +1,85 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hyvote.votelistener.data.PlayerVoteData;
+import com.hyvote.votelistener.data.VoteLeaderboard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 and rank queries answered by sorting every player's vote data
+ * against the incrementally maintained {@link VoteLeaderboard}, plus the cost
+ * of updating the leaderboard after a vote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    @Param({"1000", "100000"})
+    public int players;
+
+    private Map<String, PlayerVoteData> voteData;
+    private VoteLeaderboard leaderboard;
+    private String[] keys;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(42);
+        voteData = new HashMap<>();
+        leaderboard = new VoteLeaderboard();
+        keys = new String[players];
+        for (int i = 0; i < players; i++) {
+            keys[i] = BenchmarkSupport.uuid(i);
+            PlayerVoteData data = new PlayerVoteData(keys[i], "player" + i, 1 + random.nextInt(500),
+                    1 + random.nextInt(30), 0L);
+            voteData.put(keys[i], data);
+            leaderboard.update(keys[i], data);
+        }
+    }
+
+    @Benchmark
+    public List<PlayerVoteData> topTenBySorting() {
+        List<PlayerVoteData> sorted = new ArrayList<>(voteData.values());
+        sorted.sort(Comparator.comparingInt(PlayerVoteData::getTotalVotes).reversed());
+        return sorted.subList(0, Math.min(10, sorted.size()));
+    }
+
+    @Benchmark
+    public List<VoteLeaderboard.Standing> topTenFromLeaderboard() {
+        return leaderboard.getTopByTotalVotes(10);
+    }
+
+    @Benchmark
+    public int rankFromLeaderboard() {
+        return leaderboard.getRank(keys[random.nextInt(players)]);
+    }
+
+    @Benchmark
+    public int updateAfterVote() {
+        String key = keys[random.nextInt(players)];
+        PlayerVoteData data = voteData.get(key);
+        data.setTotalVotes(data.getTotalVotes() + 1);
+        return leaderboard.update(key, data);
+    }
+}
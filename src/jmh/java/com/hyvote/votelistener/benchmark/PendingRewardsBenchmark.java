@@ -0,0 +1,96 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.google.gson.Gson;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.data.PendingReward;
+import com.hyvote.votelistener.data.PendingRewardsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving pending-rewards.json with 1k and 100k offline players.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PendingRewardsBenchmark {
+
+    private static final String PENDING_REWARDS_FILE_NAME = "pending-rewards.json";
+
+    @Param({"1000", "100000"})
+    public int players;
+
+    @Param({"2"})
+    public int rewardsPerPlayer;
+
+    private Path dataFolder;
+    private PendingRewardsManager pendingRewardsManager;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataFolder = BenchmarkSupport.createDataFolder("pending-rewards-bench");
+
+        // Write the snapshot directly so setup does not depend on the code being measured
+        Map<String, List<PendingReward>> snapshot = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < players; i++) {
+            String uuid = BenchmarkSupport.uuid(i);
+            String username = BenchmarkSupport.username(i);
+            PendingReward[] rewards = new PendingReward[rewardsPerPlayer];
+            for (int r = 0; r < rewardsPerPlayer; r++) {
+                rewards[r] = new PendingReward(uuid, username, "ExampleVotingSite", now + r, List.of(
+                        "give " + username + " diamond 1",
+                        "say " + username + " voted on ExampleVotingSite"));
+            }
+            snapshot.put(uuid, List.of(rewards));
+        }
+        try (Writer writer = Files.newBufferedWriter(dataFolder.resolve(PENDING_REWARDS_FILE_NAME), StandardCharsets.UTF_8)) {
+            new Gson().toJson(snapshot, writer);
+        }
+
+        pendingRewardsManager = new PendingRewardsManager(dataFolder, HytaleLogger.forEnclosingClass());
+        pendingRewardsManager.loadPendingRewards();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pendingRewardsManager.shutdown();
+        BenchmarkSupport.deleteDataFolder(dataFolder);
+    }
+
+    @Benchmark
+    public PendingRewardsManager load() {
+        pendingRewardsManager.loadPendingRewards();
+        return pendingRewardsManager;
+    }
+
+    @Benchmark
+    public PendingRewardsManager save() {
+        pendingRewardsManager.savePendingRewards();
+        return pendingRewardsManager;
+    }
+}
@@ -0,0 +1,75 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hyvote.votelistener.util.CommandTemplate;
+import com.hyvote.votelistener.util.PlaceholderProcessor;
+import org.hyvote.plugins.votifier.vote.Vote;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placeholder expansion: the original chained {@code String.replace} passes
+ * against {@link PlaceholderProcessor} and a precompiled {@link CommandTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaceholderBenchmark {
+
+    @Param({
+            "give %player% diamond 1",
+            "say %player% voted on %service% (%totalvotes% votes, %streak% day streak, reward %reward%, uuid %uuid%)"
+    })
+    public String command;
+
+    private Vote vote;
+    private CommandTemplate template;
+    private String uuid;
+
+    @Setup
+    public void setup() {
+        vote = new Vote("ExampleVotingSite", "Steve", "127.0.0.1", System.currentTimeMillis());
+        template = CommandTemplate.compile(command);
+        uuid = BenchmarkSupport.uuid(1);
+    }
+
+    /**
+     * The replace chain PlaceholderProcessor used before templates, kept as the baseline.
+     */
+    @Benchmark
+    public String legacyReplaceChain() {
+        String result = command;
+        result = result.replace("%player%", vote.username());
+        result = result.replace("%service%", vote.serviceName());
+        result = result.replace("%timestamp%", String.valueOf(vote.timestamp()));
+        result = result.replace("%reward%", "rare");
+        result = result.replace("%streak%", String.valueOf(7));
+        result = result.replace("%totalvotes%", String.valueOf(42));
+        result = result.replace("%uuid%", uuid);
+        return result;
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String processorProcess() {
+        return PlaceholderProcessor.process(command, vote, "rare", 7, 42, uuid);
+    }
+
+    @Benchmark
+    public String precompiledRender() {
+        return template.render(vote, "rare", 7, 42, 0, uuid);
+    }
+}
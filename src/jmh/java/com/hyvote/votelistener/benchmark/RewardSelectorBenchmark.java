@@ -0,0 +1,54 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hyvote.votelistener.config.RandomReward;
+import com.hyvote.votelistener.reward.RewardSelector;
+import com.hyvote.votelistener.reward.RewardTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted random reward selection over reward tables of increasing size:
+ * the linear scan over the reward list against the precomputed alias table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardSelectorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int rewardCount;
+
+    private List<RandomReward> rewards;
+    private RewardTable table;
+
+    @Setup
+    public void setup() {
+        rewards = BenchmarkSupport.randomRewards(rewardCount);
+        table = RewardTable.build(rewards);
+    }
+
+    @Benchmark
+    public RandomReward selectLinear() {
+        return RewardSelector.select(rewards);
+    }
+
+    @Benchmark
+    public RandomReward selectAliasTable() {
+        return RewardSelector.select(table);
+    }
+}
@@ -0,0 +1,92 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.data.PlayerVoteData;
+import com.hyvote.votelistener.data.VoteDataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vote recording against player stores of 1k, 100k and 1M entries.
+ *
+ * <p>{@link #recordVote()} measures the in-memory update with write-behind
+ * persistence, {@link #recordVoteAndSave()} additionally writes the full
+ * vote-data.json snapshot, which is what every vote cost before write-behind.
+ * {@link #getPlayerData()} measures a lookup in the compact player table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VoteDataBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int players;
+
+    private Path dataFolder;
+    private VoteDataManager voteDataManager;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataFolder = BenchmarkSupport.createDataFolder("vote-data-bench");
+        voteDataManager = new VoteDataManager(dataFolder, HytaleLogger.forEnclosingClass());
+        voteDataManager.loadVoteData();
+        // Long interval and huge threshold: only the benchmarks themselves trigger saves
+        voteDataManager.enableWriteBehind(3600, Integer.MAX_VALUE);
+        for (int i = 0; i < players; i++) {
+            voteDataManager.recordVote(BenchmarkSupport.uuid(i), BenchmarkSupport.username(i));
+        }
+        voteDataManager.saveVoteData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        voteDataManager.shutdown();
+        BenchmarkSupport.deleteDataFolder(dataFolder);
+    }
+
+    @Benchmark
+    public PlayerVoteData recordVote() {
+        int index = nextPlayer();
+        return voteDataManager.recordVote(BenchmarkSupport.uuid(index), BenchmarkSupport.username(index));
+    }
+
+    @Benchmark
+    public PlayerVoteData getPlayerData() {
+        return voteDataManager.getPlayerData(BenchmarkSupport.uuid(nextPlayer()));
+    }
+
+    @Benchmark
+    public PlayerVoteData recordVoteAndSave() {
+        int index = nextPlayer();
+        PlayerVoteData data = voteDataManager.recordVote(BenchmarkSupport.uuid(index), BenchmarkSupport.username(index));
+        voteDataManager.saveVoteData();
+        return data;
+    }
+
+    /**
+     * Cycles through the existing players so every vote updates a known record.
+     */
+    private int nextPlayer() {
+        int index = next;
+        next = index + 1 == players ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hyvote.votelistener.data.PlayerVoteData;
+import com.hyvote.votelistener.data.PlayerVoteTable;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retained heap of the vote data store: the former {@code ConcurrentHashMap}
+ * of {@link PlayerVoteData} objects against the {@link PlayerVoteTable} that
+ * replaced it, measured with JOL at 1k, 100k and 1M players.
+ *
+ * <p>Not a JMH benchmark: footprint is a property of the loaded data, not of a
+ * timed operation. The documented bound of under 90 bytes per player is
+ * asserted by {@code PlayerVoteTableTest} from the table's own estimate; this
+ * tool measures the real object graph for comparison. Run with:
+ * <pre>
+ * java -cp "target/benchmarks.jar:HytaleServer.jar:HytaleVotifier.jar" -Xmx4g \
+ *     com.hyvote.votelistener.benchmark.VoteDataFootprint
+ * </pre>
+ */
+public final class VoteDataFootprint {
+
+    private static final int[] PLAYER_COUNTS = {1000, 100000, 1000000};
+
+    private VoteDataFootprint() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %8s%n", "players", "map B/player", "table B/player", "ratio");
+        for (int players : PLAYER_COUNTS) {
+            double mapBytes = (double) GraphLayout.parseInstance(buildMap(players)).totalSize() / players;
+            double tableBytes = (double) GraphLayout.parseInstance(buildTable(players)).totalSize() / players;
+            System.out.printf("%10d %14.1f %14.1f %7.1fx%n", players, mapBytes, tableBytes, mapBytes / tableBytes);
+        }
+    }
+
+    /**
+     * Builds the map as the old snapshot loader did: the key and the record's
+     * uuid field are separate Strings, as Gson reads them separately.
+     */
+    private static Map<String, PlayerVoteData> buildMap(int players) {
+        Map<String, PlayerVoteData> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < players; i++) {
+            map.put(BenchmarkSupport.uuid(i), record(i));
+        }
+        return map;
+    }
+
+    /**
+     * Builds the table as the snapshot loader does, trimmed after loading.
+     */
+    private static PlayerVoteTable buildTable(int players) {
+        PlayerVoteTable table = new PlayerVoteTable();
+        for (int i = 0; i < players; i++) {
+            table.put(BenchmarkSupport.uuid(i), record(i));
+        }
+        table.trimToSize();
+        return table;
+    }
+
+    private static PlayerVoteData record(int index) {
+        return new PlayerVoteData(BenchmarkSupport.uuid(index), BenchmarkSupport.username(index),
+                index % 500, index % 30, 1_700_000_000_000L + index);
+    }
+}
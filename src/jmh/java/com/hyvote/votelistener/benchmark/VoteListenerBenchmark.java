@@ -0,0 +1,98 @@
+package com.hyvote.votelistener.benchmark;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.config.Config;
+import com.hyvote.votelistener.data.PendingRewardsManager;
+import com.hyvote.votelistener.data.VoteDataManager;
+import com.hyvote.votelistener.listener.CommandDispatcher;
+import com.hyvote.votelistener.listener.OnlinePlayerIndex;
+import com.hyvote.votelistener.listener.VoteListener;
+import org.hyvote.plugins.votifier.vote.Vote;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end vote handling: record, reward selection, placeholder expansion and
+ * queueing for an offline player, with the default journal and write-behind setup.
+ *
+ * <p>The server is stubbed out: the {@link OnlinePlayerIndex} is empty instead of
+ * being fed by {@code Universe}, and the {@link CommandDispatcher} counts commands
+ * instead of passing them to {@code CommandManager}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoteListenerBenchmark {
+
+    @Param({"1000"})
+    public int players;
+
+    private Path dataFolder;
+    private VoteDataManager voteDataManager;
+    private PendingRewardsManager pendingRewardsManager;
+    private CommandDispatcher commandDispatcher;
+    private VoteListener voteListener;
+    private LongAdder dispatchedCommands;
+    private Vote[] votes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HytaleLogger logger = HytaleLogger.forEnclosingClass();
+        Config config = BenchmarkSupport.loadConfig();
+        dataFolder = BenchmarkSupport.createDataFolder("vote-listener-bench");
+
+        voteDataManager = new VoteDataManager(dataFolder, logger);
+        voteDataManager.loadVoteData();
+        pendingRewardsManager = new PendingRewardsManager(dataFolder, logger);
+        pendingRewardsManager.loadPendingRewards();
+        voteDataManager.enableJournal(config.getJournalSyncBatchSize());
+        pendingRewardsManager.enableJournal(config.getJournalSyncBatchSize(), config.getSaveIntervalSeconds());
+        voteDataManager.enableWriteBehind(config.getSaveIntervalSeconds(), config.getSaveDirtyThreshold());
+
+        dispatchedCommands = new LongAdder();
+        commandDispatcher = new CommandDispatcher(logger, command -> dispatchedCommands.increment());
+        voteListener = new VoteListener(logger, () -> config, voteDataManager, pendingRewardsManager,
+                commandDispatcher, new OnlinePlayerIndex());
+
+        votes = new Vote[players];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < players; i++) {
+            votes[i] = new Vote("ExampleVotingSite", BenchmarkSupport.username(i), "127.0.0.1", now);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        voteListener.shutdown();
+        commandDispatcher.shutdown();
+        voteDataManager.shutdown();
+        pendingRewardsManager.shutdown();
+        BenchmarkSupport.deleteDataFolder(dataFolder);
+    }
+
+    @Benchmark
+    public void processVote() {
+        Vote vote = votes[next];
+        next = next + 1 == players ? 0 : next + 1;
+        voteListener.processVote(vote);
+    }
+}
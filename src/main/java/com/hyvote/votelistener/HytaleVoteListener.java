@@ -3,17 +3,44 @@ package com.hyvote.votelistener;
 import com.hypixel.hytale.server.core.HytaleServer;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hyvote.votelistener.config.Config;
 import com.hyvote.votelistener.config.ConfigManager;
+import com.hyvote.votelistener.config.ConfigWatcher;
+import com.hyvote.votelistener.data.DatabasePendingRewardStore;
+import com.hyvote.votelistener.data.DatabaseVoteStore;
+import com.hyvote.votelistener.data.JsonToDatabaseMigrator;
+import com.hyvote.votelistener.data.MappedVoteStore;
+import com.hyvote.votelistener.data.PendingRewardStore;
 import com.hyvote.votelistener.data.PendingRewardsManager;
+import com.hyvote.votelistener.data.StorageException;
+import com.hyvote.votelistener.data.VoteDatabase;
 import com.hyvote.votelistener.data.VoteDataManager;
+import com.hyvote.votelistener.data.VoteLeaderboard;
+import com.hyvote.votelistener.data.VotePeriod;
+import com.hyvote.votelistener.data.VoteRollups;
+import com.hyvote.votelistener.data.VoteStore;
 import com.hyvote.votelistener.listener.PlayerJoinListener;
 import com.hyvote.votelistener.command.ClaimVotesCommand;
+import com.hyvote.votelistener.command.ExportCommand;
+import com.hyvote.votelistener.command.ReloadCommand;
+import com.hyvote.votelistener.command.StatsCommand;
+import com.hyvote.votelistener.command.TopVotersCommand;
+import com.hyvote.votelistener.command.VoteListenerCommand;
+import com.hyvote.votelistener.listener.CommandDispatcher;
+import com.hyvote.votelistener.listener.OnlinePlayerIndex;
+import com.hyvote.votelistener.listener.RewardDeliveryScheduler;
+import com.hyvote.votelistener.listener.VoteDeduplicator;
 import com.hyvote.votelistener.listener.VoteListener;
+import com.hyvote.votelistener.listener.VotePipeline;
+import com.hyvote.votelistener.metrics.MetricsFileWriter;
+import com.hyvote.votelistener.metrics.VoteMetrics;
 import org.hyvote.plugins.votifier.event.VoteEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 
 import javax.annotation.Nonnull;
 import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.logging.Level;
 
 /**
@@ -25,11 +52,23 @@ import java.util.logging.Level;
 public class HytaleVoteListener extends JavaPlugin {
 
     private ConfigManager configManager;
-    private VoteDataManager voteDataManager;
-    private PendingRewardsManager pendingRewardsManager;
+    private ConfigWatcher configWatcher;
+    private VoteDatabase voteDatabase;
+    private VoteStore voteStore;
+    private PendingRewardStore pendingRewardStore;
+    private CommandDispatcher commandDispatcher;
+    private OnlinePlayerIndex onlinePlayerIndex;
     private VoteListener voteListener;
+    private VoteDeduplicator voteDeduplicator;
+    private RewardDeliveryScheduler rewardDeliveryScheduler;
     private PlayerJoinListener playerJoinListener;
     private ClaimVotesCommand claimVotesCommand;
+    private TopVotersCommand topVotersCommand;
+    private VoteLeaderboard leaderboard;
+    private VoteRollups voteRollups;
+    private VoteListenerCommand voteListenerCommand;
+    private VoteMetrics metrics;
+    private MetricsFileWriter metricsFileWriter;
 
     /**
      * Plugin constructor called by the server during plugin loading.
@@ -51,15 +90,144 @@ public class HytaleVoteListener extends JavaPlugin {
         // Initialize and load configuration using the plugin's data directory
         Path dataFolder = getDataDirectory();
         configManager = new ConfigManager(dataFolder, getLogger());
-        configManager.loadConfig();
+        Config config = configManager.loadConfig();
+        metrics = new VoteMetrics();
 
+        // Open the configured storage backend, falling back to JSON files if the database cannot be opened
+        if (config.isDatabaseStorage() && openDatabaseStorage(dataFolder, config)) {
+            getLogger().at(Level.INFO).log("Using embedded database storage");
+        } else if (config.isBinaryStorage() && openBinaryStorage(dataFolder, config)) {
+            getLogger().at(Level.INFO).log("Using memory-mapped vote data storage");
+        } else {
+            openJsonStorage(dataFolder, config);
+        }
+    }
+
+    /**
+     * Opens the embedded database and imports any existing JSON data files.
+     *
+     * @param dataFolder The plugin's data directory
+     * @param config The loaded configuration
+     * @return true if the database is ready, false if it could not be opened
+     */
+    private boolean openDatabaseStorage(Path dataFolder, Config config) {
+        VoteDatabase database = new VoteDatabase(dataFolder, getLogger());
+        try {
+            database.open();
+        } catch (SQLException | RuntimeException e) {
+            getLogger().at(Level.SEVERE).log("Failed to open vote database, falling back to JSON storage: "
+                    + e.getMessage());
+            database.close();
+            return false;
+        }
+
+        DatabaseVoteStore databaseVoteStore = new DatabaseVoteStore(database, config.getVoteCacheSize(),
+                getLogger());
+        DatabasePendingRewardStore databasePendingRewardStore = new DatabasePendingRewardStore(database, getLogger());
+        JsonToDatabaseMigrator.migrateIfPresent(dataFolder, config.getSnapshotBackups(), databaseVoteStore,
+                databasePendingRewardStore, getLogger());
+        databaseVoteStore.load();
+        databasePendingRewardStore.load();
+
+        // Commit vote updates in batched transactions instead of one per vote
+        if (config.isWriteBehindEnabled()) {
+            databaseVoteStore.enableWriteBatching(config.getSaveDirtyThreshold());
+        }
+
+        metrics.registerGauge("vote_cache_size", "Player records cached in memory",
+                () -> databaseVoteStore.getCacheStats().getSize());
+        metrics.registerGauge("vote_cache_hits", "Player lookups answered from the cache",
+                () -> databaseVoteStore.getCacheStats().getHits());
+        metrics.registerGauge("vote_cache_misses", "Player lookups that read the database",
+                () -> databaseVoteStore.getCacheStats().getMisses());
+
+        voteDatabase = database;
+        voteStore = databaseVoteStore;
+        pendingRewardStore = databasePendingRewardStore;
+        return true;
+    }
+
+    /**
+     * Maps the binary vote data files, importing vote-data.json on first use.
+     * Pending rewards stay in pending-rewards.json.
+     *
+     * @param dataFolder The plugin's data directory
+     * @param config The loaded configuration
+     * @return true if the files are ready, false if they could not be mapped
+     */
+    private boolean openBinaryStorage(Path dataFolder, Config config) {
+        MappedVoteStore mappedVoteStore = new MappedVoteStore(dataFolder, getLogger());
+        mappedVoteStore.setSnapshotBackups(config.getSnapshotBackups());
+        try {
+            mappedVoteStore.load();
+        } catch (StorageException e) {
+            getLogger().at(Level.SEVERE).log("Failed to map vote data files, falling back to JSON storage: "
+                    + e.getMessage());
+            return false;
+        }
+
+        // Force changes to disk on the save interval instead of after every vote
+        if (config.isWriteBehindEnabled()) {
+            mappedVoteStore.enableWriteBehind(config.getSaveIntervalSeconds());
+        }
+
+        voteStore = mappedVoteStore;
+        pendingRewardStore = openPendingRewardsFile(dataFolder, config);
+        return true;
+    }
+
+    /**
+     * Loads vote data and pending rewards from the JSON data files.
+     *
+     * @param dataFolder The plugin's data directory
+     * @param config The loaded configuration
+     */
+    private void openJsonStorage(Path dataFolder, Config config) {
         // Initialize and load vote data
-        voteDataManager = new VoteDataManager(dataFolder, getLogger());
-        voteDataManager.loadVoteData();
+        VoteDataManager voteDataManager = new VoteDataManager(dataFolder, getLogger());
+        voteDataManager.setSnapshotBackups(config.getSnapshotBackups());
+        voteDataManager.setPrettyPrint(config.isPrettyPrintData());
+        voteDataManager.setMetrics(metrics);
+        voteDataManager.load();
+        metrics.registerGauge("players", "Players with vote data", voteDataManager::getPlayerCount);
+        metrics.registerGauge("vote_data_heap_bytes", "Estimated heap used by vote data",
+                voteDataManager::estimateHeapBytes);
+
+        // Switch to background persistence, journaling mutations so a crash loses nothing
+        if (config.isWriteBehindEnabled()) {
+            if (config.isJournalEnabled()) {
+                voteDataManager.enableJournal(config.getJournalSyncBatchSize());
+            }
+            voteDataManager.enableWriteBehind(config.getSaveIntervalSeconds(), config.getSaveDirtyThreshold());
+        }
+
+        voteStore = voteDataManager;
+        pendingRewardStore = openPendingRewardsFile(dataFolder, config);
+    }
+
+    /**
+     * Loads pending rewards from pending-rewards.json.
+     *
+     * @param dataFolder The plugin's data directory
+     * @param config The loaded configuration
+     * @return The loaded pending rewards manager
+     */
+    private PendingRewardsManager openPendingRewardsFile(Path dataFolder, Config config) {
+        PendingRewardsManager pendingRewardsManager = new PendingRewardsManager(dataFolder, getLogger());
+        pendingRewardsManager.setSnapshotBackups(config.getSnapshotBackups());
+        pendingRewardsManager.setPrettyPrint(config.isPrettyPrintData());
+        pendingRewardsManager.setMetrics(metrics);
+        pendingRewardsManager.load();
+        metrics.registerGauge("pending_rewards", "Rewards queued for offline players",
+                pendingRewardsManager::getPendingRewardCount);
+        metrics.registerGauge("reward_templates", "Distinct reward templates used by queued rewards",
+                pendingRewardsManager::getTemplateCount);
 
-        // Initialize and load pending rewards
-        pendingRewardsManager = new PendingRewardsManager(dataFolder, getLogger());
-        pendingRewardsManager.loadPendingRewards();
+        // Journal mutations between background compactions so a crash loses nothing
+        if (config.isWriteBehindEnabled() && config.isJournalEnabled()) {
+            pendingRewardsManager.enableJournal(config.getJournalSyncBatchSize(), config.getSaveIntervalSeconds());
+        }
+        return pendingRewardsManager;
     }
 
     /**
@@ -72,21 +240,21 @@ public class HytaleVoteListener extends JavaPlugin {
     }
 
     /**
-     * Gets the vote data manager for accessing player vote statistics.
+     * Gets the vote store for accessing player vote statistics.
      *
-     * @return The VoteDataManager instance
+     * @return The VoteStore instance (JSON files or embedded database)
      */
-    public VoteDataManager getVoteDataManager() {
-        return voteDataManager;
+    public VoteStore getVoteStore() {
+        return voteStore;
     }
 
     /**
-     * Gets the pending rewards manager for handling offline player rewards.
+     * Gets the pending reward store for handling offline player rewards.
      *
-     * @return The PendingRewardsManager instance
+     * @return The PendingRewardStore instance (JSON files or embedded database)
      */
-    public PendingRewardsManager getPendingRewardsManager() {
-        return pendingRewardsManager;
+    public PendingRewardStore getPendingRewardStore() {
+        return pendingRewardStore;
     }
 
     /**
@@ -98,24 +266,128 @@ public class HytaleVoteListener extends JavaPlugin {
         String version = getManifest().getVersion().toString();
         getLogger().at(Level.INFO).log("HytaleVoteListener v%s enabled", version);
 
-        // Create vote listener
-        voteListener = new VoteListener(this, configManager.getConfig(), voteDataManager, pendingRewardsManager);
+        // Track online players by username and UUID for O(1) voter lookup
+        onlinePlayerIndex = new OnlinePlayerIndex();
+        onlinePlayerIndex.rebuild();
+        getEventRegistry().register(PlayerConnectEvent.class, onlinePlayerIndex::onPlayerConnect);
+        getEventRegistry().register(PlayerDisconnectEvent.class, onlinePlayerIndex::onPlayerDisconnect);
+
+        // Create vote listener, processing votes off the event thread if enabled
+        Config config = configManager.getConfig();
+        commandDispatcher = new CommandDispatcher(getLogger());
+        commandDispatcher.setMetrics(metrics);
+        voteListener = new VoteListener(this, configManager::getConfig, voteStore, pendingRewardStore,
+                commandDispatcher, onlinePlayerIndex);
+        voteListener.setMetrics(metrics);
+        // One pass over the stored players builds the period totals and the leaderboard;
+        // afterwards both are updated per vote
+        voteRollups = new VoteRollups();
+        leaderboard = config.isLeaderboardEnabled() ? new VoteLeaderboard() : null;
+        long seedTime = System.currentTimeMillis();
+        voteStore.forEachPlayerByTotalVotes((key, data) -> {
+            voteRollups.add(data, seedTime);
+            if (leaderboard != null) {
+                leaderboard.update(key, data);
+            }
+        });
+        voteListener.setRollups(voteRollups);
+        if (leaderboard != null) {
+            voteListener.setLeaderboard(leaderboard);
+            getLogger().at(Level.INFO).log("Leaderboard built for %d players", leaderboard.size());
+        }
+        if (config.isVoteDedupEnabled()) {
+            voteDeduplicator = new VoteDeduplicator(getDataDirectory().resolve(VoteDeduplicator.DIRECTORY_NAME),
+                    config.getVoteDedupWindowMinutes(), config.getVoteDedupMaxEntries(), getLogger());
+            voteDeduplicator.setMetrics(metrics);
+            voteDeduplicator.load();
+            voteListener.setDeduplicator(voteDeduplicator);
+        }
+        if (config.isAsyncVoteProcessing()) {
+            commandDispatcher.enableAsync();
+            voteListener.enableAsyncProcessing(config.getVoteWorkerLanes(), config.getVoteQueueCapacity());
+        }
 
         // Register globally for VoteEvent (HytaleVotifier dispatches with its plugin class as key)
         getEventRegistry().registerGlobal(VoteEvent.class, voteListener::onVote);
         getLogger().at(Level.INFO).log("Registered vote event listener (global)");
 
+        // Spread pending reward commands over ticks; unfinished deliveries are re-queued on disconnect
+        rewardDeliveryScheduler = new RewardDeliveryScheduler(configManager::getConfig, pendingRewardStore,
+                commandDispatcher, getLogger());
+        rewardDeliveryScheduler.setMetrics(metrics);
+        getEventRegistry().register(PlayerDisconnectEvent.class, rewardDeliveryScheduler::onPlayerDisconnect);
+
         // Create player join listener for pending reward delivery
-        playerJoinListener = new PlayerJoinListener(this, pendingRewardsManager);
+        playerJoinListener = new PlayerJoinListener(this, pendingRewardStore, rewardDeliveryScheduler);
+        playerJoinListener.setLeaderboard(leaderboard);
 
         // Register for PlayerConnectEvent
         getEventRegistry().register(PlayerConnectEvent.class, playerJoinListener::onPlayerConnect);
         getLogger().at(Level.INFO).log("Registered player join listener for pending reward delivery");
 
         // Create and register /claimvotes command for manual reward claiming
-        claimVotesCommand = new ClaimVotesCommand(this, pendingRewardsManager);
+        claimVotesCommand = new ClaimVotesCommand(this, pendingRewardStore, rewardDeliveryScheduler);
         getCommandRegistry().registerCommand(claimVotesCommand);
         getLogger().at(Level.INFO).log("Registered /claimvotes command");
+
+        // Create and register /topvoters command, answered from the leaderboard
+        if (leaderboard != null) {
+            topVotersCommand = new TopVotersCommand(leaderboard, configManager::getConfig);
+            getCommandRegistry().registerCommand(topVotersCommand);
+            getLogger().at(Level.INFO).log("Registered /topvoters command");
+        }
+
+        // Create and register /votelistener admin command (reload, export, stats)
+        voteListenerCommand = new VoteListenerCommand(new ReloadCommand(configManager),
+                new ExportCommand(voteStore, getDataDirectory(), getLogger()), new StatsCommand(metrics));
+        getCommandRegistry().registerCommand(voteListenerCommand);
+        getLogger().at(Level.INFO).log("Registered /votelistener command");
+
+        registerRuntimeGauges();
+
+        // Optionally write metrics for node_exporter's textfile collector
+        if (config.isMetricsFileEnabled() && config.getMetricsFile() != null && !config.getMetricsFile().isBlank()) {
+            metricsFileWriter = new MetricsFileWriter(metrics, getDataDirectory().resolve(config.getMetricsFile()),
+                    config.getMetricsIntervalSeconds(), getLogger());
+        }
+
+        // Optionally reload automatically when config.json is edited
+        if (config.isWatchConfig()) {
+            configWatcher = new ConfigWatcher(getDataDirectory(), configManager, getLogger());
+            configWatcher.start();
+        }
+    }
+
+    /**
+     * Registers gauges for the vote queue, period vote totals, active deliveries and JVM heap.
+     */
+    private void registerRuntimeGauges() {
+        metrics.registerGauge("vote_queue_depth", "Votes waiting for a processing lane", () -> {
+            VotePipeline pipeline = voteListener.getVotePipeline();
+            return pipeline != null ? pipeline.getQueueDepth() : 0;
+        });
+        metrics.registerGauge("vote_backpressure_events", "Votes that waited for room in a full queue", () -> {
+            VotePipeline pipeline = voteListener.getVotePipeline();
+            return pipeline != null ? pipeline.getBackpressureCount() : 0;
+        });
+        metrics.registerGauge("vote_dedup_entries", "Votes remembered by the deduplication window",
+                () -> voteDeduplicator != null ? voteDeduplicator.getSize() : 0);
+        metrics.registerGauge("leaderboard_players", "Players ranked by the leaderboard",
+                () -> leaderboard != null ? leaderboard.size() : 0);
+        metrics.registerGauge("votes_today", "Votes recorded today",
+                () -> voteRollups.getVotes(VotePeriod.DAY, 0, System.currentTimeMillis()));
+        metrics.registerGauge("votes_this_week", "Votes recorded this week",
+                () -> voteRollups.getVotes(VotePeriod.WEEK, 0, System.currentTimeMillis()));
+        metrics.registerGauge("votes_this_month", "Votes recorded this month",
+                () -> voteRollups.getVotes(VotePeriod.MONTH, 0, System.currentTimeMillis()));
+        metrics.registerGauge("votes_last_month", "Votes recorded last month",
+                () -> voteRollups.getVotes(VotePeriod.MONTH, 1, System.currentTimeMillis()));
+        metrics.registerGauge("active_deliveries", "Players whose pending rewards are being delivered",
+                rewardDeliveryScheduler::getActiveDeliveries);
+        metrics.registerGauge("jvm_heap_used_bytes", "Heap used by the whole server JVM", () -> {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        });
     }
 
     /**
@@ -124,20 +396,52 @@ public class HytaleVoteListener extends JavaPlugin {
      */
     @Override
     protected void shutdown() {
+        if (configWatcher != null) {
+            configWatcher.shutdown();
+        }
         if (voteListener != null) {
+            // Drain queued votes before the data managers write their final snapshots
+            voteListener.shutdown();
             getLogger().at(Level.INFO).log("Unregistered vote event listener");
         }
+        if (voteDeduplicator != null) {
+            voteDeduplicator.shutdown();
+        }
+        if (commandDispatcher != null) {
+            commandDispatcher.shutdown();
+        }
+        if (rewardDeliveryScheduler != null) {
+            // Return unfinished deliveries to the pending reward store before it is saved
+            rewardDeliveryScheduler.shutdown();
+        }
         if (playerJoinListener != null) {
             getLogger().at(Level.INFO).log("Unregistered player join listener");
         }
         if (claimVotesCommand != null) {
             getLogger().at(Level.INFO).log("Unregistered /claimvotes command");
         }
-        if (voteDataManager != null) {
-            getLogger().at(Level.INFO).log("Vote data saved (immediate persistence mode)");
+        if (topVotersCommand != null) {
+            getLogger().at(Level.INFO).log("Unregistered /topvoters command");
+        }
+        if (voteListenerCommand != null) {
+            getLogger().at(Level.INFO).log("Unregistered /votelistener command");
+        }
+        if (voteStore != null) {
+            // Stops background persistence (if enabled) and writes any remaining changes
+            voteStore.shutdown();
+            getLogger().at(Level.INFO).log("Vote data saved");
+        }
+        if (pendingRewardStore != null) {
+            // Stops journal compaction (if enabled) and writes the final snapshot
+            pendingRewardStore.shutdown();
+            getLogger().at(Level.INFO).log("Pending rewards data saved");
+        }
+        if (metricsFileWriter != null) {
+            // Written last so the final save times are included
+            metricsFileWriter.shutdown();
         }
-        if (pendingRewardsManager != null) {
-            getLogger().at(Level.INFO).log("Pending rewards data saved (immediate persistence mode)");
+        if (voteDatabase != null) {
+            voteDatabase.close();
         }
         getLogger().at(Level.INFO).log("HytaleVoteListener disabled");
     }
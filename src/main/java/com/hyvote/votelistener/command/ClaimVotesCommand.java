@@ -4,13 +4,12 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
-import com.hypixel.hytale.server.core.command.system.CommandManager;
-import com.hypixel.hytale.server.core.console.ConsoleSender;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hyvote.votelistener.HytaleVoteListener;
 import com.hyvote.votelistener.data.PendingReward;
-import com.hyvote.votelistener.data.PendingRewardsManager;
+import com.hyvote.votelistener.data.PendingRewardStore;
+import com.hyvote.votelistener.listener.RewardDeliveryScheduler;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -21,43 +20,40 @@ import java.util.logging.Level;
  *
  * This is an alternative to the automatic delivery on player join,
  * useful for edge cases or servers that prefer manual reward claiming.
+ * Claimed rewards are run by the {@link RewardDeliveryScheduler} like rewards
+ * delivered on join.
  */
 public class ClaimVotesCommand extends AbstractCommand {
 
     private final HytaleVoteListener plugin;
     private final HytaleLogger logger;
-    private final PendingRewardsManager pendingRewardsManager;
+    private final PendingRewardStore pendingRewardStore;
+    private final RewardDeliveryScheduler deliveryScheduler;
 
     /**
      * Creates a new ClaimVotesCommand.
      *
      * @param plugin The plugin instance
-     * @param pendingRewardsManager The pending rewards manager for retrieving and clearing rewards
+     * @param pendingRewardStore The pending reward store for retrieving and clearing rewards
+     * @param deliveryScheduler The scheduler that runs the reward commands
      */
-    public ClaimVotesCommand(HytaleVoteListener plugin, PendingRewardsManager pendingRewardsManager) {
+    public ClaimVotesCommand(HytaleVoteListener plugin, PendingRewardStore pendingRewardStore,
+                             RewardDeliveryScheduler deliveryScheduler) {
         super("claimvotes", "Claim your pending vote rewards");
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.pendingRewardsManager = pendingRewardsManager;
+        this.pendingRewardStore = pendingRewardStore;
+        this.deliveryScheduler = deliveryScheduler;
 
         // Require permission for access
         requirePermission("hyvote.claimvotes");
     }
 
-    /**
-     * Executes a command through the command manager.
-     *
-     * @param command The command string to execute
-     */
-    private void executeCommand(String command) {
-        CommandManager.get().handleCommand(ConsoleSender.INSTANCE, command);
-    }
-
     /**
      * Executes the /claimvotes command.
      *
-     * Checks permissions, verifies sender is a player, and delivers any pending
-     * vote rewards to the player.
+     * Checks permissions, verifies sender is a player, and schedules delivery
+     * of any pending vote rewards to the player.
      *
      * @param context The command context
      * @return CompletableFuture that completes when command is done
@@ -75,53 +71,27 @@ public class ClaimVotesCommand extends AbstractCommand {
         String uuid = playerRef.getUuid().toString();
         String username = playerRef.getUsername();
 
-        // Check if player has pending rewards (by UUID or username - offline votes use username)
-        String lookupKey = null;
-        if (pendingRewardsManager.hasPendingRewards(uuid)) {
-            lookupKey = uuid;
-        } else if (pendingRewardsManager.hasPendingRewards(username)) {
-            lookupKey = username;
-        }
+        // Offline votes are queued by username - move them to the player's UUID first
+        pendingRewardStore.linkPlayer(uuid, username);
 
-        if (lookupKey == null) {
+        // Claim the rewards (marking them in flight) so a concurrent join delivery cannot hand them out again
+        List<PendingReward> pendingRewards = pendingRewardStore.claimPendingRewards(uuid);
+        int totalRewards = pendingRewards.size();
+        if (totalRewards == 0) {
             context.sendMessage(Message.raw("You have no pending vote rewards to claim"));
             return CompletableFuture.completedFuture(null);
         }
 
-        // Get all pending rewards for this player
-        List<PendingReward> pendingRewards = pendingRewardsManager.getPendingRewards(lookupKey);
-        int totalRewards = pendingRewards.size();
-
         logger.at(Level.INFO).log("Player %s claiming %d pending vote rewards via /claimvotes",
                 username, totalRewards);
 
-        // Execute all commands from all pending rewards
-        int totalCommandsExecuted = 0;
-        for (PendingReward reward : pendingRewards) {
-            List<String> commands = reward.getCommands();
-            logger.at(Level.INFO).log("Processing reward with %d commands from service: %s",
-                    commands.size(), reward.getServiceName());
-            for (String command : commands) {
-                logger.at(Level.INFO).log("Executing claim command: %s", command);
-                try {
-                    executeCommand(command);
-                    totalCommandsExecuted++;
-                } catch (Exception e) {
-                    logger.at(Level.SEVERE).log("Failed to execute command '%s': %s", command, e.getMessage());
-                }
-            }
-        }
-
-        // Clear pending rewards after successful delivery
-        pendingRewardsManager.clearPendingRewards(lookupKey);
+        // Run the commands over the next ticks instead of all at once
+        deliveryScheduler.schedule(uuid, username, pendingRewards, 0);
 
         // Send success message to player
         context.sendMessage(Message.raw("Claimed " + totalRewards + " pending vote reward"
                 + (totalRewards > 1 ? "s" : "") + "! Thank you for voting!"));
 
-        logger.at(Level.INFO).log("Successfully delivered %d commands from %d pending rewards to %s via /claimvotes",
-                totalCommandsExecuted, totalRewards, username);
-
         return CompletableFuture.completedFuture(null);
     }
 }
@@ -0,0 +1,65 @@
+package com.hyvote.votelistener.command;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hyvote.votelistener.data.VoteDataExporter;
+import com.hyvote.votelistener.data.VoteStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Command for /votelistener export - writes all vote data to vote-data-export.json.
+ *
+ * Works with every storage backend. The export runs in the background because
+ * large servers can have millions of player records.
+ */
+public class ExportCommand extends AbstractCommand {
+
+    private final VoteStore voteStore;
+    private final Path pluginDataFolder;
+    private final HytaleLogger logger;
+
+    /**
+     * Creates a new ExportCommand.
+     *
+     * @param voteStore The vote store to export
+     * @param pluginDataFolder The folder to write the export to
+     * @param logger The logger for error messages
+     */
+    public ExportCommand(VoteStore voteStore, Path pluginDataFolder, HytaleLogger logger) {
+        super("export", "Export vote data to JSON");
+        this.voteStore = voteStore;
+        this.pluginDataFolder = pluginDataFolder;
+        this.logger = logger;
+
+        // Require permission for access
+        requirePermission("hyvote.admin");
+    }
+
+    /**
+     * Executes the /votelistener export command.
+     *
+     * @param context The command context
+     * @return CompletableFuture that completes when the export is written
+     */
+    @Override
+    public CompletableFuture<Void> execute(CommandContext context) {
+        context.sendMessage(Message.raw("Exporting vote data..."));
+        return CompletableFuture.runAsync(() -> {
+            try {
+                int players = VoteDataExporter.export(voteStore,
+                        pluginDataFolder.resolve(VoteDataExporter.EXPORT_FILE_NAME));
+                context.sendMessage(Message.raw("Exported " + players + " players to "
+                        + VoteDataExporter.EXPORT_FILE_NAME));
+            } catch (IOException | RuntimeException e) {
+                logger.at(Level.SEVERE).log("Failed to export vote data: " + e.getMessage());
+                context.sendMessage(Message.raw("Failed to export vote data - check the server log"));
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.hyvote.votelistener.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hyvote.votelistener.config.ConfigManager;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command for /votelistener reload - reloads config.json without a restart.
+ *
+ * Reward, bonus and command changes apply to the next vote. Persistence and
+ * vote processing settings still require a restart.
+ */
+public class ReloadCommand extends AbstractCommand {
+
+    private final ConfigManager configManager;
+
+    /**
+     * Creates a new ReloadCommand.
+     *
+     * @param configManager The config manager to reload through
+     */
+    public ReloadCommand(ConfigManager configManager) {
+        super("reload", "Reload the vote reward configuration");
+        this.configManager = configManager;
+
+        // Require permission for access
+        requirePermission("hyvote.admin");
+    }
+
+    /**
+     * Executes the /votelistener reload command.
+     *
+     * @param context The command context
+     * @return CompletableFuture that completes when command is done
+     */
+    @Override
+    public CompletableFuture<Void> execute(CommandContext context) {
+        if (configManager.reloadConfig()) {
+            context.sendMessage(Message.raw("HytaleVoteListener configuration reloaded"));
+        } else {
+            context.sendMessage(Message.raw("Failed to reload configuration - check the server log. "
+                    + "The previous configuration is still active."));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.hyvote.votelistener.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command for /votelistener stats - prints vote counters, latencies and gauges.
+ *
+ * Shows the same values that are written to the Prometheus metrics file.
+ */
+public class StatsCommand extends AbstractCommand {
+
+    private final VoteMetrics metrics;
+
+    /**
+     * Creates a new StatsCommand.
+     *
+     * @param metrics The metrics to report
+     */
+    public StatsCommand(VoteMetrics metrics) {
+        super("stats", "Show vote processing statistics");
+        this.metrics = metrics;
+
+        // Require permission for access
+        requirePermission("hyvote.admin");
+    }
+
+    /**
+     * Executes the /votelistener stats command.
+     *
+     * @param context The command context
+     * @return CompletableFuture that completes when command is done
+     */
+    @Override
+    public CompletableFuture<Void> execute(CommandContext context) {
+        for (String line : metrics.formatSummary()) {
+            context.sendMessage(Message.raw(line));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.hyvote.votelistener.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hyvote.votelistener.config.Config;
+import com.hyvote.votelistener.data.VoteLeaderboard;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Command for /topvoters - lists the players with the most votes.
+ *
+ * {@code /topvoters streak} lists the longest current streaks instead,
+ * {@code /topvoters month} the most votes this month and
+ * {@code /topvoters lastmonth} the final standings of last month. Players
+ * running the command also see their own rank, except for last month. Results
+ * come from the {@link VoteLeaderboard}, so the command costs the same however
+ * many players have voted.
+ */
+public class TopVotersCommand extends AbstractCommand {
+
+    /**
+     * The rankings the command and its subcommands list.
+     */
+    private enum Ranking {
+        TOTAL_VOTES("Top voters:", "votes", "No votes have been recorded yet"),
+        STREAK("Longest vote streaks:", "day streak", "No votes have been recorded yet"),
+        MONTH("Top voters this month:", "votes", "No votes have been recorded this month"),
+        LAST_MONTH("Top voters last month:", "votes", "No votes were recorded last month");
+
+        private final String heading;
+        private final String unit;
+        private final String emptyMessage;
+
+        Ranking(String heading, String unit, String emptyMessage) {
+            this.heading = heading;
+            this.unit = unit;
+            this.emptyMessage = emptyMessage;
+        }
+    }
+
+    private final VoteLeaderboard leaderboard;
+    private final Supplier<Config> configSource;
+    private final Ranking ranking;
+
+    /**
+     * Creates the /topvoters command with its streak, month and lastmonth subcommands.
+     *
+     * @param leaderboard The leaderboard to read
+     * @param configSource Supplies the current configuration snapshot
+     */
+    public TopVotersCommand(VoteLeaderboard leaderboard, Supplier<Config> configSource) {
+        this("topvoters", "Show the players with the most votes", leaderboard, configSource, Ranking.TOTAL_VOTES);
+        addSubCommand(new TopVotersCommand("streak", "Show the players with the longest vote streaks",
+                leaderboard, configSource, Ranking.STREAK));
+        addSubCommand(new TopVotersCommand("month", "Show the players with the most votes this month",
+                leaderboard, configSource, Ranking.MONTH));
+        addSubCommand(new TopVotersCommand("lastmonth", "Show the players with the most votes last month",
+                leaderboard, configSource, Ranking.LAST_MONTH));
+    }
+
+    /**
+     * Creates a leaderboard command for one ranking.
+     *
+     * @param name Command name
+     * @param description Command description
+     * @param leaderboard The leaderboard to read
+     * @param configSource Supplies the current configuration snapshot
+     * @param ranking The ranking to list
+     */
+    private TopVotersCommand(String name, String description, VoteLeaderboard leaderboard,
+                             Supplier<Config> configSource, Ranking ranking) {
+        super(name, description);
+        this.leaderboard = leaderboard;
+        this.configSource = configSource;
+        this.ranking = ranking;
+
+        // Require permission for access
+        requirePermission("hyvote.topvoters");
+    }
+
+    /**
+     * Executes the /topvoters command.
+     *
+     * @param context The command context
+     * @return CompletableFuture that completes when command is done
+     */
+    @Override
+    public CompletableFuture<Void> execute(CommandContext context) {
+        int size = Math.max(1, configSource.get().getLeaderboardSize());
+        List<VoteLeaderboard.Standing> standings = switch (ranking) {
+            case TOTAL_VOTES -> leaderboard.getTopByTotalVotes(size);
+            case STREAK -> leaderboard.getTopByStreak(size);
+            case MONTH -> leaderboard.getTopByMonth(size);
+            case LAST_MONTH -> leaderboard.getTopByPreviousMonth(size);
+        };
+        if (standings.isEmpty()) {
+            context.sendMessage(Message.raw(ranking.emptyMessage));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        context.sendMessage(Message.raw(ranking.heading));
+        for (VoteLeaderboard.Standing standing : standings) {
+            context.sendMessage(Message.raw("#" + standing.getRank() + " " + standing.getUsername() + " - "
+                    + standing.getScore() + " " + ranking.unit));
+        }
+
+        if (context.isPlayer() && ranking != Ranking.LAST_MONTH) {
+            PlayerRef playerRef = context.senderAs(Player.class).getPlayerRef();
+            int rank = rankOf(playerRef.getUuid().toString());
+            if (rank == 0) {
+                // Players who have only voted while offline are keyed by username
+                rank = rankOf(playerRef.getUsername());
+            }
+            context.sendMessage(Message.raw(rank > 0 ? "Your rank: #" + rank : "You have not voted yet"));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets a player's rank in this command's ranking.
+     *
+     * @param key The player's key in the vote store
+     * @return Rank starting at 1, or 0 if the player has not voted
+     */
+    private int rankOf(String key) {
+        return switch (ranking) {
+            case STREAK -> leaderboard.getStreakRank(key);
+            case MONTH -> leaderboard.getMonthlyRank(key);
+            default -> leaderboard.getRank(key);
+        };
+    }
+}
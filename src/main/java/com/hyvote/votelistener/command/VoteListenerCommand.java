@@ -0,0 +1,45 @@
+package com.hyvote.votelistener.command;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Command for /votelistener - administration commands for the plugin.
+ *
+ * Groups the admin subcommands (/votelistener reload, /votelistener export,
+ * /votelistener stats). Running it without a subcommand prints the available
+ * subcommands.
+ */
+public class VoteListenerCommand extends AbstractCommand {
+
+    /**
+     * Creates a new VoteListenerCommand.
+     *
+     * @param subCommands The subcommands to register
+     */
+    public VoteListenerCommand(AbstractCommand... subCommands) {
+        super("votelistener", "HytaleVoteListener administration");
+
+        // Require permission for access
+        requirePermission("hyvote.admin");
+
+        for (AbstractCommand subCommand : subCommands) {
+            addSubCommand(subCommand);
+        }
+    }
+
+    /**
+     * Executes /votelistener without a subcommand by printing usage.
+     *
+     * @param context The command context
+     * @return CompletableFuture that completes when command is done
+     */
+    @Override
+    public CompletableFuture<Void> execute(CommandContext context) {
+        context.sendMessage(Message.raw("Usage: /votelistener <reload|export|stats>"));
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -1,8 +1,12 @@
 package com.hyvote.votelistener.config;
 
+import com.hyvote.votelistener.reward.BonusIndex;
+import com.hyvote.votelistener.reward.RewardTable;
+import com.hyvote.votelistener.util.CommandTemplate;
+
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Configuration model for HytaleVoteListener.
@@ -18,6 +22,11 @@ public class Config {
      */
     private List<String> commands;
 
+    /**
+     * Commands compiled into templates; assigned only by {@link #compile()}.
+     */
+    private transient List<CommandTemplate> commandTemplates;
+
     /**
      * Whether to broadcast vote announcements to the server.
      */
@@ -40,6 +49,11 @@ public class Config {
      */
     private List<RandomReward> randomRewards;
 
+    /**
+     * Alias table for O(1) random reward selection; assigned only by {@link #compile()}.
+     */
+    private transient RewardTable randomRewardTable;
+
     /**
      * Whether streak bonus rewards are enabled.
      * When enabled, bonus rewards are given when players reach configured streak milestones.
@@ -52,6 +66,11 @@ public class Config {
      */
     private List<StreakBonus> streakBonuses;
 
+    /**
+     * Streak bonuses indexed by streak days; assigned only by {@link #compile()}.
+     */
+    private transient BonusIndex<StreakBonus> streakBonusIndex;
+
     /**
      * Whether milestone bonus rewards are enabled.
      * When enabled, bonus rewards are given when players reach configured total vote milestones.
@@ -64,8 +83,168 @@ public class Config {
      */
     private List<MilestoneBonus> milestoneBonuses;
 
+    /**
+     * Milestone bonuses indexed by votes required; assigned only by {@link #compile()}.
+     */
+    private transient BonusIndex<MilestoneBonus> milestoneBonusIndex;
+
+    /**
+     * Whether vote data is persisted in write-behind mode.
+     * When enabled, changed records are marked dirty and flushed by a background task
+     * instead of rewriting vote-data.json on every vote.
+     */
+    private boolean writeBehindEnabled;
+
+    /**
+     * Interval in seconds between background flushes of dirty vote data.
+     */
+    private int saveIntervalSeconds;
+
+    /**
+     * Number of dirty player records that triggers an early background flush.
+     */
+    private int saveDirtyThreshold;
+
+    /**
+     * Whether data mutations are appended to journal files in write-behind mode.
+     * The journal keeps background flushes crash-safe and lets pending rewards
+     * skip rewriting pending-rewards.json on every change.
+     */
+    private boolean journalEnabled;
+
+    /**
+     * Number of journal entries after which the journal is forced to disk.
+     * The journal is also synced once per second regardless of this value.
+     */
+    private int journalSyncBatchSize;
+
+    /**
+     * Number of previous data snapshots kept as rotated backups
+     * (e.g. vote-data.json.bak.1). Loading falls back to the newest readable backup.
+     */
+    private int snapshotBackups;
+
+    /**
+     * Whether data files (vote-data.json, pending-rewards.json) are written indented.
+     * Compact output is smaller and faster to write.
+     */
+    private boolean prettyPrintData;
+
+    /**
+     * Storage backend for vote data and pending rewards: "json" (default), "h2"
+     * for the embedded database, or "binary" for memory-mapped vote data files.
+     */
+    private String storageType;
+
+    /**
+     * Maximum number of player records kept in memory by the database backend.
+     * Least recently used players are dropped from memory once this is exceeded.
+     */
+    private int voteCacheSize;
+
+    /**
+     * Whether votes are processed off the Votifier event thread.
+     * When enabled, votes are queued and processed by background workers.
+     */
+    private boolean asyncVoteProcessing;
+
+    /**
+     * Number of parallel vote processing lanes.
+     * Votes for the same player always use the same lane, preserving their order.
+     */
+    private int voteWorkerLanes;
+
+    /**
+     * Maximum number of votes waiting for processing across all lanes.
+     * When full, new votes wait for space instead of being dropped.
+     */
+    private int voteQueueCapacity;
+
+    /**
+     * Whether votes repeated by a voting site or Votifier retry are ignored.
+     * A vote is a repeat if its service, username and site timestamp match an earlier vote.
+     */
+    private boolean voteDedupEnabled;
+
+    /**
+     * Minutes during which a repeated vote is ignored.
+     */
+    private int voteDedupWindowMinutes;
+
+    /**
+     * Maximum number of votes remembered for deduplication at once.
+     * Bounds memory; further votes within the window are not checked.
+     */
+    private int voteDedupMaxEntries;
+
+    /**
+     * Whether a leaderboard of total votes and streaks is kept in memory.
+     * Powers /topvoters and the %rank% placeholder.
+     */
+    private boolean leaderboardEnabled;
+
+    /**
+     * Number of players listed by /topvoters.
+     */
+    private int leaderboardSize;
+
+    /**
+     * Whether to reload the configuration automatically when config.json changes on disk.
+     */
+    private boolean watchConfig;
+
+    /**
+     * Seconds to wait after a player joins before delivering their pending rewards.
+     * Gives the server time to fully load the player.
+     */
+    private int deliveryStartDelaySeconds;
+
+    /**
+     * Milliseconds between pending reward delivery ticks.
+     */
+    private int deliveryTickMillis;
+
+    /**
+     * Maximum number of pending reward commands run for one player per delivery tick.
+     */
+    private int deliveryCommandsPerPlayer;
+
+    /**
+     * Maximum number of pending reward commands run across all players per delivery tick.
+     */
+    private int deliveryCommandsPerTick;
+
+    /**
+     * Number of failed attempts after which a pending reward is moved to the dead-letter queue.
+     */
+    private int deliveryMaxAttempts;
+
+    /**
+     * Seconds to wait before retrying a failed pending reward command.
+     * Doubles with each further failure of the same reward.
+     */
+    private int deliveryRetryDelaySeconds;
+
+    /**
+     * Whether to periodically write metrics to a Prometheus text file.
+     */
+    private boolean metricsFileEnabled;
+
+    /**
+     * Path of the Prometheus metrics file, relative to the plugin data folder unless absolute.
+     */
+    private String metricsFile;
+
+    /**
+     * Seconds between writes of the metrics file.
+     */
+    private int metricsIntervalSeconds;
+
     /**
      * Creates a new Config with default values.
+     *
+     * Gson calls this before filling in the fields, so nothing is compiled
+     * here; call {@link #compile()} before handing the config to vote handling.
      */
     public Config() {
         this.commands = new ArrayList<>();
@@ -83,17 +262,65 @@ public class Config {
         // Initialize milestone bonus configuration
         this.milestoneBonusEnabled = false;
         this.milestoneBonuses = new ArrayList<>();
+
+        // Initialize persistence configuration
+        this.writeBehindEnabled = false;
+        this.saveIntervalSeconds = 30;
+        this.saveDirtyThreshold = 100;
+        this.journalEnabled = false;
+        this.journalSyncBatchSize = 32;
+        this.snapshotBackups = 3;
+        this.prettyPrintData = false;
+        this.storageType = "json";
+        this.voteCacheSize = 10000;
+
+        // Initialize vote processing configuration
+        this.asyncVoteProcessing = false;
+        this.voteWorkerLanes = 4;
+        this.voteQueueCapacity = 1024;
+        this.voteDedupEnabled = false;
+        this.voteDedupWindowMinutes = 60;
+        this.voteDedupMaxEntries = 100000;
+
+        // Initialize leaderboard configuration
+        this.leaderboardEnabled = false;
+        this.leaderboardSize = 10;
+
+        // Initialize config reload configuration
+        this.watchConfig = false;
+
+        // Initialize pending reward delivery configuration
+        this.deliveryStartDelaySeconds = 1;
+        this.deliveryTickMillis = 50;
+        this.deliveryCommandsPerPlayer = 5;
+        this.deliveryCommandsPerTick = 20;
+        this.deliveryMaxAttempts = 5;
+        this.deliveryRetryDelaySeconds = 5;
+
+        // Initialize metrics configuration
+        this.metricsFileEnabled = false;
+        this.metricsFile = "votelistener.prom";
+        this.metricsIntervalSeconds = 15;
     }
 
     /**
      * Gets the list of commands to execute on vote.
      *
-     * @return List of command strings with placeholders
+     * @return Unmodifiable list of command strings with placeholders
      */
     public List<String> getCommands() {
         return commands;
     }
 
+    /**
+     * Gets the commands compiled into templates.
+     *
+     * @return Unmodifiable list of compiled command templates
+     */
+    public List<CommandTemplate> getCommandTemplates() {
+        return commandTemplates;
+    }
+
     /**
      * Returns whether vote broadcasts are enabled.
      *
@@ -124,7 +351,7 @@ public class Config {
     /**
      * Gets the list of random reward tiers.
      *
-     * @return List of RandomReward configurations
+     * @return Unmodifiable list of RandomReward configurations
      */
     public List<RandomReward> getRandomRewards() {
         return randomRewards;
@@ -142,7 +369,7 @@ public class Config {
     /**
      * Gets the list of streak bonus tiers.
      *
-     * @return List of StreakBonus configurations
+     * @return Unmodifiable list of StreakBonus configurations
      */
     public List<StreakBonus> getStreakBonuses() {
         return streakBonuses;
@@ -160,9 +387,347 @@ public class Config {
     /**
      * Gets the list of milestone bonus tiers.
      *
-     * @return List of MilestoneBonus configurations
+     * @return Unmodifiable list of MilestoneBonus configurations
      */
     public List<MilestoneBonus> getMilestoneBonuses() {
         return milestoneBonuses;
     }
+
+    /**
+     * Returns whether write-behind persistence is enabled for vote data.
+     *
+     * @return true if vote data should be flushed in the background
+     */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    /**
+     * Gets the interval between background vote data flushes.
+     *
+     * @return Flush interval in seconds
+     */
+    public int getSaveIntervalSeconds() {
+        return saveIntervalSeconds;
+    }
+
+    /**
+     * Gets the dirty record count that triggers an early flush.
+     *
+     * @return Dirty record threshold
+     */
+    public int getSaveDirtyThreshold() {
+        return saveDirtyThreshold;
+    }
+
+    /**
+     * Returns whether the append-only data journal is enabled.
+     *
+     * @return true if mutations should be journaled in write-behind mode
+     */
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /**
+     * Gets the number of journal entries after which the journal is forced to disk.
+     *
+     * @return Journal sync batch size
+     */
+    public int getJournalSyncBatchSize() {
+        return journalSyncBatchSize;
+    }
+
+    /**
+     * Gets the number of previous data snapshots kept as backups.
+     *
+     * @return Number of rotated snapshot backups
+     */
+    public int getSnapshotBackups() {
+        return snapshotBackups;
+    }
+
+    /**
+     * Returns whether data files are written with indentation.
+     *
+     * @return true if data files should be pretty-printed
+     */
+    public boolean isPrettyPrintData() {
+        return prettyPrintData;
+    }
+
+    /**
+     * Gets the storage backend for vote data and pending rewards.
+     *
+     * @return "json", "h2" or "binary"
+     */
+    public String getStorageType() {
+        return storageType;
+    }
+
+    /**
+     * Returns whether the embedded database backend is selected.
+     *
+     * @return true if storageType is "h2"
+     */
+    public boolean isDatabaseStorage() {
+        return "h2".equalsIgnoreCase(storageType);
+    }
+
+    /**
+     * Returns whether the memory-mapped binary vote data backend is selected.
+     *
+     * @return true if storageType is "binary"
+     */
+    public boolean isBinaryStorage() {
+        return "binary".equalsIgnoreCase(storageType);
+    }
+
+    /**
+     * Gets the maximum number of player records cached in memory by the database backend.
+     *
+     * @return Cache capacity in players
+     */
+    public int getVoteCacheSize() {
+        return voteCacheSize;
+    }
+
+    /**
+     * Returns whether votes are processed asynchronously.
+     *
+     * @return true if votes should be processed off the event thread
+     */
+    public boolean isAsyncVoteProcessing() {
+        return asyncVoteProcessing;
+    }
+
+    /**
+     * Gets the number of parallel vote processing lanes.
+     *
+     * @return Number of lanes
+     */
+    public int getVoteWorkerLanes() {
+        return voteWorkerLanes;
+    }
+
+    /**
+     * Gets the maximum number of queued votes.
+     *
+     * @return Vote queue capacity
+     */
+    public int getVoteQueueCapacity() {
+        return voteQueueCapacity;
+    }
+
+    /**
+     * Returns whether repeated votes are ignored.
+     *
+     * @return true if votes are deduplicated
+     */
+    public boolean isVoteDedupEnabled() {
+        return voteDedupEnabled;
+    }
+
+    /**
+     * Gets the window during which a repeated vote is ignored.
+     *
+     * @return Window in minutes
+     */
+    public int getVoteDedupWindowMinutes() {
+        return voteDedupWindowMinutes;
+    }
+
+    /**
+     * Gets the maximum number of votes remembered for deduplication.
+     *
+     * @return Maximum number of remembered votes
+     */
+    public int getVoteDedupMaxEntries() {
+        return voteDedupMaxEntries;
+    }
+
+    /**
+     * Returns whether the leaderboard is enabled.
+     *
+     * @return true if players are ranked by total votes and streak
+     */
+    public boolean isLeaderboardEnabled() {
+        return leaderboardEnabled;
+    }
+
+    /**
+     * Gets the number of players listed by /topvoters.
+     *
+     * @return Leaderboard size
+     */
+    public int getLeaderboardSize() {
+        return leaderboardSize;
+    }
+
+    /**
+     * Returns whether config.json is watched for changes and reloaded automatically.
+     *
+     * @return true if automatic reload is enabled
+     */
+    public boolean isWatchConfig() {
+        return watchConfig;
+    }
+
+    /**
+     * Gets the delay between a player joining and delivery of their pending rewards.
+     *
+     * @return Delay in seconds
+     */
+    public int getDeliveryStartDelaySeconds() {
+        return deliveryStartDelaySeconds;
+    }
+
+    /**
+     * Gets the interval between pending reward delivery ticks.
+     *
+     * @return Tick interval in milliseconds
+     */
+    public int getDeliveryTickMillis() {
+        return deliveryTickMillis;
+    }
+
+    /**
+     * Gets the maximum number of pending reward commands run for one player per tick.
+     *
+     * @return Per-player command budget
+     */
+    public int getDeliveryCommandsPerPlayer() {
+        return deliveryCommandsPerPlayer;
+    }
+
+    /**
+     * Gets the maximum number of pending reward commands run across all players per tick.
+     *
+     * @return Global command budget
+     */
+    public int getDeliveryCommandsPerTick() {
+        return deliveryCommandsPerTick;
+    }
+
+    /**
+     * Gets the number of failed attempts after which a pending reward is dead-lettered.
+     *
+     * @return Maximum delivery attempts
+     */
+    public int getDeliveryMaxAttempts() {
+        return deliveryMaxAttempts;
+    }
+
+    /**
+     * Gets the delay before the first retry of a failed pending reward command.
+     *
+     * @return Retry delay in seconds
+     */
+    public int getDeliveryRetryDelaySeconds() {
+        return deliveryRetryDelaySeconds;
+    }
+
+    /**
+     * Returns whether metrics are written to a Prometheus text file.
+     *
+     * @return true if the metrics file is enabled
+     */
+    public boolean isMetricsFileEnabled() {
+        return metricsFileEnabled;
+    }
+
+    /**
+     * Gets the path of the Prometheus metrics file.
+     *
+     * @return Path relative to the plugin data folder, or absolute
+     */
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * Gets the interval between writes of the metrics file.
+     *
+     * @return Interval in seconds
+     */
+    public int getMetricsIntervalSeconds() {
+        return metricsIntervalSeconds;
+    }
+
+    /**
+     * Gets the random rewards as an alias table.
+     *
+     * @return The reward table (empty if no random rewards are configured)
+     */
+    public RewardTable getRandomRewardTable() {
+        return randomRewardTable;
+    }
+
+    /**
+     * Gets the streak bonuses indexed by streak days.
+     *
+     * @return The streak bonus index
+     */
+    public BonusIndex<StreakBonus> getStreakBonusIndex() {
+        return streakBonusIndex;
+    }
+
+    /**
+     * Gets the milestone bonuses indexed by votes required.
+     *
+     * @return The milestone bonus index
+     */
+    public BonusIndex<MilestoneBonus> getMilestoneBonusIndex() {
+        return milestoneBonusIndex;
+    }
+
+    /**
+     * Precomputes the structures vote handling reads: every configured command
+     * is compiled into a {@link CommandTemplate}, the random rewards into a
+     * {@link RewardTable} and the streak and milestone bonuses into
+     * {@link BonusIndex} lookups.
+     *
+     * Called once after Gson has filled in the fields (or on a config built
+     * with the constructor), before the config is published, so vote handling
+     * never parses command strings or scans reward and bonus lists. The configured lists are
+     * replaced by unmodifiable copies without null entries, and the compiled
+     * fields are assigned only here, so a published config never changes.
+     */
+    public final void compile() {
+        commands = immutableCopy(commands);
+        randomRewards = immutableCopy(randomRewards);
+        streakBonuses = immutableCopy(streakBonuses);
+        milestoneBonuses = immutableCopy(milestoneBonuses);
+        for (RandomReward reward : randomRewards) {
+            reward.compile();
+        }
+        for (StreakBonus bonus : streakBonuses) {
+            bonus.compile();
+        }
+        for (MilestoneBonus bonus : milestoneBonuses) {
+            bonus.compile();
+        }
+
+        commandTemplates = CommandTemplate.compileAll(commands);
+        randomRewardTable = RewardTable.build(randomRewards);
+        streakBonusIndex = BonusIndex.build(streakBonuses, StreakBonus::getStreakDays, StreakBonus::isRepeating);
+        milestoneBonusIndex = BonusIndex.build(milestoneBonuses,
+                MilestoneBonus::getVotesRequired, MilestoneBonus::isRepeating);
+    }
+
+    /**
+     * Copies a list parsed by Gson into an unmodifiable list, dropping null
+     * entries left by stray commas or {@code null} in config.json.
+     *
+     * @param list The parsed list (may be null)
+     * @return Unmodifiable copy (empty for a null list)
+     */
+    static <T> List<T> immutableCopy(List<T> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+        List<T> entries = new ArrayList<>(list);
+        entries.removeIf(Objects::isNull);
+        return List.copyOf(entries);
+    }
 }
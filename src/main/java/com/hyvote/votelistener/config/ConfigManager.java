@@ -2,7 +2,9 @@ package com.hyvote.votelistener.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.util.AtomicFileWriter;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -14,6 +16,14 @@ import java.util.logging.Level;
  *
  * Handles JSON config file I/O using Gson, including default config
  * generation when config.json does not exist.
+ *
+ * <p>The current config is held in a volatile reference. Every load or reload
+ * parses config.json into a fresh {@link Config}, compiles it (command
+ * templates, reward alias table, bonus indexes) and only then publishes it, so
+ * readers always see a fully built snapshot. A loaded Config is never modified
+ * afterwards; a reload replaces it as a whole. Callers that need consistent
+ * settings for one operation, such as processing a vote, should read
+ * {@link #getConfig()} once and use that snapshot throughout.
  */
 public class ConfigManager {
 
@@ -22,7 +32,7 @@ public class ConfigManager {
     private final Path pluginDataFolder;
     private final HytaleLogger logger;
     private final Gson gson;
-    private Config config;
+    private volatile Config config;
 
     /**
      * Creates a new ConfigManager.
@@ -39,7 +49,9 @@ public class ConfigManager {
     /**
      * Loads the configuration from config.json.
      *
-     * If config.json does not exist, creates a default config first.
+     * If config.json does not exist, creates a default config first. If it
+     * cannot be read or is not valid JSON, the defaults are used and the
+     * error is logged.
      *
      * @return The loaded Config object
      */
@@ -51,16 +63,68 @@ public class ConfigManager {
             saveDefaultConfig();
         }
 
+        Config loaded;
         try {
-            String json = Files.readString(configPath);
-            config = gson.fromJson(json, Config.class);
+            loaded = readConfig(configPath);
             logger.at(Level.INFO).log("Loaded configuration from " + configPath);
-        } catch (IOException e) {
-            logger.at(Level.SEVERE).log("Failed to load config.json: " + e.getMessage());
-            config = new Config(); // Fallback to defaults
+        } catch (IOException | JsonParseException e) {
+            logger.at(Level.SEVERE).log("Failed to load config.json, using defaults: " + e.getMessage());
+            loaded = new Config(); // Fallback to defaults
+            loaded.compile();
         }
 
-        return config;
+        config = loaded;
+        return loaded;
+    }
+
+    /**
+     * Reloads config.json and atomically replaces the current configuration.
+     *
+     * If the file is missing or invalid, the current configuration stays in
+     * effect. Reward, bonus and command settings apply to the next vote;
+     * persistence and vote processing settings only take effect after a restart.
+     *
+     * @return true if the new configuration was applied
+     */
+    public boolean reloadConfig() {
+        Path configPath = pluginDataFolder.resolve(CONFIG_FILE_NAME);
+
+        if (!Files.exists(configPath)) {
+            logger.at(Level.WARNING).log("Cannot reload configuration: " + configPath + " does not exist");
+            return false;
+        }
+
+        try {
+            config = readConfig(configPath);
+            logger.at(Level.INFO).log("Reloaded configuration from " + configPath);
+            return true;
+        } catch (IOException | JsonParseException e) {
+            logger.at(Level.SEVERE).log("Failed to reload config.json, keeping current configuration: "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads and compiles a configuration file.
+     *
+     * @param configPath Path to config.json
+     * @return The compiled Config
+     * @throws IOException if the file cannot be read or is empty
+     * @throws JsonParseException if the file is not valid JSON
+     */
+    private Config readConfig(Path configPath) throws IOException {
+        String json = Files.readString(configPath);
+        Config loaded = gson.fromJson(json, Config.class);
+        if (loaded == null) {
+            throw new IOException("config.json is empty");
+        }
+        loaded.compile();
+        if (loaded.isJournalEnabled() && !loaded.isWriteBehindEnabled()) {
+            // Without write-behind every vote is already saved, so the journal is never opened
+            logger.at(Level.WARNING).log("journalEnabled has no effect unless writeBehindEnabled is also on");
+        }
+        return loaded;
     }
 
     /**
@@ -79,7 +143,7 @@ public class ConfigManager {
             Path configPath = pluginDataFolder.resolve(CONFIG_FILE_NAME);
             Config defaultConfig = new Config();
             String json = gson.toJson(defaultConfig);
-            Files.writeString(configPath, json);
+            AtomicFileWriter.writeString(configPath, 0, json);
             logger.at(Level.INFO).log("Saved default config.json");
         } catch (IOException e) {
             logger.at(Level.SEVERE).log("Failed to save default config.json: " + e.getMessage());
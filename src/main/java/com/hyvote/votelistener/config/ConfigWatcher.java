@@ -0,0 +1,154 @@
+package com.hyvote.votelistener.config;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches config.json and reloads the configuration when it changes.
+ *
+ * Runs a {@link WatchService} on the plugin data folder from a daemon thread.
+ * Editors often save in several steps (truncate, write, rename), so change
+ * events are debounced: the reload runs once the folder has been quiet for
+ * {@link #DEBOUNCE_MILLIS}.
+ */
+public class ConfigWatcher {
+
+    private static final String CONFIG_FILE_NAME = "config.json";
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final Path pluginDataFolder;
+    private final ConfigManager configManager;
+    private final HytaleLogger logger;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a new ConfigWatcher.
+     *
+     * @param pluginDataFolder The folder containing config.json
+     * @param configManager The config manager to reload through
+     * @param logger The logger for info and error messages
+     */
+    public ConfigWatcher(Path pluginDataFolder, ConfigManager configManager, HytaleLogger logger) {
+        this.pluginDataFolder = pluginDataFolder;
+        this.configManager = configManager;
+        this.logger = logger;
+    }
+
+    /**
+     * Starts watching config.json.
+     *
+     * @return true if the watcher started, false if the folder cannot be watched
+     */
+    public synchronized boolean start() {
+        if (thread != null) {
+            return true;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            pluginDataFolder.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.at(Level.WARNING).log("Failed to watch config.json for changes: " + e.getMessage());
+            closeWatchService();
+            return false;
+        }
+
+        thread = new Thread(this::watch, "HytaleVoteListener-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.at(Level.INFO).log("Watching config.json for changes");
+        return true;
+    }
+
+    /**
+     * Stops watching and waits for the watcher thread to exit.
+     */
+    public synchronized void shutdown() {
+        if (thread == null) {
+            return;
+        }
+        closeWatchService();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Watcher loop: waits for a change to config.json, lets it settle, then reloads.
+     */
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                if (!consume(key)) {
+                    continue;
+                }
+
+                // Wait until config.json has stopped changing; data file writes in the same folder don't count
+                long quietAt = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+                long remaining;
+                while ((remaining = quietAt - System.currentTimeMillis()) > 0) {
+                    WatchKey next = service.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next != null && consume(next)) {
+                        quietAt = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+                    }
+                }
+
+                logger.at(Level.INFO).log("Detected change to config.json, reloading");
+                configManager.reloadConfig();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains a watch key's events and re-arms it.
+     *
+     * @param key The signalled key
+     * @return true if any event concerned config.json
+     */
+    private boolean consume(WatchKey key) {
+        boolean configChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || CONFIG_FILE_NAME.equals(String.valueOf(event.context()))) {
+                configChanged = true;
+            }
+        }
+        key.reset();
+        return configChanged;
+    }
+
+    /**
+     * Closes the watch service, ignoring errors.
+     */
+    private void closeWatchService() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+        watchService = null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hyvote.votelistener.config;
 
+import com.hyvote.votelistener.util.CommandTemplate;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +32,23 @@ public class MilestoneBonus {
      */
     private String name;
 
+    /**
+     * Whether the bonus triggers at every multiple of {@link #votesRequired} instead of only once
+     * (e.g. every 50 votes: 50, 100, 150, ...).
+     */
+    private boolean repeating;
+
     /**
      * Commands to execute when this milestone bonus is reached.
      * Supports placeholders: %player%, %service%, %uuid%, %streak%, %totalvotes%
      */
     private List<String> commands;
 
+    /**
+     * Commands compiled into templates; assigned only by {@link #compile()}.
+     */
+    private transient List<CommandTemplate> commandTemplates;
+
     /**
      * Creates a new MilestoneBonus with default values.
      * Required for Gson deserialization.
@@ -43,6 +56,7 @@ public class MilestoneBonus {
     public MilestoneBonus() {
         this.votesRequired = 1;
         this.name = "default";
+        this.repeating = false;
         this.commands = new ArrayList<>();
     }
 
@@ -57,6 +71,7 @@ public class MilestoneBonus {
         this.votesRequired = votesRequired;
         this.name = name;
         this.commands = commands != null ? commands : new ArrayList<>();
+        compile();
     }
 
     /**
@@ -77,12 +92,41 @@ public class MilestoneBonus {
         return name;
     }
 
+    /**
+     * Checks whether this bonus repeats at every multiple of its threshold.
+     *
+     * @return true if the bonus repeats
+     */
+    public boolean isRepeating() {
+        return repeating;
+    }
+
     /**
      * Gets the commands to execute when this milestone bonus is reached.
      *
-     * @return List of command strings with placeholders
+     * @return Unmodifiable list of command strings with placeholders
      */
     public List<String> getCommands() {
         return commands;
     }
+
+    /**
+     * Gets the commands compiled into templates.
+     *
+     * @return Unmodifiable list of compiled command templates
+     */
+    public List<CommandTemplate> getCommandTemplates() {
+        return commandTemplates;
+    }
+
+    /**
+     * Freezes the commands and compiles them into templates.
+     *
+     * Called from the constructor that takes the commands, and by
+     * {@link Config#compile()} once Gson has filled in the fields.
+     */
+    final void compile() {
+        commands = Config.immutableCopy(commands);
+        commandTemplates = CommandTemplate.compileAll(commands);
+    }
 }
@@ -1,5 +1,7 @@
 package com.hyvote.votelistener.config;
 
+import com.hyvote.votelistener.util.CommandTemplate;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,6 +40,11 @@ public class RandomReward {
      */
     private List<String> commands;
 
+    /**
+     * Commands compiled into templates; assigned only by {@link #compile()}.
+     */
+    private transient List<CommandTemplate> commandTemplates;
+
     /**
      * Creates a new RandomReward with default values.
      */
@@ -58,6 +65,7 @@ public class RandomReward {
         this.name = name;
         this.chance = chance;
         this.commands = commands != null ? commands : new ArrayList<>();
+        compile();
     }
 
     /**
@@ -81,9 +89,29 @@ public class RandomReward {
     /**
      * Gets the commands to execute when this reward is selected.
      *
-     * @return List of command strings with placeholders
+     * @return Unmodifiable list of command strings with placeholders
      */
     public List<String> getCommands() {
         return commands;
     }
+
+    /**
+     * Gets the commands compiled into templates.
+     *
+     * @return Unmodifiable list of compiled command templates
+     */
+    public List<CommandTemplate> getCommandTemplates() {
+        return commandTemplates;
+    }
+
+    /**
+     * Freezes the commands and compiles them into templates.
+     *
+     * Called from the constructor that takes the commands, and by
+     * {@link Config#compile()} once Gson has filled in the fields.
+     */
+    final void compile() {
+        commands = Config.immutableCopy(commands);
+        commandTemplates = CommandTemplate.compileAll(commands);
+    }
 }
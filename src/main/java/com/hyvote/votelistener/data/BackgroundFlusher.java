@@ -0,0 +1,108 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Runs a manager's background persistence work on a dedicated daemon thread.
+ *
+ * The flush task runs on a fixed interval and can be requested early, for
+ * example when a dirty record threshold is reached. Early requests are coalesced
+ * so at most one extra flush is queued at a time.
+ */
+class BackgroundFlusher {
+
+    private final ScheduledExecutorService executor;
+    private final Runnable flushTask;
+    private final HytaleLogger logger;
+    private final AtomicBoolean flushQueued;
+
+    /**
+     * Creates and starts a new BackgroundFlusher.
+     *
+     * @param threadName Name of the background thread
+     * @param flushTask Task that persists dirty data
+     * @param intervalSeconds Seconds between scheduled flushes
+     * @param logger The logger for error messages
+     */
+    BackgroundFlusher(String threadName, Runnable flushTask, long intervalSeconds, HytaleLogger logger) {
+        this.flushTask = flushTask;
+        this.logger = logger;
+        this.flushQueued = new AtomicBoolean(false);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(1, intervalSeconds);
+        executor.scheduleWithFixedDelay(this::runFlush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Schedules an additional periodic task on the flusher thread.
+     *
+     * @param task Task to run
+     * @param periodMillis Milliseconds between runs
+     */
+    void schedulePeriodic(Runnable task, long periodMillis) {
+        executor.scheduleWithFixedDelay(() -> runSafely(task), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a flush to run as soon as possible, unless one is already queued.
+     */
+    void requestFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::runFlush);
+            } catch (RejectedExecutionException e) {
+                // Shutting down - the owner performs a final flush itself
+                flushQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Stops the flusher thread, waiting for any running flush to finish.
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.at(Level.WARNING).log("Timed out waiting for background flush to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the flush task, clearing the queued flag first so changes made
+     * during the flush can queue another one.
+     */
+    private void runFlush() {
+        flushQueued.set(false);
+        runSafely(flushTask);
+    }
+
+    /**
+     * Runs a task, logging instead of propagating failures so the
+     * scheduled executor keeps running it.
+     *
+     * @param task Task to run
+     */
+    private void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.at(Level.SEVERE).log("Background persistence task failed: " + e.getMessage());
+        }
+    }
+}
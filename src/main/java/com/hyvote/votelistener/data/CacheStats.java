@@ -0,0 +1,91 @@
+package com.hyvote.votelistener.data;
+
+/**
+ * Point-in-time counters of the player data cache.
+ */
+public final class CacheStats {
+
+    private final int size;
+    private final int capacity;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    /**
+     * Creates a new CacheStats snapshot.
+     *
+     * @param size Number of cached players
+     * @param capacity Maximum number of cached players
+     * @param hits Lookups served from memory
+     * @param misses Lookups that had to go to storage
+     * @param evictions Players dropped to stay within capacity
+     */
+    public CacheStats(int size, int capacity, long hits, long misses, long evictions) {
+        this.size = size;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Gets the number of cached players.
+     *
+     * @return Current cache size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of cached players.
+     *
+     * @return Cache capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of lookups served from memory.
+     *
+     * @return Hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to go to storage.
+     *
+     * @return Miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of players dropped to stay within capacity.
+     *
+     * @return Eviction count
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the fraction of lookups served from memory.
+     *
+     * @return Hit rate between 0 and 1 (0 if there were no lookups)
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d players, %d hits, %d misses, %d evictions (%.1f%% hit rate)",
+                size, capacity, hits, misses, evictions, getHitRate() * 100.0);
+    }
+}
@@ -0,0 +1,524 @@
+package com.hyvote.votelistener.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * {@link PendingRewardStore} backed by the embedded {@link VoteDatabase}.
+ *
+ * Each queued reward is one row, so adding a reward is a single insert instead
+ * of rewriting every player's rewards. Taking a player's rewards reads and
+ * deletes them in one transaction, so concurrent deliveries never receive the
+ * same reward twice.
+ *
+ * Rows keep the lower-cased username next to the player key, so
+ * {@link #linkPlayer(String, String)} moves a player's username-keyed rewards
+ * to their UUID with one indexed update.
+ *
+ * Each row also stores its delivery state ({@code PENDING} or
+ * {@code IN_FLIGHT}) and progress. A {@link DeliveryBatch} is applied as
+ * batched statements in one transaction; dead-lettered rewards are copied to
+ * {@code dead_letter_rewards} and deleted in the same transaction.
+ *
+ * Rewards built from a {@link RewardTemplate} store its ID and the values
+ * captured at vote time; each distinct template is stored once in
+ * {@code reward_templates}, in the same transaction as the first reward using
+ * it, and cached in memory. Unused templates are deleted on load.
+ */
+public class DatabasePendingRewardStore implements PendingRewardStore {
+
+    private static final Type COMMAND_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+
+    private static final String INSERT_REWARD =
+            "INSERT INTO pending_rewards (player_key, username, username_lower, service_name, vote_timestamp, commands, "
+            + "reward_id, commands_delivered, failed_attempts, template_id, site_timestamp, streak, total_votes, "
+            + "vote_rank) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS =
+            "SELECT id, player_key, username, service_name, vote_timestamp, commands, "
+            + "reward_id, commands_delivered, failed_attempts, template_id, site_timestamp, streak, total_votes, "
+            + "vote_rank FROM pending_rewards ";
+    private static final String SELECT_REWARDS =
+            SELECT_COLUMNS + "WHERE player_key = ? ORDER BY id";
+    private static final String SELECT_PENDING_REWARDS =
+            SELECT_COLUMNS + "WHERE player_key = ? AND state = 'PENDING' ORDER BY id";
+    private static final String CLAIM_REWARDS_UP_TO =
+            "UPDATE pending_rewards SET state = 'IN_FLIGHT' WHERE player_key = ? AND state = 'PENDING' AND id <= ?";
+    private static final String RELEASE_REWARD =
+            "UPDATE pending_rewards SET state = 'PENDING', commands_delivered = ?, failed_attempts = ? "
+            + "WHERE reward_id = ?";
+    private static final String RELEASE_ALL_REWARDS =
+            "UPDATE pending_rewards SET state = 'PENDING' WHERE state = 'IN_FLIGHT'";
+    private static final String ASSIGN_REWARD_IDS =
+            "UPDATE pending_rewards SET reward_id = CAST(RANDOM_UUID() AS VARCHAR) WHERE reward_id IS NULL";
+    private static final String UPDATE_PROGRESS =
+            "UPDATE pending_rewards SET commands_delivered = ?, failed_attempts = ? WHERE reward_id = ?";
+    private static final String DELETE_REWARD =
+            "DELETE FROM pending_rewards WHERE reward_id = ?";
+    private static final String INSERT_DEAD_LETTER =
+            "INSERT INTO dead_letter_rewards (reward_id, player_key, username, service_name, vote_timestamp, commands, "
+            + "commands_delivered, failed_attempts, reason, failed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_TEMPLATE =
+            "MERGE INTO reward_templates (template_id, definition) KEY (template_id) VALUES (?, ?)";
+    private static final String SELECT_TEMPLATES =
+            "SELECT template_id, definition FROM reward_templates";
+    private static final String DELETE_UNUSED_TEMPLATES =
+            "DELETE FROM reward_templates WHERE template_id NOT IN "
+            + "(SELECT template_id FROM pending_rewards WHERE template_id IS NOT NULL)";
+    private static final String UNRESOLVED_TEMPLATE =
+            "template_id IS NOT NULL AND template_id NOT IN (SELECT template_id FROM reward_templates)";
+    private static final String DEAD_LETTER_UNRESOLVED =
+            "INSERT INTO dead_letter_rewards (reward_id, player_key, username, service_name, vote_timestamp, commands, "
+            + "commands_delivered, failed_attempts, reason, failed_at) "
+            + "SELECT reward_id, player_key, username, service_name, vote_timestamp, commands, commands_delivered, "
+            + "failed_attempts, CONCAT('Reward template ', template_id, ' not found'), ? "
+            + "FROM pending_rewards WHERE " + UNRESOLVED_TEMPLATE;
+    private static final String DELETE_UNRESOLVED =
+            "DELETE FROM pending_rewards WHERE " + UNRESOLVED_TEMPLATE;
+    private static final String DELETE_REWARDS_UP_TO =
+            "DELETE FROM pending_rewards WHERE player_key = ? AND id <= ?";
+    private static final String LINK_REWARDS =
+            "UPDATE pending_rewards SET player_key = ? "
+            + "WHERE username_lower = ? AND LOWER(player_key) = username_lower";
+    private static final String HAS_REWARDS =
+            "SELECT 1 FROM pending_rewards WHERE player_key = ? LIMIT 1";
+    private static final String COUNT_REWARDS =
+            "SELECT COUNT(*), COUNT(DISTINCT player_key) FROM pending_rewards";
+
+    private final VoteDatabase database;
+    private final HytaleLogger logger;
+    private final Gson gson;
+    private final Map<String, RewardTemplate> templates;
+
+    /**
+     * Creates a new DatabasePendingRewardStore.
+     *
+     * @param database The open vote database
+     * @param logger The logger for info and error messages
+     */
+    public DatabasePendingRewardStore(VoteDatabase database, HytaleLogger logger) {
+        this.database = database;
+        this.logger = logger;
+        this.gson = new Gson();
+        this.templates = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void load() {
+        database.inTransaction(connection -> {
+            try (PreparedStatement assign = connection.prepareStatement(ASSIGN_REWARD_IDS);
+                 PreparedStatement release = connection.prepareStatement(RELEASE_ALL_REWARDS)) {
+                assign.executeUpdate();
+                int released = release.executeUpdate();
+                if (released > 0) {
+                    logger.at(Level.INFO).log(released + " pending rewards were being delivered when the server stopped "
+                            + "and will resume where they stopped");
+                }
+            }
+            loadTemplates(connection);
+            return null;
+        });
+        database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_REWARDS);
+                 ResultSet result = statement.executeQuery()) {
+                if (result.next()) {
+                    logger.at(Level.INFO).log("Vote database contains pending rewards for " + result.getInt(2)
+                            + " players (" + result.getInt(1) + " total rewards)");
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Inserts the reward, and its template if it is not stored yet, in one transaction.
+     */
+    @Override
+    public void addPendingReward(String uuid, PendingReward reward) {
+        RewardTemplate newTemplate = internTemplate(reward);
+        database.inTransaction(connection -> {
+            if (newTemplate != null) {
+                storeTemplates(connection, List.of(newTemplate));
+            }
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_REWARD)) {
+                bindReward(statement, uuid, reward);
+                statement.executeUpdate();
+            }
+            return null;
+        });
+        if (newTemplate != null) {
+            templates.putIfAbsent(newTemplate.getId(), newTemplate);
+        }
+        logger.at(Level.INFO).log("Added pending reward for " + reward.getUsername()
+                + " from " + reward.getServiceName() + " (" + reward.getCommandCount() + " commands)");
+    }
+
+    /**
+     * Re-keys rows whose player key is the username, in any case, to the UUID.
+     * Rows already keyed by a UUID are left alone.
+     */
+    @Override
+    public void linkPlayer(String uuid, String username) {
+        int moved = database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LINK_REWARDS)) {
+                statement.setString(1, uuid);
+                statement.setString(2, username.toLowerCase(Locale.ROOT));
+                return statement.executeUpdate();
+            }
+        });
+        if (moved > 0) {
+            logger.at(Level.INFO).log("Moved " + moved + " pending rewards for " + username + " to " + uuid);
+        }
+    }
+
+    @Override
+    public List<PendingReward> getPendingRewards(String uuid) {
+        return database.execute(connection -> selectRewards(connection, SELECT_REWARDS, uuid, null));
+    }
+
+    @Override
+    public List<PendingReward> takePendingRewards(String uuid) {
+        List<PendingReward> removed = database.inTransaction(connection -> {
+            long[] maxId = new long[1];
+            List<PendingReward> rewards = selectRewards(connection, SELECT_REWARDS, uuid, maxId);
+            if (!rewards.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(DELETE_REWARDS_UP_TO)) {
+                    statement.setString(1, uuid);
+                    statement.setLong(2, maxId[0]);
+                    statement.executeUpdate();
+                }
+            }
+            return rewards;
+        });
+        if (!removed.isEmpty()) {
+            logger.at(Level.INFO).log("Cleared " + removed.size() + " pending rewards for player " + uuid);
+        }
+        return removed;
+    }
+
+    @Override
+    public List<PendingReward> claimPendingRewards(String uuid) {
+        return database.inTransaction(connection -> {
+            long[] maxId = new long[1];
+            List<PendingReward> rewards = selectRewards(connection, SELECT_PENDING_REWARDS, uuid, maxId);
+            if (!rewards.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(CLAIM_REWARDS_UP_TO)) {
+                    statement.setString(1, uuid);
+                    statement.setLong(2, maxId[0]);
+                    statement.executeUpdate();
+                }
+            }
+            return rewards;
+        });
+    }
+
+    @Override
+    public void releasePendingRewards(String uuid, List<PendingReward> rewards) {
+        if (rewards.isEmpty()) {
+            return;
+        }
+        database.inTransaction(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(RELEASE_REWARD)) {
+                for (PendingReward reward : rewards) {
+                    statement.setInt(1, reward.getCommandsDelivered());
+                    statement.setInt(2, reward.getFailedAttempts());
+                    statement.setString(3, reward.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Applies progress updates, deletions and dead-letter copies as one batch
+     * per statement type in a single transaction.
+     */
+    @Override
+    public void applyDeliveryBatch(DeliveryBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        database.inTransaction(connection -> {
+            try (PreparedStatement progress = connection.prepareStatement(UPDATE_PROGRESS);
+                 PreparedStatement deadLetter = connection.prepareStatement(INSERT_DEAD_LETTER);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_REWARD)) {
+                long now = System.currentTimeMillis();
+                for (DeliveryBatch.Entry entry : batch.getEntries()) {
+                    PendingReward reward = entry.getReward();
+                    switch (entry.getTransition()) {
+                        case PROGRESS -> {
+                            progress.setInt(1, reward.getCommandsDelivered());
+                            progress.setInt(2, reward.getFailedAttempts());
+                            progress.setString(3, reward.getId());
+                            progress.addBatch();
+                        }
+                        case DEAD_LETTER -> {
+                            deadLetter.setString(1, reward.getId());
+                            deadLetter.setString(2, entry.getKey());
+                            deadLetter.setString(3, reward.getUsername());
+                            deadLetter.setString(4, reward.getServiceName());
+                            deadLetter.setLong(5, reward.getTimestamp());
+                            deadLetter.setString(6, gson.toJson(reward.getCommands(), COMMAND_LIST_TYPE));
+                            deadLetter.setInt(7, reward.getCommandsDelivered());
+                            deadLetter.setInt(8, reward.getFailedAttempts());
+                            deadLetter.setString(9, truncate(entry.getReason(), 1024));
+                            deadLetter.setLong(10, now);
+                            deadLetter.addBatch();
+                            delete.setString(1, reward.getId());
+                            delete.addBatch();
+                        }
+                        case DELIVERED -> {
+                            delete.setString(1, reward.getId());
+                            delete.addBatch();
+                        }
+                    }
+                }
+                // Progress first: a reward updated and then delivered in the same batch ends up deleted
+                progress.executeBatch();
+                deadLetter.executeBatch();
+                delete.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void clearPendingRewards(String uuid) {
+        takePendingRewards(uuid);
+    }
+
+    @Override
+    public boolean hasPendingRewards(String uuid) {
+        return database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(HAS_REWARDS)) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next();
+                }
+            }
+        });
+    }
+
+    /**
+     * Every change is committed immediately, so there is nothing to flush.
+     */
+    @Override
+    public void flush() {
+        // Nothing buffered
+    }
+
+    /**
+     * Nothing to stop; the database itself is closed by its owner.
+     */
+    @Override
+    public void shutdown() {
+        // Nothing buffered
+    }
+
+    /**
+     * Inserts many rewards with one batched statement in a single transaction.
+     *
+     * Used by {@link JsonToDatabaseMigrator} to import existing data.
+     *
+     * @param uuid Player key
+     * @param rewards Rewards in delivery order
+     */
+    void insertBatch(String uuid, List<PendingReward> rewards) {
+        Map<String, RewardTemplate> newTemplates = new HashMap<>();
+        for (PendingReward reward : rewards) {
+            RewardTemplate newTemplate = internTemplate(reward);
+            if (newTemplate != null) {
+                newTemplates.putIfAbsent(newTemplate.getId(), newTemplate);
+            }
+        }
+        database.inTransaction(connection -> {
+            storeTemplates(connection, newTemplates.values());
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_REWARD)) {
+                for (PendingReward reward : rewards) {
+                    bindReward(statement, uuid, reward);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+        templates.putAll(newTemplates);
+    }
+
+    /**
+     * Checks whether the database holds any pending rewards.
+     *
+     * @return true if pending_rewards is empty
+     */
+    boolean isEmpty() {
+        return database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_REWARDS);
+                 ResultSet result = statement.executeQuery()) {
+                return !result.next() || result.getInt(1) == 0;
+            }
+        });
+    }
+
+    /**
+     * Binds a reward to the insert statement's parameters.
+     *
+     * @param statement The insert statement
+     * @param uuid Player key
+     * @param reward The reward
+     * @throws SQLException if a parameter cannot be set
+     */
+    private void bindReward(PreparedStatement statement, String uuid, PendingReward reward) throws SQLException {
+        String username = reward.getUsername();
+        statement.setString(1, uuid);
+        statement.setString(2, username);
+        statement.setString(3, username != null ? username.toLowerCase(Locale.ROOT) : null);
+        statement.setString(4, reward.getServiceName());
+        statement.setLong(5, reward.getTimestamp());
+        // Templated rewards are expanded on delivery, so only the template ID and captured values are stored
+        String templateId = reward.getTemplateId();
+        statement.setString(6, templateId != null ? "[]" : gson.toJson(reward.getCommands(), COMMAND_LIST_TYPE));
+        statement.setString(7, reward.getId());
+        statement.setInt(8, reward.getCommandsDelivered());
+        statement.setInt(9, reward.getFailedAttempts());
+        statement.setString(10, templateId);
+        statement.setLong(11, reward.getVoteTimestamp());
+        statement.setInt(12, reward.getStreak());
+        statement.setInt(13, reward.getTotalVotes());
+        statement.setInt(14, reward.getRank());
+    }
+
+    /**
+     * Dead-letters rewards whose template is missing, deletes unused templates
+     * and reads the rest into the cache.
+     *
+     * @param connection The connection, inside the load transaction
+     * @throws SQLException if a statement fails
+     */
+    private void loadTemplates(Connection connection) throws SQLException {
+        try (PreparedStatement deadLetter = connection.prepareStatement(DEAD_LETTER_UNRESOLVED);
+             PreparedStatement deleteUnresolved = connection.prepareStatement(DELETE_UNRESOLVED);
+             PreparedStatement deleteUnused = connection.prepareStatement(DELETE_UNUSED_TEMPLATES)) {
+            deadLetter.setLong(1, System.currentTimeMillis());
+            int unresolved = deadLetter.executeUpdate();
+            deleteUnresolved.executeUpdate();
+            if (unresolved > 0) {
+                logger.at(Level.SEVERE).log(unresolved + " pending rewards refer to missing reward templates "
+                        + "and were moved to dead_letter_rewards");
+            }
+            deleteUnused.executeUpdate();
+        }
+
+        templates.clear();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_TEMPLATES);
+             ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                templates.put(result.getString(1), gson.fromJson(result.getString(2), RewardTemplate.class));
+            }
+        }
+    }
+
+    /**
+     * Makes a reward share the cached copy of its template.
+     *
+     * @param reward The reward about to be inserted
+     * @return The reward's template if it is not stored yet, otherwise null
+     */
+    private RewardTemplate internTemplate(PendingReward reward) {
+        RewardTemplate template = reward.getTemplate();
+        if (template == null) {
+            return null;
+        }
+        RewardTemplate existing = templates.get(template.getId());
+        if (existing != null) {
+            reward.bindTemplate(existing);
+            return null;
+        }
+        return template;
+    }
+
+    /**
+     * Stores templates, ignoring ones that are already stored.
+     *
+     * @param connection The connection, inside the caller's transaction
+     * @param newTemplates Templates to store
+     * @throws SQLException if the statement fails
+     */
+    private void storeTemplates(Connection connection, Collection<RewardTemplate> newTemplates) throws SQLException {
+        if (newTemplates.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_TEMPLATE)) {
+            for (RewardTemplate template : newTemplates) {
+                statement.setString(1, template.getId());
+                statement.setString(2, gson.toJson(template));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Shortens text to fit a column.
+     *
+     * @param text Text to shorten (may be null)
+     * @param maxLength Column width
+     * @return The text, cut to at most maxLength characters
+     */
+    private static String truncate(String text, int maxLength) {
+        return text != null && text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
+    /**
+     * Reads a player's rewards in insertion order.
+     *
+     * @param connection The connection
+     * @param sql Query selecting {@link #SELECT_COLUMNS} for one player key
+     * @param uuid Player key
+     * @param maxId Receives the highest row id read (may be null)
+     * @return The rewards
+     * @throws SQLException if the query fails
+     */
+    private List<PendingReward> selectRewards(Connection connection, String sql, String uuid, long[] maxId)
+            throws SQLException {
+        List<PendingReward> rewards = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, uuid);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    if (maxId != null) {
+                        maxId[0] = Math.max(maxId[0], result.getLong(1));
+                    }
+                    String templateId = result.getString(10);
+                    if (templateId != null) {
+                        rewards.add(PendingReward.fromStoredTemplate(result.getString(7), result.getString(2),
+                                result.getString(3), result.getString(4), result.getLong(5), templateId,
+                                templates.get(templateId), result.getLong(11), result.getInt(12), result.getInt(13),
+                                result.getInt(14), result.getInt(8), result.getInt(9)));
+                        continue;
+                    }
+                    List<String> commands = gson.fromJson(result.getString(6), COMMAND_LIST_TYPE);
+                    rewards.add(new PendingReward(result.getString(7), result.getString(2), result.getString(3),
+                            result.getString(4), result.getLong(5), commands != null ? commands : new ArrayList<>(),
+                            result.getInt(8), result.getInt(9)));
+                }
+            }
+        }
+        return rewards;
+    }
+}
@@ -0,0 +1,347 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * {@link VoteStore} backed by the embedded {@link VoteDatabase}.
+ *
+ * <p>Only the players being voted for are read, through prepared statements on
+ * the indexed player key, so memory use no longer grows with the number of
+ * players who have ever voted.
+ *
+ * <p>By default each vote is committed immediately. With write batching
+ * enabled, updated records are buffered and written together with one batched
+ * {@code MERGE} per transaction, once a second or as soon as the configured
+ * number of players changed. Reads see buffered records first, and a record
+ * leaves the buffer only after the transaction containing it has committed, so
+ * a read can never fall back to an older row while a flush is in progress.
+ *
+ * <p>Recently used records are kept in a bounded {@link PlayerDataCache}, so
+ * repeat voters are served from memory while heap use stays proportional to the
+ * number of active voters. A cache miss loads the row lazily. Dirty records
+ * stay in the write buffer until committed, whether or not they are still
+ * cached, so evicting a changed player writes it back instead of dropping it.
+ *
+ * <p>Votes for the same player are applied one after another using striped
+ * locks; votes for different players proceed in parallel up to the database.
+ */
+public class DatabaseVoteStore implements VoteStore {
+
+    private static final long FLUSH_INTERVAL_SECONDS = 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String SELECT_PLAYER =
+            "SELECT player_key, username, total_votes, current_streak, last_vote_timestamp, "
+            + "daily_votes, weekly_votes, monthly_votes FROM player_votes WHERE player_key = ?";
+    private static final String MERGE_PLAYER =
+            "MERGE INTO player_votes (player_key, username, username_lower, total_votes, current_streak, "
+            + "last_vote_timestamp, daily_votes, weekly_votes, monthly_votes) KEY (player_key) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COUNT_PLAYERS = "SELECT COUNT(*) FROM player_votes";
+    private static final String SELECT_PAGE =
+            "SELECT player_key, username, total_votes, current_streak, last_vote_timestamp, "
+            + "daily_votes, weekly_votes, monthly_votes FROM player_votes "
+            + "WHERE player_key > ? ORDER BY player_key LIMIT ?";
+    private static final String SELECT_BY_TOTAL_VOTES =
+            "SELECT player_key, username, total_votes, current_streak, last_vote_timestamp, "
+            + "daily_votes, weekly_votes, monthly_votes FROM player_votes "
+            + "ORDER BY total_votes DESC, last_vote_timestamp, player_key";
+    private static final int PAGE_SIZE = 1000;
+
+    private final VoteDatabase database;
+    private final HytaleLogger logger;
+    private final Object[] stripes;
+    private final Map<String, PlayerVoteData> unflushed;
+    private final PlayerDataCache cache;
+    private final Object flushLock;
+    private volatile BackgroundFlusher flusher;
+    private volatile int batchSize;
+
+    /**
+     * Creates a new DatabaseVoteStore.
+     *
+     * @param database The open vote database
+     * @param cacheSize Maximum number of player records kept in memory
+     * @param logger The logger for info and error messages
+     */
+    public DatabaseVoteStore(VoteDatabase database, int cacheSize, HytaleLogger logger) {
+        this.database = database;
+        this.logger = logger;
+        this.stripes = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.unflushed = new ConcurrentHashMap<>();
+        this.cache = new PlayerDataCache(cacheSize);
+        this.flushLock = new Object();
+    }
+
+    /**
+     * Buffers vote updates and commits them in batches instead of once per vote.
+     *
+     * @param batchSize Number of changed players that triggers a flush before the next scheduled one
+     */
+    public synchronized void enableWriteBatching(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        if (flusher == null) {
+            flusher = new BackgroundFlusher("HytaleVoteListener-VoteDatabaseFlush", this::flush,
+                    FLUSH_INTERVAL_SECONDS, logger);
+            logger.at(Level.INFO).log("Vote database write batching enabled (flush every %ds or %d changes)",
+                    FLUSH_INTERVAL_SECONDS, this.batchSize);
+        }
+    }
+
+    @Override
+    public void load() {
+        int players = database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_PLAYERS);
+                 ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getInt(1) : 0;
+            }
+        });
+        logger.at(Level.INFO).log("Vote database contains " + players + " players");
+    }
+
+    @Override
+    public PlayerVoteData recordVote(String uuid, String username) {
+        PlayerVoteData data;
+        synchronized (stripeFor(uuid)) {
+            PlayerVoteData existing = getPlayerData(uuid);
+            data = existing != null ? existing.copy() : new PlayerVoteData(uuid, username, 0, 0, 0);
+            data.setUsername(username);
+            data.registerVote(System.currentTimeMillis());
+            unflushed.put(uuid, data);
+            cache.put(uuid, data);
+        }
+
+        BackgroundFlusher activeFlusher = flusher;
+        if (activeFlusher == null) {
+            flush();
+        } else if (unflushed.size() >= batchSize) {
+            activeFlusher.requestFlush();
+        }
+
+        logger.at(Level.INFO).log("Recorded vote for " + username + " - Total: " + data.getTotalVotes()
+                + ", Streak: " + data.getCurrentStreak());
+        return data;
+    }
+
+    @Override
+    public PlayerVoteData getPlayerData(String uuid) {
+        PlayerVoteData cached = cache.get(uuid);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Load under the player's lock so a concurrent vote cannot be overwritten by an older row
+        synchronized (stripeFor(uuid)) {
+            PlayerVoteData current = cache.peek(uuid);
+            if (current == null) {
+                current = unflushed.get(uuid);
+            }
+            if (current == null) {
+                current = loadPlayer(uuid);
+            }
+            if (current != null) {
+                cache.put(uuid, current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Calls the action for every player, reading the table in pages ordered by
+     * key so the connection is only held for one page at a time.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    @Override
+    public void forEachPlayer(BiConsumer<String, PlayerVoteData> action) {
+        flush();
+        String lastKey = "";
+        while (true) {
+            String afterKey = lastKey;
+            List<PlayerVoteData> page = database.execute(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_PAGE)) {
+                    statement.setString(1, afterKey);
+                    statement.setInt(2, PAGE_SIZE);
+                    List<PlayerVoteData> rows = new ArrayList<>(PAGE_SIZE);
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            rows.add(new PlayerVoteData(result.getString(1), result.getString(2),
+                                    result.getInt(3), result.getInt(4), result.getLong(5),
+                                    result.getLong(6), result.getLong(7), result.getLong(8)));
+                        }
+                    }
+                    return rows;
+                }
+            });
+            for (PlayerVoteData data : page) {
+                action.accept(data.getUuid(), data);
+            }
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            lastKey = page.get(page.size() - 1).getUuid();
+        }
+    }
+
+    /**
+     * Calls the action for every player, sorted by the database with one
+     * {@code ORDER BY} query.
+     *
+     * Rows are streamed straight from the result set and never enter the
+     * player data cache. The connection is held for the whole pass, which is
+     * only done at startup, before votes are received.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    @Override
+    public void forEachPlayerByTotalVotes(BiConsumer<String, PlayerVoteData> action) {
+        flush();
+        database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_BY_TOTAL_VOTES)) {
+                statement.setFetchSize(PAGE_SIZE);
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        PlayerVoteData data = new PlayerVoteData(result.getString(1), result.getString(2),
+                                result.getInt(3), result.getInt(4), result.getLong(5),
+                                result.getLong(6), result.getLong(7), result.getLong(8));
+                        action.accept(data.getUuid(), data);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Gets the player data cache counters.
+     *
+     * @return Snapshot of cache size, hits, misses and evictions
+     */
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Reads a player's row from the database.
+     *
+     * @param uuid Player key
+     * @return The stored record, or null if the player has never voted
+     */
+    private PlayerVoteData loadPlayer(String uuid) {
+        return database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_PLAYER)) {
+                statement.setString(1, uuid);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (!result.next()) {
+                        return null;
+                    }
+                    return new PlayerVoteData(result.getString(1), result.getString(2),
+                            result.getInt(3), result.getInt(4), result.getLong(5),
+                            result.getLong(6), result.getLong(7), result.getLong(8));
+                }
+            }
+        });
+    }
+
+    /**
+     * Commits all buffered records in one transaction.
+     */
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            if (unflushed.isEmpty()) {
+                return;
+            }
+            List<PlayerVoteData> batch = new ArrayList<>(unflushed.values());
+            writeBatch(batch);
+
+            // Drop only records not replaced by a newer vote while the batch was written
+            for (PlayerVoteData data : batch) {
+                unflushed.remove(data.getUuid(), data);
+            }
+        }
+    }
+
+    /**
+     * Stops batching and commits any remaining records.
+     */
+    @Override
+    public void shutdown() {
+        BackgroundFlusher activeFlusher;
+        synchronized (this) {
+            activeFlusher = flusher;
+            flusher = null;
+        }
+        if (activeFlusher != null) {
+            activeFlusher.shutdown();
+        }
+        flush();
+        logger.at(Level.INFO).log("Vote data cache: " + cache.getStats());
+    }
+
+    /**
+     * Upserts records with one batched statement in a single transaction.
+     *
+     * Also used by {@link JsonToDatabaseMigrator} to import existing data.
+     *
+     * @param batch Records to write
+     */
+    void writeBatch(List<PlayerVoteData> batch) {
+        database.inTransaction(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_PLAYER)) {
+                for (PlayerVoteData data : batch) {
+                    String username = data.getUsername();
+                    statement.setString(1, data.getUuid());
+                    statement.setString(2, username);
+                    statement.setString(3, username != null ? username.toLowerCase(Locale.ROOT) : null);
+                    statement.setInt(4, data.getTotalVotes());
+                    statement.setInt(5, data.getCurrentStreak());
+                    statement.setLong(6, data.getLastVoteTimestamp());
+                    statement.setLong(7, data.getVoteRing(VotePeriod.DAY));
+                    statement.setLong(8, data.getVoteRing(VotePeriod.WEEK));
+                    statement.setLong(9, data.getVoteRing(VotePeriod.MONTH));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Checks whether the database holds any player records.
+     *
+     * @return true if player_votes is empty
+     */
+    boolean isEmpty() {
+        return database.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_PLAYERS);
+                 ResultSet result = statement.executeQuery()) {
+                return !result.next() || result.getInt(1) == 0;
+            }
+        });
+    }
+
+    /**
+     * Gets the lock serializing votes for a player.
+     *
+     * @param uuid Player key
+     * @return The lock object
+     */
+    private Object stripeFor(String uuid) {
+        return stripes[Math.floorMod(uuid.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,132 @@
+package com.hyvote.votelistener.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Delivery state changes for in-flight rewards, applied to a
+ * {@link PendingRewardStore} in one write.
+ *
+ * The delivery scheduler collects the changes of one tick here, so thousands
+ * of deliveries cost one journal entry or one database transaction per tick
+ * instead of one per reward.
+ */
+public final class DeliveryBatch {
+
+    /**
+     * State change of a single in-flight reward.
+     */
+    public enum Transition {
+        /** The reward stays in flight; its command progress or failure count changed. */
+        PROGRESS,
+        /** Every command ran; the reward is removed. */
+        DELIVERED,
+        /** Delivery kept failing; the reward is moved to the dead-letter queue. */
+        DEAD_LETTER
+    }
+
+    /**
+     * One reward's state change.
+     */
+    public static final class Entry {
+        private final String key;
+        private final PendingReward reward;
+        private final Transition transition;
+        private final String reason;
+
+        private Entry(String key, PendingReward reward, Transition transition, String reason) {
+            this.key = key;
+            this.reward = reward;
+            this.transition = transition;
+            this.reason = reason;
+        }
+
+        /**
+         * Gets the key the reward is stored under.
+         *
+         * @return Player key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the reward with its latest progress.
+         *
+         * @return The reward
+         */
+        public PendingReward getReward() {
+            return reward;
+        }
+
+        /**
+         * Gets the state change.
+         *
+         * @return The transition
+         */
+        public Transition getTransition() {
+            return transition;
+        }
+
+        /**
+         * Gets why a reward was dead-lettered.
+         *
+         * @return The last failure, or null for other transitions
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Records new progress for a reward that is still being delivered.
+     *
+     * @param key Player key
+     * @param reward Copy of the reward with updated progress
+     */
+    public void progress(String key, PendingReward reward) {
+        entries.add(new Entry(key, reward, Transition.PROGRESS, null));
+    }
+
+    /**
+     * Records that all of a reward's commands ran.
+     *
+     * @param key Player key
+     * @param reward The delivered reward
+     */
+    public void delivered(String key, PendingReward reward) {
+        entries.add(new Entry(key, reward, Transition.DELIVERED, null));
+    }
+
+    /**
+     * Records that a reward is given up on and moved to the dead-letter queue.
+     *
+     * @param key Player key
+     * @param reward The reward with its final progress
+     * @param reason The last failure
+     */
+    public void deadLetter(String key, PendingReward reward, String reason) {
+        entries.add(new Entry(key, reward, Transition.DEAD_LETTER, reason));
+    }
+
+    /**
+     * Gets the recorded changes in the order they happened.
+     *
+     * @return Unmodifiable list of entries
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns whether nothing was recorded.
+     *
+     * @return true if the batch is empty
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+}
@@ -0,0 +1,133 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * One-shot import of the JSON data files into the vote database.
+ *
+ * Runs at startup when the database backend is selected. Each JSON file is read
+ * through its regular manager (so backups and journals are honoured), written to
+ * the database in batched transactions, and then renamed to
+ * {@code <name>.migrated}, which keeps it for rollback and stops it from being
+ * imported again. A table that already holds data is never imported into, so
+ * switching back and forth between backends cannot duplicate rewards.
+ */
+public final class JsonToDatabaseMigrator {
+
+    private static final String VOTE_DATA_FILE_NAME = "vote-data.json";
+    private static final String PENDING_REWARDS_FILE_NAME = "pending-rewards.json";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final int BATCH_SIZE = 1000;
+
+    private JsonToDatabaseMigrator() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Imports vote-data.json and pending-rewards.json if they exist.
+     *
+     * @param pluginDataFolder The plugin's data directory
+     * @param snapshotBackups Number of JSON backups the managers may fall back to
+     * @param voteStore The database vote store to import into
+     * @param pendingRewardStore The database pending reward store to import into
+     * @param logger The logger for info and error messages
+     */
+    public static void migrateIfPresent(Path pluginDataFolder, int snapshotBackups, DatabaseVoteStore voteStore,
+                                        DatabasePendingRewardStore pendingRewardStore, HytaleLogger logger) {
+        Path voteDataPath = pluginDataFolder.resolve(VOTE_DATA_FILE_NAME);
+        if (Files.exists(voteDataPath)) {
+            if (voteStore.isEmpty()) {
+                migrateVoteData(pluginDataFolder, snapshotBackups, voteStore, logger);
+            } else {
+                logger.at(Level.WARNING).log("Vote database already has player data; not importing " + voteDataPath);
+            }
+        }
+
+        Path pendingRewardsPath = pluginDataFolder.resolve(PENDING_REWARDS_FILE_NAME);
+        if (Files.exists(pendingRewardsPath)) {
+            if (pendingRewardStore.isEmpty()) {
+                migratePendingRewards(pluginDataFolder, snapshotBackups, pendingRewardStore, logger);
+            } else {
+                logger.at(Level.WARNING).log("Vote database already has pending rewards; not importing "
+                        + pendingRewardsPath);
+            }
+        }
+    }
+
+    /**
+     * Imports vote-data.json.
+     */
+    private static void migrateVoteData(Path pluginDataFolder, int snapshotBackups, DatabaseVoteStore voteStore,
+                                        HytaleLogger logger) {
+        VoteDataManager source = new VoteDataManager(pluginDataFolder, logger);
+        source.setSnapshotBackups(snapshotBackups);
+        source.loadVoteData();
+
+        List<PlayerVoteData> batch = new ArrayList<>(BATCH_SIZE);
+        source.forEachPlayer((uuid, data) -> {
+            batch.add(data);
+            if (batch.size() == BATCH_SIZE) {
+                voteStore.writeBatch(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            voteStore.writeBatch(batch);
+        }
+        int players = source.getPlayerCount();
+        source.shutdown();
+
+        logger.at(Level.INFO).log("Imported " + players + " players from " + VOTE_DATA_FILE_NAME);
+        markMigrated(pluginDataFolder.resolve(VOTE_DATA_FILE_NAME), logger);
+    }
+
+    /**
+     * Imports pending-rewards.json.
+     */
+    private static void migratePendingRewards(Path pluginDataFolder, int snapshotBackups,
+                                              DatabasePendingRewardStore pendingRewardStore, HytaleLogger logger) {
+        PendingRewardsManager source = new PendingRewardsManager(pluginDataFolder, logger);
+        source.setSnapshotBackups(snapshotBackups);
+        source.loadPendingRewards();
+
+        int imported = 0;
+        for (Map.Entry<String, List<PendingReward>> entry : source.getAllPendingRewards().entrySet()) {
+            List<PendingReward> rewards = entry.getValue();
+            if (!rewards.isEmpty()) {
+                pendingRewardStore.insertBatch(entry.getKey(), rewards);
+                imported += rewards.size();
+            }
+        }
+        source.shutdown();
+
+        logger.at(Level.INFO).log("Imported " + imported + " pending rewards from " + PENDING_REWARDS_FILE_NAME);
+        markMigrated(pluginDataFolder.resolve(PENDING_REWARDS_FILE_NAME), logger);
+    }
+
+    /**
+     * Renames an imported JSON file so it is not imported again.
+     *
+     * Also used by {@link MappedVoteStore} after its own import.
+     *
+     * @param path The imported file
+     * @param logger The logger for error messages
+     */
+    static void markMigrated(Path path, HytaleLogger logger) {
+        try {
+            Files.move(path, path.resolveSibling(path.getFileName() + MIGRATED_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Imported " + path.getFileName() + " but failed to rename it: "
+                    + e.getMessage());
+        }
+    }
+}
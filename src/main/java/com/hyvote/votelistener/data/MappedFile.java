@@ -0,0 +1,91 @@
+package com.hyvote.votelistener.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-write memory-mapped file that grows on demand.
+ *
+ * Writes to the buffer go straight to the OS page cache, so they survive a
+ * crash of the server process; {@link #force()} additionally flushes them to
+ * the disk. Growing remaps the file with at least double the size. The old
+ * mapping is released by the garbage collector.
+ *
+ * Not thread-safe; callers synchronize access.
+ */
+final class MappedFile implements Closeable {
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens or creates a file and maps it.
+     *
+     * @param path File to map
+     * @param minimumSize Initial mapping size in bytes, used if the file is smaller
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedFile(Path path, int minimumSize) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), minimumSize);
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException(path.getFileName() + " is larger than 2 GB");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Gets the current mapping.
+     *
+     * The buffer is replaced when the file grows, so it must not be kept
+     * across calls to {@link #ensureCapacity}.
+     *
+     * @return The mapped buffer
+     */
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Grows the mapping so it covers at least the given number of bytes.
+     *
+     * @param size Required size in bytes
+     * @throws IOException if the file cannot be remapped or would exceed 2 GB
+     */
+    void ensureCapacity(long size) throws IOException {
+        int capacity = buffer.capacity();
+        if (size <= capacity) {
+            return;
+        }
+        long newSize = Math.min(Integer.MAX_VALUE, Math.max(size, capacity * 2L));
+        if (size > newSize) {
+            throw new IOException("Mapped file cannot grow beyond 2 GB");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    /**
+     * Flushes changes in the mapping to disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Flushes changes and closes the file.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
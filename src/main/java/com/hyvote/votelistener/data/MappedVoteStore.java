@@ -0,0 +1,630 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * {@link VoteStore} backed by fixed-width binary records in memory-mapped files.
+ *
+ * <p>vote-data.bin holds a 32 byte header followed by one 64 byte record per
+ * player:
+ * <pre>
+ *  0  long  UUID most significant bits
+ *  8  long  UUID least significant bits
+ * 16  int   total votes
+ * 20  int   current streak
+ * 24  long  last vote timestamp (epoch millis)
+ * 32  int   username offset in vote-names.bin, or -1
+ * 36  int   key offset in vote-names.bin for non-UUID keys, or -1
+ * 40  long  daily vote ring, see {@link VotePeriod}
+ * 48  long  weekly vote ring
+ * 56  long  monthly vote ring
+ * </pre>
+ * vote-names.bin is an append-only heap of length-prefixed UTF-8 strings.
+ *
+ * <p>Version 1 files, whose 40 byte records end before the vote rings, are
+ * upgraded in place on load. The original is copied to vote-data.bin.v1
+ * first and the header is rewritten last, so an interrupted upgrade is simply
+ * repeated from the copy on the next start.
+ *
+ * <p>Recording a vote updates the player's record in place; nothing is
+ * re-serialized. Changes land in the OS page cache immediately, so they
+ * survive a crash of the server process, and are forced to disk after every
+ * vote or, with write-behind enabled, on the save interval. Startup maps the
+ * files and rebuilds a primitive hash index over the UUID columns instead of
+ * parsing JSON.
+ *
+ * <p>If vote-data.bin is empty on first start, an existing vote-data.json is
+ * imported and renamed to vote-data.json.migrated. JSON remains the export
+ * format through {@link VoteDataExporter}.
+ *
+ * <p>All access is synchronized on the store. The format is limited to 2 GB
+ * per file, about 33 million players.
+ */
+public class MappedVoteStore implements VoteStore {
+
+    private static final String RECORDS_FILE_NAME = "vote-data.bin";
+    private static final String NAMES_FILE_NAME = "vote-names.bin";
+    private static final String JSON_FILE_NAME = "vote-data.json";
+    private static final String UPGRADE_BACKUP_SUFFIX = ".v1";
+
+    private static final long MAGIC = 0x48564C564F544531L; // "HVLVOTE1"
+    private static final int VERSION = 2;
+    private static final int V1_VERSION = 1;
+    private static final int V1_RECORD_SIZE = 40;
+
+    // Header layout
+    private static final int HEADER_SIZE = 32;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 8;
+    private static final int HEADER_RECORD_SIZE = 12;
+    private static final int HEADER_COUNT = 16;
+    private static final int HEADER_NAMES_USED = 20;
+
+    // Record layout
+    private static final int RECORD_SIZE = 64;
+    private static final int UUID_HIGH = 0;
+    private static final int UUID_LOW = 8;
+    private static final int TOTAL_VOTES = 16;
+    private static final int CURRENT_STREAK = 20;
+    private static final int LAST_VOTE = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int KEY_OFFSET = 36;
+    private static final int DAILY_VOTES = 40;
+    private static final int WEEKLY_VOTES = 48;
+    private static final int MONTHLY_VOTES = 56;
+
+    private static final int NONE = -1;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final int INITIAL_NAMES_SIZE = 64 * 1024;
+    private static final int INITIAL_INDEX_SIZE = 16;
+
+    private final Path pluginDataFolder;
+    private final HytaleLogger logger;
+    private final Map<String, Integer> otherKeys;
+    private MappedFile records;
+    private MappedFile names;
+    private int count;
+    private int namesUsed;
+    // UUID key -> slot + 1 (0 marks an empty bucket), linear probing
+    private int[] index;
+    private int snapshotBackups;
+    private volatile BackgroundFlusher flusher;
+
+    /**
+     * Creates a new MappedVoteStore.
+     *
+     * @param pluginDataFolder The plugin's data directory
+     * @param logger The logger for info and error messages
+     */
+    public MappedVoteStore(Path pluginDataFolder, HytaleLogger logger) {
+        this.pluginDataFolder = pluginDataFolder;
+        this.logger = logger;
+        this.otherKeys = new HashMap<>();
+        this.index = new int[INITIAL_INDEX_SIZE];
+    }
+
+    /**
+     * Sets how many vote-data.json backups the one-time import may fall back to.
+     *
+     * @param snapshotBackups Number of backups (0 for none)
+     */
+    public void setSnapshotBackups(int snapshotBackups) {
+        this.snapshotBackups = Math.max(0, snapshotBackups);
+    }
+
+    /**
+     * Forces changes to disk on an interval instead of after every vote.
+     *
+     * Changes are still written to the page cache immediately, so only an OS
+     * crash or power loss within the interval can lose them.
+     *
+     * @param flushIntervalSeconds Seconds between forced writes
+     */
+    public synchronized void enableWriteBehind(int flushIntervalSeconds) {
+        if (flusher == null) {
+            flusher = new BackgroundFlusher("HytaleVoteListener-VoteDataFlush", this::flush,
+                    flushIntervalSeconds, logger);
+            logger.at(Level.INFO).log("Write-behind persistence enabled (interval: "
+                    + Math.max(1, flushIntervalSeconds) + "s)");
+        }
+    }
+
+    /**
+     * Maps the data files, creating them if needed, and rebuilds the index.
+     *
+     * @throws StorageException if the files cannot be mapped or are not vote data files
+     */
+    @Override
+    public synchronized void load() {
+        try {
+            Files.createDirectories(pluginDataFolder);
+            records = new MappedFile(pluginDataFolder.resolve(RECORDS_FILE_NAME),
+                    HEADER_SIZE + INITIAL_RECORDS * RECORD_SIZE);
+            names = new MappedFile(pluginDataFolder.resolve(NAMES_FILE_NAME), INITIAL_NAMES_SIZE);
+        } catch (IOException e) {
+            closeFiles();
+            throw new StorageException("Failed to map " + RECORDS_FILE_NAME, e);
+        }
+
+        try {
+            readHeader();
+        } catch (StorageException e) {
+            closeFiles();
+            throw e;
+        }
+        rebuildIndex();
+        logger.at(Level.INFO).log("Mapped vote data for " + count + " players from " + RECORDS_FILE_NAME);
+
+        Path jsonPath = pluginDataFolder.resolve(JSON_FILE_NAME);
+        if (count == 0 && Files.exists(jsonPath)) {
+            importJson(jsonPath);
+        }
+    }
+
+    @Override
+    public PlayerVoteData recordVote(String uuid, String username) {
+        PlayerVoteData data;
+        synchronized (this) {
+            int slot = findSlot(uuid);
+            if (slot < 0) {
+                slot = appendRecord(uuid);
+            }
+            data = readRecord(slot, uuid);
+            data.setUsername(username);
+            data.registerVote(System.currentTimeMillis());
+            writeRecord(slot, data);
+        }
+
+        // Force to disk now, or leave it to the background flush in write-behind mode
+        if (flusher == null) {
+            flush();
+        }
+
+        logger.at(Level.INFO).log("Recorded vote for " + username + " - Total: " + data.getTotalVotes()
+                + ", Streak: " + data.getCurrentStreak());
+        return data;
+    }
+
+    @Override
+    public synchronized PlayerVoteData getPlayerData(String uuid) {
+        int slot = findSlot(uuid);
+        return slot >= 0 ? readRecord(slot, uuid) : null;
+    }
+
+    /**
+     * Calls the action for every player, reading one record at a time so votes
+     * are only held up for a single record.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    @Override
+    public void forEachPlayer(BiConsumer<String, PlayerVoteData> action) {
+        int total;
+        synchronized (this) {
+            total = count;
+        }
+        for (int slot = 0; slot < total; slot++) {
+            String key;
+            PlayerVoteData data;
+            synchronized (this) {
+                key = keyAt(slot);
+                data = readRecord(slot, key);
+            }
+            action.accept(key, data);
+        }
+    }
+
+    /**
+     * Calls the action for every player in slot order; the records are read
+     * straight from the mapped file, so sorting them first would only add a copy.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    @Override
+    public void forEachPlayerByTotalVotes(BiConsumer<String, PlayerVoteData> action) {
+        forEachPlayer(action);
+    }
+
+    /**
+     * Forces changed pages of both files to disk.
+     */
+    @Override
+    public synchronized void flush() {
+        if (records != null) {
+            records.force();
+            names.force();
+        }
+    }
+
+    /**
+     * Stops the background flush task and closes the mapped files.
+     */
+    @Override
+    public void shutdown() {
+        BackgroundFlusher activeFlusher;
+        synchronized (this) {
+            activeFlusher = flusher;
+            flusher = null;
+        }
+        if (activeFlusher != null) {
+            activeFlusher.shutdown();
+        }
+        synchronized (this) {
+            closeFiles();
+        }
+    }
+
+    /**
+     * Validates the header of an existing file, or writes one into a new file.
+     * Version 1 files are upgraded first.
+     */
+    private void readHeader() {
+        MappedByteBuffer buffer = records.buffer();
+        long magic = buffer.getLong(HEADER_MAGIC);
+        Path backupPath = pluginDataFolder.resolve(RECORDS_FILE_NAME + UPGRADE_BACKUP_SUFFIX);
+        if (magic == MAGIC && buffer.getInt(HEADER_VERSION) == V1_VERSION
+                && buffer.getInt(HEADER_RECORD_SIZE) == V1_RECORD_SIZE) {
+            upgradeRecords(backupPath);
+            buffer = records.buffer();
+        } else if (magic == MAGIC && Files.exists(backupPath)) {
+            // Left behind by an upgrade that completed before it could be deleted
+            deleteUpgradeBackup(backupPath);
+        }
+
+        if (magic == 0) {
+            // Freshly created (or never written) file
+            buffer.putInt(HEADER_VERSION, VERSION);
+            buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+            buffer.putInt(HEADER_COUNT, 0);
+            buffer.putInt(HEADER_NAMES_USED, 0);
+            buffer.putLong(HEADER_MAGIC, MAGIC);
+            return;
+        }
+
+        if (magic != MAGIC || buffer.getInt(HEADER_VERSION) != VERSION
+                || buffer.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            throw new StorageException(RECORDS_FILE_NAME + " is not a supported vote data file");
+        }
+        count = buffer.getInt(HEADER_COUNT);
+        namesUsed = buffer.getInt(HEADER_NAMES_USED);
+        if (count < 0 || HEADER_SIZE + (long) count * RECORD_SIZE > buffer.capacity()
+                || namesUsed < 0 || namesUsed > names.buffer().capacity()) {
+            throw new StorageException(RECORDS_FILE_NAME + " is damaged (header does not match file sizes)");
+        }
+    }
+
+    /**
+     * Rewrites a version 1 file with 64 byte records and empty vote rings.
+     *
+     * Records are read from a copy of the original, so the upgrade can be
+     * repeated if it is interrupted; the header switches to version 2 only once
+     * every record has been written.
+     *
+     * @param backupPath Path of the copy of the version 1 file
+     */
+    private void upgradeRecords(Path backupPath) {
+        try {
+            if (!Files.exists(backupPath)) {
+                records.force();
+                Path tempPath = backupPath.resolveSibling(backupPath.getFileName() + ".tmp");
+                Files.copy(pluginDataFolder.resolve(RECORDS_FILE_NAME), tempPath, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempPath, backupPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            int upgraded;
+            try (MappedFile original = new MappedFile(backupPath, 0)) {
+                MappedByteBuffer source = original.buffer();
+                upgraded = source.getInt(HEADER_COUNT);
+                if (upgraded < 0 || HEADER_SIZE + (long) upgraded * V1_RECORD_SIZE > source.capacity()) {
+                    throw new StorageException(RECORDS_FILE_NAME + " is damaged (header does not match file sizes)");
+                }
+                records.ensureCapacity(HEADER_SIZE + (long) upgraded * RECORD_SIZE);
+
+                MappedByteBuffer buffer = records.buffer();
+                byte[] record = new byte[V1_RECORD_SIZE];
+                for (int slot = 0; slot < upgraded; slot++) {
+                    source.get(HEADER_SIZE + slot * V1_RECORD_SIZE, record);
+                    int base = recordOffset(slot);
+                    buffer.put(base, record);
+                    buffer.putLong(base + DAILY_VOTES, 0);
+                    buffer.putLong(base + WEEKLY_VOTES, 0);
+                    buffer.putLong(base + MONTHLY_VOTES, 0);
+                }
+                buffer.putInt(HEADER_COUNT, upgraded);
+                buffer.putInt(HEADER_NAMES_USED, source.getInt(HEADER_NAMES_USED));
+                records.force();
+                buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+                buffer.putInt(HEADER_VERSION, VERSION);
+                records.force();
+            }
+            logger.at(Level.INFO).log("Upgraded " + upgraded + " records in " + RECORDS_FILE_NAME
+                    + " to version " + VERSION);
+        } catch (IOException e) {
+            throw new StorageException("Failed to upgrade " + RECORDS_FILE_NAME, e);
+        }
+        deleteUpgradeBackup(backupPath);
+    }
+
+    /**
+     * Deletes the copy kept during an upgrade, logging any error.
+     *
+     * @param backupPath Path of the copy
+     */
+    private void deleteUpgradeBackup(Path backupPath) {
+        try {
+            Files.deleteIfExists(backupPath);
+        } catch (IOException e) {
+            logger.at(Level.WARNING).log("Failed to delete " + backupPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Imports vote-data.json into the empty binary files and renames it.
+     *
+     * @param jsonPath Path of vote-data.json
+     */
+    private void importJson(Path jsonPath) {
+        VoteDataManager source = new VoteDataManager(pluginDataFolder, logger);
+        source.setSnapshotBackups(snapshotBackups);
+        source.loadVoteData();
+        source.forEachPlayer((key, data) -> {
+            int slot = findSlot(key);
+            writeRecord(slot >= 0 ? slot : appendRecord(key), data);
+        });
+        source.shutdown();
+        flush();
+
+        logger.at(Level.INFO).log("Imported " + count + " players from " + JSON_FILE_NAME);
+        JsonToDatabaseMigrator.markMigrated(jsonPath, logger);
+    }
+
+    /**
+     * Finds the record holding a key.
+     *
+     * @param key Player key
+     * @return Slot number, or -1 if the key has no record
+     */
+    private int findSlot(String key) {
+        if (!UuidKeys.isCanonical(key)) {
+            Integer slot = otherKeys.get(key);
+            return slot != null ? slot : -1;
+        }
+        long high = UuidKeys.high(key);
+        long low = UuidKeys.low(key);
+        MappedByteBuffer buffer = records.buffer();
+        int mask = index.length - 1;
+        for (int bucket = UuidKeys.hash(high, low) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            int base = recordOffset(slot);
+            if (buffer.getLong(base + UUID_HIGH) == high && buffer.getLong(base + UUID_LOW) == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends an empty record for a new key.
+     *
+     * @param key Player key without a record
+     * @return The new slot number
+     */
+    private int appendRecord(String key) {
+        boolean uuidKey = UuidKeys.isCanonical(key);
+        int keyOffset = uuidKey ? NONE : appendString(key);
+        try {
+            records.ensureCapacity(HEADER_SIZE + (long) (count + 1) * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new StorageException("Failed to grow " + RECORDS_FILE_NAME, e);
+        }
+
+        int slot = count;
+        int base = recordOffset(slot);
+        MappedByteBuffer buffer = records.buffer();
+        buffer.putLong(base + UUID_HIGH, uuidKey ? UuidKeys.high(key) : 0);
+        buffer.putLong(base + UUID_LOW, uuidKey ? UuidKeys.low(key) : 0);
+        buffer.putInt(base + TOTAL_VOTES, 0);
+        buffer.putInt(base + CURRENT_STREAK, 0);
+        buffer.putLong(base + LAST_VOTE, 0);
+        buffer.putInt(base + NAME_OFFSET, NONE);
+        buffer.putInt(base + KEY_OFFSET, keyOffset);
+        buffer.putLong(base + DAILY_VOTES, 0);
+        buffer.putLong(base + WEEKLY_VOTES, 0);
+        buffer.putLong(base + MONTHLY_VOTES, 0);
+
+        // Publish the record only once it is complete
+        count++;
+        buffer.putInt(HEADER_COUNT, count);
+
+        if (uuidKey) {
+            if (count * 4L > index.length * 3L) {
+                rebuildIndex();
+            } else {
+                insertIntoIndex(slot);
+            }
+        } else {
+            otherKeys.put(key, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Reads a record into a new PlayerVoteData.
+     *
+     * @param slot Slot to read
+     * @param key The slot's key
+     * @return Detached copy of the record
+     */
+    private PlayerVoteData readRecord(int slot, String key) {
+        MappedByteBuffer buffer = records.buffer();
+        int base = recordOffset(slot);
+        int nameOffset = buffer.getInt(base + NAME_OFFSET);
+        return new PlayerVoteData(key, nameOffset == NONE ? null : readString(nameOffset),
+                buffer.getInt(base + TOTAL_VOTES), buffer.getInt(base + CURRENT_STREAK),
+                buffer.getLong(base + LAST_VOTE), buffer.getLong(base + DAILY_VOTES),
+                buffer.getLong(base + WEEKLY_VOTES), buffer.getLong(base + MONTHLY_VOTES));
+    }
+
+    /**
+     * Updates a record in place.
+     *
+     * @param slot Slot to write
+     * @param data New field values
+     */
+    private void writeRecord(int slot, PlayerVoteData data) {
+        int base = recordOffset(slot);
+        int nameOffset = records.buffer().getInt(base + NAME_OFFSET);
+        String username = data.getUsername();
+        if (!Objects.equals(nameOffset == NONE ? null : readString(nameOffset), username)) {
+            nameOffset = username == null ? NONE : appendString(username);
+        }
+
+        MappedByteBuffer buffer = records.buffer();
+        buffer.putInt(base + TOTAL_VOTES, data.getTotalVotes());
+        buffer.putInt(base + CURRENT_STREAK, data.getCurrentStreak());
+        buffer.putLong(base + LAST_VOTE, data.getLastVoteTimestamp());
+        buffer.putInt(base + NAME_OFFSET, nameOffset);
+        buffer.putLong(base + DAILY_VOTES, data.getVoteRing(VotePeriod.DAY));
+        buffer.putLong(base + WEEKLY_VOTES, data.getVoteRing(VotePeriod.WEEK));
+        buffer.putLong(base + MONTHLY_VOTES, data.getVoteRing(VotePeriod.MONTH));
+    }
+
+    /**
+     * Gets the key of a record.
+     *
+     * @param slot Slot to read
+     * @return The player key
+     */
+    private String keyAt(int slot) {
+        MappedByteBuffer buffer = records.buffer();
+        int base = recordOffset(slot);
+        int keyOffset = buffer.getInt(base + KEY_OFFSET);
+        if (keyOffset != NONE) {
+            return readString(keyOffset);
+        }
+        return UuidKeys.toKey(buffer.getLong(base + UUID_HIGH), buffer.getLong(base + UUID_LOW));
+    }
+
+    /**
+     * Appends a string to the name heap.
+     *
+     * @param value String to store
+     * @return Offset of the new entry
+     */
+    private int appendString(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        try {
+            names.ensureCapacity((long) namesUsed + Integer.BYTES + encoded.length);
+        } catch (IOException e) {
+            throw new StorageException("Failed to grow " + NAMES_FILE_NAME, e);
+        }
+
+        MappedByteBuffer buffer = names.buffer();
+        int offset = namesUsed;
+        buffer.putInt(offset, encoded.length);
+        buffer.put(offset + Integer.BYTES, encoded);
+        namesUsed = offset + Integer.BYTES + encoded.length;
+        records.buffer().putInt(HEADER_NAMES_USED, namesUsed);
+        return offset;
+    }
+
+    /**
+     * Reads a string from the name heap.
+     *
+     * @param offset Entry offset
+     * @return The stored string
+     */
+    private String readString(int offset) {
+        MappedByteBuffer buffer = names.buffer();
+        byte[] encoded = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rebuilds the key index from the records, sized for the current count.
+     */
+    private void rebuildIndex() {
+        int capacity = INITIAL_INDEX_SIZE;
+        while (count * 4L > capacity * 3L) {
+            capacity *= 2;
+        }
+        index = new int[capacity];
+        otherKeys.clear();
+
+        MappedByteBuffer buffer = records.buffer();
+        for (int slot = 0; slot < count; slot++) {
+            int keyOffset = buffer.getInt(recordOffset(slot) + KEY_OFFSET);
+            if (keyOffset == NONE) {
+                insertIntoIndex(slot);
+            } else {
+                otherKeys.put(readString(keyOffset), slot);
+            }
+        }
+    }
+
+    /**
+     * Adds a UUID record to the hash index.
+     *
+     * @param slot Slot whose key is already written
+     */
+    private void insertIntoIndex(int slot) {
+        MappedByteBuffer buffer = records.buffer();
+        int base = recordOffset(slot);
+        int mask = index.length - 1;
+        int bucket = UuidKeys.hash(buffer.getLong(base + UUID_HIGH), buffer.getLong(base + UUID_LOW)) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    /**
+     * Gets the byte offset of a record.
+     *
+     * @param slot Slot number
+     * @return Offset in vote-data.bin
+     */
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Closes both files, logging any errors.
+     */
+    private void closeFiles() {
+        closeFile(records, RECORDS_FILE_NAME);
+        closeFile(names, NAMES_FILE_NAME);
+        records = null;
+        names = null;
+    }
+
+    /**
+     * Closes one mapped file, logging any error.
+     *
+     * @param file The file (may be null)
+     * @param fileName Name for the log message
+     */
+    private void closeFile(MappedFile file, String fileName) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to close " + fileName + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.hyvote.votelistener.data;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Model representing a pending reward for an offline player.
  *
  * This class stores rewards that need to be delivered when an offline player
- * returns to the server. Commands are stored in their fully processed form
- * (placeholders already replaced) so rewards can be delivered exactly as
- * calculated at vote time, preserving random selections and streak values.
+ * returns to the server. Rewards are delivered exactly as calculated at vote
+ * time, preserving random selections and streak values.
+ *
+ * <p>Rewards queued by this version refer to a shared {@link RewardTemplate}
+ * and keep only the values captured at vote time (vote timestamp, streak,
+ * total votes and rank); their commands are expanded when they are delivered. Rewards
+ * saved by older versions store their fully processed commands instead, and
+ * are delivered as stored.
+ *
+ * <p>Each reward has a stable ID used to acknowledge its delivery, and records
+ * how many of its commands have already run and how often delivery has failed,
+ * so an interrupted or retried delivery resumes where it stopped. Instances are
+ * immutable; progress is recorded on copies made with {@link #withProgress}.
  */
 public class PendingReward {
 
+    /**
+     * Stable identifier. Null for rewards saved by older versions, which get
+     * an ID derived from their contents (see {@link #getId()}).
+     */
+    private String id;
+
     /**
      * Player UUID as string for identification.
      */
@@ -34,11 +52,53 @@ public class PendingReward {
 
     /**
      * Fully processed commands ready to execute (placeholders already replaced).
+     * Null for rewards built from a template.
      */
     private final List<String> commands;
 
     /**
-     * Creates a new PendingReward with all fields initialized.
+     * ID of the reward template the commands are expanded from. Null for
+     * rewards that store their commands.
+     */
+    private final String template;
+
+    /**
+     * The template, resolved by the store when the reward is loaded.
+     */
+    private transient volatile RewardTemplate compiledTemplate;
+
+    /**
+     * Timestamp sent by the voting site, the value of %timestamp%.
+     */
+    private final long voteTimestamp;
+
+    /**
+     * Player's streak after the vote, the value of %streak%.
+     */
+    private final int streak;
+
+    /**
+     * Player's total votes after the vote, the value of %totalvotes%.
+     */
+    private final int totalVotes;
+
+    /**
+     * Player's leaderboard rank after the vote, the value of %rank%.
+     */
+    private final int rank;
+
+    /**
+     * Number of commands already run by an earlier, interrupted delivery.
+     */
+    private final int commandsDelivered;
+
+    /**
+     * Number of delivery attempts that failed.
+     */
+    private final int failedAttempts;
+
+    /**
+     * Creates a new PendingReward with a new random ID and no delivery progress.
      *
      * @param uuid Player UUID as string
      * @param username Player username at time of vote
@@ -47,11 +107,116 @@ public class PendingReward {
      * @param commands Fully processed commands ready to execute
      */
     public PendingReward(String uuid, String username, String serviceName, long timestamp, List<String> commands) {
+        this(UUID.randomUUID().toString(), uuid, username, serviceName, timestamp, commands, 0, 0);
+    }
+
+    /**
+     * Creates a PendingReward with an existing ID and delivery progress.
+     *
+     * @param id Stable reward ID
+     * @param uuid Player UUID as string
+     * @param username Player username at time of vote
+     * @param serviceName Name of the voting service
+     * @param timestamp When the vote was received (epoch millis)
+     * @param commands Fully processed commands ready to execute
+     * @param commandsDelivered Number of commands already run
+     * @param failedAttempts Number of failed delivery attempts
+     */
+    public PendingReward(String id, String uuid, String username, String serviceName, long timestamp,
+                         List<String> commands, int commandsDelivered, int failedAttempts) {
+        this(id, uuid, username, serviceName, timestamp, commands, null, null, 0L, 0, 0, 0,
+                commandsDelivered, failedAttempts);
+    }
+
+    /**
+     * Creates a PendingReward with every field.
+     */
+    private PendingReward(String id, String uuid, String username, String serviceName, long timestamp,
+                          List<String> commands, String template, RewardTemplate compiledTemplate,
+                          long voteTimestamp, int streak, int totalVotes, int rank, int commandsDelivered,
+                          int failedAttempts) {
+        this.id = id;
         this.uuid = uuid;
         this.username = username;
         this.serviceName = serviceName;
         this.timestamp = timestamp;
         this.commands = commands;
+        this.template = template;
+        this.compiledTemplate = compiledTemplate;
+        this.voteTimestamp = voteTimestamp;
+        this.streak = streak;
+        this.totalVotes = totalVotes;
+        this.rank = rank;
+        this.commandsDelivered = commandsDelivered;
+        this.failedAttempts = failedAttempts;
+    }
+
+    /**
+     * Creates a new PendingReward whose commands are expanded from a template
+     * when it is delivered.
+     *
+     * @param uuid Player UUID as string, also the value of %uuid%
+     * @param username Player username at time of vote
+     * @param serviceName Name of the voting service
+     * @param timestamp When the vote was received (epoch millis)
+     * @param template The reward's commands with placeholders
+     * @param voteTimestamp Timestamp sent by the voting site
+     * @param streak Player's streak after the vote
+     * @param totalVotes Player's total votes after the vote
+     * @param rank Player's leaderboard rank after the vote, 0 if unknown
+     * @return The reward with a new random ID
+     */
+    public static PendingReward fromTemplate(String uuid, String username, String serviceName, long timestamp,
+                                             RewardTemplate template, long voteTimestamp, int streak,
+                                             int totalVotes, int rank) {
+        return new PendingReward(UUID.randomUUID().toString(), uuid, username, serviceName, timestamp, null,
+                template.getId(), template, voteTimestamp, streak, totalVotes, rank, 0, 0);
+    }
+
+    /**
+     * Creates a PendingReward built from a template with an existing ID and
+     * delivery progress, as read back from storage.
+     *
+     * @param id Stable reward ID
+     * @param uuid Player UUID as string
+     * @param username Player username at time of vote
+     * @param serviceName Name of the voting service
+     * @param timestamp When the vote was received (epoch millis)
+     * @param templateId ID of the template
+     * @param template The template, or null if it could not be resolved
+     * @param voteTimestamp Timestamp sent by the voting site
+     * @param streak Player's streak after the vote
+     * @param totalVotes Player's total votes after the vote
+     * @param rank Player's leaderboard rank after the vote
+     * @param commandsDelivered Number of commands already run
+     * @param failedAttempts Number of failed delivery attempts
+     * @return The reward
+     */
+    static PendingReward fromStoredTemplate(String id, String uuid, String username, String serviceName,
+                                            long timestamp, String templateId, RewardTemplate template,
+                                            long voteTimestamp, int streak, int totalVotes, int rank,
+                                            int commandsDelivered, int failedAttempts) {
+        return new PendingReward(id, uuid, username, serviceName, timestamp, null, templateId, template,
+                voteTimestamp, streak, totalVotes, rank, commandsDelivered, failedAttempts);
+    }
+
+    /**
+     * Gets the stable reward ID.
+     *
+     * Rewards saved before IDs existed get a name-based UUID derived from
+     * their username, service and timestamp, so the same reward has the same
+     * ID after every restart.
+     *
+     * @return Reward ID
+     */
+    public String getId() {
+        String rewardId = id;
+        if (rewardId == null) {
+            String seed = username + "\n" + serviceName + "\n" + timestamp;
+            rewardId = UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8)).toString();
+            id = rewardId;
+        }
+        return rewardId;
     }
 
     /**
@@ -93,9 +258,137 @@ public class PendingReward {
     /**
      * Gets the fully processed commands ready to execute.
      *
+     * Rewards built from a template are expanded on every call, so callers
+     * that need the commands repeatedly should keep the result. A reward whose
+     * template could not be resolved has no commands.
+     *
      * @return List of commands with placeholders already replaced
      */
     public List<String> getCommands() {
-        return commands;
+        if (commands != null) {
+            return commands;
+        }
+        RewardTemplate resolved = compiledTemplate;
+        if (resolved == null) {
+            return List.of();
+        }
+        return resolved.render(username, serviceName, voteTimestamp, streak, totalVotes, rank, uuid);
+    }
+
+    /**
+     * Gets the number of commands without expanding them.
+     *
+     * @return Command count
+     */
+    public int getCommandCount() {
+        if (commands != null) {
+            return commands.size();
+        }
+        RewardTemplate resolved = compiledTemplate;
+        return resolved != null ? resolved.size() : 0;
+    }
+
+    /**
+     * Gets the ID of the template the commands are expanded from.
+     *
+     * @return Template ID, or null if the reward stores its commands
+     */
+    public String getTemplateId() {
+        return template;
+    }
+
+    /**
+     * Gets the template the commands are expanded from.
+     *
+     * @return The template, or null if the reward stores its commands or the
+     *         template has not been resolved
+     */
+    public RewardTemplate getTemplate() {
+        return compiledTemplate;
+    }
+
+    /**
+     * Resolves the template after the reward was read from storage.
+     *
+     * @param resolved The template with this reward's template ID
+     */
+    void bindTemplate(RewardTemplate resolved) {
+        compiledTemplate = resolved;
+    }
+
+    /**
+     * Gets the timestamp sent by the voting site.
+     *
+     * @return Vote timestamp, 0 if the reward stores its commands
+     */
+    public long getVoteTimestamp() {
+        return voteTimestamp;
+    }
+
+    /**
+     * Gets the player's streak captured at vote time.
+     *
+     * @return Streak, 0 if the reward stores its commands
+     */
+    public int getStreak() {
+        return streak;
+    }
+
+    /**
+     * Gets the player's total votes captured at vote time.
+     *
+     * @return Total votes, 0 if the reward stores its commands
+     */
+    public int getTotalVotes() {
+        return totalVotes;
+    }
+
+    /**
+     * Gets the player's leaderboard rank captured at vote time.
+     *
+     * @return Rank, 0 if unknown or the reward stores its commands
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * Gets the number of commands already run by an earlier delivery.
+     *
+     * @return Index of the next command to run
+     */
+    public int getCommandsDelivered() {
+        return commandsDelivered;
+    }
+
+    /**
+     * Gets the number of failed delivery attempts.
+     *
+     * @return Failed attempts
+     */
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * Gets the commands that have not run yet.
+     *
+     * @return Remaining commands
+     */
+    public List<String> getRemainingCommands() {
+        List<String> all = getCommands();
+        return all.subList(Math.min(commandsDelivered, all.size()), all.size());
+    }
+
+    /**
+     * Creates a copy of this reward with updated delivery progress.
+     *
+     * @param commandsDelivered Number of commands already run
+     * @param failedAttempts Number of failed delivery attempts
+     * @return Copy with the same ID and commands
+     */
+    public PendingReward withProgress(int commandsDelivered, int failedAttempts) {
+        return new PendingReward(getId(), uuid, username, serviceName, timestamp, commands, template,
+                compiledTemplate, voteTimestamp, streak, totalVotes, rank, commandsDelivered, failedAttempts);
     }
 }
@@ -0,0 +1,122 @@
+package com.hyvote.votelistener.data;
+
+import java.util.List;
+
+/**
+ * Storage for rewards queued for offline players.
+ *
+ * Implementations must be safe to use from multiple threads. Rewards are kept
+ * per player key (UUID, or username for players never seen online) in the
+ * order they were added.
+ *
+ * <p>Delivery follows a state machine: a reward is <em>pending</em> until
+ * {@link #claimPendingRewards} marks it <em>in flight</em>, and stays stored
+ * until a {@link DeliveryBatch} records it as delivered or dead-lettered. A
+ * claimed reward is never claimed again while in flight; rewards still in
+ * flight when the server stops are pending again after the next load and
+ * resume from their recorded command progress.
+ *
+ * @see PendingRewardsManager JSON file implementation
+ * @see DatabasePendingRewardStore embedded database implementation
+ */
+public interface PendingRewardStore {
+
+    /**
+     * Loads or opens the stored data. Called once before any other method.
+     */
+    void load();
+
+    /**
+     * Queues a reward for a player.
+     *
+     * @param uuid Player key (UUID or username)
+     * @param reward The reward to queue
+     */
+    void addPendingReward(String uuid, PendingReward reward);
+
+    /**
+     * Moves rewards queued under a player's username to their UUID.
+     *
+     * Votes for offline players are queued under the username the voting site
+     * sent, which may differ in case from the in-game name. Called when the
+     * player's UUID becomes known (on join) so that their rewards end up in one
+     * queue and can be claimed with a single {@link #claimPendingRewards} call.
+     * Usernames are matched case-insensitively.
+     *
+     * @param uuid Player UUID as string
+     * @param username Player's current username
+     */
+    void linkPlayer(String uuid, String username);
+
+    /**
+     * Gets a player's queued rewards without removing them.
+     *
+     * @param uuid Player key (UUID or username)
+     * @return Copy of the queued rewards (empty if none)
+     */
+    List<PendingReward> getPendingRewards(String uuid);
+
+    /**
+     * Atomically removes and returns a player's queued rewards.
+     *
+     * Concurrent callers for the same player never receive the same reward.
+     *
+     * @param uuid Player key (UUID or username)
+     * @return The removed rewards (empty if none)
+     */
+    List<PendingReward> takePendingRewards(String uuid);
+
+    /**
+     * Marks a player's pending rewards as in flight and returns them.
+     *
+     * Rewards already in flight are not returned, so concurrent deliveries for
+     * the same player never receive the same reward. The rewards stay stored
+     * until their delivery is recorded with {@link #applyDeliveryBatch}.
+     *
+     * @param uuid Player key (UUID or username)
+     * @return The claimed rewards in queue order (empty if none)
+     */
+    List<PendingReward> claimPendingRewards(String uuid);
+
+    /**
+     * Returns in-flight rewards to pending, keeping their delivery progress.
+     *
+     * Used when a delivery is interrupted, e.g. because the player disconnected.
+     *
+     * @param uuid Player key the rewards were claimed under
+     * @param rewards The rewards with their latest progress
+     */
+    void releasePendingRewards(String uuid, List<PendingReward> rewards);
+
+    /**
+     * Applies the state changes of in-flight rewards in one write.
+     *
+     * @param batch The changes to apply
+     */
+    void applyDeliveryBatch(DeliveryBatch batch);
+
+    /**
+     * Removes all of a player's queued rewards.
+     *
+     * @param uuid Player key (UUID or username)
+     */
+    void clearPendingRewards(String uuid);
+
+    /**
+     * Checks whether a player has queued rewards.
+     *
+     * @param uuid Player key (UUID or username)
+     * @return true if at least one reward is queued
+     */
+    boolean hasPendingRewards(String uuid);
+
+    /**
+     * Writes any buffered changes to durable storage.
+     */
+    void flush();
+
+    /**
+     * Stops background work and writes any remaining changes.
+     */
+    void shutdown();
+}
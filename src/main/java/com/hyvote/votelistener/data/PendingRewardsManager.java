@@ -2,17 +2,39 @@ package com.hyvote.votelistener.data;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.metrics.SnapshotFlushEvent;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+import com.hyvote.votelistener.util.AtomicFileWriter;
 
+import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 
 /**
@@ -21,15 +43,65 @@ import java.util.logging.Level;
  * Handles loading, saving, and managing pending rewards that need to be
  * delivered when offline players return to the server. Follows the same
  * pattern as VoteDataManager for consistency.
+ *
+ * <p>With the journal enabled, additions and clears are appended to
+ * pending-rewards.journal instead of rewriting pending-rewards.json, and a
+ * background task periodically compacts the journal into the snapshot.
+ * Snapshots are written atomically with rotated backups and streamed through
+ * Gson's {@link JsonReader}/{@link JsonWriter}, like vote data.
+ *
+ * <p>This class is safe to use from multiple threads. Each player's list is
+ * replaced atomically with {@code compute} on a {@link ConcurrentHashMap} and
+ * never modified once stored. {@link #takePendingRewards(String)} removes and
+ * returns a player's rewards in one step, so two delivery paths can never hand
+ * out the same rewards.
+ *
+ * <p>Offline votes are queued under the username the voting site sent. A
+ * lower-cased username index maps each username to the key its rewards are
+ * stored under, so votes arriving as "steve" and "Steve" share one queue and
+ * {@link #linkPlayer(String, String)} can move that queue to the player's UUID
+ * with a single lookup when they join.
+ *
+ * <p>Which rewards are in flight is only kept in memory: after a restart every
+ * stored reward is pending again and resumes from the command progress last
+ * recorded by {@link #applyDeliveryBatch}. Dead-lettered rewards are appended
+ * to dead-letter-rewards.jsonl, one JSON object per line, before they are
+ * removed from the queue.
+ *
+ * <p>Rewards built from a {@link RewardTemplate} store only the template ID;
+ * the templates themselves are kept once each in reward-templates.json. A new
+ * template is written there before the first reward using it is recorded, and
+ * templates no longer used by any reward are dropped on load.
  */
-public class PendingRewardsManager {
+public class PendingRewardsManager implements PendingRewardStore {
 
     private static final String PENDING_REWARDS_FILE_NAME = "pending-rewards.json";
+    private static final String JOURNAL_FILE_NAME = "pending-rewards.journal";
+    private static final String DEAD_LETTER_FILE_NAME = "dead-letter-rewards.jsonl";
+    private static final String TEMPLATES_FILE_NAME = "reward-templates.json";
+    private static final long JOURNAL_SYNC_INTERVAL_MILLIS = 1000;
+    private static final int DELIVERY_SAVE_INTERVAL_SECONDS = 1;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final Type REWARD_LIST_TYPE = new TypeToken<List<PendingReward>>(){}.getType();
+    private static final Type TEMPLATE_MAP_TYPE = new TypeToken<Map<String, RewardTemplate>>(){}.getType();
 
     private final Path pluginDataFolder;
     private final HytaleLogger logger;
     private final Gson gson;
-    private Map<String, List<PendingReward>> pendingRewardsMap;
+    private final Object writeLock;
+    private final ReentrantReadWriteLock stateLock;
+    private volatile Map<String, List<PendingReward>> pendingRewardsMap;
+    private final Map<String, String> usernameIndex;
+    private final Set<String> inFlight;
+    private final Map<String, RewardTemplate> templates;
+    private VoteJournal deadLetters;
+    private volatile VoteJournal journal;
+    private BackgroundFlusher flusher;
+    private boolean shutDown;
+    private volatile boolean dirty;
+    private int snapshotBackups;
+    private boolean prettyPrint;
+    private volatile VoteMetrics metrics;
 
     /**
      * Creates a new PendingRewardsManager.
@@ -40,63 +112,717 @@ public class PendingRewardsManager {
     public PendingRewardsManager(Path pluginDataFolder, HytaleLogger logger) {
         this.pluginDataFolder = pluginDataFolder;
         this.logger = logger;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.pendingRewardsMap = new HashMap<>();
+        this.gson = new GsonBuilder().create();
+        this.writeLock = new Object();
+        this.stateLock = new ReentrantReadWriteLock();
+        this.pendingRewardsMap = new ConcurrentHashMap<>();
+        this.usernameIndex = new ConcurrentHashMap<>();
+        this.inFlight = ConcurrentHashMap.newKeySet();
+        this.templates = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Sets how many previous snapshots are kept as rotated backups.
+     *
+     * Must be called before {@link #loadPendingRewards()} so that loading knows
+     * how many backups to fall back to.
+     *
+     * @param snapshotBackups Number of backups to keep (0 for none)
+     */
+    public void setSnapshotBackups(int snapshotBackups) {
+        this.snapshotBackups = Math.max(0, snapshotBackups);
+    }
+
+    /**
+     * Sets whether pending-rewards.json is written with indentation.
+     *
+     * @param prettyPrint true to indent the snapshot
+     */
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * Sets the metrics that snapshot save times are recorded in.
+     *
+     * @param metrics The metrics to record into
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Enables the append-only pending rewards journal with background compaction.
+     *
+     * Must be called after {@link #loadPendingRewards()} so that any journal left
+     * by a previous run has already been replayed and compacted.
+     *
+     * @param syncBatchSize Number of journal entries after which the journal is forced to disk
+     * @param compactionIntervalSeconds Seconds between background compactions into pending-rewards.json
+     */
+    public synchronized void enableJournal(int syncBatchSize, int compactionIntervalSeconds) {
+        if (journal != null) {
+            return;
+        }
+
+        VoteJournal newJournal = new VoteJournal(pluginDataFolder.resolve(JOURNAL_FILE_NAME), logger, syncBatchSize);
+        try {
+            newJournal.open();
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to open " + JOURNAL_FILE_NAME + ", journal disabled: " + e.getMessage());
+            return;
+        }
+
+        journal = newJournal;
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flusher = new BackgroundFlusher("HytaleVoteListener-PendingRewardsFlush",
+                this::flush, compactionIntervalSeconds, logger);
+        flusher.schedulePeriodic(this::syncJournal, JOURNAL_SYNC_INTERVAL_MILLIS);
+        logger.at(Level.INFO).log("Pending rewards journal enabled (compaction interval: "
+                + Math.max(1, compactionIntervalSeconds) + "s)");
+    }
+
+    /**
+     * Compacts the journal into pending-rewards.json if anything changed since the last save.
+     */
+    @Override
+    public void flush() {
+        if (dirty) {
+            savePendingRewards();
+        }
+    }
+
+    /**
+     * Stops background compaction, performs a final save and closes the journal.
+     *
+     * Safe to call when the journal was never enabled.
+     */
+    @Override
+    public void shutdown() {
+        BackgroundFlusher activeFlusher;
+        synchronized (this) {
+            activeFlusher = flusher;
+            flusher = null;
+            shutDown = true;
+        }
+
+        if (activeFlusher != null) {
+            activeFlusher.shutdown();
+        }
+
+        savePendingRewards();
+
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            if (deadLetters != null) {
+                deadLetters.close();
+                deadLetters = null;
+            }
+        }
+    }
+
+    /**
+     * Loads the data file; see {@link #loadPendingRewards()}.
+     */
+    @Override
+    public void load() {
+        loadPendingRewards();
     }
 
     /**
      * Loads pending rewards from pending-rewards.json.
      *
-     * If pending-rewards.json does not exist, creates an empty data file.
+     * If pending-rewards.json does not exist, creates an empty data file. If it cannot
+     * be read, the newest readable backup is used instead. Any journal
+     * entries left by a previous run are replayed on top of the snapshot and
+     * compacted into it.
      */
     public void loadPendingRewards() {
         Path pendingRewardsPath = pluginDataFolder.resolve(PENDING_REWARDS_FILE_NAME);
 
-        if (!Files.exists(pendingRewardsPath)) {
-            logger.at(Level.INFO).log("Pending rewards file not found, creating empty pending-rewards.json");
+        pendingRewardsMap = null;
+        inFlight.clear();
+        loadTemplates();
+        Path loadedFrom = null;
+        for (Path candidate : AtomicFileWriter.candidates(pendingRewardsPath, snapshotBackups)) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+
+            try {
+                Map<String, List<PendingReward>> loadedData = readSnapshot(candidate);
+
+                if (loadedData != null) {
+                    pendingRewardsMap = loadedData;
+                    int totalPending = pendingRewardsMap.values().stream()
+                            .mapToInt(List::size)
+                            .sum();
+                    logger.at(Level.INFO).log("Loaded pending rewards for " + pendingRewardsMap.size()
+                            + " players (" + totalPending + " total rewards) from " + candidate);
+                } else {
+                    pendingRewardsMap = new ConcurrentHashMap<>();
+                    logger.at(Level.INFO).log("Pending rewards file was empty, initialized empty map");
+                }
+                loadedFrom = candidate;
+                break;
+            } catch (IOException | JsonParseException e) {
+                logger.at(Level.SEVERE).log("Failed to load " + candidate.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        if (pendingRewardsMap == null) {
+            pendingRewardsMap = new ConcurrentHashMap<>();
+            if (!Files.exists(pendingRewardsPath)) {
+                logger.at(Level.INFO).log("Pending rewards file not found, creating empty pending-rewards.json");
+            }
+        }
+
+        // A damaged live file is moved aside so the next save cannot rotate it over a good backup
+        if (!pendingRewardsPath.equals(loadedFrom) && Files.exists(pendingRewardsPath)) {
+            quarantineUnreadable(pendingRewardsPath, loadedFrom);
+        }
+
+        VoteJournal pendingJournal = new VoteJournal(pluginDataFolder.resolve(JOURNAL_FILE_NAME), logger, 1);
+        boolean replayedJournal = pendingJournal.exists();
+        if (replayedJournal) {
+            int replayed = pendingJournal.replay(this::applyJournalEntry);
+            logger.at(Level.INFO).log("Replayed " + replayed + " pending rewards journal entries");
+        }
+
+        long resumed = pendingRewardsMap.values().stream()
+                .flatMap(List::stream)
+                .filter(reward -> reward.getCommandsDelivered() > 0)
+                .count();
+        if (resumed > 0) {
+            logger.at(Level.INFO).log(resumed + " pending rewards were partly delivered and will resume where they stopped");
+        }
+
+        int merged = rebuildUsernameIndex();
+        if (merged > 0) {
+            logger.at(Level.INFO).log("Merged " + merged + " pending reward queues that differed only in username case");
+        }
+
+        // Dead-lettering saves the snapshot itself, since the journal is not enabled yet
+        DeliveryBatch unresolved = bindTemplates();
+        if (!unresolved.isEmpty()) {
+            logger.at(Level.SEVERE).log(unresolved.getEntries().size() + " pending rewards refer to templates missing from "
+                    + TEMPLATES_FILE_NAME + " and were moved to " + DEAD_LETTER_FILE_NAME);
+            applyDeliveryBatch(unresolved);
+        }
+
+        if (replayedJournal) {
             savePendingRewards();
+            pendingJournal.clear();
+        } else if (unresolved.isEmpty() && (merged > 0 || !Files.exists(pendingRewardsPath))) {
+            savePendingRewards();
+        }
+    }
+
+    /**
+     * Reads reward-templates.json into the template dictionary.
+     *
+     * Falls back to the newest readable backup like the snapshot does. An
+     * unreadable file is moved aside for manual recovery; rewards referring to
+     * its templates are then dead-lettered by {@link #bindTemplates()}.
+     */
+    private void loadTemplates() {
+        templates.clear();
+        Path templatesPath = pluginDataFolder.resolve(TEMPLATES_FILE_NAME);
+        Path loadedFrom = null;
+        for (Path candidate : AtomicFileWriter.candidates(templatesPath, snapshotBackups)) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+
+            try (BufferedReader reader = Files.newBufferedReader(candidate, StandardCharsets.UTF_8)) {
+                Map<String, RewardTemplate> loaded = gson.fromJson(reader, TEMPLATE_MAP_TYPE);
+                if (loaded != null) {
+                    templates.putAll(loaded);
+                }
+                loadedFrom = candidate;
+                break;
+            } catch (IOException | JsonParseException e) {
+                logger.at(Level.SEVERE).log("Failed to load " + candidate.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        if (!templatesPath.equals(loadedFrom) && Files.exists(templatesPath)) {
+            try {
+                Path corruptPath = AtomicFileWriter.quarantine(templatesPath);
+                logger.at(Level.SEVERE).log("Moved unreadable " + TEMPLATES_FILE_NAME + " to " + corruptPath.getFileName());
+            } catch (IOException e) {
+                logger.at(Level.SEVERE).log("Failed to move unreadable " + TEMPLATES_FILE_NAME + " aside: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Resolves the template of every loaded reward and drops unused templates.
+     *
+     * @return Dead-letter transitions for rewards whose template is missing
+     */
+    private DeliveryBatch bindTemplates() {
+        DeliveryBatch unresolved = new DeliveryBatch();
+        Set<String> used = new HashSet<>();
+        for (Map.Entry<String, List<PendingReward>> entry : pendingRewardsMap.entrySet()) {
+            for (PendingReward reward : entry.getValue()) {
+                String templateId = reward.getTemplateId();
+                if (templateId == null) {
+                    continue;
+                }
+                RewardTemplate template = templates.get(templateId);
+                if (template != null) {
+                    reward.bindTemplate(template);
+                    used.add(templateId);
+                } else {
+                    unresolved.deadLetter(entry.getKey(), reward, "Reward template " + templateId + " not found");
+                }
+            }
+        }
+
+        if (templates.keySet().retainAll(used)) {
+            saveTemplates();
+        }
+        return unresolved;
+    }
+
+    /**
+     * Makes a reward share the stored copy of its template.
+     *
+     * A template seen for the first time is written to reward-templates.json
+     * before returning, so the reward is never recorded before its template.
+     *
+     * @param reward The reward about to be added
+     */
+    private void internTemplate(PendingReward reward) {
+        RewardTemplate template = reward.getTemplate();
+        if (template == null) {
             return;
         }
 
-        try {
-            String json = Files.readString(pendingRewardsPath);
-            Type mapType = new TypeToken<Map<String, List<PendingReward>>>(){}.getType();
-            Map<String, List<PendingReward>> loadedData = gson.fromJson(json, mapType);
-
-            if (loadedData != null) {
-                pendingRewardsMap = loadedData;
-                int totalPending = pendingRewardsMap.values().stream()
-                        .mapToInt(List::size)
-                        .sum();
-                logger.at(Level.INFO).log("Loaded pending rewards for " + pendingRewardsMap.size()
-                        + " players (" + totalPending + " total rewards) from " + pendingRewardsPath);
+        RewardTemplate existing = templates.get(template.getId());
+        if (existing != null) {
+            reward.bindTemplate(existing);
+            return;
+        }
+        synchronized (templates) {
+            existing = templates.putIfAbsent(template.getId(), template);
+            if (existing != null) {
+                reward.bindTemplate(existing);
             } else {
-                pendingRewardsMap = new HashMap<>();
-                logger.at(Level.INFO).log("Pending rewards file was empty, initialized empty map");
+                saveTemplates();
+            }
+        }
+    }
+
+    /**
+     * Writes the template dictionary to reward-templates.json.
+     */
+    private void saveTemplates() {
+        synchronized (templates) {
+            try {
+                if (!Files.exists(pluginDataFolder)) {
+                    Files.createDirectories(pluginDataFolder);
+                }
+                Map<String, RewardTemplate> snapshot = new HashMap<>(templates);
+                AtomicFileWriter.write(pluginDataFolder.resolve(TEMPLATES_FILE_NAME), snapshotBackups, writer -> {
+                    JsonWriter jsonWriter = new JsonWriter(writer);
+                    if (prettyPrint) {
+                        jsonWriter.setIndent("  ");
+                    }
+                    gson.toJson(snapshot, TEMPLATE_MAP_TYPE, jsonWriter);
+                    jsonWriter.flush();
+                });
+            } catch (IOException e) {
+                logger.at(Level.SEVERE).log("Failed to save " + TEMPLATES_FILE_NAME + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the username index from the loaded rewards.
+     *
+     * Queues stored under usernames that only differ in case (left by earlier
+     * versions, which looked them up case-sensitively) are merged into one,
+     * preferring a UUID-keyed queue of the same player.
+     *
+     * @return Number of queues merged into another
+     */
+    private int rebuildUsernameIndex() {
+        usernameIndex.clear();
+        List<String> usernameKeys = new ArrayList<>();
+        for (Map.Entry<String, List<PendingReward>> entry : pendingRewardsMap.entrySet()) {
+            if (UuidKeys.isCanonical(entry.getKey())) {
+                for (PendingReward reward : entry.getValue()) {
+                    if (reward.getUsername() != null) {
+                        usernameIndex.putIfAbsent(indexName(reward.getUsername()), entry.getKey());
+                    }
+                }
+            } else {
+                usernameKeys.add(entry.getKey());
+            }
+        }
+
+        int merged = 0;
+        for (String key : usernameKeys) {
+            String canonicalKey = usernameIndex.putIfAbsent(indexName(key), key);
+            if (canonicalKey != null && !canonicalKey.equals(key)) {
+                pendingRewardsMap.merge(canonicalKey, pendingRewardsMap.remove(key), PendingRewardsManager::concat);
+                merged++;
             }
-        } catch (IOException e) {
-            logger.at(Level.SEVERE).log("Failed to load pending-rewards.json: " + e.getMessage());
-            pendingRewardsMap = new HashMap<>();
         }
+        return merged;
     }
 
     /**
      * Saves pending rewards to pending-rewards.json.
      *
-     * Creates the plugin data directory if it does not exist.
+     * Creates the plugin data directory if it does not exist. When the journal
+     * is enabled, it is rotated together with the in-memory copy so the rotated
+     * segment can be discarded once the snapshot is on disk. If the write
+     * fails, the rewards are marked dirty again so the next flush retries.
      */
     public void savePendingRewards() {
-        try {
-            if (!Files.exists(pluginDataFolder)) {
-                Files.createDirectories(pluginDataFolder);
-                logger.at(Level.INFO).log("Created plugin data folder: " + pluginDataFolder);
+        synchronized (writeLock) {
+            long startNanos = System.nanoTime();
+            SnapshotFlushEvent flushEvent = new SnapshotFlushEvent();
+            flushEvent.begin();
+            long bytesWritten = 0;
+            Map<String, List<PendingReward>> snapshot;
+            boolean journalRotated = false;
+            // Stored lists are never modified, so a shallow copy is a consistent snapshot
+            stateLock.writeLock().lock();
+            try {
+                snapshot = new HashMap<>(pendingRewardsMap);
+                dirty = false;
+
+                if (journal != null) {
+                    try {
+                        journal.rotate();
+                        journalRotated = true;
+                    } catch (IOException e) {
+                        logger.at(Level.SEVERE).log("Failed to rotate " + JOURNAL_FILE_NAME + ": " + e.getMessage());
+                    }
+                }
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+
+            try {
+                if (!Files.exists(pluginDataFolder)) {
+                    Files.createDirectories(pluginDataFolder);
+                    logger.at(Level.INFO).log("Created plugin data folder: " + pluginDataFolder);
+                }
+
+                Path pendingRewardsPath = pluginDataFolder.resolve(PENDING_REWARDS_FILE_NAME);
+                bytesWritten = writeSnapshot(pendingRewardsPath, snapshot);
+
+                if (journalRotated) {
+                    journal.deleteRotated();
+                }
+            } catch (IOException e) {
+                // Keep the changes pending so the next flush, or the one at shutdown, writes them
+                dirty = true;
+                logger.at(Level.SEVERE).log("Failed to save pending-rewards.json: " + e.getMessage());
+            }
+
+            VoteMetrics activeMetrics = metrics;
+            if (activeMetrics != null) {
+                activeMetrics.pendingRewardsSaved(System.nanoTime() - startNanos);
+            }
+            flushEvent.finish(PENDING_REWARDS_FILE_NAME, snapshot.size(), bytesWritten);
+        }
+    }
+
+    /**
+     * Streams a pending rewards snapshot from disk one player at a time.
+     *
+     * @param path Snapshot file to read
+     * @return Map of player key to pending rewards, or null if the file is empty
+     * @throws IOException if the file cannot be read
+     */
+    private Map<String, List<PendingReward>> readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             JsonReader reader = new JsonReader(new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8), READ_BUFFER_SIZE))) {
+            JsonToken token;
+            try {
+                token = reader.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (token == JsonToken.NULL) {
+                return null;
             }
 
-            Path pendingRewardsPath = pluginDataFolder.resolve(PENDING_REWARDS_FILE_NAME);
-            String json = gson.toJson(pendingRewardsMap);
-            Files.writeString(pendingRewardsPath, json);
+            Map<String, List<PendingReward>> loadedData = new ConcurrentHashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                List<PendingReward> rewards = gson.fromJson(reader, REWARD_LIST_TYPE);
+                if (rewards != null) {
+                    loadedData.put(key, rewards);
+                }
+            }
+            reader.endObject();
+            return loadedData;
+        }
+    }
+
+    /**
+     * Streams a pending rewards snapshot to disk one player at a time.
+     *
+     * @param path Snapshot file to replace
+     * @param snapshot Map of player key to pending rewards to write
+     * @return Number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    private long writeSnapshot(Path path, Map<String, List<PendingReward>> snapshot) throws IOException {
+        return AtomicFileWriter.write(path, snapshotBackups, writer -> {
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            if (prettyPrint) {
+                jsonWriter.setIndent("  ");
+            }
+            jsonWriter.beginObject();
+            for (Map.Entry<String, List<PendingReward>> entry : snapshot.entrySet()) {
+                jsonWriter.name(entry.getKey());
+                gson.toJson(entry.getValue(), REWARD_LIST_TYPE, jsonWriter);
+            }
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        });
+    }
+
+    /**
+     * Moves an unreadable pending-rewards.json aside so it is preserved for manual
+     * recovery instead of being rotated over a good backup by the next save.
+     *
+     * @param pendingRewardsPath Path of the live pending rewards file
+     * @param recoveredFrom Backup the data was recovered from, or null if none was readable
+     */
+    private void quarantineUnreadable(Path pendingRewardsPath, Path recoveredFrom) {
+        if (recoveredFrom != null) {
+            logger.at(Level.WARNING).log("Recovered pending rewards from backup " + recoveredFrom.getFileName());
+        } else {
+            logger.at(Level.SEVERE).log("No readable pending rewards snapshot found, starting with no pending rewards");
+        }
+
+        try {
+            Path corruptPath = AtomicFileWriter.quarantine(pendingRewardsPath);
+            logger.at(Level.SEVERE).log("Moved unreadable pending-rewards.json to " + corruptPath.getFileName());
         } catch (IOException e) {
-            logger.at(Level.SEVERE).log("Failed to save pending-rewards.json: " + e.getMessage());
+            logger.at(Level.SEVERE).log("Failed to move unreadable pending-rewards.json aside: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a single replayed journal entry to the in-memory map.
+     *
+     * Additions already present in the snapshot (same reward ID) are skipped so a segment left over from an interrupted compaction can be
+     * replayed safely.
+     *
+     * @param entry The journal entry
+     */
+    private void applyJournalEntry(JsonObject entry) {
+        String key = entry.has("key") ? entry.get("key").getAsString() : null;
+        switch (entry.get("op").getAsString()) {
+            case "pending_add" -> {
+                PendingReward reward = gson.fromJson(entry.get("reward"), PendingReward.class);
+                List<PendingReward> rewards = pendingRewardsMap.computeIfAbsent(key, k -> new ArrayList<>());
+                if (!containsReward(rewards, reward)) {
+                    rewards.add(reward);
+                }
+            }
+            case "pending_clear" -> pendingRewardsMap.remove(key);
+            case "pending_move" -> {
+                List<PendingReward> moved = pendingRewardsMap.remove(key);
+                if (moved != null) {
+                    List<PendingReward> target = pendingRewardsMap.computeIfAbsent(
+                            entry.get("to").getAsString(), k -> new ArrayList<>());
+                    for (PendingReward reward : moved) {
+                        if (!containsReward(target, reward)) {
+                            target.add(reward);
+                        }
+                    }
+                }
+            }
+            case "pending_batch" -> {
+                for (JsonElement element : entry.getAsJsonArray("entries")) {
+                    JsonObject change = element.getAsJsonObject();
+                    applyTransition(change.get("key").getAsString(), change.get("id").getAsString(),
+                            DeliveryBatch.Transition.valueOf(change.get("t").getAsString()),
+                            change.get("done").getAsInt(), change.get("failed").getAsInt());
+                }
+            }
+            default -> logger.at(Level.WARNING).log("Skipping unknown pending rewards journal entry: " + entry);
+        }
+    }
+
+    /**
+     * Applies one delivery state change to the in-memory map.
+     *
+     * Callers hold the exclusive state lock or run during load. Changes for
+     * rewards that are no longer stored are ignored.
+     *
+     * @param key Player key the reward is stored under
+     * @param id Reward ID
+     * @param transition The state change
+     * @param commandsDelivered New command progress (for {@link DeliveryBatch.Transition#PROGRESS})
+     * @param failedAttempts New failure count (for {@link DeliveryBatch.Transition#PROGRESS})
+     */
+    private void applyTransition(String key, String id, DeliveryBatch.Transition transition,
+                                 int commandsDelivered, int failedAttempts) {
+        List<PendingReward> existing = pendingRewardsMap.get(key);
+        if (existing == null) {
+            return;
+        }
+
+        List<PendingReward> updated = new ArrayList<>(existing.size());
+        PendingReward removed = null;
+        for (PendingReward stored : existing) {
+            if (!stored.getId().equals(id)) {
+                updated.add(stored);
+            } else if (transition == DeliveryBatch.Transition.PROGRESS) {
+                updated.add(stored.withProgress(commandsDelivered, failedAttempts));
+            } else {
+                removed = stored;
+            }
+        }
+        if (removed == null && transition != DeliveryBatch.Transition.PROGRESS) {
+            return;
+        }
+
+        if (removed != null) {
+            inFlight.remove(id);
+        }
+        if (updated.isEmpty()) {
+            pendingRewardsMap.remove(key);
+            unindexUsername(removed.getUsername(), key);
+            unindexUsername(key, key);
+        } else {
+            pendingRewardsMap.put(key, updated);
+        }
+    }
+
+    /**
+     * Appends a reward to dead-letter-rewards.jsonl and forces it to disk.
+     *
+     * @param entry The dead-letter transition
+     */
+    private synchronized void writeDeadLetter(DeliveryBatch.Entry entry) {
+        if (deadLetters == null) {
+            VoteJournal deadLetterFile = new VoteJournal(pluginDataFolder.resolve(DEAD_LETTER_FILE_NAME), logger, 1);
+            try {
+                deadLetterFile.open();
+            } catch (IOException e) {
+                logger.at(Level.SEVERE).log("Failed to open " + DEAD_LETTER_FILE_NAME + ": " + e.getMessage());
+                return;
+            }
+            deadLetters = deadLetterFile;
+        }
+
+        JsonObject line = new JsonObject();
+        line.addProperty("key", entry.getKey());
+        line.addProperty("reason", entry.getReason());
+        line.addProperty("failedAt", System.currentTimeMillis());
+        line.add("reward", gson.toJsonTree(entry.getReward()));
+        if (entry.getReward().getTemplateId() != null) {
+            // Expanded, so the line is usable without reward-templates.json
+            line.add("commands", gson.toJsonTree(entry.getReward().getCommands()));
+        }
+        deadLetters.append(line);
+    }
+
+    /**
+     * Checks whether a list already holds a reward with the same ID.
+     *
+     * @param rewards Rewards to search
+     * @param reward Reward to look for
+     * @return true if the reward is present
+     */
+    private static boolean containsReward(List<PendingReward> rewards, PendingReward reward) {
+        String id = reward.getId();
+        return rewards.stream().anyMatch(existing -> existing.getId().equals(id));
+    }
+
+    /**
+     * Concatenates two reward lists into a new list.
+     *
+     * @param first Rewards that come first
+     * @param second Rewards appended after them
+     * @return New list holding both
+     */
+    private static List<PendingReward> concat(List<PendingReward> first, List<PendingReward> second) {
+        List<PendingReward> combined = new ArrayList<>(first.size() + second.size());
+        combined.addAll(first);
+        combined.addAll(second);
+        return combined;
+    }
+
+    /**
+     * Gets the username index key for a username.
+     *
+     * @param username Player username
+     * @return Lower-cased username
+     */
+    private static String indexName(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Maps a username to the key its rewards are stored under.
+     *
+     * @param username Player username (ignored if null)
+     * @param key Player key holding the rewards
+     */
+    private void indexUsername(String username, String key) {
+        if (username != null) {
+            usernameIndex.put(indexName(username), key);
+        }
+    }
+
+    /**
+     * Removes a username mapping if it still points at the given key.
+     *
+     * @param username Player username (ignored if null)
+     * @param key Player key whose rewards were removed
+     */
+    private void unindexUsername(String username, String key) {
+        if (username != null) {
+            usernameIndex.remove(indexName(username), key);
+        }
+    }
+
+    /**
+     * Records a mutation, either by journaling it or by saving the full snapshot.
+     *
+     * Must be called inside the {@code compute} that applies the change, while
+     * holding the shared state lock, so journal order matches the order of changes.
+     *
+     * @param entry The journal entry describing the mutation
+     * @return true if the caller must save the snapshot itself (journal disabled)
+     */
+    private boolean recordMutation(JsonObject entry) {
+        VoteJournal activeJournal = journal;
+        if (activeJournal == null) {
+            return true;
+        }
+        activeJournal.append(entry);
+        dirty = true;
+        return false;
+    }
+
+    /**
+     * Forces pending journal entries to disk.
+     */
+    private synchronized void syncJournal() {
+        if (journal != null) {
+            journal.sync();
         }
     }
 
@@ -104,17 +830,247 @@ public class PendingRewardsManager {
      * Adds a pending reward for a player.
      *
      * Creates a new list for the player if they have no pending rewards yet.
-     * Immediately saves to disk for data integrity.
+     * A reward keyed by username joins the queue the username index already
+     * maps that username to, ignoring case.
+     * Immediately saves to disk, or journals the addition when the journal is enabled.
+     * A reward's template is stored in reward-templates.json first if it is new.
      *
-     * @param uuid Player UUID as string
+     * @param uuid Player UUID as string, or username if the player is offline
      * @param reward The pending reward to add
      */
+    @Override
     public void addPendingReward(String uuid, PendingReward reward) {
-        List<PendingReward> rewards = pendingRewardsMap.computeIfAbsent(uuid, k -> new ArrayList<>());
-        rewards.add(reward);
-        savePendingRewards();
+        internTemplate(reward);
+        boolean[] saveNow = new boolean[1];
+        stateLock.readLock().lock();
+        try {
+            String targetKey = UuidKeys.isCanonical(uuid)
+                    ? uuid : usernameIndex.getOrDefault(indexName(uuid), uuid);
+            pendingRewardsMap.compute(targetKey, (key, existing) -> {
+                List<PendingReward> rewards = existing != null ? new ArrayList<>(existing) : new ArrayList<>(1);
+                rewards.add(reward);
+                indexUsername(reward.getUsername(), key);
+                if (!UuidKeys.isCanonical(key)) {
+                    indexUsername(key, key);
+                }
+
+                JsonObject entry = new JsonObject();
+                entry.addProperty("op", "pending_add");
+                entry.addProperty("key", key);
+                entry.add("reward", gson.toJsonTree(reward));
+                saveNow[0] = recordMutation(entry);
+                return rewards;
+            });
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (saveNow[0]) {
+            savePendingRewards();
+        }
         logger.at(Level.INFO).log("Added pending reward for " + reward.getUsername()
-                + " from " + reward.getServiceName() + " (" + reward.getCommands().size() + " commands)");
+                + " from " + reward.getServiceName() + " (" + reward.getCommandCount() + " commands)");
+    }
+
+    /**
+     * Moves rewards queued under a player's username to their UUID.
+     *
+     * Costs one index lookup when nothing is queued under the username. Moving
+     * takes the exclusive state lock so that the move is journaled as a single
+     * entry and cannot interleave with other changes to either queue. Queues
+     * already keyed by another UUID are left alone.
+     *
+     * @param uuid Player UUID as string
+     * @param username Player's current username
+     */
+    @Override
+    public void linkPlayer(String uuid, String username) {
+        String name = indexName(username);
+        String key = usernameIndex.get(name);
+        if (key == null || UuidKeys.isCanonical(key)) {
+            return;
+        }
+
+        List<PendingReward> moved;
+        boolean saveNow;
+        stateLock.writeLock().lock();
+        try {
+            moved = pendingRewardsMap.remove(key);
+            usernameIndex.remove(name, key);
+            usernameIndex.remove(indexName(key), key);
+            if (moved == null || moved.isEmpty()) {
+                return;
+            }
+
+            pendingRewardsMap.merge(uuid, moved, PendingRewardsManager::concat);
+            for (PendingReward reward : moved) {
+                indexUsername(reward.getUsername(), uuid);
+            }
+
+            JsonObject entry = new JsonObject();
+            entry.addProperty("op", "pending_move");
+            entry.addProperty("key", key);
+            entry.addProperty("to", uuid);
+            saveNow = recordMutation(entry);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        if (saveNow) {
+            savePendingRewards();
+        }
+        logger.at(Level.INFO).log("Moved " + moved.size() + " pending rewards for " + username
+                + " from key " + key + " to " + uuid);
+    }
+
+    /**
+     * Marks a player's pending rewards as in flight and returns them.
+     *
+     * Only kept in memory, so claiming writes nothing to disk.
+     *
+     * @param uuid Player key (UUID or username)
+     * @return The claimed rewards in queue order (empty if none)
+     */
+    @Override
+    public List<PendingReward> claimPendingRewards(String uuid) {
+        List<PendingReward> claimed = new ArrayList<>();
+        stateLock.readLock().lock();
+        try {
+            pendingRewardsMap.computeIfPresent(uuid, (key, existing) -> {
+                for (PendingReward reward : existing) {
+                    if (inFlight.add(reward.getId())) {
+                        claimed.add(reward);
+                    }
+                }
+                return existing;
+            });
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return claimed;
+    }
+
+    /**
+     * Returns in-flight rewards to pending, recording the progress of any that
+     * were partly delivered or have failed before.
+     *
+     * @param uuid Player key the rewards were claimed under
+     * @param rewards The rewards with their latest progress
+     */
+    @Override
+    public void releasePendingRewards(String uuid, List<PendingReward> rewards) {
+        DeliveryBatch progress = new DeliveryBatch();
+        for (PendingReward reward : rewards) {
+            if (reward.getCommandsDelivered() > 0 || reward.getFailedAttempts() > 0) {
+                progress.progress(uuid, reward);
+            }
+        }
+        applyDeliveryBatch(progress);
+        for (PendingReward reward : rewards) {
+            inFlight.remove(reward.getId());
+        }
+    }
+
+    /**
+     * Applies the state changes of in-flight rewards as one journal entry.
+     *
+     * Dead-lettered rewards are written to dead-letter-rewards.jsonl before
+     * they are removed, so a crash in between can only leave a reward in both
+     * places, never in neither.
+     *
+     * Without the journal, the changes are saved by a background flush within
+     * a second and at shutdown rather than rewriting pending-rewards.json on
+     * every delivery tick. A crash in between can only deliver those rewards'
+     * commands again, never lose a reward.
+     *
+     * @param batch The changes to apply
+     */
+    @Override
+    public void applyDeliveryBatch(DeliveryBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        for (DeliveryBatch.Entry entry : batch.getEntries()) {
+            if (entry.getTransition() == DeliveryBatch.Transition.DEAD_LETTER) {
+                writeDeadLetter(entry);
+            }
+        }
+
+        boolean saveLater;
+        stateLock.writeLock().lock();
+        try {
+            JsonArray changes = new JsonArray();
+            for (DeliveryBatch.Entry entry : batch.getEntries()) {
+                PendingReward reward = entry.getReward();
+                applyTransition(entry.getKey(), reward.getId(), entry.getTransition(),
+                        reward.getCommandsDelivered(), reward.getFailedAttempts());
+
+                JsonObject change = new JsonObject();
+                change.addProperty("t", entry.getTransition().name());
+                change.addProperty("key", entry.getKey());
+                change.addProperty("id", reward.getId());
+                change.addProperty("done", reward.getCommandsDelivered());
+                change.addProperty("failed", reward.getFailedAttempts());
+                changes.add(change);
+            }
+
+            JsonObject journalEntry = new JsonObject();
+            journalEntry.addProperty("op", "pending_batch");
+            journalEntry.add("entries", changes);
+            saveLater = recordMutation(journalEntry);
+            if (saveLater) {
+                dirty = true;
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        if (saveLater) {
+            startDeliveryFlusher();
+        }
+    }
+
+    /**
+     * Starts the background flush that saves delivery progress while the
+     * journal is disabled, unless a flusher is already running.
+     */
+    private synchronized void startDeliveryFlusher() {
+        if (flusher == null && !shutDown) {
+            flusher = new BackgroundFlusher("HytaleVoteListener-PendingRewardsFlush",
+                    this::flush, DELIVERY_SAVE_INTERVAL_SECONDS, logger);
+        }
+    }
+
+    /**
+     * Gets the pending rewards of every player.
+     *
+     * The map is concurrent and safe to iterate while rewards are added.
+     * Its lists must not be modified.
+     *
+     * @return Unmodifiable map of player key to pending rewards
+     */
+    public Map<String, List<PendingReward>> getAllPendingRewards() {
+        return Collections.unmodifiableMap(pendingRewardsMap);
+    }
+
+    /**
+     * Gets the number of queued rewards across all players.
+     *
+     * @return Reward count
+     */
+    public int getPendingRewardCount() {
+        int count = 0;
+        for (List<PendingReward> rewards : pendingRewardsMap.values()) {
+            count += rewards.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of reward templates shared by queued rewards.
+     *
+     * @return Template count
+     */
+    public int getTemplateCount() {
+        return templates.size();
     }
 
     /**
@@ -123,24 +1079,40 @@ public class PendingRewardsManager {
      * @param uuid Player UUID as string
      * @return List of pending rewards, or empty list if none
      */
+    @Override
     public List<PendingReward> getPendingRewards(String uuid) {
-        return pendingRewardsMap.getOrDefault(uuid, new ArrayList<>());
+        return new ArrayList<>(pendingRewardsMap.getOrDefault(uuid, List.of()));
+    }
+
+    /**
+     * Atomically removes and returns all pending rewards for a player.
+     *
+     * Immediately saves to disk, or journals the clear when the journal is enabled.
+     * Concurrent callers for the same player never receive the same rewards.
+     *
+     * @param uuid Player UUID as string
+     * @return The removed rewards, or empty list if none
+     */
+    @Override
+    public List<PendingReward> takePendingRewards(String uuid) {
+        List<PendingReward> removed = removeAndRecord(uuid);
+        if (!removed.isEmpty()) {
+            logger.at(Level.INFO).log("Cleared " + removed.size() + " pending rewards for player " + uuid);
+        }
+        return removed;
     }
 
     /**
      * Clears all pending rewards for a player.
      *
      * Used after rewards have been successfully delivered.
-     * Immediately saves to disk for data integrity.
+     * Immediately saves to disk, or journals the clear when the journal is enabled.
      *
      * @param uuid Player UUID as string
      */
+    @Override
     public void clearPendingRewards(String uuid) {
-        List<PendingReward> removed = pendingRewardsMap.remove(uuid);
-        if (removed != null && !removed.isEmpty()) {
-            savePendingRewards();
-            logger.at(Level.INFO).log("Cleared " + removed.size() + " pending rewards for player " + uuid);
-        }
+        takePendingRewards(uuid);
     }
 
     /**
@@ -149,8 +1121,44 @@ public class PendingRewardsManager {
      * @param uuid Player UUID as string
      * @return true if the player has pending rewards, false otherwise
      */
+    @Override
     public boolean hasPendingRewards(String uuid) {
         List<PendingReward> rewards = pendingRewardsMap.get(uuid);
         return rewards != null && !rewards.isEmpty();
     }
+
+    /**
+     * Removes a player's rewards and records the clear.
+     *
+     * @param uuid Player UUID as string
+     * @return The removed rewards, or empty list if none
+     */
+    private List<PendingReward> removeAndRecord(String uuid) {
+        List<List<PendingReward>> removed = new ArrayList<>(1);
+        boolean[] saveNow = new boolean[1];
+        stateLock.readLock().lock();
+        try {
+            pendingRewardsMap.computeIfPresent(uuid, (key, existing) -> {
+                for (PendingReward reward : existing) {
+                    unindexUsername(reward.getUsername(), key);
+                    inFlight.remove(reward.getId());
+                }
+                unindexUsername(key, key);
+                if (!existing.isEmpty()) {
+                    removed.add(existing);
+                    JsonObject entry = new JsonObject();
+                    entry.addProperty("op", "pending_clear");
+                    entry.addProperty("key", uuid);
+                    saveNow[0] = recordMutation(entry);
+                }
+                return null;
+            });
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (saveNow[0]) {
+            savePendingRewards();
+        }
+        return removed.isEmpty() ? List.of() : removed.get(0);
+    }
 }
@@ -0,0 +1,108 @@
+package com.hyvote.votelistener.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded least-recently-used cache of player vote records.
+ *
+ * <p>Backed by an access-ordered {@link LinkedHashMap}: every hit moves the
+ * player to the young end, and inserting past the capacity drops the player
+ * who has gone longest without a vote or lookup. Memory use is therefore
+ * bounded by the number of recently active voters rather than by everyone who
+ * has ever voted.
+ *
+ * <p>The cache never owns unsaved changes. Its owner keeps dirty records in a
+ * separate write buffer until they are committed, so evicting a record only
+ * drops the in-memory copy and can never lose a vote.
+ *
+ * <p>All methods are thread-safe. Hit, miss and eviction counters use
+ * {@link LongAdder} so reading them never contends with lookups.
+ */
+final class PlayerDataCache {
+
+    private final int capacity;
+    private final LinkedHashMap<String, PlayerVoteData> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * Creates a new PlayerDataCache.
+     *
+     * @param capacity Maximum number of cached players (at least 1)
+     */
+    PlayerDataCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PlayerVoteData> eldest) {
+                if (size() > PlayerDataCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up a player, counting the result as a hit or miss.
+     *
+     * @param key Player key
+     * @return The cached record, or null if the player is not cached
+     */
+    PlayerVoteData get(String key) {
+        PlayerVoteData data;
+        synchronized (entries) {
+            data = entries.get(key);
+        }
+        if (data != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return data;
+    }
+
+    /**
+     * Looks up a player without counting it as a hit or miss.
+     *
+     * @param key Player key
+     * @return The cached record, or null if the player is not cached
+     */
+    PlayerVoteData peek(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Caches a player's record, evicting the least recently used player if full.
+     *
+     * @param key Player key
+     * @param data The player's current record
+     */
+    void put(String key, PlayerVoteData data) {
+        synchronized (entries) {
+            entries.put(key, data);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return Current size, capacity, hits, misses and evictions
+     */
+    CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(size, capacity, hits.sum(), misses.sum(), evictions.sum());
+    }
+}
@@ -1,10 +1,17 @@
 package com.hyvote.votelistener.data;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
 /**
  * Model representing a player's vote data including streak tracking.
  *
  * This class stores per-player vote statistics including total votes,
- * current streak, and last vote timestamp for streak calculation.
+ * current streak, and last vote timestamp for streak calculation, plus vote
+ * counts for recent days, weeks and months. The period counts are packed
+ * {@link VotePeriod} rings aligned to the last vote, so they take 24 bytes
+ * however long the player has been voting.
  */
 public class PlayerVoteData {
 
@@ -33,6 +40,21 @@ public class PlayerVoteData {
      */
     private long lastVoteTimestamp;
 
+    /**
+     * Votes per day for the last eight days, packed as a {@link VotePeriod#DAY} ring.
+     */
+    private long dailyVotes;
+
+    /**
+     * Votes per week for the last four weeks, packed as a {@link VotePeriod#WEEK} ring.
+     */
+    private long weeklyVotes;
+
+    /**
+     * Votes per month for this and the previous month, packed as a {@link VotePeriod#MONTH} ring.
+     */
+    private long monthlyVotes;
+
     /**
      * Default constructor for Gson deserialization.
      */
@@ -49,11 +71,31 @@ public class PlayerVoteData {
      * @param lastVoteTimestamp Last vote timestamp in epoch millis
      */
     public PlayerVoteData(String uuid, String username, int totalVotes, int currentStreak, long lastVoteTimestamp) {
+        this(uuid, username, totalVotes, currentStreak, lastVoteTimestamp, 0, 0, 0);
+    }
+
+    /**
+     * Creates a new PlayerVoteData including its period vote counts.
+     *
+     * @param uuid Player UUID as string
+     * @param username Player username
+     * @param totalVotes Lifetime vote count
+     * @param currentStreak Current streak count
+     * @param lastVoteTimestamp Last vote timestamp in epoch millis
+     * @param dailyVotes Packed {@link VotePeriod#DAY} ring
+     * @param weeklyVotes Packed {@link VotePeriod#WEEK} ring
+     * @param monthlyVotes Packed {@link VotePeriod#MONTH} ring
+     */
+    public PlayerVoteData(String uuid, String username, int totalVotes, int currentStreak, long lastVoteTimestamp,
+                          long dailyVotes, long weeklyVotes, long monthlyVotes) {
         this.uuid = uuid;
         this.username = username;
         this.totalVotes = totalVotes;
         this.currentStreak = currentStreak;
         this.lastVoteTimestamp = lastVoteTimestamp;
+        this.dailyVotes = dailyVotes;
+        this.weeklyVotes = weeklyVotes;
+        this.monthlyVotes = monthlyVotes;
     }
 
     /**
@@ -136,4 +178,107 @@ public class PlayerVoteData {
     public void setLastVoteTimestamp(long lastVoteTimestamp) {
         this.lastVoteTimestamp = lastVoteTimestamp;
     }
+
+    /**
+     * Gets the packed vote counts for a period, aligned to the last vote.
+     *
+     * @param period The period
+     * @return Packed ring, slot 0 being the period of the last vote
+     */
+    public long getVoteRing(VotePeriod period) {
+        return switch (period) {
+            case DAY -> dailyVotes;
+            case WEEK -> weeklyVotes;
+            case MONTH -> monthlyVotes;
+        };
+    }
+
+    /**
+     * Sets the packed vote counts for a period.
+     *
+     * @param period The period
+     * @param ring Packed ring, slot 0 being the period of the last vote
+     */
+    public void setVoteRing(VotePeriod period, long ring) {
+        switch (period) {
+            case DAY -> dailyVotes = ring;
+            case WEEK -> weeklyVotes = ring;
+            case MONTH -> monthlyVotes = ring;
+        }
+    }
+
+    /**
+     * Gets the player's votes in a recent period.
+     *
+     * @param period The period
+     * @param periodsAgo 0 for the period containing {@code now}, 1 for the one before, and so on
+     * @param now Current time in epoch milliseconds
+     * @return Vote count, or 0 if the period is older than the ring remembers
+     */
+    public int getVotes(VotePeriod period, int periodsAgo, long now) {
+        if (lastVoteTimestamp == 0) {
+            return 0;
+        }
+        long elapsed = period.indexOf(now) - period.indexOf(lastVoteTimestamp);
+        return period.count(period.advance(getVoteRing(period), elapsed), periodsAgo);
+    }
+
+    /**
+     * Creates a detached copy of this record.
+     *
+     * @return New PlayerVoteData with the same field values
+     */
+    public PlayerVoteData copy() {
+        return new PlayerVoteData(uuid, username, totalVotes, currentStreak, lastVoteTimestamp,
+                dailyVotes, weeklyVotes, monthlyVotes);
+    }
+
+    /**
+     * Records a vote at the given time: increments the total vote count, updates the streak
+     * and counts the vote in the current day, week and month.
+     *
+     * Streak logic:
+     * - If last vote was today: streak unchanged (already voted today)
+     * - If last vote was yesterday: streak incremented
+     * - If last vote was older than yesterday: streak reset to 1
+     *
+     * @param now Vote time in epoch milliseconds
+     */
+    public void registerVote(long now) {
+        // Increment total votes
+        totalVotes++;
+
+        // Calculate streak
+        if (lastVoteTimestamp == 0) {
+            // First vote ever
+            currentStreak = 1;
+        } else {
+            LocalDate today = Instant.ofEpochMilli(now)
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate();
+            LocalDate lastVoteDate = Instant.ofEpochMilli(lastVoteTimestamp)
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDate();
+
+            if (today.equals(lastVoteDate)) {
+                // Same day - streak unchanged (already voted today)
+                // Don't change streak
+            } else if (today.minusDays(1).equals(lastVoteDate)) {
+                // Yesterday - increment streak
+                currentStreak++;
+            } else {
+                // Older than yesterday - reset streak
+                currentStreak = 1;
+            }
+        }
+
+        // Roll the period rings forward to now and count the vote; a first vote finds them empty
+        for (VotePeriod period : VotePeriod.values()) {
+            long elapsed = lastVoteTimestamp == 0 ? 0 : period.indexOf(now) - period.indexOf(lastVoteTimestamp);
+            setVoteRing(period, period.increment(period.advance(getVoteRing(period), elapsed)));
+        }
+
+        // Update last vote timestamp
+        lastVoteTimestamp = now;
+    }
 }
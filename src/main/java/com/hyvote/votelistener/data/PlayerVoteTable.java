@@ -0,0 +1,663 @@
+package com.hyvote.votelistener.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compact in-memory table of player vote records.
+ *
+ * <p>Instead of one {@link PlayerVoteData} object, two key Strings and a map
+ * node per player (roughly 300 bytes), each player occupies one slot across
+ * parallel primitive arrays:
+ * <ul>
+ *   <li>UUID keys are stored as two {@code long}s and found through an
+ *       open-addressing {@code int[]} hash index, so no key String is kept.</li>
+ *   <li>Usernames are UTF-8 encoded into one shared {@code byte[]} arena,
+ *       each prefixed with its varint length, and referenced by a single
+ *       {@code int} offset.</li>
+ *   <li>Total votes, streak, last vote time and the packed day, week and month
+ *       vote rings live in {@code int[]}/{@code long[]} columns.</li>
+ * </ul>
+ * That is under 90 bytes per player. Keys that are not canonical lowercase UUID
+ * strings (usernames of players never seen online) are rare; they are found
+ * through a side map and kept in a sparse {@code String[]} column.
+ *
+ * <p>Records are read and written as {@link PlayerVoteData} views: every read
+ * materializes a detached copy, so callers can keep or modify the result
+ * without affecting the table. There is no removal, matching how vote data is
+ * used.
+ *
+ * <p>Locking is split so that votes for different players do not serialize.
+ * Reading or updating an existing player holds the shared side of a
+ * read-write lock plus one of {@value #STRIPES} striped record locks, chosen
+ * by slot. Adding a player, growing the columns or index, trimming and copying
+ * take the exclusive side, which new players need only once. Username bytes
+ * are appended to the arena under a separate lock; the arena is only compacted
+ * under the exclusive side. {@link #forEach} holds the locks for one record at
+ * a time. Functions passed to {@link #compute} run under these locks and must
+ * not call back into the table.
+ */
+public final class PlayerVoteTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_NAME = -1;
+    // A HashMap node, a boxed slot and a short key string
+    private static final int OTHER_KEY_BYTES = 112;
+    // Power of two, so a slot picks its stripe with a mask
+    private static final int STRIPES = 64;
+
+    // Shared for record access, exclusive for anything that moves slots, columns or the index
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final Object[] recordLocks;
+    private final Object namesLock = new Object();
+
+    // Slot columns
+    private long[] keyHigh;
+    private long[] keyLow;
+    private int[] nameOffset;
+    private int[] totalVotes;
+    private int[] currentStreak;
+    private long[] lastVoteTimestamp;
+    private long[] dailyVotes;
+    private long[] weeklyVotes;
+    private long[] monthlyVotes;
+    // Non-UUID key of each slot, null for UUID slots
+    private String[] otherKeyBySlot;
+    private int size;
+
+    // Username arena; renamed players leave their old bytes behind until the next compaction.
+    // Appends hold namesLock; the array is swapped when it grows, so readers see either copy.
+    private volatile byte[] names;
+    private int namesUsed;
+    private int namesWasted;
+
+    // UUID key -> slot + 1 (0 marks an empty bucket), linear probing
+    private int[] index;
+    private int uuidCount;
+
+    // Keys that are not canonical UUIDs -> slot
+    private final Map<String, Integer> otherKeys;
+
+    /**
+     * Creates an empty table.
+     */
+    public PlayerVoteTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table sized for the expected number of players.
+     *
+     * @param expectedPlayers Number of players to allocate room for
+     */
+    public PlayerVoteTable(int expectedPlayers) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedPlayers);
+        this.keyHigh = new long[capacity];
+        this.keyLow = new long[capacity];
+        this.nameOffset = new int[capacity];
+        this.totalVotes = new int[capacity];
+        this.currentStreak = new int[capacity];
+        this.lastVoteTimestamp = new long[capacity];
+        this.dailyVotes = new long[capacity];
+        this.weeklyVotes = new long[capacity];
+        this.monthlyVotes = new long[capacity];
+        this.otherKeyBySlot = new String[capacity];
+        this.names = new byte[capacity * 8];
+        this.index = new int[indexCapacityFor(capacity)];
+        this.otherKeys = new HashMap<>();
+        this.recordLocks = new Object[STRIPES];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            recordLocks[stripe] = new Object();
+        }
+    }
+
+    /**
+     * Gets the number of players in the table.
+     *
+     * @return Player count
+     */
+    public int size() {
+        structureLock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the heap used by the table.
+     *
+     * Counts the allocated columns, username arena and index exactly, and each
+     * non-UUID key at a fixed cost for its map entry and key string. Column
+     * references are counted as compressed (4-byte) pointers.
+     *
+     * @return Estimated size in bytes
+     */
+    public long estimateHeapBytes() {
+        structureLock.readLock().lock();
+        try {
+            long bytes = (long) keyHigh.length * (Long.BYTES * 6 + Integer.BYTES * 4);
+            bytes += names.length;
+            bytes += (long) index.length * Integer.BYTES;
+            bytes += (long) otherKeys.size() * OTHER_KEY_BYTES;
+            return bytes;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a player's record.
+     *
+     * @param key Player UUID as string (or username for players never seen online)
+     * @return Detached copy of the record, or null if the player is not in the table
+     */
+    public PlayerVoteData get(String key) {
+        structureLock.readLock().lock();
+        try {
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return null;
+            }
+            synchronized (recordLock(slot)) {
+                return materialize(slot, key);
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a player's record, replacing any existing one.
+     *
+     * @param key Player UUID as string (or username for players never seen online)
+     * @param data The record to store; its fields are copied
+     */
+    public void put(String key, PlayerVoteData data) {
+        compute(key, existing -> data);
+    }
+
+    /**
+     * Atomically updates a player's record.
+     *
+     * The function receives a detached copy of the current record (or null if
+     * the player is new), may modify and return it, and the returned record is
+     * stored. Returning null leaves the table unchanged. The function is called
+     * once, while the player's record lock is held, so it must be quick and
+     * must not call back into the table.
+     *
+     * @param key Player UUID as string (or username for players never seen online)
+     * @param remapping Computes the new record from the current one
+     * @return The stored record, or null if the function returned null
+     */
+    public PlayerVoteData compute(String key, UnaryOperator<PlayerVoteData> remapping) {
+        structureLock.readLock().lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                synchronized (recordLock(slot)) {
+                    PlayerVoteData updated = remapping.apply(materialize(slot, key));
+                    if (updated != null) {
+                        store(slot, updated);
+                    }
+                    return updated;
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+
+        // New player: the slot is added under the exclusive lock, which also covers the record
+        structureLock.writeLock().lock();
+        try {
+            // Another thread may have added the player since the shared lock was released
+            int slot = findSlot(key);
+            PlayerVoteData updated = remapping.apply(slot >= 0 ? materialize(slot, key) : null);
+            if (updated != null) {
+                if (slot < 0) {
+                    slot = addSlot(key);
+                }
+                store(slot, updated);
+            }
+            return updated;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the key stored in a slot.
+     *
+     * @param slot Slot number from 0 to {@link #size()} - 1
+     * @return The player key
+     */
+    public String keyAt(int slot) {
+        structureLock.readLock().lock();
+        try {
+            return slotKey(slot);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the record stored in a slot.
+     *
+     * @param slot Slot number from 0 to {@link #size()} - 1
+     * @return Detached copy of the record
+     */
+    public PlayerVoteData dataAt(int slot) {
+        structureLock.readLock().lock();
+        try {
+            synchronized (recordLock(slot)) {
+                return materialize(slot, slotKey(slot));
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Calls the action for every player, materializing one record at a time.
+     *
+     * The table's locks are held only while each record is read, never while
+     * the action runs, so a slow action such as an export does not hold up
+     * votes or new players. Slots are never removed, so every player present
+     * when iteration starts is visited once, with its data as of that visit;
+     * players added meanwhile are skipped.
+     *
+     * @param action Receives each player key and a detached copy of its record
+     */
+    public void forEach(BiConsumer<String, PlayerVoteData> action) {
+        int players = size();
+        for (int slot = 0; slot < players; slot++) {
+            String key;
+            PlayerVoteData data;
+            structureLock.readLock().lock();
+            try {
+                key = slotKey(slot);
+                synchronized (recordLock(slot)) {
+                    data = materialize(slot, key);
+                }
+            } finally {
+                structureLock.readLock().unlock();
+            }
+            action.accept(key, data);
+        }
+    }
+
+    /**
+     * Releases spare capacity in the slot columns and username arena.
+     *
+     * Called once a snapshot has been loaded, when the table is at its largest
+     * and further growth is slow.
+     */
+    public void trimToSize() {
+        structureLock.writeLock().lock();
+        try {
+            if (size < totalVotes.length) {
+                growSlots(Math.max(INITIAL_CAPACITY, size));
+            }
+            int live = Math.max(INITIAL_CAPACITY, namesUsed - namesWasted);
+            if (live < names.length) {
+                compactNames(live);
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Creates an independent copy of the table, trimmed to its current size.
+     *
+     * Copying the primitive columns is much cheaper than copying a map of
+     * objects, so this is used to take consistent snapshots for saving. The
+     * exclusive lock is held for the copy, so no record changes part way.
+     *
+     * @return The copy
+     */
+    public PlayerVoteTable copy() {
+        structureLock.writeLock().lock();
+        try {
+            PlayerVoteTable copy = new PlayerVoteTable(0);
+            copy.keyHigh = Arrays.copyOf(keyHigh, size);
+            copy.keyLow = Arrays.copyOf(keyLow, size);
+            copy.nameOffset = Arrays.copyOf(nameOffset, size);
+            copy.totalVotes = Arrays.copyOf(totalVotes, size);
+            copy.currentStreak = Arrays.copyOf(currentStreak, size);
+            copy.lastVoteTimestamp = Arrays.copyOf(lastVoteTimestamp, size);
+            copy.dailyVotes = Arrays.copyOf(dailyVotes, size);
+            copy.weeklyVotes = Arrays.copyOf(weeklyVotes, size);
+            copy.monthlyVotes = Arrays.copyOf(monthlyVotes, size);
+            copy.otherKeyBySlot = Arrays.copyOf(otherKeyBySlot, size);
+            copy.size = size;
+            copy.names = Arrays.copyOf(names, namesUsed);
+            copy.namesUsed = namesUsed;
+            copy.namesWasted = namesWasted;
+            copy.index = index.clone();
+            copy.uuidCount = uuidCount;
+            copy.otherKeys.putAll(otherKeys);
+            return copy;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding a slot's record columns.
+     *
+     * @param slot Slot number
+     * @return The slot's stripe lock
+     */
+    private Object recordLock(int slot) {
+        return recordLocks[slot & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets the key stored in a slot; the caller holds the structure lock.
+     *
+     * @param slot Slot number
+     * @return The player key
+     */
+    private String slotKey(int slot) {
+        String other = otherKeyBySlot[slot];
+        return other != null ? other : UuidKeys.toKey(keyHigh[slot], keyLow[slot]);
+    }
+
+    /**
+     * Finds the slot holding a key.
+     *
+     * @param key Player key
+     * @return Slot number, or -1 if the key is not in the table
+     */
+    private int findSlot(String key) {
+        if (!UuidKeys.isCanonical(key)) {
+            Integer slot = otherKeys.get(key);
+            return slot != null ? slot : -1;
+        }
+        long high = UuidKeys.high(key);
+        long low = UuidKeys.low(key);
+        int mask = index.length - 1;
+        for (int bucket = UuidKeys.hash(high, low) & mask; index[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = index[bucket] - 1;
+            if (keyHigh[slot] == high && keyLow[slot] == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends an empty slot for a new key and indexes it; the caller holds the
+     * exclusive lock.
+     *
+     * Also compacts the username arena once at least half of it is left over
+     * from renames, since compaction moves every slot's name.
+     *
+     * @param key Player key not yet in the table
+     * @return The new slot number
+     */
+    private int addSlot(String key) {
+        if (namesWasted > 0 && namesWasted >= namesUsed / 2) {
+            compactNames(names.length);
+        }
+        if (size == totalVotes.length) {
+            growSlots(Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        boolean canonical = UuidKeys.isCanonical(key);
+        // Grow the index before the slot exists, or the rebuild would index it too
+        if (canonical && (uuidCount + 1) * 4L > index.length * 3L) {
+            rebuildIndex(index.length * 2);
+        }
+        int slot = size++;
+        nameOffset[slot] = NO_NAME;
+
+        if (!canonical) {
+            otherKeys.put(key, slot);
+            otherKeyBySlot[slot] = key;
+            return slot;
+        }
+
+        keyHigh[slot] = UuidKeys.high(key);
+        keyLow[slot] = UuidKeys.low(key);
+        insertIntoIndex(slot);
+        uuidCount++;
+        return slot;
+    }
+
+    /**
+     * Copies a record's fields into a slot; the caller holds the slot's record
+     * lock or the exclusive lock.
+     *
+     * @param slot Slot to write
+     * @param data Record to copy from
+     */
+    private void store(int slot, PlayerVoteData data) {
+        totalVotes[slot] = data.getTotalVotes();
+        currentStreak[slot] = data.getCurrentStreak();
+        lastVoteTimestamp[slot] = data.getLastVoteTimestamp();
+        dailyVotes[slot] = data.getVoteRing(VotePeriod.DAY);
+        weeklyVotes[slot] = data.getVoteRing(VotePeriod.WEEK);
+        monthlyVotes[slot] = data.getVoteRing(VotePeriod.MONTH);
+        storeName(slot, data.getUsername());
+    }
+
+    /**
+     * Writes a username into the arena unless it is unchanged.
+     *
+     * @param slot Slot to update
+     * @param username New username (may be null)
+     */
+    private void storeName(int slot, String username) {
+        int oldOffset = nameOffset[slot];
+        byte[] encoded = username != null ? username.getBytes(StandardCharsets.UTF_8) : null;
+        int oldSize = 0;
+        if (oldOffset != NO_NAME) {
+            byte[] arena = names;
+            int oldLength = readLength(arena, oldOffset);
+            int oldStart = oldOffset + varintSize(oldLength);
+            if (encoded != null && oldLength == encoded.length
+                    && Arrays.equals(arena, oldStart, oldStart + oldLength, encoded, 0, encoded.length)) {
+                return;
+            }
+            oldSize = oldStart - oldOffset + oldLength;
+        }
+
+        synchronized (namesLock) {
+            namesWasted += oldSize;
+            if (encoded == null) {
+                nameOffset[slot] = NO_NAME;
+                return;
+            }
+            byte[] arena = ensureNameCapacity(varintSize(encoded.length) + encoded.length);
+            int offset = namesUsed;
+            int start = writeLength(arena, offset, encoded.length);
+            System.arraycopy(encoded, 0, arena, start, encoded.length);
+            namesUsed = start + encoded.length;
+            nameOffset[slot] = offset;
+        }
+    }
+
+    /**
+     * Makes room for more username bytes by growing the arena; the caller
+     * holds the arena lock.
+     *
+     * The old arena is copied rather than compacted, because other slots'
+     * names may be read from it concurrently. Bytes left over from renames
+     * are dropped by the next compaction.
+     *
+     * @param extra Number of bytes about to be appended
+     * @return The arena to write to
+     */
+    private byte[] ensureNameCapacity(int extra) {
+        byte[] arena = names;
+        if (namesUsed + extra <= arena.length) {
+            return arena;
+        }
+        int capacity = Math.max(Math.max(INITIAL_CAPACITY, arena.length + (arena.length >> 1)), namesUsed + extra);
+        arena = Arrays.copyOf(arena, capacity);
+        names = arena;
+        return arena;
+    }
+
+    /**
+     * Copies the live usernames into a new arena, dropping bytes left over
+     * from renames; the caller holds the exclusive lock.
+     *
+     * @param capacity Size of the new arena, at least the live byte count
+     */
+    private void compactNames(int capacity) {
+        byte[] arena = names;
+        byte[] compacted = new byte[capacity];
+        int used = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int offset = nameOffset[slot];
+            if (offset != NO_NAME) {
+                int length = readLength(arena, offset);
+                int entrySize = varintSize(length) + length;
+                System.arraycopy(arena, offset, compacted, used, entrySize);
+                nameOffset[slot] = used;
+                used += entrySize;
+            }
+        }
+        names = compacted;
+        namesUsed = used;
+        namesWasted = 0;
+    }
+
+    /**
+     * Builds a record from a slot's columns.
+     *
+     * @param slot Slot to read
+     * @param key The slot's key
+     * @return New PlayerVoteData
+     */
+    private PlayerVoteData materialize(int slot, String key) {
+        int offset = nameOffset[slot];
+        String username = null;
+        if (offset != NO_NAME) {
+            byte[] arena = names;
+            int length = readLength(arena, offset);
+            username = new String(arena, offset + varintSize(length), length, StandardCharsets.UTF_8);
+        }
+        return new PlayerVoteData(key, username, totalVotes[slot], currentStreak[slot], lastVoteTimestamp[slot],
+                dailyVotes[slot], weeklyVotes[slot], monthlyVotes[slot]);
+    }
+
+    /**
+     * Reads the varint length prefix of an arena entry.
+     *
+     * @param arena Username arena
+     * @param offset Entry offset
+     * @return Username length in bytes
+     */
+    private static int readLength(byte[] arena, int offset) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = arena[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return length;
+    }
+
+    /**
+     * Writes a varint length prefix into the arena.
+     *
+     * @param arena Username arena
+     * @param offset Where to write
+     * @param length Username length in bytes
+     * @return Offset just past the prefix
+     */
+    private static int writeLength(byte[] arena, int offset, int length) {
+        while (length >= 0x80) {
+            arena[offset++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        arena[offset++] = (byte) length;
+        return offset;
+    }
+
+    /**
+     * Gets the number of bytes a varint length prefix takes.
+     *
+     * @param length Username length in bytes
+     * @return Prefix size (1 for names shorter than 128 bytes)
+     */
+    private static int varintSize(int length) {
+        int size = 1;
+        while (length >= 0x80) {
+            length >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Grows every slot column to the given capacity.
+     *
+     * @param capacity New slot capacity
+     */
+    private void growSlots(int capacity) {
+        keyHigh = Arrays.copyOf(keyHigh, capacity);
+        keyLow = Arrays.copyOf(keyLow, capacity);
+        nameOffset = Arrays.copyOf(nameOffset, capacity);
+        totalVotes = Arrays.copyOf(totalVotes, capacity);
+        currentStreak = Arrays.copyOf(currentStreak, capacity);
+        lastVoteTimestamp = Arrays.copyOf(lastVoteTimestamp, capacity);
+        dailyVotes = Arrays.copyOf(dailyVotes, capacity);
+        weeklyVotes = Arrays.copyOf(weeklyVotes, capacity);
+        monthlyVotes = Arrays.copyOf(monthlyVotes, capacity);
+        otherKeyBySlot = Arrays.copyOf(otherKeyBySlot, capacity);
+    }
+
+    /**
+     * Rebuilds the hash index with a new bucket count.
+     *
+     * @param capacity New bucket count (a power of two)
+     */
+    private void rebuildIndex(int capacity) {
+        index = new int[capacity];
+        for (int slot = 0; slot < size; slot++) {
+            if (otherKeyBySlot[slot] == null) {
+                insertIntoIndex(slot);
+            }
+        }
+    }
+
+    /**
+     * Adds a UUID slot to the hash index.
+     *
+     * @param slot Slot whose key is already stored
+     */
+    private void insertIntoIndex(int slot) {
+        int mask = index.length - 1;
+        int bucket = UuidKeys.hash(keyHigh[slot], keyLow[slot]) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot + 1;
+    }
+
+    /**
+     * Gets the index size that keeps the load factor at or below 0.75.
+     *
+     * @param slots Number of slots to index
+     * @return A power of two
+     */
+    private static int indexCapacityFor(int slots) {
+        int capacity = INITIAL_CAPACITY;
+        while (slots * 4L > capacity * 3L) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,170 @@
+package com.hyvote.votelistener.data;
+
+import com.hyvote.votelistener.util.CommandTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The unexpanded commands of one pending reward, shared by every reward that
+ * was built from the same configuration.
+ *
+ * Holds the command strings of a vote's base commands and selected random
+ * reward, streak and milestone bonuses, each with the name that
+ * {@code %reward%} renders as. A {@link PendingReward} keeps a reference to its
+ * template plus the few values captured at vote time, so hundreds of queued
+ * votes share one set of command strings. Templates are identified by a hash
+ * of their contents, so identical templates get the same ID across restarts
+ * and are stored only once.
+ */
+public final class RewardTemplate {
+
+    private final List<String> commands;
+    private final List<String> rewardNames;
+    private transient volatile List<CommandTemplate> compiled;
+    private transient volatile String id;
+
+    /**
+     * Creates a template.
+     *
+     * @param commands Command strings with placeholders
+     * @param rewardNames Value for %reward% for each command (null entries allowed)
+     */
+    private RewardTemplate(List<String> commands, List<String> rewardNames) {
+        this.commands = commands;
+        this.rewardNames = rewardNames;
+    }
+
+    /**
+     * Creates a template from compiled commands.
+     *
+     * @param templates The compiled commands in delivery order
+     * @param rewardNames Value for %reward% for each command (null entries allowed)
+     * @return The template
+     */
+    public static RewardTemplate of(List<CommandTemplate> templates, List<String> rewardNames) {
+        List<String> sources = new ArrayList<>(templates.size());
+        for (CommandTemplate template : templates) {
+            sources.add(template.getSource());
+        }
+        RewardTemplate rewardTemplate = new RewardTemplate(sources, new ArrayList<>(rewardNames));
+        rewardTemplate.compiled = List.copyOf(templates);
+        return rewardTemplate;
+    }
+
+    /**
+     * Gets the content hash identifying this template.
+     *
+     * @return 16 hex characters
+     */
+    public String getId() {
+        String templateId = id;
+        if (templateId == null) {
+            templateId = hash(commands, rewardNames);
+            id = templateId;
+        }
+        return templateId;
+    }
+
+    /**
+     * Gets the number of commands.
+     *
+     * @return Command count
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Gets the command strings with their placeholders.
+     *
+     * @return Unmodifiable list of commands
+     */
+    public List<String> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    /**
+     * Gets the %reward% value of each command.
+     *
+     * @return Unmodifiable list of reward names (may contain nulls)
+     */
+    public List<String> getRewardNames() {
+        return Collections.unmodifiableList(rewardNames);
+    }
+
+    /**
+     * Expands every command with values captured at vote time.
+     *
+     * @param username Value for %player%
+     * @param serviceName Value for %service%
+     * @param voteTimestamp Value for %timestamp%
+     * @param streak Value for %streak%
+     * @param totalVotes Value for %totalvotes%
+     * @param rank Value for %rank%
+     * @param uuid Value for %uuid%
+     * @return The rendered commands
+     */
+    public List<String> render(String username, String serviceName, long voteTimestamp, int streak,
+                               int totalVotes, int rank, String uuid) {
+        List<CommandTemplate> templates = compiled;
+        if (templates == null) {
+            templates = CommandTemplate.compileAll(commands);
+            compiled = templates;
+        }
+
+        List<String> rendered = new ArrayList<>(templates.size());
+        for (int i = 0; i < templates.size(); i++) {
+            rendered.add(templates.get(i).render(username, serviceName, voteTimestamp, rewardNames.get(i),
+                    streak, totalVotes, rank, uuid));
+        }
+        return rendered;
+    }
+
+    /**
+     * Hashes a template's contents.
+     *
+     * @param commands Command strings
+     * @param rewardNames Reward names
+     * @return First 64 bits of the SHA-256 digest as hex
+     */
+    private static String hash(List<String> commands, List<String> rewardNames) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            String rewardName = rewardNames.get(i);
+            // Length prefixes keep ("a", "bc") and ("ab", "c") apart; -1 marks a null name
+            updateWithString(digest, commands.get(i));
+            updateWithString(digest, rewardName);
+        }
+
+        byte[] bytes = digest.digest();
+        StringBuilder hex = new StringBuilder(16);
+        for (int i = 0; i < 8; i++) {
+            hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Feeds a length-prefixed string into a digest.
+     *
+     * @param digest The digest
+     * @param value The string (may be null)
+     */
+    private static void updateWithString(MessageDigest digest, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = value != null ? bytes.length : -1;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hyvote.votelistener.data;
+
+/**
+ * Thrown when a storage backend cannot read or write vote data.
+ *
+ * Unchecked so it propagates through the {@link VoteStore} and
+ * {@link PendingRewardStore} interfaces; vote processing logs it and
+ * counts the vote as failed.
+ */
+public class StorageException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new StorageException without an underlying error.
+     *
+     * @param message Description of the failed operation
+     */
+    public StorageException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new StorageException.
+     *
+     * @param message Description of the failed operation
+     * @param cause The underlying error
+     */
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,100 @@
+package com.hyvote.votelistener.data;
+
+import java.util.UUID;
+
+/**
+ * Conversions between player key strings and UUID bit pairs for the compact
+ * vote data stores.
+ *
+ * Only keys in the exact form {@link UUID#toString()} produces are converted,
+ * so a stored key can always be rebuilt unchanged. Anything else (usernames of
+ * players never seen online, upper-case UUIDs) must be stored as a string.
+ */
+final class UuidKeys {
+
+    private UuidKeys() {
+    }
+
+    /**
+     * Checks whether a key can be stored as two longs.
+     *
+     * @param key Player key
+     * @return true for a lowercase, hyphenated, 36 character UUID
+     */
+    static boolean isCanonical(String key) {
+        if (key == null || key.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = key.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the most significant 64 bits of a canonical UUID key.
+     *
+     * @param key Key accepted by {@link #isCanonical}
+     * @return High bits
+     */
+    static long high(String key) {
+        return parseHex(key, 0, 8) << 32 | parseHex(key, 9, 13) << 16 | parseHex(key, 14, 18);
+    }
+
+    /**
+     * Gets the least significant 64 bits of a canonical UUID key.
+     *
+     * @param key Key accepted by {@link #isCanonical}
+     * @return Low bits
+     */
+    static long low(String key) {
+        return parseHex(key, 19, 23) << 48 | parseHex(key, 24, 36);
+    }
+
+    /**
+     * Rebuilds the key string from its bits.
+     *
+     * @param high High bits
+     * @param low Low bits
+     * @return Canonical UUID string
+     */
+    static String toKey(long high, long low) {
+        return new UUID(high, low).toString();
+    }
+
+    /**
+     * Mixes both halves of a UUID into a hash for open-addressing tables.
+     *
+     * @param high High bits
+     * @param low Low bits
+     * @return Hash code
+     */
+    static int hash(long high, long low) {
+        long mixed = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Parses lowercase hex digits.
+     *
+     * @param text Text already validated by {@link #isCanonical}
+     * @param start First digit, inclusive
+     * @param end Last digit, exclusive
+     * @return Parsed value
+     */
+    private static long parseHex(String text, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            value = value << 4 | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hyvote.votelistener.data;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.hyvote.votelistener.util.AtomicFileWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the vote data of any {@link VoteStore} as JSON.
+ *
+ * The output has the same layout as vote-data.json, so an export can be
+ * renamed to vote-data.json to switch back to JSON storage or to import the
+ * data into another backend.
+ */
+public final class VoteDataExporter {
+
+    /**
+     * File name used by /votelistener export.
+     */
+    public static final String EXPORT_FILE_NAME = "vote-data-export.json";
+
+    private VoteDataExporter() {
+    }
+
+    /**
+     * Streams every player record to a JSON file, replacing it atomically.
+     *
+     * @param voteStore The store to export
+     * @param target File to write
+     * @return Number of players written
+     * @throws IOException if the file cannot be written
+     */
+    public static int export(VoteStore voteStore, Path target) throws IOException {
+        Gson gson = new Gson();
+        int[] exported = new int[1];
+        AtomicFileWriter.write(target, 0, writer -> {
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            jsonWriter.beginObject();
+            try {
+                voteStore.forEachPlayer((key, data) -> {
+                    try {
+                        jsonWriter.name(key);
+                        gson.toJson(data, PlayerVoteData.class, jsonWriter);
+                        exported[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        });
+        return exported[0];
+    }
+}
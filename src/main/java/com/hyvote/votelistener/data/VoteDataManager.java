@@ -2,18 +2,33 @@ package com.hyvote.votelistener.data;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.metrics.SnapshotFlushEvent;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+import com.hyvote.votelistener.util.AtomicFileWriter;
 
+import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 /**
@@ -21,15 +36,58 @@ import java.util.logging.Level;
  *
  * Handles loading and saving vote data from JSON file, and provides
  * methods for recording votes with automatic streak tracking.
+ *
+ * <p>By default every recorded vote rewrites vote-data.json immediately. When
+ * write-behind mode is enabled, recorded votes only mark the player dirty and a
+ * background task flushes the coalesced changes on a fixed interval, or early once
+ * the dirty record count reaches the configured threshold.
+ *
+ * <p>With the journal enabled, each recorded vote is also appended to
+ * vote-data.journal, so write-behind mode loses nothing on a crash. Background
+ * flushes then act as compactions: the journal is rotated, the snapshot rewritten,
+ * and the rotated segment discarded. On load, the journal is replayed on top of
+ * the last snapshot. Entries are appended after the player's record lock is
+ * released, so each carries a sequence number taken under that lock and replay
+ * keeps the highest-numbered entry for each player.
+ *
+ * <p>Snapshots are written atomically through {@link AtomicFileWriter}, keeping
+ * a configurable number of rotated backups that are tried in turn if the live
+ * file cannot be read. Snapshots are streamed record by record through Gson's
+ * {@link JsonReader}/{@link JsonWriter}, so neither the raw file nor the full
+ * JSON text is ever held in memory as a single String. Output is compact unless
+ * pretty-printing is enabled.
+ *
+ * <p>This class is safe to use from multiple threads. Player records live in a
+ * compact {@link PlayerVoteTable} of primitive columns rather than one object per
+ * player. Each vote is applied with the table's {@code compute}, which holds
+ * only a striped lock for that player's slot (plus the table's shared lock), so
+ * concurrent votes for the same player never lose an update while votes for
+ * different players proceed in parallel. Every returned PlayerVoteData
+ * is a detached snapshot. Mutations hold the shared side of a read-write lock;
+ * snapshotting and journal rotation take the exclusive side briefly, so every
+ * change lands in either the snapshot or the new journal segment.
  */
-public class VoteDataManager {
+public class VoteDataManager implements VoteStore {
 
     private static final String VOTE_DATA_FILE_NAME = "vote-data.json";
+    private static final String JOURNAL_FILE_NAME = "vote-data.journal";
+    private static final long JOURNAL_SYNC_INTERVAL_MILLIS = 1000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
 
     private final Path pluginDataFolder;
     private final HytaleLogger logger;
     private final Gson gson;
-    private Map<String, PlayerVoteData> voteDataMap;
+    private final Object writeLock;
+    private final ReentrantReadWriteLock stateLock;
+    private final Set<String> dirtyPlayers;
+    private final AtomicLong journalSequence;
+    private volatile PlayerVoteTable voteTable;
+    private volatile BackgroundFlusher flusher;
+    private volatile VoteJournal journal;
+    private int dirtyThreshold;
+    private int snapshotBackups;
+    private boolean prettyPrint;
+    private volatile VoteMetrics metrics;
 
     /**
      * Creates a new VoteDataManager.
@@ -40,59 +98,395 @@ public class VoteDataManager {
     public VoteDataManager(Path pluginDataFolder, HytaleLogger logger) {
         this.pluginDataFolder = pluginDataFolder;
         this.logger = logger;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.voteDataMap = new HashMap<>();
+        this.gson = new GsonBuilder().create();
+        this.writeLock = new Object();
+        this.stateLock = new ReentrantReadWriteLock();
+        this.dirtyPlayers = ConcurrentHashMap.newKeySet();
+        this.journalSequence = new AtomicLong();
+        this.voteTable = new PlayerVoteTable();
+    }
+
+    /**
+     * Sets how many previous snapshots are kept as rotated backups.
+     *
+     * Must be called before {@link #loadVoteData()} so that loading knows
+     * how many backups to fall back to.
+     *
+     * @param snapshotBackups Number of backups to keep (0 for none)
+     */
+    public void setSnapshotBackups(int snapshotBackups) {
+        this.snapshotBackups = Math.max(0, snapshotBackups);
+    }
+
+    /**
+     * Sets whether vote-data.json is written with indentation.
+     *
+     * Compact output is the default; pretty-printing makes the file larger
+     * and slower to write but easier to read by hand.
+     *
+     * @param prettyPrint true to indent the snapshot
+     */
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * Enables the append-only vote journal.
+     *
+     * Must be called after {@link #loadVoteData()} so that any journal left by a
+     * previous run has already been replayed and compacted.
+     *
+     * @param syncBatchSize Number of journal entries after which the journal is forced to disk
+     */
+    public synchronized void enableJournal(int syncBatchSize) {
+        if (journal != null) {
+            return;
+        }
+
+        VoteJournal newJournal = new VoteJournal(pluginDataFolder.resolve(JOURNAL_FILE_NAME), logger, syncBatchSize);
+        try {
+            newJournal.open();
+            journal = newJournal;
+            logger.at(Level.INFO).log("Vote journal enabled (sync batch size: " + Math.max(1, syncBatchSize) + ")");
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to open " + JOURNAL_FILE_NAME + ", journal disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enables write-behind persistence.
+     *
+     * Starts a background task that flushes dirty vote data every interval.
+     * A flush is also queued early whenever the number of dirty records
+     * reaches the threshold. If the journal is enabled, it is synced to disk
+     * by the same background thread.
+     *
+     * @param flushIntervalSeconds Seconds between background flushes
+     * @param dirtyThreshold Dirty record count that triggers an early flush
+     */
+    public synchronized void enableWriteBehind(int flushIntervalSeconds, int dirtyThreshold) {
+        if (flusher != null) {
+            return;
+        }
+
+        this.dirtyThreshold = Math.max(1, dirtyThreshold);
+        BackgroundFlusher newFlusher = new BackgroundFlusher("HytaleVoteListener-VoteDataFlush",
+                this::flush, flushIntervalSeconds, logger);
+        newFlusher.schedulePeriodic(this::syncJournal, JOURNAL_SYNC_INTERVAL_MILLIS);
+        flusher = newFlusher;
+
+        logger.at(Level.INFO).log("Write-behind persistence enabled (interval: " + Math.max(1, flushIntervalSeconds)
+                + "s, dirty threshold: " + this.dirtyThreshold + ")");
+    }
+
+    /**
+     * Returns whether write-behind persistence is active.
+     *
+     * @return true if vote data is flushed in the background
+     */
+    public boolean isWriteBehindEnabled() {
+        return flusher != null;
+    }
+
+    /**
+     * Saves vote data if any records changed since the last save.
+     */
+    @Override
+    public void flush() {
+        if (!dirtyPlayers.isEmpty()) {
+            saveVoteData();
+        }
+    }
+
+    /**
+     * Stops the background flush task, performs a final flush and closes the journal.
+     *
+     * Safe to call when write-behind mode was never enabled.
+     */
+    @Override
+    public void shutdown() {
+        BackgroundFlusher activeFlusher;
+        synchronized (this) {
+            activeFlusher = flusher;
+            flusher = null;
+        }
+
+        if (activeFlusher != null) {
+            activeFlusher.shutdown();
+        }
+
+        flush();
+
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Loads the data file; see {@link #loadVoteData()}.
+     */
+    @Override
+    public void load() {
+        loadVoteData();
     }
 
     /**
      * Loads vote data from vote-data.json.
      *
-     * If vote-data.json does not exist, creates an empty data file.
+     * If vote-data.json does not exist, creates an empty data file. If it cannot
+     * be read, the newest readable backup is used instead. Any journal
+     * entries left by a previous run are replayed on top of the snapshot and
+     * compacted into it.
      */
     public void loadVoteData() {
         Path voteDataPath = pluginDataFolder.resolve(VOTE_DATA_FILE_NAME);
 
-        if (!Files.exists(voteDataPath)) {
-            logger.at(Level.INFO).log("Vote data file not found, creating empty vote-data.json");
-            saveVoteData();
-            return;
+        voteTable = null;
+        Path loadedFrom = null;
+        for (Path candidate : AtomicFileWriter.candidates(voteDataPath, snapshotBackups)) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+
+            try {
+                PlayerVoteTable loadedData = readSnapshot(candidate);
+
+                if (loadedData != null) {
+                    voteTable = loadedData;
+                    logger.at(Level.INFO).log("Loaded vote data for " + voteTable.size() + " players from " + candidate);
+                } else {
+                    voteTable = new PlayerVoteTable();
+                    logger.at(Level.INFO).log("Vote data file was empty, initialized empty map");
+                }
+                loadedFrom = candidate;
+                break;
+            } catch (IOException | JsonParseException e) {
+                logger.at(Level.SEVERE).log("Failed to load " + candidate.getFileName() + ": " + e.getMessage());
+            }
         }
 
-        try {
-            String json = Files.readString(voteDataPath);
-            Type mapType = new TypeToken<Map<String, PlayerVoteData>>(){}.getType();
-            Map<String, PlayerVoteData> loadedData = gson.fromJson(json, mapType);
-
-            if (loadedData != null) {
-                voteDataMap = loadedData;
-                logger.at(Level.INFO).log("Loaded vote data for " + voteDataMap.size() + " players from " + voteDataPath);
-            } else {
-                voteDataMap = new HashMap<>();
-                logger.at(Level.INFO).log("Vote data file was empty, initialized empty map");
+        if (voteTable == null) {
+            voteTable = new PlayerVoteTable();
+            if (!Files.exists(voteDataPath)) {
+                logger.at(Level.INFO).log("Vote data file not found, creating empty vote-data.json");
             }
-        } catch (IOException e) {
-            logger.at(Level.SEVERE).log("Failed to load vote-data.json: " + e.getMessage());
-            voteDataMap = new HashMap<>();
+        }
+
+        // A damaged live file is moved aside so the next save cannot rotate it over a good backup
+        if (!voteDataPath.equals(loadedFrom) && Files.exists(voteDataPath)) {
+            quarantineUnreadable(voteDataPath, loadedFrom);
+        }
+
+        VoteJournal pendingJournal = new VoteJournal(pluginDataFolder.resolve(JOURNAL_FILE_NAME), logger, 1);
+        if (pendingJournal.exists()) {
+            Map<String, Long> replayedSequences = new HashMap<>();
+            int replayed = pendingJournal.replay(entry -> applyJournalEntry(entry, replayedSequences));
+            logger.at(Level.INFO).log("Replayed " + replayed + " vote journal entries");
+            saveVoteData();
+            pendingJournal.clear();
+        } else if (!Files.exists(voteDataPath)) {
+            saveVoteData();
         }
     }
 
     /**
      * Saves vote data to vote-data.json.
      *
-     * Creates the plugin data directory if it does not exist.
+     * Creates the plugin data directory if it does not exist. When the journal
+     * is enabled, it is rotated together with the in-memory copy so the rotated
+     * segment can be discarded once the snapshot is on disk. If the write
+     * fails, the saved players are marked dirty again so the next flush retries.
      */
     public void saveVoteData() {
-        try {
-            if (!Files.exists(pluginDataFolder)) {
-                Files.createDirectories(pluginDataFolder);
-                logger.at(Level.INFO).log("Created plugin data folder: " + pluginDataFolder);
+        synchronized (writeLock) {
+            long startNanos = System.nanoTime();
+            SnapshotFlushEvent flushEvent = new SnapshotFlushEvent();
+            flushEvent.begin();
+            long bytesWritten = 0;
+            // Copying the primitive columns is cheap; the exclusive lock makes the copy
+            // and the journal rotation a single cut.
+            PlayerVoteTable snapshot;
+            Set<String> savedPlayers;
+            boolean journalRotated = false;
+            stateLock.writeLock().lock();
+            try {
+                snapshot = voteTable.copy();
+                savedPlayers = new HashSet<>(dirtyPlayers);
+                dirtyPlayers.clear();
+
+                if (journal != null) {
+                    try {
+                        journal.rotate();
+                        journalRotated = true;
+                    } catch (IOException e) {
+                        logger.at(Level.SEVERE).log("Failed to rotate " + JOURNAL_FILE_NAME + ": " + e.getMessage());
+                    }
+                }
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+
+            try {
+                if (!Files.exists(pluginDataFolder)) {
+                    Files.createDirectories(pluginDataFolder);
+                    logger.at(Level.INFO).log("Created plugin data folder: " + pluginDataFolder);
+                }
+
+                Path voteDataPath = pluginDataFolder.resolve(VOTE_DATA_FILE_NAME);
+                bytesWritten = writeSnapshot(voteDataPath, snapshot);
+
+                if (journalRotated) {
+                    journal.deleteRotated();
+                }
+            } catch (IOException e) {
+                // Keep the changes pending so the next flush, or the one at shutdown, writes them
+                dirtyPlayers.addAll(savedPlayers);
+                logger.at(Level.SEVERE).log("Failed to save vote-data.json: " + e.getMessage());
+            }
+
+            VoteMetrics activeMetrics = metrics;
+            if (activeMetrics != null) {
+                activeMetrics.voteDataSaved(System.nanoTime() - startNanos);
+            }
+            flushEvent.finish(VOTE_DATA_FILE_NAME, snapshot.size(), bytesWritten);
+        }
+    }
+
+    /**
+     * Streams a vote data snapshot from disk one player record at a time.
+     *
+     * @param path Snapshot file to read
+     * @return Table of player records, or null if the file is empty
+     * @throws IOException if the file cannot be read
+     */
+    private PlayerVoteTable readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             JsonReader reader = new JsonReader(new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8), READ_BUFFER_SIZE))) {
+            JsonToken token;
+            try {
+                token = reader.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (token == JsonToken.NULL) {
+                return null;
+            }
+
+            PlayerVoteTable loadedData = new PlayerVoteTable();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String uuid = reader.nextName();
+                PlayerVoteData data = gson.fromJson(reader, PlayerVoteData.class);
+                if (data != null) {
+                    loadedData.put(uuid, data);
+                }
+            }
+            reader.endObject();
+            loadedData.trimToSize();
+            return loadedData;
+        }
+    }
+
+    /**
+     * Streams a vote data snapshot to disk one player record at a time.
+     *
+     * @param path Snapshot file to replace
+     * @param snapshot Table of player records to write
+     * @return Number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    private long writeSnapshot(Path path, PlayerVoteTable snapshot) throws IOException {
+        return AtomicFileWriter.write(path, snapshotBackups, writer -> {
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            if (prettyPrint) {
+                jsonWriter.setIndent("  ");
+            }
+            jsonWriter.beginObject();
+            for (int slot = 0, size = snapshot.size(); slot < size; slot++) {
+                jsonWriter.name(snapshot.keyAt(slot));
+                gson.toJson(snapshot.dataAt(slot), PlayerVoteData.class, jsonWriter);
             }
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        });
+    }
+
+    /**
+     * Moves an unreadable vote-data.json aside so it is preserved for manual
+     * recovery instead of being rotated over a good backup by the next save.
+     *
+     * @param voteDataPath Path of the live vote data file
+     * @param recoveredFrom Backup the data was recovered from, or null if none was readable
+     */
+    private void quarantineUnreadable(Path voteDataPath, Path recoveredFrom) {
+        if (recoveredFrom != null) {
+            logger.at(Level.WARNING).log("Recovered vote data from backup " + recoveredFrom.getFileName());
+        } else {
+            logger.at(Level.SEVERE).log("No readable vote data snapshot found, starting with empty vote data");
+        }
 
-            Path voteDataPath = pluginDataFolder.resolve(VOTE_DATA_FILE_NAME);
-            String json = gson.toJson(voteDataMap);
-            Files.writeString(voteDataPath, json);
+        try {
+            Path corruptPath = AtomicFileWriter.quarantine(voteDataPath);
+            logger.at(Level.SEVERE).log("Moved unreadable vote-data.json to " + corruptPath.getFileName());
         } catch (IOException e) {
-            logger.at(Level.SEVERE).log("Failed to save vote-data.json: " + e.getMessage());
+            logger.at(Level.SEVERE).log("Failed to move unreadable vote-data.json aside: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a single replayed journal entry to the in-memory table.
+     *
+     * Entries for one player can be appended out of order, so an entry is
+     * skipped if a higher sequence number was already applied for its key.
+     * Entries without a sequence number, written by earlier versions, are
+     * applied in file order.
+     *
+     * @param entry The journal entry
+     * @param appliedSequences Highest sequence number applied so far for each key
+     */
+    private void applyJournalEntry(JsonObject entry, Map<String, Long> appliedSequences) {
+        if (!"vote".equals(entry.get("op").getAsString())) {
+            return;
+        }
+
+        String key = entry.get("key").getAsString();
+        if (entry.has("seq")) {
+            long sequence = entry.get("seq").getAsLong();
+            Long applied = appliedSequences.get(key);
+            if (applied != null && applied > sequence) {
+                return;
+            }
+            appliedSequences.put(key, sequence);
+            journalSequence.accumulateAndGet(sequence, Math::max);
+        }
+        PlayerVoteData data = gson.fromJson(entry.get("data"), PlayerVoteData.class);
+        voteTable.put(key, data);
+    }
+
+    /**
+     * Forces pending journal entries to disk.
+     */
+    private synchronized void syncJournal() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Marks a player's record as changed and queues an early flush
+     * once the dirty threshold is reached.
+     *
+     * @param uuid Player UUID as string
+     */
+    private void markDirty(String uuid) {
+        dirtyPlayers.add(uuid);
+        BackgroundFlusher activeFlusher = flusher;
+        if (activeFlusher != null && dirtyPlayers.size() >= dirtyThreshold) {
+            activeFlusher.requestFlush();
         }
     }
 
@@ -104,17 +498,19 @@ public class VoteDataManager {
      * @return PlayerVoteData for the specified player
      */
     public PlayerVoteData getOrCreatePlayerData(String uuid, String username) {
-        PlayerVoteData data = voteDataMap.get(uuid);
-
-        if (data == null) {
-            data = new PlayerVoteData(uuid, username, 0, 0, 0);
-            voteDataMap.put(uuid, data);
-        } else {
-            // Update username in case it changed
-            data.setUsername(username);
+        stateLock.readLock().lock();
+        try {
+            return voteTable.compute(uuid, existing -> {
+                if (existing == null) {
+                    return new PlayerVoteData(uuid, username, 0, 0, 0);
+                }
+                // Update username in case it changed
+                existing.setUsername(username);
+                return existing;
+            });
+        } finally {
+            stateLock.readLock().unlock();
         }
-
-        return data;
     }
 
     /**
@@ -125,49 +521,38 @@ public class VoteDataManager {
      * - If last vote was yesterday: streak incremented
      * - If last vote was older than yesterday: streak reset to 1
      *
+     * The read-modify-write is atomic per player, so concurrent votes for the
+     * same UUID are applied one after another.
+     *
      * @param uuid Player UUID as string
      * @param username Player username
-     * @return Updated PlayerVoteData with new vote recorded
+     * @return Snapshot of the player's data with the new vote recorded
      */
+    @Override
     public PlayerVoteData recordVote(String uuid, String username) {
-        PlayerVoteData data = getOrCreatePlayerData(uuid, username);
-
-        // Increment total votes
-        data.setTotalVotes(data.getTotalVotes() + 1);
+        return recordVote(uuid, username, System.currentTimeMillis());
+    }
 
-        // Calculate streak
-        long now = System.currentTimeMillis();
-        long lastVoteTimestamp = data.getLastVoteTimestamp();
+    /**
+     * Records a vote at the given time.
+     *
+     * Package-private so tests can replay votes over several days.
+     *
+     * @param uuid Player UUID as string
+     * @param username Player username
+     * @param now Vote time in epoch milliseconds
+     * @return Snapshot of the player's data with the new vote recorded
+     */
+    PlayerVoteData recordVote(String uuid, String username, long now) {
+        PlayerVoteData data = applyVote(uuid, username, now);
 
-        if (lastVoteTimestamp == 0) {
-            // First vote ever
-            data.setCurrentStreak(1);
+        // Save immediately, or leave it to the background flush in write-behind mode
+        if (isWriteBehindEnabled()) {
+            markDirty(uuid);
         } else {
-            LocalDate today = Instant.ofEpochMilli(now)
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDate();
-            LocalDate lastVoteDate = Instant.ofEpochMilli(lastVoteTimestamp)
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDate();
-
-            if (today.equals(lastVoteDate)) {
-                // Same day - streak unchanged (already voted today)
-                // Don't change streak
-            } else if (today.minusDays(1).equals(lastVoteDate)) {
-                // Yesterday - increment streak
-                data.setCurrentStreak(data.getCurrentStreak() + 1);
-            } else {
-                // Older than yesterday - reset streak
-                data.setCurrentStreak(1);
-            }
+            saveVoteData();
         }
 
-        // Update last vote timestamp
-        data.setLastVoteTimestamp(now);
-
-        // Save immediately for persistence
-        saveVoteData();
-
         logger.at(Level.INFO).log("Recorded vote for " + username + " - Total: " + data.getTotalVotes()
                 + ", Streak: " + data.getCurrentStreak());
 
@@ -175,12 +560,94 @@ public class VoteDataManager {
     }
 
     /**
-     * Gets the vote data map for all players.
+     * Atomically applies a vote to the player's record and journals the result.
+     *
+     * @param uuid Player UUID as string
+     * @param username Player username
+     * @param now Vote time in epoch milliseconds
+     * @return The updated PlayerVoteData
+     */
+    private PlayerVoteData applyVote(String uuid, String username, long now) {
+        stateLock.readLock().lock();
+        try {
+            long[] sequence = new long[1];
+            PlayerVoteData updated = voteTable.compute(uuid, existing -> {
+                PlayerVoteData data = existing != null ? existing : new PlayerVoteData(uuid, username, 0, 0, 0);
+                data.setUsername(username);
+                data.registerVote(now);
+                // Numbered under the record lock, so replay can restore update order
+                sequence[0] = journalSequence.incrementAndGet();
+                return data;
+            });
+
+            // Journal I/O stays outside the record lock; the shared state lock keeps it on this side of a rotation
+            VoteJournal activeJournal = journal;
+            if (activeJournal != null) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("op", "vote");
+                entry.addProperty("seq", sequence[0]);
+                entry.addProperty("key", uuid);
+                entry.add("data", gson.toJsonTree(updated));
+                activeJournal.append(entry);
+            }
+            return updated;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of players with vote data.
+     *
+     * @return Player count
+     */
+    public int getPlayerCount() {
+        return voteTable.size();
+    }
+
+    /**
+     * Estimates the heap used by the in-memory vote data.
+     *
+     * @return Estimated size in bytes
+     */
+    public long estimateHeapBytes() {
+        return voteTable.estimateHeapBytes();
+    }
+
+    /**
+     * Sets the metrics that snapshot save times are recorded in.
+     *
+     * @param metrics The metrics to record into
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Calls the action for every player's vote data.
+     *
+     * Records are materialized one at a time, so iterating never copies the
+     * whole data set into objects. The table is locked only while each record
+     * is read, so votes recorded meanwhile are not held up by a slow action;
+     * each player is visited with its data as of that moment, and players
+     * first seen during the iteration are skipped.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    @Override
+    public void forEachPlayer(BiConsumer<String, PlayerVoteData> action) {
+        voteTable.forEach(action);
+    }
+
+    /**
+     * Calls the action for every player in table order; the records are
+     * already in memory, so sorting them first would only add a copy.
      *
-     * @return Map of UUID to PlayerVoteData
+     * @param action Receives each player key and a snapshot of its data
      */
-    public Map<String, PlayerVoteData> getVoteDataMap() {
-        return voteDataMap;
+    @Override
+    public void forEachPlayerByTotalVotes(BiConsumer<String, PlayerVoteData> action) {
+        voteTable.forEach(action);
     }
 
     /**
@@ -189,7 +656,8 @@ public class VoteDataManager {
      * @param uuid Player UUID as string
      * @return PlayerVoteData or null if not found
      */
+    @Override
     public PlayerVoteData getPlayerData(String uuid) {
-        return voteDataMap.get(uuid);
+        return voteTable.get(uuid);
     }
 }
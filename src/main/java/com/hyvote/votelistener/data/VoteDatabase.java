@@ -0,0 +1,232 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Embedded H2 database holding vote data and pending rewards.
+ *
+ * The database lives in a single file ({@code votelistener.mv.db}) in the
+ * plugin data folder. One connection is shared by both stores; every use goes
+ * through {@link #execute} or {@link #inTransaction}, which serialize access so
+ * statements from different threads never interleave on the connection.
+ *
+ * <p>Schema:
+ * <ul>
+ *   <li>{@code player_votes} - one row per player, keyed by UUID (or username
+ *       for players never seen online), with an index on the lower-cased username.
+ *       The packed day, week and month vote rings are stored as {@code BIGINT}s.</li>
+ *   <li>{@code pending_rewards} - one row per queued reward, with indexes on the
+ *       player key, the lower-cased username and the reward ID. Commands are stored
+ *       as a JSON array, or as a template ID plus the values captured at vote time,
+ *       next to the reward's delivery state and progress.</li>
+ *   <li>{@code reward_templates} - the command templates of queued rewards, one
+ *       row per distinct template.</li>
+ *   <li>{@code dead_letter_rewards} - rewards whose delivery kept failing.</li>
+ * </ul>
+ */
+public class VoteDatabase {
+
+    private static final String DATABASE_FILE_NAME = "votelistener";
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS player_votes ("
+            + "player_key VARCHAR(64) PRIMARY KEY, "
+            + "username VARCHAR(64), "
+            + "username_lower VARCHAR(64), "
+            + "total_votes INT NOT NULL, "
+            + "current_streak INT NOT NULL, "
+            + "last_vote_timestamp BIGINT NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_player_votes_username ON player_votes(username_lower)",
+        "CREATE TABLE IF NOT EXISTS pending_rewards ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "player_key VARCHAR(64) NOT NULL, "
+            + "username VARCHAR(64), "
+            + "username_lower VARCHAR(64), "
+            + "service_name VARCHAR(255), "
+            + "vote_timestamp BIGINT NOT NULL, "
+            + "commands CLOB NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_pending_rewards_player ON pending_rewards(player_key)",
+        "CREATE INDEX IF NOT EXISTS idx_pending_rewards_username ON pending_rewards(username_lower)",
+        // Delivery state, added after the first release; existing rows get IDs in DatabasePendingRewardStore.load
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS reward_id VARCHAR(36)",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS state VARCHAR(16) DEFAULT 'PENDING' NOT NULL",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS commands_delivered INT DEFAULT 0 NOT NULL",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS failed_attempts INT DEFAULT 0 NOT NULL",
+        "CREATE INDEX IF NOT EXISTS idx_pending_rewards_reward_id ON pending_rewards(reward_id)",
+        "CREATE TABLE IF NOT EXISTS dead_letter_rewards ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "reward_id VARCHAR(36), "
+            + "player_key VARCHAR(64) NOT NULL, "
+            + "username VARCHAR(64), "
+            + "service_name VARCHAR(255), "
+            + "vote_timestamp BIGINT NOT NULL, "
+            + "commands CLOB NOT NULL, "
+            + "commands_delivered INT NOT NULL, "
+            + "failed_attempts INT NOT NULL, "
+            + "reason VARCHAR(1024), "
+            + "failed_at BIGINT NOT NULL)",
+        // Rewards built from a template store its ID and the values captured at vote time instead of commands
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS template_id VARCHAR(16)",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS site_timestamp BIGINT DEFAULT 0 NOT NULL",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS streak INT DEFAULT 0 NOT NULL",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS total_votes INT DEFAULT 0 NOT NULL",
+        "ALTER TABLE pending_rewards ADD COLUMN IF NOT EXISTS vote_rank INT DEFAULT 0 NOT NULL",
+        "CREATE TABLE IF NOT EXISTS reward_templates ("
+            + "template_id VARCHAR(16) PRIMARY KEY, "
+            + "definition CLOB NOT NULL)",
+        // Packed VotePeriod rings of recent per-player vote counts
+        "ALTER TABLE player_votes ADD COLUMN IF NOT EXISTS daily_votes BIGINT DEFAULT 0 NOT NULL",
+        "ALTER TABLE player_votes ADD COLUMN IF NOT EXISTS weekly_votes BIGINT DEFAULT 0 NOT NULL",
+        "ALTER TABLE player_votes ADD COLUMN IF NOT EXISTS monthly_votes BIGINT DEFAULT 0 NOT NULL"
+    };
+
+    private final Path pluginDataFolder;
+    private final HytaleLogger logger;
+    private final ReentrantLock lock;
+    private Connection connection;
+
+    /**
+     * Work performed on the shared connection.
+     *
+     * @param <T> Result type
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+
+        /**
+         * Runs the work.
+         *
+         * @param connection The database connection
+         * @return The result
+         * @throws SQLException if a statement fails
+         */
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Creates a new VoteDatabase.
+     *
+     * @param pluginDataFolder The plugin's data directory
+     * @param logger The logger for info and error messages
+     */
+    public VoteDatabase(Path pluginDataFolder, HytaleLogger logger) {
+        this.pluginDataFolder = pluginDataFolder;
+        this.logger = logger;
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Opens (creating if needed) the database file and its schema.
+     *
+     * @throws SQLException if the database cannot be opened
+     */
+    public void open() throws SQLException {
+        Path databasePath = pluginDataFolder.resolve(DATABASE_FILE_NAME).toAbsolutePath();
+        // Connect through the driver directly so plugin class loading never depends on DriverManager
+        Connection opened = new org.h2.Driver().connect("jdbc:h2:file:" + databasePath, new Properties());
+        if (opened == null) {
+            throw new SQLException("H2 driver rejected database URL for " + databasePath);
+        }
+
+        lock.lock();
+        try {
+            connection = opened;
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.at(Level.INFO).log("Opened vote database " + databasePath + ".mv.db");
+    }
+
+    /**
+     * Runs work on the connection in auto-commit mode.
+     *
+     * @param work The work to run
+     * @param <T> Result type
+     * @return The work's result
+     * @throws StorageException if the work fails
+     */
+    public <T> T execute(SqlWork<T> work) {
+        lock.lock();
+        try {
+            return work.run(requireConnection());
+        } catch (SQLException e) {
+            throw new StorageException("Database operation failed: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs work in a single transaction, rolling back if it fails.
+     *
+     * @param work The work to run
+     * @param <T> Result type
+     * @return The work's result
+     * @throws StorageException if the work fails
+     */
+    public <T> T inTransaction(SqlWork<T> work) {
+        lock.lock();
+        try {
+            Connection activeConnection = requireConnection();
+            activeConnection.setAutoCommit(false);
+            try {
+                T result = work.run(activeConnection);
+                activeConnection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                activeConnection.rollback();
+                throw e;
+            } finally {
+                activeConnection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new StorageException("Database transaction failed: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the database. Called after both stores have shut down.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (connection != null) {
+                connection.close();
+                connection = null;
+                logger.at(Level.INFO).log("Closed vote database");
+            }
+        } catch (SQLException e) {
+            logger.at(Level.SEVERE).log("Failed to close vote database: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the open connection.
+     *
+     * @return The connection
+     * @throws SQLException if the database is not open
+     */
+    private Connection requireConnection() throws SQLException {
+        if (connection == null) {
+            throw new SQLException("Vote database is not open");
+        }
+        return connection;
+    }
+}
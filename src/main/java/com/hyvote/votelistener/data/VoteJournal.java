@@ -0,0 +1,259 @@
+package com.hyvote.votelistener.data;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Append-only, line-delimited JSON journal of data mutations.
+ *
+ * <p>Each mutation is written as a single compact JSON line, so the cost of
+ * recording a change is independent of how much data the owning manager holds.
+ * Lines reach the operating system immediately and are forced to disk in batches,
+ * either once {@code syncBatchSize} entries are pending or when {@link #sync()} is
+ * called by the background flusher.
+ *
+ * <p>Compaction works in two steps. {@link #rotate()} moves the active journal aside
+ * as a {@code .compacting} segment and starts a fresh one; after the owner has
+ * written a snapshot covering the rotated entries it calls
+ * {@link #deleteRotated()}. If the server stops between those steps, the rotated
+ * segment is replayed before the active one on the next start.
+ */
+public class VoteJournal {
+
+    private static final String ROTATED_SUFFIX = ".compacting";
+
+    private final Path journalPath;
+    private final Path rotatedPath;
+    private final HytaleLogger logger;
+    private final int syncBatchSize;
+    private FileChannel channel;
+    private int unsyncedEntries;
+
+    /**
+     * Creates a new VoteJournal.
+     *
+     * @param journalPath Path of the active journal file
+     * @param logger The logger for info and error messages
+     * @param syncBatchSize Number of appended entries after which the journal is forced to disk
+     */
+    public VoteJournal(Path journalPath, HytaleLogger logger, int syncBatchSize) {
+        this.journalPath = journalPath;
+        this.rotatedPath = journalPath.resolveSibling(journalPath.getFileName() + ROTATED_SUFFIX);
+        this.logger = logger;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+    }
+
+    /**
+     * Opens the active journal for appending, creating it if needed.
+     *
+     * @throws IOException if the journal file cannot be opened
+     */
+    public synchronized void open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Appends a mutation entry to the journal.
+     *
+     * @param entry The entry to append as a single JSON line
+     */
+    public synchronized void append(JsonObject entry) {
+        if (channel == null) {
+            return;
+        }
+
+        byte[] line = (entry.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (++unsyncedEntries >= syncBatchSize) {
+                sync();
+            }
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to append to " + journalPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces any entries appended since the last sync to disk.
+     */
+    public synchronized void sync() {
+        if (channel == null || unsyncedEntries == 0) {
+            return;
+        }
+
+        try {
+            channel.force(false);
+            unsyncedEntries = 0;
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to sync " + journalPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the active journal aside for compaction and starts a fresh one.
+     *
+     * <p>Callers must hold the owning manager's lock so that no mutation can be
+     * applied in memory without also landing in either the rotated or the new segment.
+     *
+     * @throws IOException if the journal cannot be rotated
+     */
+    public synchronized void rotate() throws IOException {
+        sync();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+
+        if (Files.exists(journalPath)) {
+            if (Files.exists(rotatedPath)) {
+                // A previous compaction failed before its snapshot was written - keep both segments
+                appendFile(journalPath, rotatedPath);
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        open();
+    }
+
+    /**
+     * Deletes the rotated segment once a snapshot covering it has been written.
+     */
+    public void deleteRotated() {
+        try {
+            Files.deleteIfExists(rotatedPath);
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to delete " + rotatedPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replays all journal entries, rotated segment first, in append order.
+     *
+     * <p>A malformed line (for example a partially written final entry after a crash)
+     * stops replay of that segment.
+     *
+     * @param handler Callback invoked for each entry
+     * @return Number of entries replayed
+     */
+    public int replay(Consumer<JsonObject> handler) {
+        return replaySegment(rotatedPath, handler) + replaySegment(journalPath, handler);
+    }
+
+    /**
+     * Returns whether any journal segment exists on disk.
+     *
+     * @return true if the active or rotated journal file exists
+     */
+    public boolean exists() {
+        return Files.exists(journalPath) || Files.exists(rotatedPath);
+    }
+
+    /**
+     * Deletes both journal segments.
+     *
+     * Used after startup replay once the replayed state has been written to a snapshot.
+     */
+    public synchronized void clear() {
+        try {
+            if (channel != null) {
+                channel.truncate(0);
+                unsyncedEntries = 0;
+            } else {
+                Files.deleteIfExists(journalPath);
+            }
+            Files.deleteIfExists(rotatedPath);
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to clear " + journalPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs and closes the active journal.
+     */
+    public synchronized void close() {
+        sync();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.at(Level.SEVERE).log("Failed to close " + journalPath.getFileName() + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Replays a single journal segment.
+     *
+     * @param segment Path of the segment to replay
+     * @param handler Callback invoked for each entry
+     * @return Number of entries replayed
+     */
+    private int replaySegment(Path segment, Consumer<JsonObject> handler) {
+        if (!Files.exists(segment)) {
+            return 0;
+        }
+
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    handler.accept(JsonParser.parseString(line).getAsJsonObject());
+                    replayed++;
+                } catch (JsonParseException | IllegalStateException e) {
+                    logger.at(Level.WARNING).log("Stopped replaying " + segment.getFileName()
+                            + " at malformed entry " + (replayed + 1) + ": " + e.getMessage());
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.at(Level.SEVERE).log("Failed to replay " + segment.getFileName() + ": " + e.getMessage());
+        }
+        return replayed;
+    }
+
+    /**
+     * Appends the contents of one file to another.
+     *
+     * @param source File to copy from
+     * @param target File to append to
+     * @throws IOException if either file cannot be accessed
+     */
+    private static void appendFile(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long position = 0;
+            long size = in.size();
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            out.force(false);
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.hyvote.votelistener.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintained ranking of players by total votes, by current
+ * streak, and by votes this month and last month.
+ *
+ * Filled once from the vote store at startup and then updated after every
+ * recorded vote, so {@code /topvoters} and the {@code %rank%} placeholder
+ * never sort the whole player set. For each ranking, players are grouped by score in a
+ * {@link TreeMap}, each group being a linked list in the order players reached
+ * that score, and a Fenwick tree over scores counts the players above any
+ * score:
+ * <ul>
+ *   <li>updating a player is O(log n),</li>
+ *   <li>the top K players are found in O(log n + K) by walking the groups from
+ *       the highest score down,</li>
+ *   <li>a player's rank is one more than the number of players with a higher
+ *       score, a Fenwick suffix sum in O(log s) where s is the highest score.</li>
+ * </ul>
+ * Players with equal scores share a rank; among them, whoever reached the
+ * score first is listed first.
+ *
+ * <p>The monthly rankings only hold players who voted in that month. When the
+ * month changes, the current ranking becomes last month's and a new empty one
+ * starts, on the next update or read; players join it as they vote again.
+ * Last month's standings stay fixed for the whole month, for end-of-month
+ * rewards.
+ *
+ * <p>Votes for a player who is offline are stored under the username they
+ * were cast for. When the player joins, {@link #link(String, String)} moves
+ * that username's scores onto the player's UUID entry. From then on, votes
+ * recorded under either key count towards the one entry.
+ *
+ * <p>All methods are synchronized; each holds the lock only for the
+ * logarithmic update or the K entries read.
+ */
+public class VoteLeaderboard {
+
+    private final Map<String, Entry> entries;
+    // Username keys whose scores were moved onto a UUID entry
+    private final Map<String, Entry> linkedKeys;
+    private final ScoreIndex byTotalVotes;
+    private final ScoreIndex byStreak;
+    private ScoreIndex byMonth;
+    private ScoreIndex byPreviousMonth;
+    private long currentMonth;
+
+    /**
+     * Creates an empty leaderboard.
+     */
+    public VoteLeaderboard() {
+        this.entries = new HashMap<>();
+        this.linkedKeys = new HashMap<>();
+        this.byTotalVotes = new ScoreIndex();
+        this.byStreak = new ScoreIndex();
+        this.byMonth = new ScoreIndex();
+        this.byPreviousMonth = new ScoreIndex();
+        this.currentMonth = VotePeriod.MONTH.indexOf(System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a player or moves them to their new scores.
+     *
+     * @param key The player's key in the vote store
+     * @param data The player's current vote data
+     * @return The player's rank by total votes
+     */
+    public synchronized int update(String key, PlayerVoteData data) {
+        long now = System.currentTimeMillis();
+        rollMonth(now);
+        Entry entry = linkedKeys.get(key);
+        boolean linked = entry != null;
+        if (!linked) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            entry = new Entry(key, data.getUsername());
+            entries.put(key, entry);
+            entry.ownVotes = data.getTotalVotes();
+            entry.ownStreak = data.getCurrentStreak();
+            byTotalVotes.add(entry.totalVotes, entry.ownVotes);
+            byStreak.add(entry.streak, entry.ownStreak);
+        } else {
+            if (linked) {
+                entry.linkedVotes = data.getTotalVotes();
+                entry.linkedStreak = data.getCurrentStreak();
+            } else {
+                if (data.getUsername() != null) {
+                    entry.username = data.getUsername();
+                }
+                entry.ownVotes = data.getTotalVotes();
+                entry.ownStreak = data.getCurrentStreak();
+            }
+            byTotalVotes.move(entry.totalVotes, entry.ownVotes + entry.linkedVotes);
+            byStreak.move(entry.streak, Math.max(entry.ownStreak, entry.linkedStreak));
+        }
+        updateMonthly(entry, data, linked, now);
+        return byTotalVotes.rankOf(entry.totalVotes.score);
+    }
+
+    /**
+     * Moves the scores of votes recorded under a player's username onto their
+     * UUID entry.
+     *
+     * Called when the player joins. The username's entry is removed and its
+     * total, streak and votes this month count towards the UUID entry from
+     * then on, as do later votes recorded under the username. Last month's
+     * standings are left as they are.
+     *
+     * @param key The player's UUID key
+     * @param username The username offline votes were recorded under
+     */
+    public synchronized void link(String key, String username) {
+        if (username == null || username.equals(key)) {
+            return;
+        }
+        Entry old = entries.remove(username);
+        if (old == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        rollMonth(now);
+        byTotalVotes.remove(old.totalVotes);
+        byStreak.remove(old.streak);
+        int oldMonthVotes = 0;
+        if (old.monthIndex == currentMonth && old.thisMonth != null) {
+            oldMonthVotes = old.thisMonth.score;
+            byMonth.remove(old.thisMonth);
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, old.username);
+            entries.put(key, entry);
+            entry.monthIndex = currentMonth;
+            entry.linkedVotes = old.ownVotes;
+            entry.linkedStreak = old.ownStreak;
+            byTotalVotes.add(entry.totalVotes, entry.linkedVotes);
+            byStreak.add(entry.streak, entry.linkedStreak);
+        } else {
+            if (entry.monthIndex != currentMonth) {
+                entry.thisMonth = null;
+                entry.ownMonthVotes = 0;
+                entry.monthIndex = currentMonth;
+            }
+            entry.linkedVotes = old.ownVotes;
+            entry.linkedStreak = old.ownStreak;
+            byTotalVotes.move(entry.totalVotes, entry.ownVotes + entry.linkedVotes);
+            byStreak.move(entry.streak, Math.max(entry.ownStreak, entry.linkedStreak));
+        }
+        entry.linkedMonthVotes = oldMonthVotes;
+        moveMonthly(entry);
+        linkedKeys.put(username, entry);
+    }
+
+    /**
+     * Gets a player's rank by total votes.
+     *
+     * @param key The player's key in the vote store
+     * @return Rank starting at 1, or 0 if the player has not voted
+     */
+    public synchronized int getRank(String key) {
+        Entry entry = find(key);
+        return entry != null ? byTotalVotes.rankOf(entry.totalVotes.score) : 0;
+    }
+
+    /**
+     * Gets a player's rank by current streak.
+     *
+     * @param key The player's key in the vote store
+     * @return Rank starting at 1, or 0 if the player has not voted
+     */
+    public synchronized int getStreakRank(String key) {
+        Entry entry = find(key);
+        return entry != null ? byStreak.rankOf(entry.streak.score) : 0;
+    }
+
+    /**
+     * Gets a player's rank by votes this month.
+     *
+     * @param key The player's key in the vote store
+     * @return Rank starting at 1, or 0 if the player has not voted this month
+     */
+    public synchronized int getMonthlyRank(String key) {
+        rollMonth(System.currentTimeMillis());
+        Entry entry = find(key);
+        if (entry == null || entry.monthIndex != currentMonth || entry.thisMonth == null) {
+            return 0;
+        }
+        return byMonth.rankOf(entry.thisMonth.score);
+    }
+
+    /**
+     * Gets the players with the most total votes.
+     *
+     * @param limit Maximum number of players to return
+     * @return Standings, highest first
+     */
+    public synchronized List<Standing> getTopByTotalVotes(int limit) {
+        return byTotalVotes.top(limit);
+    }
+
+    /**
+     * Gets the players with the longest current streaks.
+     *
+     * @param limit Maximum number of players to return
+     * @return Standings, highest first
+     */
+    public synchronized List<Standing> getTopByStreak(int limit) {
+        return byStreak.top(limit);
+    }
+
+    /**
+     * Gets the players with the most votes this month.
+     *
+     * @param limit Maximum number of players to return
+     * @return Standings, highest first
+     */
+    public synchronized List<Standing> getTopByMonth(int limit) {
+        rollMonth(System.currentTimeMillis());
+        return byMonth.top(limit);
+    }
+
+    /**
+     * Gets the players with the most votes last month.
+     *
+     * @param limit Maximum number of players to return
+     * @return Standings, highest first
+     */
+    public synchronized List<Standing> getTopByPreviousMonth(int limit) {
+        rollMonth(System.currentTimeMillis());
+        return byPreviousMonth.top(limit);
+    }
+
+    /**
+     * Gets the number of ranked players.
+     *
+     * @return Player count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds a player's entry by key, following linked username keys.
+     *
+     * @param key The player's key in the vote store
+     * @return The entry, or null if the player has not voted
+     */
+    private Entry find(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry : linkedKeys.get(key);
+    }
+
+    /**
+     * Starts a new monthly ranking if the month has changed, keeping the
+     * current one as last month's if they are consecutive.
+     *
+     * @param now Current time in epoch milliseconds
+     */
+    private void rollMonth(long now) {
+        long month = VotePeriod.MONTH.indexOf(now);
+        if (month <= currentMonth) {
+            return;
+        }
+        byPreviousMonth = month == currentMonth + 1 ? byMonth : new ScoreIndex();
+        byMonth = new ScoreIndex();
+        currentMonth = month;
+    }
+
+    /**
+     * Moves a player within the monthly rankings.
+     *
+     * A new player's votes last month are taken from their vote ring; a known
+     * player's node from last month stays behind in last month's ranking.
+     *
+     * @param entry The player's entry
+     * @param data The player's current vote data
+     * @param linked Whether the data is stored under a linked username key
+     * @param now Current time in epoch milliseconds
+     */
+    private void updateMonthly(Entry entry, PlayerVoteData data, boolean linked, long now) {
+        if (entry.monthIndex != currentMonth) {
+            int previous = entry.monthIndex == Entry.NEW ? data.getVotes(VotePeriod.MONTH, 1, now) : 0;
+            if (previous > 0) {
+                byPreviousMonth.add(new Node(entry), previous);
+            }
+            entry.thisMonth = null;
+            entry.ownMonthVotes = 0;
+            entry.linkedMonthVotes = 0;
+            entry.monthIndex = currentMonth;
+        }
+
+        if (linked) {
+            entry.linkedMonthVotes = data.getVotes(VotePeriod.MONTH, 0, now);
+        } else {
+            entry.ownMonthVotes = data.getVotes(VotePeriod.MONTH, 0, now);
+        }
+        moveMonthly(entry);
+    }
+
+    /**
+     * Moves a player to their combined votes this month, joining the
+     * monthly ranking once they have any.
+     *
+     * @param entry The player's entry, already on the current month
+     */
+    private void moveMonthly(Entry entry) {
+        int votes = entry.ownMonthVotes + entry.linkedMonthVotes;
+        if (entry.thisMonth != null) {
+            byMonth.move(entry.thisMonth, votes);
+        } else if (votes > 0) {
+            entry.thisMonth = new Node(entry);
+            byMonth.add(entry.thisMonth, votes);
+        }
+    }
+
+    /**
+     * One player's position in a ranking.
+     */
+    public static final class Standing {
+        private final int rank;
+        private final String key;
+        private final String username;
+        private final int score;
+
+        private Standing(int rank, String key, String username, int score) {
+            this.rank = rank;
+            this.key = key;
+            this.username = username;
+            this.score = score;
+        }
+
+        /**
+         * Gets the rank, shared by players with equal scores.
+         *
+         * @return Rank starting at 1
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        /**
+         * Gets the player's key in the vote store.
+         *
+         * @return UUID string, or username for players who only voted offline
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the player's username.
+         *
+         * @return Username, or the key if no username is known
+         */
+        public String getUsername() {
+            return username != null ? username : key;
+        }
+
+        /**
+         * Gets the score the player is ranked by.
+         *
+         * @return Total votes, current streak or monthly votes
+         */
+        public int getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * A ranked player, with one node in each ranking they are part of.
+     */
+    private static final class Entry {
+        private static final long NEW = Long.MIN_VALUE;
+
+        private final String key;
+        private String username;
+        private final Node totalVotes;
+        private final Node streak;
+        // Node in the monthly ranking for monthIndex, or null if the player has no votes that month
+        private Node thisMonth;
+        private long monthIndex = NEW;
+        // Scores of the record under this key and of the record under a linked username key
+        private int ownVotes;
+        private int linkedVotes;
+        private int ownStreak;
+        private int linkedStreak;
+        private int ownMonthVotes;
+        private int linkedMonthVotes;
+
+        private Entry(String key, String username) {
+            this.key = key;
+            this.username = username;
+            this.totalVotes = new Node(this);
+            this.streak = new Node(this);
+        }
+    }
+
+    /**
+     * A player's place in one ranking's score group.
+     */
+    private static final class Node {
+        private final Entry entry;
+        private int score;
+        private Node prev;
+        private Node next;
+
+        private Node(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Players sharing one score, in the order they reached it.
+     */
+    private static final class Group {
+        private Node head;
+        private Node tail;
+    }
+
+    /**
+     * One ranking: score groups ordered by score plus a Fenwick tree of group sizes.
+     */
+    private static final class ScoreIndex {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final TreeMap<Integer, Group> groups = new TreeMap<>();
+        private int[] tree = new int[INITIAL_CAPACITY + 1];
+        private int count;
+
+        /**
+         * Adds a node at a score.
+         *
+         * @param node The player's node in this ranking
+         * @param score The score, negative values count as 0
+         */
+        private void add(Node node, int score) {
+            node.score = Math.max(0, score);
+            Group group = groups.computeIfAbsent(node.score, ignored -> new Group());
+            node.prev = group.tail;
+            node.next = null;
+            if (group.tail != null) {
+                group.tail.next = node;
+            } else {
+                group.head = node;
+            }
+            group.tail = node;
+            count++;
+            adjust(node.score, 1);
+        }
+
+        /**
+         * Moves a node to a new score, keeping it in place if the score is unchanged.
+         *
+         * @param node The player's node in this ranking
+         * @param score The new score
+         */
+        private void move(Node node, int score) {
+            if (node.score == Math.max(0, score)) {
+                return;
+            }
+            remove(node);
+            add(node, score);
+        }
+
+        /**
+         * Unlinks a node from its group, dropping the group once empty.
+         *
+         * @param node The player's node in this ranking
+         */
+        private void remove(Node node) {
+            Group group = groups.get(node.score);
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                group.head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                group.tail = node.prev;
+            }
+            if (group.head == null) {
+                groups.remove(node.score);
+            }
+            node.prev = null;
+            node.next = null;
+            count--;
+            adjust(node.score, -1);
+        }
+
+        /**
+         * Gets the rank of a score.
+         *
+         * @param score The score
+         * @return One more than the number of players with a higher score
+         */
+        private int rankOf(int score) {
+            return count - countAtMost(score) + 1;
+        }
+
+        /**
+         * Lists the highest scoring players.
+         *
+         * @param limit Maximum number of players
+         * @return Standings, highest first
+         */
+        private List<Standing> top(int limit) {
+            List<Standing> standings = new ArrayList<>(Math.max(0, Math.min(limit, count)));
+            for (Group group : groups.descendingMap().values()) {
+                if (standings.size() >= limit) {
+                    break;
+                }
+                int rank = standings.size() + 1;
+                for (Node node = group.head; node != null && standings.size() < limit; node = node.next) {
+                    standings.add(new Standing(rank, node.entry.key, node.entry.username, node.score));
+                }
+            }
+            return standings;
+        }
+
+        /**
+         * Adds to the number of players at a score, growing the tree if needed.
+         *
+         * @param score The score
+         * @param delta Change in the number of players
+         */
+        private void adjust(int score, int delta) {
+            if (score + 1 >= tree.length) {
+                grow(score + 1);
+            }
+            for (int i = score + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /**
+         * Counts the players with at most the given score.
+         *
+         * @param score The score
+         * @return Prefix sum of group sizes
+         */
+        private int countAtMost(int score) {
+            int sum = 0;
+            for (int i = Math.min(score + 1, tree.length - 1); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        /**
+         * Rebuilds the tree with room for a larger score.
+         *
+         * @param index One-based index that must fit
+         */
+        private void grow(int index) {
+            int capacity = tree.length - 1;
+            while (capacity < index) {
+                capacity *= 2;
+            }
+            int[] grown = Arrays.copyOf(tree, capacity + 1);
+            // Nodes past the old length must also cover the old entries below them
+            for (int i = tree.length; i < grown.length; i++) {
+                int lowest = i - (i & -i) + 1;
+                grown[i] = prefix(grown, i - 1) - prefix(grown, lowest - 1);
+            }
+            tree = grown;
+        }
+
+        /**
+         * Computes a prefix sum in a partially built tree.
+         *
+         * @param fenwick The tree
+         * @param index One-based index, entries up to it must be complete
+         * @return Sum of the first {@code index} counts
+         */
+        private static int prefix(int[] fenwick, int index) {
+            int sum = 0;
+            for (int i = index; i > 0; i -= i & -i) {
+                sum += fenwick[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hyvote.votelistener.data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Calendar periods that votes are counted in, and the packed ring buffer each
+ * player keeps per period.
+ *
+ * A ring is a single {@code long} split into equal slots. Slot 0 counts the
+ * votes of the period containing the player's last vote, slot 1 the period
+ * before, and so on. Rolling a ring forward to a later period is one shift
+ * that drops the oldest slots, so periods roll over lazily whenever a ring is
+ * read or written, never by a sweep over all players. A slot saturates at its
+ * maximum instead of overflowing into its neighbour.
+ *
+ * <p>Periods follow the server's default time zone, like streaks. Weeks start
+ * on Monday.
+ */
+public enum VotePeriod {
+    /** Eight days of up to 255 votes each. */
+    DAY(8, 8) {
+        @Override
+        long indexOf(LocalDate date) {
+            return date.toEpochDay();
+        }
+    },
+    /** Four weeks of up to 65,535 votes each. */
+    WEEK(16, 4) {
+        @Override
+        long indexOf(LocalDate date) {
+            // 1970-01-01 was a Thursday, so shift by three days to start weeks on Monday
+            return Math.floorDiv(date.toEpochDay() + 3, 7);
+        }
+    },
+    /** Two months of up to 4,294,967,295 votes each. */
+    MONTH(32, 2) {
+        @Override
+        long indexOf(LocalDate date) {
+            return date.getYear() * 12L + date.getMonthValue() - 1;
+        }
+    };
+
+    private final int bits;
+    private final int slots;
+    private final long mask;
+
+    /**
+     * Creates a period with its ring layout.
+     *
+     * @param bits Bits per slot
+     * @param slots Number of slots, bits times slots must be 64
+     */
+    VotePeriod(int bits, int slots) {
+        this.bits = bits;
+        this.slots = slots;
+        this.mask = (1L << bits) - 1;
+    }
+
+    /**
+     * Gets the sequential number of the period containing a date.
+     *
+     * @param date The date
+     * @return Period number, consecutive periods differ by one
+     */
+    abstract long indexOf(LocalDate date);
+
+    /**
+     * Gets the sequential number of the period containing a time.
+     *
+     * @param epochMillis Time in epoch milliseconds
+     * @return Period number in the server's default time zone
+     */
+    public long indexOf(long epochMillis) {
+        return indexOf(Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    /**
+     * Gets the number of periods a ring remembers.
+     *
+     * @return Slot count
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Rolls a ring forward, emptying slot 0 for each elapsed period.
+     *
+     * @param ring Packed counts
+     * @param elapsed Periods since slot 0's period, zero or less leaves the ring unchanged
+     * @return Packed counts with slot 0 at the later period
+     */
+    long advance(long ring, long elapsed) {
+        if (elapsed <= 0) {
+            return ring;
+        }
+        return elapsed >= slots ? 0 : ring << (elapsed * bits);
+    }
+
+    /**
+     * Adds one vote to slot 0, saturating at the slot's maximum.
+     *
+     * @param ring Packed counts
+     * @return Packed counts with slot 0 incremented
+     */
+    long increment(long ring) {
+        return (ring & mask) == mask ? ring : ring + 1;
+    }
+
+    /**
+     * Reads one slot of a ring.
+     *
+     * @param ring Packed counts
+     * @param slot Slot number, 0 for the newest period
+     * @return Vote count, or 0 if the slot is outside the ring
+     */
+    int count(long ring, int slot) {
+        if (slot < 0 || slot >= slots) {
+            return 0;
+        }
+        return (int) Math.min((ring >>> (slot * bits)) & mask, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,110 @@
+package com.hyvote.votelistener.data;
+
+import java.util.Arrays;
+
+/**
+ * Server-wide vote totals for recent days, weeks and months.
+ *
+ * For each {@link VotePeriod} the totals form a ring with as many periods as a
+ * player's ring, newest first. The rollups are rebuilt at startup from the
+ * players' rings, which hold every vote inside that window, and afterwards
+ * incremented once per recorded vote. Rolling over to a new period shifts the
+ * ring when it is next touched, so no work is done at midnight and no
+ * separate file is needed.
+ *
+ * <p>All methods are synchronized.
+ */
+public class VoteRollups {
+
+    private final long[][] totals;
+    private final long[] newest;
+
+    /**
+     * Creates empty rollups.
+     */
+    public VoteRollups() {
+        VotePeriod[] periods = VotePeriod.values();
+        this.totals = new long[periods.length][];
+        this.newest = new long[periods.length];
+        for (VotePeriod period : periods) {
+            totals[period.ordinal()] = new long[period.getSlots()];
+            newest[period.ordinal()] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Adds a stored player's recent votes, used while seeding at startup.
+     *
+     * @param data The player's vote data
+     * @param now Current time in epoch milliseconds
+     */
+    public synchronized void add(PlayerVoteData data, long now) {
+        if (data.getLastVoteTimestamp() == 0) {
+            return;
+        }
+        for (VotePeriod period : VotePeriod.values()) {
+            long current = advanceTo(period, period.indexOf(now));
+            long last = period.indexOf(data.getLastVoteTimestamp());
+            long ring = data.getVoteRing(period);
+            long[] periodTotals = totals[period.ordinal()];
+            for (int slot = 0; slot < period.getSlots(); slot++) {
+                long target = current - (last - slot);
+                if (target >= 0 && target < periodTotals.length) {
+                    periodTotals[(int) target] += period.count(ring, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts one recorded vote.
+     *
+     * @param timestamp Vote time in epoch milliseconds
+     */
+    public synchronized void record(long timestamp) {
+        for (VotePeriod period : VotePeriod.values()) {
+            long index = period.indexOf(timestamp);
+            long current = advanceTo(period, index);
+            long target = current - index;
+            long[] periodTotals = totals[period.ordinal()];
+            if (target >= 0 && target < periodTotals.length) {
+                periodTotals[(int) target]++;
+            }
+        }
+    }
+
+    /**
+     * Gets the server's votes in a recent period.
+     *
+     * @param period The period
+     * @param periodsAgo 0 for the period containing {@code now}, 1 for the one before, and so on
+     * @param now Current time in epoch milliseconds
+     * @return Vote count, or 0 if the period is older than the rollups remember
+     */
+    public synchronized long getVotes(VotePeriod period, int periodsAgo, long now) {
+        advanceTo(period, period.indexOf(now));
+        long[] periodTotals = totals[period.ordinal()];
+        return periodsAgo >= 0 && periodsAgo < periodTotals.length ? periodTotals[periodsAgo] : 0;
+    }
+
+    /**
+     * Rolls a period's totals forward so slot 0 is the given period.
+     *
+     * @param period The period
+     * @param index Period number to move to; earlier numbers leave the totals unchanged
+     * @return Period number of slot 0 afterwards
+     */
+    private long advanceTo(VotePeriod period, long index) {
+        int p = period.ordinal();
+        long[] periodTotals = totals[p];
+        if (newest[p] == Long.MIN_VALUE) {
+            newest[p] = index;
+        } else if (index > newest[p]) {
+            int shift = (int) Math.min(index - newest[p], periodTotals.length);
+            System.arraycopy(periodTotals, 0, periodTotals, shift, periodTotals.length - shift);
+            Arrays.fill(periodTotals, 0, shift, 0);
+            newest[p] = index;
+        }
+        return newest[p];
+    }
+}
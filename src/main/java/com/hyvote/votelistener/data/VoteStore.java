@@ -0,0 +1,72 @@
+package com.hyvote.votelistener.data;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Storage for per-player vote statistics.
+ *
+ * Implementations must be safe to use from multiple threads and must apply
+ * concurrent votes for the same player one after another. Returned records are
+ * snapshots that callers must not modify.
+ *
+ * @see VoteDataManager JSON file implementation
+ * @see DatabaseVoteStore embedded database implementation
+ * @see MappedVoteStore memory-mapped binary file implementation
+ */
+public interface VoteStore {
+
+    /**
+     * Loads or opens the stored data. Called once before any other method.
+     */
+    void load();
+
+    /**
+     * Records a vote for a player and updates their streak.
+     *
+     * @param uuid Player UUID as string (or username for players never seen online)
+     * @param username Player username
+     * @return Snapshot of the player's data with the new vote recorded
+     */
+    PlayerVoteData recordVote(String uuid, String username);
+
+    /**
+     * Gets a player's vote data.
+     *
+     * @param uuid Player UUID as string
+     * @return Snapshot of the player's data, or null if the player has never voted
+     */
+    PlayerVoteData getPlayerData(String uuid);
+
+    /**
+     * Calls the action for every stored player, for example to export all data.
+     *
+     * Records are passed as snapshots and may be read one at a time; players
+     * who vote during the iteration may or may not be included.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    void forEachPlayer(BiConsumer<String, PlayerVoteData> action);
+
+    /**
+     * Calls the action for every stored player, to build the leaderboard and
+     * period totals at startup.
+     *
+     * A store that can sort on read passes players from most to fewest total
+     * votes, earliest last vote first among equals, so leaderboard ties start
+     * out in the order players reached their score. Other stores pass players
+     * in storage order.
+     *
+     * @param action Receives each player key and a snapshot of its data
+     */
+    void forEachPlayerByTotalVotes(BiConsumer<String, PlayerVoteData> action);
+
+    /**
+     * Writes any buffered changes to durable storage.
+     */
+    void flush();
+
+    /**
+     * Stops background work and writes any remaining changes.
+     */
+    void shutdown();
+}
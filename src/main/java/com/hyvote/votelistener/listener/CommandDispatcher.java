@@ -0,0 +1,206 @@
+package com.hyvote.votelistener.listener;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.command.system.CommandManager;
+import com.hypixel.hytale.server.core.console.ConsoleSender;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Dispatches reward commands to the server as the console.
+ *
+ * <p>By default commands run on the calling thread. Once asynchronous dispatch is
+ * enabled, every batch is handed to a single dispatch thread instead, so vote
+ * workers never block on command execution and commands from different workers
+ * are never executed concurrently. Batches run in submission order, which keeps
+ * each player's rewards in the order their votes were processed.
+ *
+ * <p>When metrics are set, every command's outcome is counted once its future
+ * completes, for both dispatched batches and submitted commands.
+ */
+public class CommandDispatcher {
+
+    private final HytaleLogger logger;
+    private final Function<String, CompletableFuture<?>> commandExecutor;
+    private volatile ExecutorService dispatchExecutor;
+    private volatile VoteMetrics metrics;
+
+    /**
+     * Creates a new CommandDispatcher that executes commands through the server's command manager.
+     *
+     * @param logger The logger for debug and error messages
+     */
+    public CommandDispatcher(HytaleLogger logger) {
+        this.logger = logger;
+        this.commandExecutor = command -> CommandManager.get().handleCommand(ConsoleSender.INSTANCE, command);
+    }
+
+    /**
+     * Creates a new CommandDispatcher with a custom command executor.
+     *
+     * @param logger The logger for debug and error messages
+     * @param commandExecutor Callback that executes a single command
+     */
+    public CommandDispatcher(HytaleLogger logger, Consumer<String> commandExecutor) {
+        this.logger = logger;
+        this.commandExecutor = command -> {
+            commandExecutor.accept(command);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    /**
+     * Sets the metrics that executed and failed commands are counted in.
+     *
+     * @param metrics The metrics to record into
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Switches to asynchronous dispatch on a dedicated thread.
+     */
+    public synchronized void enableAsync() {
+        if (dispatchExecutor == null) {
+            dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "HytaleVoteListener-CommandDispatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Dispatches a batch of commands in order.
+     *
+     * @param commands The commands to execute
+     * @param debug Whether to log each executed command
+     */
+    public void dispatch(List<String> commands, boolean debug) {
+        ExecutorService executor = dispatchExecutor;
+        if (executor == null) {
+            executeAll(commands, debug);
+            return;
+        }
+
+        try {
+            executor.execute(() -> executeAll(commands, debug));
+        } catch (RejectedExecutionException e) {
+            // Shutting down - run on the caller so the rewards are not lost
+            executeAll(commands, debug);
+        }
+    }
+
+    /**
+     * Executes a single command immediately on the calling thread.
+     *
+     * @param command The command string to execute
+     */
+    public void execute(String command) {
+        recordOutcome(commandExecutor.apply(command));
+    }
+
+    /**
+     * Starts a single command on the calling thread and reports its outcome.
+     *
+     * @param command The command string to execute
+     * @return Future completing when the command has run; completes exceptionally
+     *         if the command fails, including when it throws immediately
+     */
+    public CompletableFuture<?> submit(String command) {
+        try {
+            CompletableFuture<?> result = commandExecutor.apply(command);
+            recordOutcome(result);
+            return result != null ? result : CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            recordFailure();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops the dispatch thread after all queued batches have run.
+     */
+    public void shutdown() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = dispatchExecutor;
+            dispatchExecutor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.at(Level.WARNING).log("Timed out waiting for queued reward commands to run");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executes a batch of commands, logging failures without aborting the rest.
+     *
+     * @param commands The commands to execute
+     * @param debug Whether to log each executed command
+     */
+    private void executeAll(List<String> commands, boolean debug) {
+        for (String command : commands) {
+            try {
+                execute(command);
+                if (debug) {
+                    logger.at(Level.INFO).log("[Debug] Executed command: %s", command);
+                }
+            } catch (Exception e) {
+                recordFailure();
+                logger.at(Level.SEVERE).log("Failed to execute command '%s': %s", command, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Counts a started command as executed or failed once it completes.
+     *
+     * @param result The command's future (null counts as completed)
+     */
+    private void recordOutcome(CompletableFuture<?> result) {
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics == null) {
+            return;
+        }
+        if (result == null) {
+            activeMetrics.commandExecuted();
+            return;
+        }
+        result.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                activeMetrics.commandExecuted();
+            } else {
+                activeMetrics.commandFailed();
+            }
+        });
+    }
+
+    /**
+     * Counts a command that threw before it could start.
+     */
+    private void recordFailure() {
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics != null) {
+            activeMetrics.commandFailed();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hyvote.votelistener.listener;
+
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of online players keyed by lower-cased username and by UUID.
+ *
+ * <p>Maintained from player connect and disconnect events, so vote handling can
+ * resolve a voter with a single O(1) lookup instead of scanning every online
+ * player. Safe to query from any thread.
+ */
+public class OnlinePlayerIndex {
+
+    private final Map<String, PlayerRef> byUsername;
+    private final Map<UUID, PlayerRef> byUuid;
+
+    /**
+     * Creates a new, empty OnlinePlayerIndex.
+     */
+    public OnlinePlayerIndex() {
+        this.byUsername = new ConcurrentHashMap<>();
+        this.byUuid = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Seeds the index with the players already online.
+     *
+     * Used when the plugin starts while players are connected (e.g. after a reload).
+     */
+    public void rebuild() {
+        byUsername.clear();
+        byUuid.clear();
+        for (PlayerRef playerRef : Universe.get().getPlayers()) {
+            add(playerRef);
+        }
+    }
+
+    /**
+     * Adds a connecting player to the index.
+     *
+     * @param event The player connect event
+     */
+    public void onPlayerConnect(PlayerConnectEvent event) {
+        add(event.getPlayerRef());
+    }
+
+    /**
+     * Removes a disconnecting player from the index.
+     *
+     * @param event The player disconnect event
+     */
+    public void onPlayerDisconnect(PlayerDisconnectEvent event) {
+        PlayerRef playerRef = event.getPlayerRef();
+        // Only remove entries that still point at this connection
+        byUsername.remove(normalize(playerRef.getUsername()), playerRef);
+        byUuid.remove(playerRef.getUuid(), playerRef);
+    }
+
+    /**
+     * Finds an online player by username, ignoring case.
+     *
+     * @param username The username to look up
+     * @return The PlayerRef, or null if no such player is online
+     */
+    public PlayerRef findByUsername(String username) {
+        return username != null ? byUsername.get(normalize(username)) : null;
+    }
+
+    /**
+     * Finds an online player by UUID.
+     *
+     * @param uuid The UUID to look up
+     * @return The PlayerRef, or null if no such player is online
+     */
+    public PlayerRef findByUuid(UUID uuid) {
+        return uuid != null ? byUuid.get(uuid) : null;
+    }
+
+    /**
+     * Checks whether a player with the given UUID is online.
+     *
+     * @param uuid The UUID to check
+     * @return true if the player is online
+     */
+    public boolean isOnline(UUID uuid) {
+        return findByUuid(uuid) != null;
+    }
+
+    /**
+     * Gets the number of indexed online players.
+     *
+     * @return Online player count
+     */
+    public int size() {
+        return byUuid.size();
+    }
+
+    /**
+     * Adds a player to both indexes.
+     *
+     * @param playerRef The player to add
+     */
+    private void add(PlayerRef playerRef) {
+        byUsername.put(normalize(playerRef.getUsername()), playerRef);
+        byUuid.put(playerRef.getUuid(), playerRef);
+    }
+
+    /**
+     * Normalizes a username for case-insensitive lookup.
+     *
+     * @param username The username
+     * @return Lower-cased username
+     */
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
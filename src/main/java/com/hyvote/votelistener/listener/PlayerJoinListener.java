@@ -2,59 +2,64 @@ package com.hyvote.votelistener.listener;
 
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.command.system.CommandManager;
-import com.hypixel.hytale.server.core.console.ConsoleSender;
 import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hyvote.votelistener.HytaleVoteListener;
 import com.hyvote.votelistener.data.PendingReward;
-import com.hyvote.votelistener.data.PendingRewardsManager;
+import com.hyvote.votelistener.data.PendingRewardStore;
+import com.hyvote.votelistener.data.VoteLeaderboard;
 
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
  * Listens for player join events to deliver pending vote rewards.
  *
  * When a player joins the server, this listener checks if they have any
- * pending rewards from votes received while offline, and delivers them
- * automatically.
+ * pending rewards from votes received while offline, and hands them to the
+ * {@link RewardDeliveryScheduler}, which runs their commands over the following
+ * ticks.
  */
 public class PlayerJoinListener {
 
     private final HytaleVoteListener plugin;
     private final HytaleLogger logger;
-    private final PendingRewardsManager pendingRewardsManager;
+    private final PendingRewardStore pendingRewardStore;
+    private final RewardDeliveryScheduler deliveryScheduler;
+    private volatile VoteLeaderboard leaderboard;
 
     /**
      * Creates a new PlayerJoinListener.
      *
      * @param plugin The plugin instance
-     * @param pendingRewardsManager The pending rewards manager for retrieving and clearing rewards
+     * @param pendingRewardStore The pending reward store for retrieving and clearing rewards
+     * @param deliveryScheduler The scheduler that runs the reward commands
      */
-    public PlayerJoinListener(HytaleVoteListener plugin, PendingRewardsManager pendingRewardsManager) {
+    public PlayerJoinListener(HytaleVoteListener plugin, PendingRewardStore pendingRewardStore,
+                              RewardDeliveryScheduler deliveryScheduler) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.pendingRewardsManager = pendingRewardsManager;
+        this.pendingRewardStore = pendingRewardStore;
+        this.deliveryScheduler = deliveryScheduler;
     }
 
     /**
-     * Executes a command through the command manager.
+     * Sets the leaderboard whose username-keyed entries are moved to the
+     * player's UUID on join.
      *
-     * @param command The command string to execute
+     * @param leaderboard The leaderboard, or null if it is disabled
      */
-    private void executeCommand(String command) {
-        CommandManager.get().handleCommand(ConsoleSender.INSTANCE, command);
+    public void setLeaderboard(VoteLeaderboard leaderboard) {
+        this.leaderboard = leaderboard;
     }
 
     /**
      * Handles player connect events to deliver pending vote rewards.
      *
      * Checks if the joining player has any pending rewards from votes
-     * received while offline, executes all reward commands, and clears
-     * the pending rewards after successful delivery.
+     * received while offline and schedules their delivery. Rewards stay in
+     * the store until each one has been delivered; an interrupted delivery
+     * releases the rest back to pending.
      *
      * @param event The player connect event
      */
@@ -63,47 +68,26 @@ public class PlayerJoinListener {
         String uuid = playerRef.getUuid().toString();
         String username = playerRef.getUsername();
 
-        // Check if player has pending rewards (by UUID or username - offline votes use username)
-        String lookupKey = null;
-        if (pendingRewardsManager.hasPendingRewards(uuid)) {
-            lookupKey = uuid;
-        } else if (pendingRewardsManager.hasPendingRewards(username)) {
-            lookupKey = username;
+        // Offline votes are queued by username - move them to the player's UUID now that it is known
+        pendingRewardStore.linkPlayer(uuid, username);
+        VoteLeaderboard activeLeaderboard = leaderboard;
+        if (activeLeaderboard != null) {
+            activeLeaderboard.link(uuid, username);
         }
 
-        if (lookupKey == null) {
+        // Claim the rewards (marking them in flight) so a concurrent /claimvotes cannot deliver them again
+        List<PendingReward> pendingRewards = pendingRewardStore.claimPendingRewards(uuid);
+        int totalRewards = pendingRewards.size();
+        if (totalRewards == 0) {
             return;
         }
 
-        // Get all pending rewards for this player
-        List<PendingReward> pendingRewards = pendingRewardsManager.getPendingRewards(lookupKey);
-        int totalRewards = pendingRewards.size();
-
-        logger.at(Level.INFO).log("Delivering %d pending vote rewards to %s (key: %s)", totalRewards, username, lookupKey);
-
-        // Clear pending rewards first to prevent double-delivery on reconnect
-        pendingRewardsManager.clearPendingRewards(lookupKey);
+        logger.at(Level.INFO).log("Delivering %d pending vote rewards to %s", totalRewards, username);
 
         // Delay command execution to ensure player is fully connected
         // PlayerConnectEvent fires early - give the server time to fully load the player
-        final String finalUsername = username;
-        CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS).execute(() -> {
-            int commandsExecuted = 0;
-            for (PendingReward reward : pendingRewards) {
-                List<String> commands = reward.getCommands();
-                for (String command : commands) {
-                    logger.at(Level.INFO).log("Executing pending reward command: %s", command);
-                    try {
-                        executeCommand(command);
-                        commandsExecuted++;
-                    } catch (Exception e) {
-                        logger.at(Level.SEVERE).log("Failed to execute command '%s': %s", command, e.getMessage());
-                    }
-                }
-            }
-            logger.at(Level.INFO).log("Successfully delivered %d commands from %d pending rewards to %s",
-                    commandsExecuted, totalRewards, finalUsername);
-        });
+        long delayMillis = plugin.getConfigManager().getConfig().getDeliveryStartDelaySeconds() * 1000L;
+        deliveryScheduler.schedule(uuid, username, pendingRewards, delayMillis);
 
         // Notify the player about their rewards (immediate)
         String message = "You received " + totalRewards + " pending vote reward"
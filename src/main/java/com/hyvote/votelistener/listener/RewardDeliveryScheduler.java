@@ -0,0 +1,489 @@
+package com.hyvote.votelistener.listener;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
+import com.hyvote.votelistener.config.Config;
+import com.hyvote.votelistener.data.DeliveryBatch;
+import com.hyvote.votelistener.data.PendingReward;
+import com.hyvote.votelistener.data.PendingRewardStore;
+import com.hyvote.votelistener.metrics.DeliveryBatchEvent;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Delivers pending rewards a few commands at a time instead of in one burst.
+ *
+ * <p>Every delivery tick runs at most {@code deliveryCommandsPerPlayer} commands
+ * for each player and at most {@code deliveryCommandsPerTick} commands in
+ * total. Players are served round-robin, so one player with hundreds of missed
+ * votes cannot hold up everyone else who joined at the same time. The tick only
+ * runs while deliveries are in progress.
+ *
+ * <p>Rewards arrive claimed (in flight) from the {@link PendingRewardStore} and
+ * stay stored until delivered. Each tick's state changes - command progress,
+ * delivered rewards and dead-lettered rewards - are written as one
+ * {@link DeliveryBatch}, so a crash repeats at most the commands run since the
+ * last tick. If the player disconnects, or the server shuts down, before their
+ * delivery finishes, the remaining rewards are released back to pending with
+ * their progress and resume from the next command on the next join.
+ *
+ * <p>A failing command is retried from the same command after a delay that
+ * doubles with each attempt. After {@code deliveryMaxAttempts} failures the
+ * reward is moved to the store's dead-letter queue and delivery continues with
+ * the next reward.
+ *
+ * <p>All state is guarded by this object's monitor, so a disconnect never
+ * interleaves with a command being run for the same player.
+ */
+public class RewardDeliveryScheduler {
+
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Supplier<Config> configSource;
+    private final PendingRewardStore pendingRewardStore;
+    private final CommandDispatcher commandDispatcher;
+    private final HytaleLogger logger;
+    private final ScheduledExecutorService tickExecutor;
+    private final Map<String, Delivery> deliveries;
+    private final ArrayDeque<Delivery> rotation;
+    private ScheduledFuture<?> nextTick;
+    private boolean stopped;
+    private volatile VoteMetrics metrics;
+
+    /**
+     * Creates a new RewardDeliveryScheduler.
+     *
+     * @param configSource Supplies the current configuration snapshot (e.g. ConfigManager::getConfig)
+     * @param pendingRewardStore The store delivery progress is recorded in
+     * @param commandDispatcher The dispatcher used to execute reward commands
+     * @param logger The logger for info and error messages
+     */
+    public RewardDeliveryScheduler(Supplier<Config> configSource, PendingRewardStore pendingRewardStore,
+                                   CommandDispatcher commandDispatcher, HytaleLogger logger) {
+        this.configSource = configSource;
+        this.pendingRewardStore = pendingRewardStore;
+        this.commandDispatcher = commandDispatcher;
+        this.logger = logger;
+        this.tickExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HytaleVoteListener-RewardDelivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deliveries = new HashMap<>();
+        this.rotation = new ArrayDeque<>();
+    }
+
+    /**
+     * Sets the metrics that tick times and finished rewards are recorded in.
+     *
+     * @param metrics The metrics to record into
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues claimed rewards for delivery to an online player.
+     *
+     * Rewards for a player whose delivery is still in progress are appended to
+     * it. After {@link #shutdown()}, the rewards are released back to pending.
+     *
+     * @param uuid Player UUID as string, the key the rewards were claimed under
+     * @param username Player's username, for logging
+     * @param rewards Rewards claimed from the pending reward store, in delivery order
+     * @param delayMillis Milliseconds to wait before the first command is run
+     */
+    public synchronized void schedule(String uuid, String username, List<PendingReward> rewards, long delayMillis) {
+        if (rewards.isEmpty()) {
+            return;
+        }
+
+        Delivery delivery = deliveries.get(uuid);
+        if (delivery == null) {
+            delivery = new Delivery(uuid, username);
+            delivery.notBeforeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+            deliveries.put(uuid, delivery);
+            rotation.add(delivery);
+        }
+        boolean wasEmpty = delivery.rewards.isEmpty();
+        delivery.rewards.addAll(rewards);
+        if (wasEmpty) {
+            delivery.startReward();
+        }
+
+        if (stopped) {
+            cancel(uuid);
+            return;
+        }
+        ensureTicking();
+    }
+
+    /**
+     * Stops delivery to a disconnecting player and releases the rest of their rewards.
+     *
+     * @param event The player disconnect event
+     */
+    public void onPlayerDisconnect(PlayerDisconnectEvent event) {
+        cancel(event.getPlayerRef().getUuid().toString());
+    }
+
+    /**
+     * Stops delivery to a player and releases their remaining rewards back to pending.
+     *
+     * A command still running is treated as not run, so it is repeated on the
+     * next delivery rather than risking a lost reward.
+     *
+     * @param uuid Player UUID as string
+     */
+    public synchronized void cancel(String uuid) {
+        Delivery delivery = deliveries.remove(uuid);
+        if (delivery == null) {
+            return;
+        }
+        rotation.remove(delivery);
+
+        // Record a command that finished since the last tick before releasing the rest
+        DeliveryBatch batch = new DeliveryBatch();
+        if (delivery.running != null && delivery.running.isDone()) {
+            resolveRunning(delivery, configSource.get(), batch, System.nanoTime());
+        }
+        delivery.running = null;
+        applyBatch(batch);
+
+        List<PendingReward> remaining = new ArrayList<>(delivery.rewards.size());
+        boolean first = true;
+        for (PendingReward reward : delivery.rewards) {
+            remaining.add(first ? delivery.current() : reward);
+            first = false;
+        }
+        try {
+            pendingRewardStore.releasePendingRewards(uuid, remaining);
+        } catch (RuntimeException e) {
+            logger.at(Level.SEVERE).log("Failed to release pending rewards for " + delivery.username + ": " + e.getMessage());
+        }
+        logger.at(Level.INFO).log("Interrupted pending reward delivery to %s after %d commands, %d rewards left",
+                delivery.username, delivery.commandsRun, remaining.size());
+    }
+
+    /**
+     * Gets the number of players with a delivery in progress.
+     *
+     * @return Number of active deliveries
+     */
+    public synchronized int getActiveDeliveries() {
+        return deliveries.size();
+    }
+
+    /**
+     * Stops the delivery tick and releases every unfinished delivery back to pending.
+     *
+     * Must run before the pending reward store is shut down.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            stopped = true;
+            if (nextTick != null) {
+                nextTick.cancel(false);
+                nextTick = null;
+            }
+            for (String uuid : new ArrayList<>(deliveries.keySet())) {
+                cancel(uuid);
+            }
+        }
+        tickExecutor.shutdown();
+    }
+
+    /**
+     * Schedules the next tick unless one is already pending.
+     */
+    private void ensureTicking() {
+        if (nextTick != null || rotation.isEmpty()) {
+            return;
+        }
+        long interval = Math.max(1, configSource.get().getDeliveryTickMillis());
+        try {
+            nextTick = tickExecutor.schedule(this::tick, interval, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.at(Level.SEVERE).log("Reward delivery tick rejected: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one delivery tick.
+     *
+     * Visits each waiting player at most once, giving each up to the
+     * per-player budget until the global budget is used up. Players that are
+     * not finished move to the back of the rotation. The tick's state changes
+     * are written to the store in one batch.
+     */
+    private synchronized void tick() {
+        nextTick = null;
+        if (stopped) {
+            return;
+        }
+
+        Config config = configSource.get();
+        int perPlayer = Math.max(1, config.getDeliveryCommandsPerPlayer());
+        int budget = Math.max(1, config.getDeliveryCommandsPerTick());
+        long now = System.nanoTime();
+        DeliveryBatchEvent batchEvent = new DeliveryBatchEvent();
+        batchEvent.begin();
+        int initialBudget = budget;
+        DeliveryBatch batch = new DeliveryBatch();
+
+        int waiting = rotation.size();
+        for (int i = 0; i < waiting && budget > 0; i++) {
+            Delivery delivery = rotation.poll();
+            if (delivery.notBeforeNanos - now > 0) {
+                rotation.add(delivery);
+                continue;
+            }
+
+            budget -= advance(delivery, Math.min(perPlayer, budget), config, batch, now);
+            if (delivery.rewards.isEmpty()) {
+                deliveries.remove(delivery.uuid);
+                logger.at(Level.INFO).log("Successfully delivered %d commands from %d pending rewards to %s",
+                        delivery.commandsRun, delivery.rewardsDelivered, delivery.username);
+                if (delivery.rewardsDeadLettered > 0) {
+                    logger.at(Level.WARNING).log("Moved %d pending rewards for %s to the dead-letter queue",
+                            delivery.rewardsDeadLettered, delivery.username);
+                }
+            } else {
+                if (delivery.progressChanged) {
+                    batch.progress(delivery.uuid, delivery.current());
+                    delivery.progressChanged = false;
+                }
+                rotation.add(delivery);
+            }
+        }
+
+        applyBatch(batch);
+        recordTick(batch, now, batchEvent, initialBudget - budget);
+        ensureTicking();
+    }
+
+    /**
+     * Records the tick's duration and finished rewards in the metrics and
+     * completes its Flight Recorder event.
+     *
+     * @param batch The tick's state changes
+     * @param startNanos {@link System#nanoTime()} when the tick started
+     * @param batchEvent The tick's event, begun when the tick started
+     * @param commandsStarted Number of commands started in the tick
+     */
+    private void recordTick(DeliveryBatch batch, long startNanos, DeliveryBatchEvent batchEvent,
+                            int commandsStarted) {
+        int delivered = 0;
+        int deadLettered = 0;
+        for (DeliveryBatch.Entry entry : batch.getEntries()) {
+            switch (entry.getTransition()) {
+                case DELIVERED -> delivered++;
+                case DEAD_LETTER -> deadLettered++;
+                case PROGRESS -> {
+                    // Still in flight
+                }
+            }
+        }
+
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics != null) {
+            activeMetrics.rewardsCompleted(delivered, deadLettered);
+            activeMetrics.deliveryTick(System.nanoTime() - startNanos);
+        }
+        batchEvent.finish(deliveries.size(), commandsStarted, delivered, deadLettered, batch.getEntries().size());
+    }
+
+    /**
+     * Runs commands from a delivery until its budget is used, a command is
+     * still running, or it has to wait before retrying.
+     *
+     * @param delivery The delivery to advance
+     * @param limit Maximum number of commands to start
+     * @param config The current configuration
+     * @param batch Receives the state changes
+     * @param now Current {@link System#nanoTime()}
+     * @return Number of commands started
+     */
+    private int advance(Delivery delivery, int limit, Config config, DeliveryBatch batch, long now) {
+        int started = 0;
+        while (true) {
+            if (delivery.running != null) {
+                if (!delivery.running.isDone() || !resolveRunning(delivery, config, batch, now)) {
+                    return started;
+                }
+            }
+            if (delivery.rewards.isEmpty() || started >= limit) {
+                return started;
+            }
+
+            List<String> commands = delivery.commands;
+            if (delivery.commandIndex >= commands.size()) {
+                completeReward(delivery, batch);
+                continue;
+            }
+
+            String command = commands.get(delivery.commandIndex);
+            delivery.running = commandDispatcher.submit(command);
+            delivery.runningCommand = command;
+            started++;
+            if (config.isDebugMode()) {
+                logger.at(Level.INFO).log("[Debug] Executed pending reward command: %s", command);
+            }
+        }
+    }
+
+    /**
+     * Applies the outcome of a finished command.
+     *
+     * @param delivery The delivery whose command finished
+     * @param config The current configuration
+     * @param batch Receives the state changes
+     * @param now Current {@link System#nanoTime()}
+     * @return true if delivery can continue, false if it must wait before retrying
+     */
+    private boolean resolveRunning(Delivery delivery, Config config, DeliveryBatch batch, long now) {
+        Throwable failure = failureOf(delivery.running);
+        String command = delivery.runningCommand;
+        delivery.running = null;
+        delivery.runningCommand = null;
+
+        if (failure == null) {
+            delivery.commandIndex++;
+            delivery.commandsRun++;
+            delivery.progressChanged = true;
+            if (delivery.commandIndex >= delivery.commands.size()) {
+                completeReward(delivery, batch);
+            }
+            return true;
+        }
+
+        delivery.failedAttempts++;
+        delivery.progressChanged = true;
+        int maxAttempts = Math.max(1, config.getDeliveryMaxAttempts());
+        String reason = "Command '" + command + "' failed: " + failure.getMessage();
+        logger.at(Level.SEVERE).log("Failed to execute command '%s' for %s (attempt %d of %d): %s",
+                command, delivery.username, delivery.failedAttempts, maxAttempts, failure.getMessage());
+
+        if (delivery.failedAttempts >= maxAttempts) {
+            batch.deadLetter(delivery.uuid, delivery.current(), reason);
+            delivery.rewards.poll();
+            delivery.rewardsDeadLettered++;
+            delivery.startReward();
+            return true;
+        }
+
+        long baseMillis = TimeUnit.SECONDS.toMillis(Math.max(1, config.getDeliveryRetryDelaySeconds()));
+        long delayMillis = Math.min(MAX_RETRY_DELAY_MILLIS,
+                baseMillis << Math.min(20, delivery.failedAttempts - 1));
+        delivery.notBeforeNanos = now + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        return false;
+    }
+
+    /**
+     * Records the current reward as delivered and moves on to the next one.
+     *
+     * @param delivery The delivery
+     * @param batch Receives the state change
+     */
+    private void completeReward(Delivery delivery, DeliveryBatch batch) {
+        batch.delivered(delivery.uuid, delivery.current());
+        delivery.rewards.poll();
+        delivery.rewardsDelivered++;
+        delivery.startReward();
+    }
+
+    /**
+     * Writes a batch of state changes to the store.
+     *
+     * @param batch The changes to write
+     */
+    private void applyBatch(DeliveryBatch batch) {
+        try {
+            pendingRewardStore.applyDeliveryBatch(batch);
+        } catch (RuntimeException e) {
+            logger.at(Level.SEVERE).log("Failed to record pending reward delivery progress: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the exception a finished command failed with.
+     *
+     * @param future The finished command
+     * @return The failure, or null if the command succeeded
+     */
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Delivery progress for one player.
+     *
+     * The head of {@code rewards} is the reward being delivered; its progress
+     * is tracked in {@code commandIndex} and {@code failedAttempts}, and its
+     * commands are expanded once into {@code commands}.
+     */
+    private static final class Delivery {
+        private final String uuid;
+        private final String username;
+        private final ArrayDeque<PendingReward> rewards;
+        private List<String> commands;
+        private long notBeforeNanos;
+        private int commandIndex;
+        private int failedAttempts;
+        private boolean progressChanged;
+        private CompletableFuture<?> running;
+        private String runningCommand;
+        private int commandsRun;
+        private int rewardsDelivered;
+        private int rewardsDeadLettered;
+
+        private Delivery(String uuid, String username) {
+            this.uuid = uuid;
+            this.username = username;
+            this.rewards = new ArrayDeque<>();
+            this.commands = List.of();
+        }
+
+        /**
+         * Resumes the head reward from its stored progress.
+         */
+        private void startReward() {
+            PendingReward head = rewards.peek();
+            commands = head != null ? head.getCommands() : List.of();
+            commandIndex = head != null ? head.getCommandsDelivered() : 0;
+            failedAttempts = head != null ? head.getFailedAttempts() : 0;
+            progressChanged = false;
+        }
+
+        /**
+         * Gets the head reward with its current progress.
+         *
+         * @return Copy of the head reward
+         */
+        private PendingReward current() {
+            return rewards.peek().withProgress(commandIndex, failedAttempts);
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package com.hyvote.votelistener.listener;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+import org.hyvote.plugins.votifier.vote.Vote;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Rejects votes that were already received within a sliding time window.
+ *
+ * Voting sites and Votifier retries sometimes deliver the same vote twice. A
+ * vote is identified by its service name, lower-cased username and the
+ * timestamp sent by the voting site, hashed into a 64-bit fingerprint; the
+ * chance of two different votes colliding is negligible at any realistic
+ * volume.
+ *
+ * <p>Fingerprints are split by their top bits into {@value #SHARD_COUNT}
+ * shards, each with its own lock, so votes checked at the same time rarely
+ * wait for one another. Within a shard, fingerprints are kept in
+ * {@value #BUCKET_COUNT} time buckets spanning the window, each a primitive
+ * open-addressing hash set. When the window moves on, the oldest bucket is
+ * emptied in one step, so expiring old votes costs nothing per vote. At most
+ * {@code maxEntries} fingerprints are held at once across all shards; if more
+ * votes arrive within one window, further votes are let through unchecked
+ * until a bucket expires, so memory stays bounded even during a flood. Such
+ * votes are counted in {@link VoteMetrics}.
+ *
+ * <p>Each shard's buckets are also appended to small files in a numbered
+ * subfolder of the {@value #DIRECTORY_NAME} folder, one per bucket and named
+ * after the bucket's start time, so a restart does not reopen the window for
+ * duplicates. Expired buckets are deleted with their file, so the folder never
+ * needs compacting. Records reach the operating system on every vote and are
+ * forced to disk on shutdown.
+ */
+public class VoteDeduplicator {
+
+    /** Folder in the plugin data directory that holds the persisted window. */
+    public static final String DIRECTORY_NAME = "vote-dedup";
+
+    private static final String FILE_SUFFIX = ".bin";
+    private static final int BUCKET_COUNT = 12;
+    // Power of two; a fingerprint's top bits pick its shard
+    private static final int SHARD_COUNT = 8;
+    private static final int SHARD_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SHARD_COUNT);
+    private static final int RECORD_BYTES = Long.BYTES;
+
+    private final Path directory;
+    private final HytaleLogger logger;
+    private final long bucketMillis;
+    private final int maxEntries;
+    private final Shard[] shards;
+    private final AtomicInteger size;
+    private final AtomicLong overflowWarnedEpoch;
+    private volatile VoteMetrics metrics;
+
+    /**
+     * Creates a new VoteDeduplicator with an empty window.
+     *
+     * @param directory Folder the window is persisted in
+     * @param windowMinutes Minutes during which a repeated vote is rejected
+     * @param maxEntries Maximum number of votes remembered at once
+     * @param logger The logger for info and error messages
+     */
+    public VoteDeduplicator(Path directory, int windowMinutes, int maxEntries, HytaleLogger logger) {
+        this.directory = directory;
+        this.logger = logger;
+        this.bucketMillis = Math.max(1, windowMinutes) * 60_000L / BUCKET_COUNT;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.shards = new Shard[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(directory.resolve(Integer.toString(i)));
+        }
+        this.size = new AtomicInteger();
+        this.overflowWarnedEpoch = new AtomicLong(Long.MIN_VALUE);
+    }
+
+    /**
+     * Sets the metrics that votes let through by a full window are counted in.
+     *
+     * @param metrics The metrics registry, or null to stop counting
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Restores the window from disk and deletes files that have expired.
+     *
+     * Failing to read or write the folder is logged; deduplication then
+     * continues in memory only.
+     */
+    public void load() {
+        long nowEpoch = Math.floorDiv(System.currentTimeMillis(), bucketMillis);
+        int restored = 0;
+        for (Shard shard : shards) {
+            restored += shard.load(nowEpoch);
+        }
+        if (restored > 0) {
+            logger.at(Level.INFO).log("Restored %d recent votes into the deduplication window", restored);
+        }
+    }
+
+    /**
+     * Checks a vote against the window and remembers it if it is new.
+     *
+     * @param vote The vote received from HytaleVotifier
+     * @return true if the vote should be processed, false if it is a duplicate
+     */
+    public boolean accept(Vote vote) {
+        return accept(vote.serviceName(), vote.username(), vote.timestamp());
+    }
+
+    /**
+     * Checks a vote against the window and remembers it if it is new.
+     *
+     * Only the shard the vote's fingerprint falls in is locked.
+     *
+     * @param serviceName Voting site that sent the vote
+     * @param username Username the vote is for, compared case-insensitively
+     * @param timestamp Timestamp sent by the voting site
+     * @return true if the vote should be processed, false if it is a duplicate
+     */
+    public boolean accept(String serviceName, String username, long timestamp) {
+        long nowEpoch = Math.floorDiv(System.currentTimeMillis(), bucketMillis);
+        long key = fingerprint(serviceName, username, timestamp);
+        return shards[(int) (key >>> SHARD_SHIFT)].accept(key, nowEpoch);
+    }
+
+    /**
+     * Gets the number of votes currently remembered.
+     *
+     * @return Number of fingerprints in the window
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Forces the current bucket files to disk and closes them.
+     */
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Takes room for one more fingerprint in the window.
+     *
+     * @return true if the window had room
+     */
+    private boolean reserveEntry() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxEntries) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Counts a vote let through because the window is full, warning once
+     * per bucket length.
+     *
+     * @param epoch The current bucket epoch
+     */
+    private void windowFull(long epoch) {
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics != null) {
+            activeMetrics.voteDedupBypassed();
+        }
+        long warned = overflowWarnedEpoch.get();
+        if (warned < epoch && overflowWarnedEpoch.compareAndSet(warned, epoch)) {
+            logger.at(Level.WARNING).log("Vote deduplication window is full (%d votes); new votes are not "
+                    + "checked for duplicates until older ones expire. Consider raising voteDedupMaxEntries",
+                    maxEntries);
+        }
+    }
+
+    /**
+     * Gets the slot of the bucket for an epoch.
+     *
+     * @param epoch The bucket's epoch
+     * @return Index into the bucket array
+     */
+    private static int bucketIndex(long epoch) {
+        return (int) Math.floorMod(epoch, (long) BUCKET_COUNT);
+    }
+
+    /**
+     * Hashes a vote's identity into a 64-bit fingerprint.
+     *
+     * @param serviceName Voting site (may be null)
+     * @param username Username, lower-cased per character (may be null)
+     * @param timestamp Timestamp sent by the voting site
+     * @return Non-zero fingerprint
+     */
+    static long fingerprint(String serviceName, String username, long timestamp) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mixString(hash, serviceName, false);
+        hash = mixString(hash, username, true);
+        hash = (hash ^ timestamp) * 0x100000001b3L;
+
+        // MurmurHash3 finalizer spreads the FNV state over all bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        // 0 marks an empty slot in the hash sets
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Feeds a length-prefixed string into an FNV-1a hash.
+     *
+     * @param hash The hash so far
+     * @param value The string (may be null)
+     * @param lowerCase Whether to lower-case each character
+     * @return The updated hash
+     */
+    private static long mixString(long hash, String value, boolean lowerCase) {
+        // Length prefixes keep ("ab", "c") and ("a", "bc") apart; -1 marks null
+        int length = value != null ? value.length() : -1;
+        hash = (hash ^ length) * 0x100000001b3L;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (lowerCase ? Character.toLowerCase(c) : c)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * One slice of the fingerprint space, with its own time buckets, bucket
+     * files and lock.
+     */
+    private final class Shard {
+        private final Path directory;
+        private final Bucket[] buckets;
+        private final ByteBuffer record;
+        private long currentEpoch;
+        private FileChannel channel;
+
+        /**
+         * Creates an empty shard.
+         *
+         * @param directory Folder the shard's buckets are persisted in
+         */
+        private Shard(Path directory) {
+            this.directory = directory;
+            this.buckets = new Bucket[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.record = ByteBuffer.allocate(RECORD_BYTES);
+            this.currentEpoch = Long.MIN_VALUE;
+        }
+
+        /**
+         * Restores the shard's buckets from disk and deletes expired files.
+         *
+         * @param nowEpoch The current bucket epoch
+         * @return Number of votes restored
+         */
+        private synchronized int load(long nowEpoch) {
+            int restored = 0;
+            try {
+                Files.createDirectories(directory);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+                    for (Path file : files) {
+                        restored += loadBucketFile(file, nowEpoch);
+                    }
+                }
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to load vote deduplication window: " + e.getMessage());
+            }
+            advance(nowEpoch);
+            return restored;
+        }
+
+        /**
+         * Checks a fingerprint against the shard's buckets and remembers it if it is new.
+         *
+         * @param key The vote's fingerprint
+         * @param nowEpoch The current bucket epoch
+         * @return true if the vote should be processed, false if it is a duplicate
+         */
+        private synchronized boolean accept(long key, long nowEpoch) {
+            advance(nowEpoch);
+            for (Bucket bucket : buckets) {
+                if (bucket.isLive(currentEpoch) && bucket.contains(key)) {
+                    return false;
+                }
+            }
+
+            if (!reserveEntry()) {
+                windowFull(currentEpoch);
+                return true;
+            }
+            buckets[bucketIndex(currentEpoch)].add(key);
+            append(key);
+            return true;
+        }
+
+        /**
+         * Forces the current bucket file to disk and closes it.
+         */
+        private synchronized void shutdown() {
+            closeChannel(true);
+        }
+
+        /**
+         * Moves the shard's window to the given bucket epoch, expiring buckets
+         * that fell out of it and opening the file of the current bucket.
+         *
+         * Epochs earlier than the current one (a clock stepping back) leave the
+         * window where it is.
+         *
+         * @param epoch Current time divided by the bucket length
+         */
+        private void advance(long epoch) {
+            if (epoch <= currentEpoch) {
+                return;
+            }
+            currentEpoch = epoch;
+            for (Bucket bucket : buckets) {
+                if (bucket.epoch != Long.MIN_VALUE && !bucket.isLive(epoch)) {
+                    expire(bucket);
+                }
+            }
+
+            // Live epochs map to distinct slots, so the current slot is now either empty or already this epoch
+            buckets[bucketIndex(epoch)].epoch = epoch;
+            openChannel(epoch);
+        }
+
+        /**
+         * Empties a bucket and deletes its file.
+         *
+         * @param bucket The bucket to expire
+         */
+        private void expire(Bucket bucket) {
+            size.addAndGet(-bucket.size);
+            try {
+                Files.deleteIfExists(fileOf(bucket.epoch));
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to delete expired vote deduplication file: " + e.getMessage());
+            }
+            bucket.reset();
+        }
+
+        /**
+         * Reads one persisted bucket file into the shard, or deletes it if it
+         * has expired or cannot be parsed.
+         *
+         * @param file The bucket file
+         * @param nowEpoch The current bucket epoch
+         * @return Number of votes restored
+         * @throws IOException if the file cannot be read
+         */
+        private int loadBucketFile(Path file, long nowEpoch) throws IOException {
+            String name = file.getFileName().toString();
+            long startMillis;
+            try {
+                startMillis = Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                logger.at(Level.WARNING).log("Ignoring unexpected file in " + DIRECTORY_NAME + ": " + name);
+                return 0;
+            }
+
+            long epoch = Math.floorDiv(startMillis, bucketMillis);
+            if (epoch <= nowEpoch - BUCKET_COUNT || epoch > nowEpoch
+                    || startMillis != epoch * bucketMillis) {
+                // Expired, from the future, or written with a different window length
+                Files.delete(file);
+                return 0;
+            }
+
+            Bucket bucket = buckets[bucketIndex(epoch)];
+            bucket.epoch = epoch;
+
+            ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(file));
+            int restored = 0;
+            // A torn final record from a crash is shorter than RECORD_BYTES and skipped
+            while (contents.remaining() >= RECORD_BYTES) {
+                long key = contents.getLong();
+                if (bucket.contains(key)) {
+                    continue;
+                }
+                if (!reserveEntry()) {
+                    break;
+                }
+                bucket.add(key);
+                restored++;
+            }
+            return restored;
+        }
+
+        /**
+         * Appends a fingerprint to the current bucket file.
+         *
+         * @param key The fingerprint
+         */
+        private void append(long key) {
+            if (channel == null) {
+                return;
+            }
+            record.clear();
+            record.putLong(key).flip();
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to persist vote deduplication entry, continuing in memory: "
+                        + e.getMessage());
+                closeChannel(false);
+            }
+        }
+
+        /**
+         * Opens the file of a bucket for appending, closing the previous one.
+         *
+         * @param epoch The bucket's epoch
+         */
+        private void openChannel(long epoch) {
+            closeChannel(false);
+            try {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(fileOf(epoch),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to open vote deduplication file, continuing in memory: "
+                        + e.getMessage());
+            }
+        }
+
+        /**
+         * Closes the current bucket file, if open.
+         *
+         * @param force Whether to force it to disk first
+         */
+        private void closeChannel(boolean force) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                if (force) {
+                    channel.force(false);
+                }
+                channel.close();
+            } catch (IOException e) {
+                logger.at(Level.WARNING).log("Failed to close vote deduplication file: " + e.getMessage());
+            }
+            channel = null;
+        }
+
+        /**
+         * Gets the file a bucket is persisted in.
+         *
+         * @param epoch The bucket's epoch
+         * @return Path named after the bucket's start time in milliseconds
+         */
+        private Path fileOf(long epoch) {
+            return directory.resolve(epoch * bucketMillis + FILE_SUFFIX);
+        }
+    }
+
+    /**
+     * Fingerprints received during one slice of the window.
+     *
+     * An open-addressing set of longs with linear probing, grown at half load
+     * and shrunk back to its initial size when the bucket expires.
+     */
+    private static final class Bucket {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long epoch = Long.MIN_VALUE;
+        private long[] slots = new long[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Returns whether the bucket belongs to the window ending at an epoch.
+         *
+         * @param currentEpoch The newest epoch in the window
+         * @return true if the bucket's votes are still within the window
+         */
+        private boolean isLive(long currentEpoch) {
+            return epoch != Long.MIN_VALUE && epoch > currentEpoch - BUCKET_COUNT && epoch <= currentEpoch;
+        }
+
+        /**
+         * Returns whether a fingerprint is in the bucket.
+         *
+         * @param key Non-zero fingerprint
+         * @return true if present
+         */
+        private boolean contains(long key) {
+            int mask = slots.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == key) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Adds a fingerprint, growing the table at half load.
+         *
+         * @param key Non-zero fingerprint
+         * @return true if it was not present yet
+         */
+        private boolean add(long key) {
+            if ((size + 1) * 2 > slots.length) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                for (long slot : old) {
+                    if (slot != 0) {
+                        insert(slot);
+                    }
+                }
+            }
+            if (!insert(key)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        /**
+         * Places a fingerprint in the table without resizing.
+         *
+         * @param key Non-zero fingerprint
+         * @return true if it was not present yet
+         */
+        private boolean insert(long key) {
+            int mask = slots.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == key) {
+                    return false;
+                }
+                if (slot == 0) {
+                    slots[i] = key;
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Empties the bucket and releases its grown table.
+         */
+        private void reset() {
+            epoch = Long.MIN_VALUE;
+            slots = new long[INITIAL_CAPACITY];
+            size = 0;
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package com.hyvote.votelistener.listener;
 
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.server.core.command.system.CommandManager;
-import com.hypixel.hytale.server.core.console.ConsoleSender;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
 import org.hyvote.plugins.votifier.event.VoteEvent;
 import org.hyvote.plugins.votifier.vote.Vote;
 import com.hyvote.votelistener.HytaleVoteListener;
@@ -13,15 +10,22 @@ import com.hyvote.votelistener.config.MilestoneBonus;
 import com.hyvote.votelistener.config.RandomReward;
 import com.hyvote.votelistener.config.StreakBonus;
 import com.hyvote.votelistener.data.PendingReward;
-import com.hyvote.votelistener.data.PendingRewardsManager;
+import com.hyvote.votelistener.data.PendingRewardStore;
 import com.hyvote.votelistener.data.PlayerVoteData;
-import com.hyvote.votelistener.data.VoteDataManager;
+import com.hyvote.votelistener.data.RewardTemplate;
+import com.hyvote.votelistener.data.VoteLeaderboard;
+import com.hyvote.votelistener.data.VoteRollups;
+import com.hyvote.votelistener.data.VoteStore;
+import com.hyvote.votelistener.metrics.VoteMetrics;
+import com.hyvote.votelistener.metrics.VoteProcessingEvent;
+import com.hyvote.votelistener.metrics.VoteStageEvent;
 import com.hyvote.votelistener.reward.RewardSelector;
-import com.hyvote.votelistener.util.PlaceholderProcessor;
+import com.hyvote.votelistener.util.CommandTemplate;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
@@ -29,182 +33,327 @@ import java.util.logging.Level;
  *
  * This class subscribes to VoteEvent and executes configured commands
  * when a player votes on a voting site.
+ *
+ * <p>With asynchronous processing enabled, the event callback only hands the
+ * vote to a {@link VotePipeline}; recording, reward selection and placeholder
+ * expansion run on the pipeline's workers and the resulting commands are passed
+ * to the {@link CommandDispatcher}.
+ *
+ * <p>The configuration is read through a supplier once per vote, so a config
+ * reload takes effect for the next vote without re-creating the listener.
  */
 public class VoteListener {
-    private final HytaleVoteListener plugin;
     private final HytaleLogger logger;
-    private final Config config;
-    private final VoteDataManager voteDataManager;
-    private final PendingRewardsManager pendingRewardsManager;
+    private final Supplier<Config> configSource;
+    private final VoteStore voteStore;
+    private final PendingRewardStore pendingRewardStore;
+    private final CommandDispatcher commandDispatcher;
+    private final OnlinePlayerIndex onlinePlayers;
+    private volatile VotePipeline votePipeline;
+    private volatile VoteDeduplicator deduplicator;
+    private volatile VoteLeaderboard leaderboard;
+    private volatile VoteRollups rollups;
+    private volatile VoteMetrics metrics;
 
     /**
      * Creates a new VoteListener.
      *
      * @param plugin The plugin instance
-     * @param config The configuration containing command list and settings
-     * @param voteDataManager The vote data manager for tracking streaks and statistics
-     * @param pendingRewardsManager The pending rewards manager for offline player rewards
+     * @param configSource Supplies the current configuration snapshot (e.g. ConfigManager::getConfig)
+     * @param voteStore The vote store for tracking streaks and statistics
+     * @param pendingRewardStore The pending reward store for offline player rewards
+     * @param commandDispatcher The dispatcher used to execute reward commands
+     * @param onlinePlayers The index used to resolve online voters
+     */
+    public VoteListener(HytaleVoteListener plugin, Supplier<Config> configSource, VoteStore voteStore,
+                        PendingRewardStore pendingRewardStore, CommandDispatcher commandDispatcher,
+                        OnlinePlayerIndex onlinePlayers) {
+        this(plugin.getLogger(), configSource, voteStore, pendingRewardStore, commandDispatcher, onlinePlayers);
+    }
+
+    /**
+     * Creates a new VoteListener without a plugin instance.
+     *
+     * Used by benchmarks and tooling that drive vote processing outside a running server.
+     *
+     * @param logger The logger for info and debug messages
+     * @param configSource Supplies the current configuration snapshot (e.g. ConfigManager::getConfig)
+     * @param voteStore The vote store for tracking streaks and statistics
+     * @param pendingRewardStore The pending reward store for offline player rewards
+     * @param commandDispatcher The dispatcher used to execute reward commands
+     * @param onlinePlayers The index used to resolve online voters
+     */
+    public VoteListener(HytaleLogger logger, Supplier<Config> configSource, VoteStore voteStore,
+                        PendingRewardStore pendingRewardStore, CommandDispatcher commandDispatcher,
+                        OnlinePlayerIndex onlinePlayers) {
+        this.logger = logger;
+        this.configSource = configSource;
+        this.voteStore = voteStore;
+        this.pendingRewardStore = pendingRewardStore;
+        this.commandDispatcher = commandDispatcher;
+        this.onlinePlayers = onlinePlayers;
+    }
+
+    /**
+     * Enables asynchronous vote processing through a {@link VotePipeline}.
+     *
+     * @param laneCount Number of parallel processing lanes
+     * @param queueCapacity Total number of votes that may wait for processing
+     */
+    public synchronized void enableAsyncProcessing(int laneCount, int queueCapacity) {
+        if (votePipeline == null) {
+            votePipeline = new VotePipeline(this::processVote, laneCount, queueCapacity, logger);
+            logger.at(Level.INFO).log("Asynchronous vote processing enabled (%d lanes, queue capacity %d)",
+                    Math.max(1, laneCount), queueCapacity);
+        }
+    }
+
+    /**
+     * Sets the metrics that received and processed votes are recorded in.
+     *
+     * @param metrics The metrics to record into
+     */
+    public void setMetrics(VoteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the deduplicator that repeated votes are filtered through.
+     *
+     * @param deduplicator The deduplicator, or null to process every vote
+     */
+    public void setDeduplicator(VoteDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Sets the leaderboard that is updated after every recorded vote and
+     * supplies the value of %rank%.
+     *
+     * @param leaderboard The leaderboard, or null to render %rank% as 0
      */
-    public VoteListener(HytaleVoteListener plugin, Config config, VoteDataManager voteDataManager,
-                        PendingRewardsManager pendingRewardsManager) {
-        this.plugin = plugin;
-        this.logger = plugin.getLogger();
-        this.config = config;
-        this.voteDataManager = voteDataManager;
-        this.pendingRewardsManager = pendingRewardsManager;
+    public void setLeaderboard(VoteLeaderboard leaderboard) {
+        this.leaderboard = leaderboard;
     }
 
     /**
-     * Checks if a player is currently online on the server.
+     * Sets the server-wide vote totals that count every recorded vote.
      *
-     * @param username The username to check
-     * @return true if the player is online, false otherwise
+     * @param rollups The rollups, or null to disable
      */
-    private boolean isPlayerOnline(String username) {
-        // Check if player is connected via universe
-        return Universe.get().getPlayers().stream()
-                .anyMatch(ref -> ref.getUsername().equalsIgnoreCase(username));
+    public void setRollups(VoteRollups rollups) {
+        this.rollups = rollups;
     }
 
     /**
-     * Finds a PlayerRef by username for online players.
+     * Gets the vote pipeline for queue metrics.
      *
-     * @param username The username to find
-     * @return Optional containing the PlayerRef if online
+     * @return The VotePipeline, or null if asynchronous processing is disabled
      */
-    private Optional<PlayerRef> findPlayerRef(String username) {
-        return Universe.get().getPlayers().stream()
-                .filter(ref -> ref.getUsername().equalsIgnoreCase(username))
-                .findFirst();
+    public VotePipeline getVotePipeline() {
+        return votePipeline;
     }
 
     /**
-     * Executes a command through the command manager.
+     * Stops the vote pipeline after processing any queued votes.
      *
-     * @param command The command string to execute
+     * Safe to call when asynchronous processing was never enabled.
      */
-    private void executeCommand(String command) {
-        // Use console command execution
-        CommandManager.get().handleCommand(ConsoleSender.INSTANCE, command);
+    public void shutdown() {
+        VotePipeline pipeline;
+        synchronized (this) {
+            pipeline = votePipeline;
+            votePipeline = null;
+        }
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
     }
 
     /**
      * Handles incoming vote events from HytaleVotifier.
      *
+     * Ignores votes already received within the deduplication window, then
+     * hands the vote to the pipeline when asynchronous processing is enabled,
+     * otherwise processes it on the event thread.
+     *
      * @param event The vote event containing vote details
      */
     public void onVote(VoteEvent event) {
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics != null) {
+            activeMetrics.voteReceived();
+        }
         Vote vote = event.getVote();
+
+        VoteDeduplicator activeDeduplicator = deduplicator;
+        if (activeDeduplicator != null && !activeDeduplicator.accept(vote)) {
+            logger.at(Level.INFO).log("Ignoring repeated vote from %s for player: %s",
+                    vote.serviceName(), vote.username());
+            if (activeMetrics != null) {
+                activeMetrics.voteDuplicate();
+            }
+            return;
+        }
+
+        VotePipeline pipeline = votePipeline;
+        if (pipeline != null) {
+            pipeline.submit(vote);
+        } else {
+            processVote(vote);
+        }
+    }
+
+    /**
+     * Processes a single vote: records it, builds all reward commands and
+     * either dispatches them or queues them for an offline player.
+     *
+     * @param vote The vote to process
+     */
+    public void processVote(Vote vote) {
+        long startNanos = System.nanoTime();
+        VoteProcessingEvent processingEvent = new VoteProcessingEvent();
+        processingEvent.begin();
+        // One snapshot for the whole vote, so a concurrent reload cannot mix old and new settings
+        Config config = configSource.get();
+
         String username = vote.username();
         String serviceName = vote.serviceName();
 
-        // Look up UUID from online player, or use username as fallback key
-        String uuid = findPlayerRef(username)
-                .map(ref -> ref.getUuid().toString())
-                .orElse(username);
+        // Single index lookup: resolves both the UUID and whether the player is online
+        VoteStageEvent stage = VoteStageEvent.start(VoteStageEvent.PLAYER_LOOKUP);
+        PlayerRef playerRef = onlinePlayers.findByUsername(username);
+
+        // Use UUID from online player, or username as fallback key
+        String uuid = playerRef != null ? playerRef.getUuid().toString() : username;
+        stage.finish(uuid, 0);
 
         logger.at(Level.INFO).log("Vote received from %s for player: %s", serviceName, username);
 
         // Record vote and get updated player data with streak info
-        PlayerVoteData playerData = voteDataManager.recordVote(uuid, username);
+        stage = VoteStageEvent.start(VoteStageEvent.RECORD_VOTE);
+        PlayerVoteData playerData = voteStore.recordVote(uuid, username);
         int currentStreak = playerData.getCurrentStreak();
         int totalVotes = playerData.getTotalVotes();
 
-        // Collect all reward commands before execution
-        List<String> allCommands = new ArrayList<>();
-
-        // Add base commands with placeholder replacement
-        List<String> commands = config.getCommands();
-        for (String command : commands) {
-            String processedCommand = PlaceholderProcessor.process(command, vote, null, currentStreak, totalVotes, uuid);
-            allCommands.add(processedCommand);
-
-            if (config.isDebugMode()) {
-                logger.at(Level.INFO).log("[Debug] Queued command: %s", processedCommand);
-            }
+        // Keep the leaderboard current; same-player votes share a lane, so updates arrive in order
+        VoteLeaderboard activeLeaderboard = leaderboard;
+        int rank = activeLeaderboard != null ? activeLeaderboard.update(uuid, playerData) : 0;
+        VoteRollups activeRollups = rollups;
+        if (activeRollups != null) {
+            activeRollups.record(playerData.getLastVoteTimestamp());
         }
+        stage.finish(uuid, 0);
 
-        // Add random reward commands if enabled
+        // Pick a random reward if enabled
+        stage = VoteStageEvent.start(VoteStageEvent.REWARD_SELECTION);
+        RandomReward selectedReward = null;
         if (config.isRandomRewardsEnabled()) {
-            RandomReward selectedReward = RewardSelector.select(config.getRandomRewards());
+            selectedReward = RewardSelector.select(config.getRandomRewardTable());
             if (selectedReward != null) {
                 logger.at(Level.INFO).log("Selected random reward: %s", selectedReward.getName());
-
-                for (String rewardCommand : selectedReward.getCommands()) {
-                    String processedRewardCommand = PlaceholderProcessor.process(
-                        rewardCommand, vote, selectedReward.getName(), currentStreak, totalVotes, uuid);
-                    allCommands.add(processedRewardCommand);
-
-                    if (config.isDebugMode()) {
-                        logger.at(Level.INFO).log("[Debug] Queued reward command: %s", processedRewardCommand);
-                    }
-                }
             }
         }
+        stage.finish(uuid, 0);
 
-        // Add streak bonus commands if enabled
+        // Resolve at most one streak bonus and one milestone bonus per vote
+        stage = VoteStageEvent.start(VoteStageEvent.BONUS_RESOLUTION);
+        StreakBonus streakBonus = null;
         if (config.isStreakBonusEnabled()) {
-            for (StreakBonus streakBonus : config.getStreakBonuses()) {
-                if (currentStreak == streakBonus.getStreakDays()) {
-                    logger.at(Level.INFO).log("Awarding streak bonus: %s", streakBonus.getName());
-
-                    for (String bonusCommand : streakBonus.getCommands()) {
-                        String processedBonusCommand = PlaceholderProcessor.process(
-                            bonusCommand, vote, streakBonus.getName(), currentStreak, totalVotes, uuid);
-                        allCommands.add(processedBonusCommand);
-
-                        if (config.isDebugMode()) {
-                            logger.at(Level.INFO).log("[Debug] Queued streak bonus command: %s", processedBonusCommand);
-                        }
-                    }
-                    break; // Only award one streak bonus per vote
-                }
+            streakBonus = config.getStreakBonusIndex().find(currentStreak);
+            if (streakBonus != null) {
+                logger.at(Level.INFO).log("Awarding streak bonus: %s", streakBonus.getName());
             }
         }
-
-        // Add milestone bonus commands if enabled
+        MilestoneBonus milestoneBonus = null;
         if (config.isMilestoneBonusEnabled()) {
-            for (MilestoneBonus milestoneBonus : config.getMilestoneBonuses()) {
-                if (totalVotes == milestoneBonus.getVotesRequired()) {
-                    logger.at(Level.INFO).log("Awarding milestone bonus: %s", milestoneBonus.getName());
-
-                    for (String bonusCommand : milestoneBonus.getCommands()) {
-                        String processedBonusCommand = PlaceholderProcessor.process(
-                            bonusCommand, vote, milestoneBonus.getName(), currentStreak, totalVotes, uuid);
-                        allCommands.add(processedBonusCommand);
-
-                        if (config.isDebugMode()) {
-                            logger.at(Level.INFO).log("[Debug] Queued milestone bonus command: %s", processedBonusCommand);
-                        }
-                    }
-                    break; // Only award one milestone bonus per vote
-                }
+            milestoneBonus = config.getMilestoneBonusIndex().find(totalVotes);
+            if (milestoneBonus != null) {
+                logger.at(Level.INFO).log("Awarding milestone bonus: %s", milestoneBonus.getName());
             }
         }
+        stage.finish(uuid, 0);
 
-        // Check if player is online and either execute or queue rewards
-        if (isPlayerOnline(username)) {
-            // Player is online - execute all commands immediately
-            for (String cmd : allCommands) {
-                executeCommand(cmd);
+        // Collect the templates of every reward command, with the reward each belongs to
+        stage = VoteStageEvent.start(VoteStageEvent.TEMPLATE_EXPANSION);
+        List<CommandTemplate> allTemplates = new ArrayList<>(config.getCommandTemplates());
+        List<String> rewardNames = new ArrayList<>(Collections.nCopies(allTemplates.size(), (String) null));
+        if (selectedReward != null) {
+            addTemplates(allTemplates, rewardNames, selectedReward.getCommandTemplates(), selectedReward.getName());
+        }
+        if (streakBonus != null) {
+            addTemplates(allTemplates, rewardNames, streakBonus.getCommandTemplates(), streakBonus.getName());
+        }
+        if (milestoneBonus != null) {
+            addTemplates(allTemplates, rewardNames, milestoneBonus.getCommandTemplates(), milestoneBonus.getName());
+        }
+        int commandCount = allTemplates.size();
+
+        // Commands are only rendered for an online player; offline rewards keep the templates
+        List<String> allCommands = null;
+        if (playerRef != null) {
+            allCommands = new ArrayList<>(commandCount);
+            for (int i = 0; i < commandCount; i++) {
+                String processedCommand = allTemplates.get(i).render(
+                    vote, rewardNames.get(i), currentStreak, totalVotes, rank, uuid);
+                allCommands.add(processedCommand);
 
                 if (config.isDebugMode()) {
-                    logger.at(Level.INFO).log("[Debug] Executed command: %s", cmd);
+                    logger.at(Level.INFO).log("[Debug] Queued command: %s", processedCommand);
                 }
             }
+        }
+        stage.finish(uuid, commandCount);
+
+        // Check if player is online and either execute or queue rewards
+        if (playerRef != null) {
+            // Player is online - hand all commands to the dispatcher
+            stage = VoteStageEvent.start(VoteStageEvent.COMMAND_DISPATCH);
+            commandDispatcher.dispatch(allCommands, config.isDebugMode());
+            stage.finish(uuid, commandCount);
         } else {
-            // Player is offline - queue rewards for later delivery
-            PendingReward pendingReward = new PendingReward(
+            // Player is offline - queue the templates and vote-time values; commands are expanded on delivery
+            stage = VoteStageEvent.start(VoteStageEvent.PERSISTENCE);
+            PendingReward pendingReward = PendingReward.fromTemplate(
                 uuid,
                 username,
                 serviceName,
                 System.currentTimeMillis(),
-                allCommands
+                RewardTemplate.of(allTemplates, rewardNames),
+                vote.timestamp(),
+                currentStreak,
+                totalVotes,
+                rank
             );
-            pendingRewardsManager.addPendingReward(uuid, pendingReward);
+            pendingRewardStore.addPendingReward(uuid, pendingReward);
+            stage.finish(uuid, commandCount);
             logger.at(Level.INFO).log("Player %s is offline, queued %d reward commands for later delivery",
-                    username, allCommands.size());
+                    username, commandCount);
         }
 
+        VoteMetrics activeMetrics = metrics;
+        if (activeMetrics != null) {
+            if (playerRef == null) {
+                activeMetrics.voteQueuedOffline();
+            }
+            activeMetrics.voteProcessed(System.nanoTime() - startNanos);
+        }
+        processingEvent.finish(uuid, serviceName, playerRef != null, commandCount, currentStreak, totalVotes);
+    }
+
+    /**
+     * Appends a reward's command templates, each tagged with the reward's name.
+     *
+     * @param templates Templates collected so far
+     * @param rewardNames Reward name of each collected template
+     * @param rewardTemplates The reward's command templates
+     * @param rewardName The reward's name, used for %reward%
+     */
+    private static void addTemplates(List<CommandTemplate> templates, List<String> rewardNames,
+                                     List<CommandTemplate> rewardTemplates, String rewardName) {
+        for (CommandTemplate template : rewardTemplates) {
+            templates.add(template);
+            rewardNames.add(rewardName);
+        }
     }
 }
@@ -0,0 +1,236 @@
+package com.hyvote.votelistener.listener;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import org.hyvote.plugins.votifier.vote.Vote;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Moves vote processing off the Votifier event thread.
+ *
+ * <p>Incoming votes are handed to one of several lanes, each a bounded queue drained
+ * by its own virtual thread. The lane is chosen from the lower-cased username, so
+ * all votes for one player are processed in arrival order and streak math stays
+ * correct, while votes for different players proceed in parallel.
+ *
+ * <p>When a lane is full, {@link #submit(Vote)} blocks the caller until space frees
+ * up, pushing backpressure onto the vote source instead of dropping votes. Queue
+ * depth and backpressure counts are exposed for monitoring.
+ */
+public class VotePipeline {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final long SHUTDOWN_PROGRESS_MILLIS = 10_000;
+
+    private final HytaleLogger logger;
+    private final Consumer<Vote> processor;
+    private final List<BlockingQueue<Vote>> lanes;
+    private final List<Thread> workers;
+    private final AtomicLong submittedCount;
+    private final AtomicLong processedCount;
+    private final AtomicLong failedCount;
+    private final AtomicLong backpressureCount;
+    private volatile boolean running;
+
+    /**
+     * Creates and starts a new VotePipeline.
+     *
+     * @param processor Callback that fully processes a single vote
+     * @param laneCount Number of parallel lanes (worker threads)
+     * @param queueCapacity Total number of votes that may wait across all lanes
+     * @param logger The logger for info and error messages
+     */
+    public VotePipeline(Consumer<Vote> processor, int laneCount, int queueCapacity, HytaleLogger logger) {
+        this.logger = logger;
+        this.processor = processor;
+        this.submittedCount = new AtomicLong();
+        this.processedCount = new AtomicLong();
+        this.failedCount = new AtomicLong();
+        this.backpressureCount = new AtomicLong();
+        this.running = true;
+
+        int lanesToCreate = Math.max(1, laneCount);
+        int laneCapacity = Math.max(1, queueCapacity / lanesToCreate);
+        this.lanes = new ArrayList<>(lanesToCreate);
+        this.workers = new ArrayList<>(lanesToCreate);
+
+        ThreadFactory factory = Thread.ofVirtual().name("HytaleVoteListener-VoteWorker-", 0).factory();
+        for (int i = 0; i < lanesToCreate; i++) {
+            BlockingQueue<Vote> lane = new ArrayBlockingQueue<>(laneCapacity);
+            lanes.add(lane);
+            Thread worker = factory.newThread(() -> drain(lane));
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Hands a vote to its player's lane.
+     *
+     * Blocks while the lane is full. Votes submitted after shutdown has begun
+     * are processed on the calling thread so none are lost.
+     *
+     * @param vote The vote to process
+     */
+    public void submit(Vote vote) {
+        submittedCount.incrementAndGet();
+        BlockingQueue<Vote> lane = laneFor(vote);
+
+        try {
+            if (running && lane.offer(vote)) {
+                return;
+            }
+
+            boolean reportedBackpressure = false;
+            while (running) {
+                if (!reportedBackpressure) {
+                    backpressureCount.incrementAndGet();
+                    logger.at(Level.WARNING).log("Vote queue full (%d waiting), applying backpressure", getQueueDepth());
+                    reportedBackpressure = true;
+                }
+                if (lane.offer(vote, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Pipeline is stopping (or the caller was interrupted) - process inline rather than drop
+        process(vote);
+    }
+
+    /**
+     * Stops accepting votes, lets the workers drain their lanes and waits for them to finish.
+     *
+     * Waits without a deadline, logging progress every ten seconds, because the
+     * stores are closed right after this returns and a worker still inside a
+     * vote would write to them. An interrupt does not cut the wait short; the
+     * interrupt flag is restored afterwards.
+     */
+    public void shutdown() {
+        running = false;
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    if (!worker.join(Duration.ofMillis(SHUTDOWN_PROGRESS_MILLIS))) {
+                        logger.at(Level.WARNING).log("Still waiting for vote worker %s to finish (%d votes queued)",
+                                worker.getName(), getQueueDepth());
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of votes currently waiting across all lanes.
+     *
+     * @return Current queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Vote> lane : lanes) {
+            depth += lane.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the total number of votes submitted to the pipeline.
+     *
+     * @return Submitted vote count
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Gets the number of votes processed (successfully or not).
+     *
+     * @return Processed vote count
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * Gets the number of votes whose processing threw an exception.
+     *
+     * @return Failed vote count
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Gets how many submissions found their lane full and had to wait.
+     *
+     * @return Backpressure event count
+     */
+    public long getBackpressureCount() {
+        return backpressureCount.get();
+    }
+
+    /**
+     * Picks the lane for a vote from its lower-cased username.
+     *
+     * @param vote The vote
+     * @return The lane queue
+     */
+    private BlockingQueue<Vote> laneFor(Vote vote) {
+        String username = vote.username();
+        int hash = username != null ? username.toLowerCase(Locale.ROOT).hashCode() : 0;
+        return lanes.get(Math.floorMod(hash, lanes.size()));
+    }
+
+    /**
+     * Worker loop: processes votes from a lane until shutdown, then drains what is left.
+     *
+     * @param lane The lane to drain
+     */
+    private void drain(BlockingQueue<Vote> lane) {
+        try {
+            while (running || !lane.isEmpty()) {
+                Vote vote = lane.poll(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (vote != null) {
+                    process(vote);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Processes a single vote, counting and logging failures.
+     *
+     * @param vote The vote to process
+     */
+    private void process(Vote vote) {
+        try {
+            processor.accept(vote);
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            logger.at(Level.SEVERE).log("Failed to process vote for %s from %s: %s",
+                    vote.username(), vote.serviceName(), e.getMessage());
+        } finally {
+            processedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hyvote.votelistener.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one tick of pending reward delivery.
+ *
+ * Only committed for ticks that started a command or changed a reward's
+ * state, so idle ticks do not fill the recording.
+ */
+@Name("com.hyvote.votelistener.DeliveryBatch")
+@Label("Pending Reward Delivery Batch")
+@Category({"HytaleVoteListener", "Delivery"})
+@Description("One tick of delivering queued rewards, including persisting its state changes")
+@StackTrace(false)
+public final class DeliveryBatchEvent extends Event {
+
+    @Label("Active Deliveries")
+    @Description("Players with rewards still being delivered after the tick")
+    int activeDeliveries;
+
+    @Label("Command Count")
+    @Description("Reward commands started in the tick")
+    int commandCount;
+
+    @Label("Rewards Delivered")
+    int rewardsDelivered;
+
+    @Label("Rewards Dead-Lettered")
+    int rewardsDeadLettered;
+
+    @Label("State Changes")
+    @Description("Entries in the batch persisted to the pending reward store")
+    int stateChanges;
+
+    /**
+     * Ends the event and commits it if the tick did anything and a recording
+     * wants it.
+     *
+     * @param activeDeliveries Players with deliveries still in progress
+     * @param commandCount Commands started in the tick
+     * @param rewardsDelivered Rewards that finished delivery
+     * @param rewardsDeadLettered Rewards moved to the dead-letter queue
+     * @param stateChanges Entries in the persisted batch
+     */
+    public void finish(int activeDeliveries, int commandCount, int rewardsDelivered, int rewardsDeadLettered,
+                       int stateChanges) {
+        end();
+        if ((commandCount > 0 || stateChanges > 0) && shouldCommit()) {
+            this.activeDeliveries = activeDeliveries;
+            this.commandCount = commandCount;
+            this.rewardsDelivered = rewardsDelivered;
+            this.rewardsDeadLettered = rewardsDeadLettered;
+            this.stateChanges = stateChanges;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.hyvote.votelistener.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency distribution with log-linear buckets, in the style of
+ * HdrHistogram.
+ *
+ * Durations are recorded in microseconds. Values below 32 get a bucket each;
+ * above that, every power of two is split into 32 equal sub-buckets, so a
+ * reported percentile is at most about 3% above the true value. Values are
+ * tracked up to 2^40 microseconds (about 12 days) and larger ones are counted
+ * in the last bucket. Recording is one array increment, safe from any
+ * thread, and the memory used is fixed at about 9 KB.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts;
+    private final LongAdder sumMicros;
+    private final AtomicLong maxMicros;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.sumMicros = new LongAdder();
+        this.maxMicros = new AtomicLong();
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos Duration in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.incrementAndGet(bucketOf(micros));
+        sumMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /**
+     * Copies the current counts for reporting.
+     *
+     * Recording may continue while the copy is taken; the snapshot then
+     * includes some but not all of the concurrent values.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sumMicros.sum(), maxMicros.get());
+    }
+
+    /**
+     * Gets the bucket a value falls into.
+     *
+     * @param micros Value in microseconds
+     * @return Bucket index
+     */
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Gets the largest value that falls into a bucket.
+     *
+     * @param bucket Bucket index
+     * @return Upper bound in microseconds
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * Point-in-time copy of a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return Count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of all recorded values.
+         *
+         * @return Sum in microseconds
+         */
+        public long getSumMicros() {
+            return sumMicros;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return Maximum in microseconds, 0 if nothing was recorded
+         */
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        /**
+         * Gets the value below which the given share of recorded values fall.
+         *
+         * @param percentile Percentile between 0 and 100
+         * @return Upper bound of the bucket holding that percentile in
+         *         microseconds (never above the maximum), 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hyvote.votelistener.metrics;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hyvote.votelistener.util.AtomicFileWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Periodically writes {@link VoteMetrics} to a Prometheus text file.
+ *
+ * Meant for node_exporter's textfile collector, so metrics can be scraped
+ * without a network listener inside the plugin. The file is replaced
+ * atomically, so the collector never reads a half-written file.
+ */
+public class MetricsFileWriter {
+
+    private final VoteMetrics metrics;
+    private final Path metricsPath;
+    private final HytaleLogger logger;
+    private final ScheduledExecutorService executor;
+    private boolean failing;
+
+    /**
+     * Creates and starts a new MetricsFileWriter.
+     *
+     * @param metrics The metrics to write
+     * @param metricsPath File to write, normally ending in .prom
+     * @param intervalSeconds Seconds between writes
+     * @param logger The logger for error messages
+     */
+    public MetricsFileWriter(VoteMetrics metrics, Path metricsPath, int intervalSeconds, HytaleLogger logger) {
+        this.metrics = metrics;
+        this.metricsPath = metricsPath;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HytaleVoteListener-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = Math.max(1, intervalSeconds);
+        executor.scheduleWithFixedDelay(this::write, 0, interval, TimeUnit.SECONDS);
+        logger.at(Level.INFO).log("Writing metrics to " + metricsPath + " every " + interval + "s");
+    }
+
+    /**
+     * Stops the writer after writing the metrics one last time.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+
+    /**
+     * Writes the metrics file, logging only the first of consecutive failures.
+     */
+    private synchronized void write() {
+        try {
+            Path parent = metricsPath.toAbsolutePath().getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            AtomicFileWriter.write(metricsPath, 0, metrics::writePrometheus);
+            if (failing) {
+                logger.at(Level.INFO).log("Metrics file " + metricsPath + " is being written again");
+                failing = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!failing) {
+                logger.at(Level.WARNING).log("Failed to write metrics file " + metricsPath + ": " + e.getMessage());
+                failing = true;
+            }
+        }
+    }
+}
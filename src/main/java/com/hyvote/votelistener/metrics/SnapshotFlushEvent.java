@@ -0,0 +1,53 @@
+package com.hyvote.votelistener.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one write of a JSON data snapshot.
+ *
+ * Includes the time spent waiting for the store's lock, copying the data and
+ * rotating the journal, so stalls during busy periods can be told apart from
+ * slow disk writes by comparing the duration with the bytes written.
+ */
+@Name("com.hyvote.votelistener.SnapshotFlush")
+@Label("Snapshot Flush")
+@Category({"HytaleVoteListener", "Persistence"})
+@Description("Writing vote-data.json or pending-rewards.json")
+@StackTrace(false)
+public final class SnapshotFlushEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Players")
+    @Description("Number of players in the snapshot")
+    int players;
+
+    @Label("Bytes Written")
+    @Description("Size of the written file, 0 if the write failed")
+    @DataAmount(DataAmount.BYTES)
+    long bytesWritten;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param file Name of the snapshot file
+     * @param players Number of players in the snapshot
+     * @param bytesWritten Size of the written file, 0 if the write failed
+     */
+    public void finish(String file, int players, long bytesWritten) {
+        end();
+        if (shouldCommit()) {
+            this.file = file;
+            this.players = players;
+            this.bytesWritten = bytesWritten;
+            commit();
+        }
+    }
+}
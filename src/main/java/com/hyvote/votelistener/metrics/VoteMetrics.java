@@ -0,0 +1,324 @@
+package com.hyvote.votelistener.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, latency histograms and gauges describing what the plugin is doing.
+ *
+ * One instance is shared by the vote listener, the command dispatcher, the
+ * data managers and the delivery scheduler, each of which records into it
+ * without locking. The values are reported by {@code /votelistener stats} and,
+ * if enabled, written to a Prometheus text file by {@link MetricsFileWriter}.
+ *
+ * <p>Gauges are read only when a report is produced, so they may call into the
+ * data stores; they must be cheap and thread-safe.
+ */
+public final class VoteMetrics {
+
+    private static final String PREFIX = "votelistener_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final LongAdder votesReceived = new LongAdder();
+    private final LongAdder votesProcessed = new LongAdder();
+    private final LongAdder votesQueuedOffline = new LongAdder();
+    private final LongAdder votesDuplicate = new LongAdder();
+    private final LongAdder votesDedupBypassed = new LongAdder();
+    private final LongAdder commandsExecuted = new LongAdder();
+    private final LongAdder commandsFailed = new LongAdder();
+    private final LongAdder rewardsDelivered = new LongAdder();
+    private final LongAdder rewardsDeadLettered = new LongAdder();
+
+    private final LatencyHistogram voteProcessing = new LatencyHistogram();
+    private final LatencyHistogram voteDataSave = new LatencyHistogram();
+    private final LatencyHistogram pendingRewardsSave = new LatencyHistogram();
+    private final LatencyHistogram deliveryTick = new LatencyHistogram();
+
+    private final List<Metric> counters;
+    private final List<Timer> timers;
+    private final List<Metric> gauges;
+
+    /**
+     * Creates a registry with all counters at zero and no gauges.
+     */
+    public VoteMetrics() {
+        this.counters = List.of(
+                new Metric("votes_received_total", "Votes received from HytaleVotifier", votesReceived::sum),
+                new Metric("votes_processed_total", "Votes recorded and rewarded", votesProcessed::sum),
+                new Metric("votes_queued_offline_total", "Votes whose rewards were queued for an offline player",
+                        votesQueuedOffline::sum),
+                new Metric("votes_duplicate_total", "Repeated votes ignored by the deduplication window",
+                        votesDuplicate::sum),
+                new Metric("votes_dedup_bypassed_total", "Votes not checked for duplicates because the window was full",
+                        votesDedupBypassed::sum),
+                new Metric("commands_executed_total", "Reward commands that ran successfully", commandsExecuted::sum),
+                new Metric("commands_failed_total", "Reward commands that failed", commandsFailed::sum),
+                new Metric("rewards_delivered_total", "Pending rewards delivered to players", rewardsDelivered::sum),
+                new Metric("rewards_dead_lettered_total", "Pending rewards moved to the dead-letter queue",
+                        rewardsDeadLettered::sum));
+        this.timers = List.of(
+                new Timer("vote_processing", "Time to record a vote and build its rewards", voteProcessing),
+                new Timer("vote_data_save", "Time to write a vote data snapshot", voteDataSave),
+                new Timer("pending_rewards_save", "Time to write a pending rewards snapshot", pendingRewardsSave),
+                new Timer("delivery_tick", "Time spent in one pending reward delivery tick", deliveryTick));
+        this.gauges = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Counts a vote event received from HytaleVotifier.
+     */
+    public void voteReceived() {
+        votesReceived.increment();
+    }
+
+    /**
+     * Counts a fully processed vote and records how long processing took.
+     *
+     * @param nanos Processing time in nanoseconds
+     */
+    public void voteProcessed(long nanos) {
+        votesProcessed.increment();
+        voteProcessing.record(nanos);
+    }
+
+    /**
+     * Counts a vote whose rewards were queued for an offline player.
+     */
+    public void voteQueuedOffline() {
+        votesQueuedOffline.increment();
+    }
+
+    /**
+     * Counts a repeated vote that was ignored.
+     */
+    public void voteDuplicate() {
+        votesDuplicate.increment();
+    }
+
+    /**
+     * Counts a vote let through unchecked because the deduplication window was full.
+     */
+    public void voteDedupBypassed() {
+        votesDedupBypassed.increment();
+    }
+
+    /**
+     * Counts a reward command that ran successfully.
+     */
+    public void commandExecuted() {
+        commandsExecuted.increment();
+    }
+
+    /**
+     * Counts a reward command that failed.
+     */
+    public void commandFailed() {
+        commandsFailed.increment();
+    }
+
+    /**
+     * Counts pending rewards that finished delivery.
+     *
+     * @param delivered Number of rewards delivered
+     * @param deadLettered Number of rewards moved to the dead-letter queue
+     */
+    public void rewardsCompleted(int delivered, int deadLettered) {
+        rewardsDelivered.add(delivered);
+        rewardsDeadLettered.add(deadLettered);
+    }
+
+    /**
+     * Records how long a vote data snapshot took to write.
+     *
+     * @param nanos Save time in nanoseconds
+     */
+    public void voteDataSaved(long nanos) {
+        voteDataSave.record(nanos);
+    }
+
+    /**
+     * Records how long a pending rewards snapshot took to write.
+     *
+     * @param nanos Save time in nanoseconds
+     */
+    public void pendingRewardsSaved(long nanos) {
+        pendingRewardsSave.record(nanos);
+    }
+
+    /**
+     * Records how long a pending reward delivery tick took.
+     *
+     * @param nanos Tick time in nanoseconds
+     */
+    public void deliveryTick(long nanos) {
+        deliveryTick.record(nanos);
+    }
+
+    /**
+     * Adds a gauge, read whenever a report is produced.
+     *
+     * @param name Metric name without the {@code votelistener_} prefix
+     * @param help One-line description
+     * @param value Supplies the current value
+     */
+    public void registerGauge(String name, String help, LongSupplier value) {
+        gauges.add(new Metric(name, help, value));
+    }
+
+    /**
+     * Formats every metric as short human-readable lines.
+     *
+     * @return One line per counter, latency and gauge
+     */
+    public List<String> formatSummary() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder("Counters:");
+        for (Metric counter : counters) {
+            line.append(' ').append(shortName(counter.name)).append('=').append(counter.value.getAsLong());
+        }
+        lines.add(line.toString());
+
+        for (Timer timer : timers) {
+            LatencyHistogram.Snapshot snapshot = timer.histogram.snapshot();
+            lines.add(String.format(Locale.ROOT, "%s: n=%d p50=%s p99=%s p99.9=%s max=%s", timer.name,
+                    snapshot.getCount(), formatMicros(snapshot.getValueAtPercentile(50)),
+                    formatMicros(snapshot.getValueAtPercentile(99)), formatMicros(snapshot.getValueAtPercentile(99.9)),
+                    formatMicros(snapshot.getMaxMicros())));
+        }
+
+        if (!gauges.isEmpty()) {
+            line = new StringBuilder("Gauges:");
+            for (Metric gauge : gauges) {
+                line.append(' ').append(gauge.name).append('=').append(readGauge(gauge));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     *
+     * Counters are written as counters, latencies as summaries in seconds
+     * with 50th, 90th, 99th and 99.9th percentiles, and gauges as gauges.
+     *
+     * @param writer Destination
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        for (Metric counter : counters) {
+            writeHeader(writer, counter.name, counter.help, "counter");
+            writeSample(writer, counter.name, "", Long.toString(counter.value.getAsLong()));
+        }
+
+        for (Timer timer : timers) {
+            String name = timer.name + "_seconds";
+            LatencyHistogram.Snapshot snapshot = timer.histogram.snapshot();
+            writeHeader(writer, name, timer.help, "summary");
+            for (double quantile : QUANTILES) {
+                // Prometheus reports quantiles of an empty summary as NaN
+                writeSample(writer, name, "{quantile=\"" + quantile + "\"}", snapshot.getCount() == 0
+                        ? "NaN" : microsToSeconds(snapshot.getValueAtPercentile(quantile * 100)));
+            }
+            writeSample(writer, name + "_sum", "", microsToSeconds(snapshot.getSumMicros()));
+            writeSample(writer, name + "_count", "", Long.toString(snapshot.getCount()));
+        }
+
+        for (Metric gauge : gauges) {
+            writeHeader(writer, gauge.name, gauge.help, "gauge");
+            writeSample(writer, gauge.name, "", Long.toString(readGauge(gauge)));
+        }
+    }
+
+    /**
+     * Reads a gauge, reporting 0 if its supplier fails.
+     *
+     * @param gauge The gauge
+     * @return Current value
+     */
+    private static long readGauge(Metric gauge) {
+        try {
+            return gauge.value.getAsLong();
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Writes the HELP and TYPE lines of a metric.
+     */
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + PREFIX + name + " " + help + "\n");
+        writer.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    /**
+     * Writes one sample line.
+     */
+    private static void writeSample(Writer writer, String name, String labels, String value) throws IOException {
+        writer.write(PREFIX + name + labels + " " + value + "\n");
+    }
+
+    /**
+     * Strips the {@code _total} suffix for display.
+     */
+    private static String shortName(String name) {
+        return name.endsWith("_total") ? name.substring(0, name.length() - "_total".length()) : name;
+    }
+
+    /**
+     * Formats microseconds as seconds for Prometheus.
+     */
+    private static String microsToSeconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    /**
+     * Formats a duration with a unit that keeps it short.
+     */
+    private static String formatMicros(long micros) {
+        if (micros < 1_000) {
+            return micros + "us";
+        }
+        if (micros < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1fms", micros / 1_000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fs", micros / 1_000_000.0);
+    }
+
+    /**
+     * A named counter or gauge.
+     */
+    private static final class Metric {
+        private final String name;
+        private final String help;
+        private final LongSupplier value;
+
+        private Metric(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A named latency histogram.
+     */
+    private static final class Timer {
+        private final String name;
+        private final String help;
+        private final LatencyHistogram histogram;
+
+        private Timer(String name, String help, LatencyHistogram histogram) {
+            this.name = name;
+            this.help = help;
+            this.histogram = histogram;
+        }
+    }
+}
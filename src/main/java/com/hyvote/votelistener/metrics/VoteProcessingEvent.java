@@ -0,0 +1,69 @@
+package com.hyvote.votelistener.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the processing of one vote.
+ *
+ * The {@link VoteStageEvent}s of the same vote are recorded on the same thread
+ * within this event's duration, so JDK Mission Control shows them nested
+ * below it. Like every JFR event it costs next to nothing unless a recording
+ * with the event enabled is running.
+ */
+@Name("com.hyvote.votelistener.VoteProcessing")
+@Label("Vote Processing")
+@Category({"HytaleVoteListener", "Votes"})
+@Description("Recording a vote and building, dispatching or queueing its rewards")
+@StackTrace(false)
+public final class VoteProcessingEvent extends Event {
+
+    @Label("Player Key")
+    @Description("UUID of an online player, or the username of an offline one")
+    String playerKey;
+
+    @Label("Service")
+    @Description("Voting site that sent the vote")
+    String service;
+
+    @Label("Online")
+    @Description("Whether the rewards were dispatched immediately rather than queued")
+    boolean online;
+
+    @Label("Command Count")
+    int commandCount;
+
+    @Label("Streak")
+    int streak;
+
+    @Label("Total Votes")
+    int totalVotes;
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param playerKey The player's data key
+     * @param service The voting site
+     * @param online Whether the player was online
+     * @param commandCount Number of reward commands built
+     * @param streak The player's streak after the vote
+     * @param totalVotes The player's total votes after the vote
+     */
+    public void finish(String playerKey, String service, boolean online, int commandCount, int streak,
+                       int totalVotes) {
+        end();
+        if (shouldCommit()) {
+            this.playerKey = playerKey;
+            this.service = service;
+            this.online = online;
+            this.commandCount = commandCount;
+            this.streak = streak;
+            this.totalVotes = totalVotes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.hyvote.votelistener.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one stage of processing a vote.
+ *
+ * Recorded inside a {@link VoteProcessingEvent} on the same thread, so a slow
+ * vote can be broken down into lookup, recording, reward selection, bonus
+ * resolution, template expansion and dispatch or persistence.
+ */
+@Name("com.hyvote.votelistener.VoteStage")
+@Label("Vote Stage")
+@Category({"HytaleVoteListener", "Votes"})
+@Description("One stage of processing a vote")
+@StackTrace(false)
+public final class VoteStageEvent extends Event {
+
+    /** Resolving the voter against the online player index. */
+    public static final String PLAYER_LOOKUP = "player lookup";
+    /** Updating the player's vote data in the vote store. */
+    public static final String RECORD_VOTE = "recordVote";
+    /** Drawing a random reward. */
+    public static final String REWARD_SELECTION = "reward selection";
+    /** Finding the streak and milestone bonuses that apply. */
+    public static final String BONUS_RESOLUTION = "bonus resolution";
+    /** Expanding placeholders in every reward command. */
+    public static final String TEMPLATE_EXPANSION = "template expansion";
+    /** Handing the commands of an online player to the dispatcher. */
+    public static final String COMMAND_DISPATCH = "command dispatch";
+    /** Queueing the rewards of an offline player. */
+    public static final String PERSISTENCE = "persistence";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Player Key")
+    @Description("UUID of an online player, or the username of an offline one")
+    String playerKey;
+
+    @Label("Command Count")
+    @Description("Number of commands the stage produced or handled, 0 if not applicable")
+    int commandCount;
+
+    /**
+     * Creates and begins a stage event.
+     *
+     * @param stage One of the stage constants
+     * @return The started event
+     */
+    public static VoteStageEvent start(String stage) {
+        VoteStageEvent event = new VoteStageEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if a recording wants it.
+     *
+     * @param playerKey The player's data key
+     * @param commandCount Number of commands involved, 0 if not applicable
+     */
+    public void finish(String playerKey, int commandCount) {
+        end();
+        if (shouldCommit()) {
+            this.playerKey = playerKey;
+            this.commandCount = commandCount;
+            commit();
+        }
+    }
+}
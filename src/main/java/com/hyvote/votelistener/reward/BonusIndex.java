@@ -0,0 +1,218 @@
+package com.hyvote.votelistener.reward;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Int-keyed lookup table for streak and milestone bonus tiers.
+ *
+ * <p>Built once from the configured tiers. Exact tiers (e.g. "on the 7th day")
+ * are kept in a sorted {@code int[]} and found by binary search, so resolving a
+ * bonus costs O(log n) instead of a scan over every tier.
+ *
+ * <p>Repeating tiers (e.g. "every 50 votes") match any positive multiple of
+ * their interval. They are kept in a second sorted array; a lookup either checks
+ * each interval or, when there are more intervals than {@code sqrt(value)},
+ * enumerates the divisors of the value and looks each one up.
+ *
+ * <p>Resolution rules, at most one tier per lookup:
+ * <ol>
+ *   <li>An exact tier wins over any repeating tier. If several exact tiers share
+ *       a key, the first one in config order wins, as with the old linear scan.</li>
+ *   <li>Otherwise the repeating tier with the largest matching interval wins,
+ *       so "every 100 votes" takes precedence over "every 10 votes".</li>
+ * </ol>
+ *
+ * <p>Tiers with a key of 0 or less can never match and are dropped. Instances
+ * are immutable and safe to share between threads.
+ *
+ * @param <T> The bonus tier type
+ */
+public final class BonusIndex<T> {
+
+    private static final BonusIndex<?> EMPTY = new BonusIndex<>(new int[0], new Object[0], new int[0], new Object[0]);
+
+    private final int[] exactKeys;
+    private final Object[] exactTiers;
+    private final int[] intervals;
+    private final Object[] repeatingTiers;
+
+    /**
+     * Creates an index from sorted key arrays.
+     *
+     * @param exactKeys Sorted, distinct exact trigger values
+     * @param exactTiers Tiers matching exactKeys
+     * @param intervals Sorted, distinct repeat intervals
+     * @param repeatingTiers Tiers matching intervals
+     */
+    private BonusIndex(int[] exactKeys, Object[] exactTiers, int[] intervals, Object[] repeatingTiers) {
+        this.exactKeys = exactKeys;
+        this.exactTiers = exactTiers;
+        this.intervals = intervals;
+        this.repeatingTiers = repeatingTiers;
+    }
+
+    /**
+     * Gets an index with no tiers.
+     *
+     * @param <T> The bonus tier type
+     * @return Empty index
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BonusIndex<T> empty() {
+        return (BonusIndex<T>) EMPTY;
+    }
+
+    /**
+     * Builds an index over the given tiers.
+     *
+     * @param tiers The configured tiers in config order (may be null)
+     * @param keyFunction Extracts the trigger value (streak days or votes required)
+     * @param repeatingFunction Tells whether a tier repeats at every multiple of its key
+     * @param <T> The bonus tier type
+     * @return The index
+     */
+    public static <T> BonusIndex<T> build(List<T> tiers, ToIntFunction<T> keyFunction, Predicate<T> repeatingFunction) {
+        if (tiers == null || tiers.isEmpty()) {
+            return empty();
+        }
+
+        List<T> exact = new ArrayList<>();
+        List<T> repeating = new ArrayList<>();
+        for (T tier : tiers) {
+            if (tier == null || keyFunction.applyAsInt(tier) <= 0) {
+                continue;
+            }
+            if (repeatingFunction.test(tier)) {
+                repeating.add(tier);
+            } else {
+                exact.add(tier);
+            }
+        }
+
+        int[] exactKeys = new int[exact.size()];
+        Object[] exactTiers = new Object[exact.size()];
+        int exactCount = sortDistinct(exact, keyFunction, exactKeys, exactTiers);
+
+        int[] intervals = new int[repeating.size()];
+        Object[] repeatingTiers = new Object[repeating.size()];
+        int repeatingCount = sortDistinct(repeating, keyFunction, intervals, repeatingTiers);
+
+        return new BonusIndex<>(
+                Arrays.copyOf(exactKeys, exactCount), Arrays.copyOf(exactTiers, exactCount),
+                Arrays.copyOf(intervals, repeatingCount), Arrays.copyOf(repeatingTiers, repeatingCount));
+    }
+
+    /**
+     * Finds the tier triggered by a value.
+     *
+     * @param value The player's current streak or total vote count
+     * @return The triggered tier, or null if none matches
+     */
+    @SuppressWarnings("unchecked")
+    public T find(int value) {
+        if (value <= 0) {
+            return null;
+        }
+
+        int exactIndex = Arrays.binarySearch(exactKeys, value);
+        if (exactIndex >= 0) {
+            return (T) exactTiers[exactIndex];
+        }
+
+        int intervalIndex = findLargestDividingInterval(value);
+        return intervalIndex >= 0 ? (T) repeatingTiers[intervalIndex] : null;
+    }
+
+    /**
+     * Gets the total number of indexed tiers.
+     *
+     * @return Exact plus repeating tier count
+     */
+    public int size() {
+        return exactKeys.length + intervals.length;
+    }
+
+    /**
+     * Checks whether the index has no tiers.
+     *
+     * @return true if {@link #find} always returns null
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Finds the largest repeat interval that divides the value.
+     *
+     * @param value A positive value
+     * @return Index into {@link #intervals}, or -1 if none divides the value
+     */
+    private int findLargestDividingInterval(int value) {
+        int count = intervals.length;
+        if (count == 0) {
+            return -1;
+        }
+
+        // Few intervals: test each one, largest first
+        int limit = (int) Math.sqrt(value);
+        if (count <= limit) {
+            for (int i = count - 1; i >= 0; i--) {
+                if (value % intervals[i] == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Many intervals: walk the divisors of value, largest first, and look each one up
+        for (int small = 1; small <= limit; small++) {
+            if (value % small == 0) {
+                int index = Arrays.binarySearch(intervals, value / small);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+        }
+        for (int small = limit; small >= 1; small--) {
+            if (value % small == 0) {
+                int index = Arrays.binarySearch(intervals, small);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sorts tiers by key into the given arrays, keeping the first tier for duplicate keys.
+     *
+     * @param tiers Tiers in config order
+     * @param keyFunction Extracts the key
+     * @param keys Output keys, ascending
+     * @param values Output tiers matching keys
+     * @param <T> The bonus tier type
+     * @return Number of distinct keys written
+     */
+    private static <T> int sortDistinct(List<T> tiers, ToIntFunction<T> keyFunction, int[] keys, Object[] values) {
+        List<T> sorted = new ArrayList<>(tiers);
+        // Stable sort: among equal keys the tier listed first in the config stays first
+        sorted.sort((a, b) -> Integer.compare(keyFunction.applyAsInt(a), keyFunction.applyAsInt(b)));
+
+        int count = 0;
+        for (T tier : sorted) {
+            int key = keyFunction.applyAsInt(tier);
+            if (count > 0 && keys[count - 1] == key) {
+                continue;
+            }
+            keys[count] = key;
+            values[count] = tier;
+            count++;
+        }
+        return count;
+    }
+}
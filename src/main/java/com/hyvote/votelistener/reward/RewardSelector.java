@@ -3,7 +3,8 @@ package com.hyvote.votelistener.reward;
 import com.hyvote.votelistener.config.RandomReward;
 
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Utility class for selecting random rewards using weighted probability.
@@ -23,11 +24,15 @@ import java.util.Random;
  * A random value of 45 would select the first reward (70 > 45).
  * A random value of 80 would select the second reward (70 + 25 = 95 > 80).
  * A random value of 98 would select the third reward (70 + 25 + 5 = 100 > 98).
+ *
+ * <p>Vote handling uses the {@link RewardTable} overloads instead: the config's
+ * rewards are turned into an alias table once at load time, after which each
+ * selection is O(1) however many rewards are configured. All overloads draw from
+ * {@link ThreadLocalRandom} unless a {@link RandomGenerator} is passed in, so
+ * concurrent vote workers never contend on a shared random source.
  */
 public class RewardSelector {
 
-    private static final Random random = new Random();
-
     /**
      * Selects a random reward from the given list using weighted probability.
      *
@@ -38,6 +43,17 @@ public class RewardSelector {
      * @return The selected reward, or null if the list is empty
      */
     public static RandomReward select(List<RandomReward> rewards) {
+        return select(rewards, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Selects a random reward from the given list using weighted probability.
+     *
+     * @param rewards List of rewards to select from
+     * @param random The random source, e.g. a seeded generator for reproducible results
+     * @return The selected reward, or null if the list is empty
+     */
+    public static RandomReward select(List<RandomReward> rewards, RandomGenerator random) {
         // Handle empty list
         if (rewards == null || rewards.isEmpty()) {
             return null;
@@ -75,6 +91,30 @@ public class RewardSelector {
         return rewards.get(rewards.size() - 1);
     }
 
+    /**
+     * Selects a random reward from a precomputed alias table in constant time.
+     *
+     * @param table The reward table built from the config
+     * @return The selected reward, or null if the table is empty
+     */
+    public static RandomReward select(RewardTable table) {
+        return select(table, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Selects a random reward from a precomputed alias table in constant time.
+     *
+     * @param table The reward table built from the config
+     * @param random The random source, e.g. a seeded generator for reproducible results
+     * @return The selected reward, or null if the table is empty
+     */
+    public static RandomReward select(RewardTable table, RandomGenerator random) {
+        if (table == null) {
+            return null;
+        }
+        return table.sample(random);
+    }
+
     /**
      * Private constructor to prevent instantiation.
      */
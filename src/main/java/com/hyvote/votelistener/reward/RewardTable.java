@@ -0,0 +1,171 @@
+package com.hyvote.votelistener.reward;
+
+import com.hyvote.votelistener.config.RandomReward;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Precomputed alias table for O(1) weighted reward selection.
+ *
+ * <p>Built once from the configured rewards using Vose's alias method. The
+ * weights are scaled so their average is 1, then every column of the table is
+ * filled with one "small" reward plus an alias to a "large" reward that tops
+ * the column up. Sampling picks a column uniformly and flips one biased coin
+ * between the column's reward and its alias, so each reward is selected with
+ * probability {@code chance / totalChance} regardless of how many rewards exist.
+ *
+ * <p>Rewards with zero, negative or NaN chance are never selected. If no reward
+ * has a positive chance, the first reward is always selected, as before.
+ * Infinite chances share the selection equally among themselves.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class RewardTable {
+
+    private static final RewardTable EMPTY = new RewardTable(new RandomReward[0], new double[0], new int[0]);
+
+    private final RandomReward[] rewards;
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Creates a table from precomputed columns.
+     *
+     * @param rewards Rewards by column
+     * @param probability Chance of keeping the column's own reward
+     * @param alias Column index of the reward used otherwise
+     */
+    private RewardTable(RandomReward[] rewards, double[] probability, int[] alias) {
+        this.rewards = rewards;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * Builds an alias table for the given rewards.
+     *
+     * @param rewardList Rewards with their chance weights (may be null)
+     * @return The table (empty for a null or empty list)
+     */
+    public static RewardTable build(List<RandomReward> rewardList) {
+        if (rewardList == null || rewardList.isEmpty()) {
+            return EMPTY;
+        }
+
+        RandomReward[] rewards = rewardList.toArray(new RandomReward[0]);
+        int count = rewards.length;
+
+        double maxWeight = 0.0;
+        for (RandomReward reward : rewards) {
+            maxWeight = Math.max(maxWeight, weightOf(reward));
+        }
+
+        // Nothing to weigh by - always select the first reward
+        if (maxWeight <= 0.0) {
+            return new RewardTable(new RandomReward[] {rewards[0]}, new double[] {1.0}, new int[] {0});
+        }
+
+        // Relative to the largest weight, so the total cannot overflow
+        double[] weights = new double[count];
+        double totalWeight = 0.0;
+        for (int i = 0; i < count; i++) {
+            double weight = weightOf(rewards[i]);
+            weights[i] = weight == maxWeight ? 1.0 : weight / maxWeight;
+            totalWeight += weights[i];
+        }
+
+        // Scale weights so the average column holds exactly 1.0
+        double[] probability = new double[count];
+        int[] alias = new int[count];
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < count; i++) {
+            scaled[i] = weights[i] * count / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        // Pair each under-full column with an over-full one that tops it up
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is full up to floating point error
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+
+        return new RewardTable(rewards, probability, alias);
+    }
+
+    /**
+     * Selects a reward in constant time.
+     *
+     * @param random The random source
+     * @return The selected reward, or null if the table is empty
+     */
+    public RandomReward sample(RandomGenerator random) {
+        int columns = rewards.length;
+        if (columns == 0) {
+            return null;
+        }
+        if (columns == 1) {
+            return rewards[0];
+        }
+
+        int column = random.nextInt(columns);
+        return random.nextDouble() < probability[column] ? rewards[column] : rewards[alias[column]];
+    }
+
+    /**
+     * Gets the number of selectable columns.
+     *
+     * @return Table size (0 when empty)
+     */
+    public int size() {
+        return rewards.length;
+    }
+
+    /**
+     * Checks whether the table has no rewards.
+     *
+     * @return true if {@link #sample} always returns null
+     */
+    public boolean isEmpty() {
+        return rewards.length == 0;
+    }
+
+    /**
+     * Gets a reward's weight, treating negative and NaN chances as zero.
+     *
+     * @param reward The reward
+     * @return Non-negative weight
+     */
+    private static double weightOf(RandomReward reward) {
+        double chance = reward.getChance();
+        return chance > 0.0 ? chance : 0.0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.hyvote.votelistener.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for crash-safe file replacement.
+ *
+ * <p>Content is written to a sibling temp file through a buffered channel, forced
+ * to disk, and then moved over the target with {@code ATOMIC_MOVE}. A reader
+ * therefore always sees either the old file or the complete new one, never a
+ * truncated mix.
+ *
+ * <p>Optionally, the previous versions of the target are kept as rotated backups
+ * ({@code name.bak.1} is the newest) so a load can fall back to the newest readable
+ * copy if the live file is damaged.
+ */
+public final class AtomicFileWriter {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BACKUP_SUFFIX = ".bak.";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AtomicFileWriter() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Callback that writes file content.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Writes the file content.
+         *
+         * @param writer Buffered UTF-8 writer for the temp file
+         * @throws IOException if writing fails
+         */
+        void write(Writer writer) throws IOException;
+    }
+
+    /**
+     * Atomically replaces the target file with new content.
+     *
+     * @param target The file to replace
+     * @param backups Number of previous versions to keep as rotated backups (0 for none)
+     * @param content Callback that writes the new content
+     * @return Number of bytes written
+     * @throws IOException if the content cannot be written or moved into place
+     */
+    public static long write(Path target, int backups, ContentWriter content) throws IOException {
+        Path tempPath = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+
+        long bytesWritten;
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            content.write(writer);
+            writer.flush();
+            channel.force(true);
+            bytesWritten = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+
+        if (backups > 0 && Files.exists(target)) {
+            rotateBackups(target, backups);
+        }
+
+        try {
+            Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncDirectory(target.toAbsolutePath().getParent());
+        return bytesWritten;
+    }
+
+    /**
+     * Atomically replaces the target file with a string.
+     *
+     * @param target The file to replace
+     * @param backups Number of previous versions to keep as rotated backups (0 for none)
+     * @param text The new file content
+     * @throws IOException if the content cannot be written or moved into place
+     */
+    public static void writeString(Path target, int backups, String text) throws IOException {
+        write(target, backups, writer -> writer.write(text));
+    }
+
+    /**
+     * Lists the files a load should try, in order: the target itself, then
+     * its backups from newest to oldest.
+     *
+     * @param target The live file
+     * @param backups Number of rotated backups that may exist
+     * @return Candidate paths in fallback order
+     */
+    public static List<Path> candidates(Path target, int backups) {
+        List<Path> paths = new ArrayList<>(backups + 1);
+        paths.add(target);
+        for (int i = 1; i <= backups; i++) {
+            paths.add(backupPath(target, i));
+        }
+        return paths;
+    }
+
+    /**
+     * Moves an unreadable file aside so later saves cannot rotate it away.
+     *
+     * @param target The unreadable file
+     * @return Path the file was moved to
+     * @throws IOException if the file cannot be moved
+     */
+    public static Path quarantine(Path target) throws IOException {
+        Path corruptPath = target.resolveSibling(target.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        Files.move(target, corruptPath);
+        return corruptPath;
+    }
+
+    /**
+     * Shifts existing backups by one and moves the current target to backup 1.
+     *
+     * @param target The live file
+     * @param backups Number of backups to keep
+     * @throws IOException if a backup cannot be moved
+     */
+    private static void rotateBackups(Path target, int backups) throws IOException {
+        Files.deleteIfExists(backupPath(target, backups));
+        for (int i = backups - 1; i >= 1; i--) {
+            Path from = backupPath(target, i);
+            if (Files.exists(from)) {
+                Files.move(from, backupPath(target, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(target, backupPath(target, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Gets the path of a numbered backup.
+     *
+     * @param target The live file
+     * @param index Backup number, 1 being the newest
+     * @return Backup path
+     */
+    private static Path backupPath(Path target, int index) {
+        return target.resolveSibling(target.getFileName() + BACKUP_SUFFIX + index);
+    }
+
+    /**
+     * Forces a directory entry update to disk so the rename survives a power loss.
+     *
+     * Not supported on every platform; failures are ignored.
+     *
+     * @param directory The directory containing the replaced file
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory fsync is not available on all platforms (e.g. Windows)
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.hyvote.votelistener.util;
+
+import org.hyvote.plugins.votifier.vote.Vote;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command string compiled once into literal segments and placeholder slots.
+ *
+ * <p>Rendering walks the segments a single time, appending literals and
+ * placeholder values into one pre-sized {@link StringBuilder}, instead of
+ * making a {@code String.replace} pass (and a new String) per placeholder.
+ * Substituted values are never scanned again, so a value that itself contains
+ * a placeholder token, such as a username of {@code %service%}, is copied
+ * literally rather than expanded.
+ *
+ * <p>Supported placeholders match {@link PlaceholderProcessor}:
+ * {@code %player%}, {@code %service%}, {@code %timestamp%}, {@code %reward%},
+ * {@code %streak%}, {@code %totalvotes%}, {@code %uuid%} and {@code %rank%}. Any other text,
+ * including unknown {@code %...%} tokens, is copied unchanged.
+ */
+public final class CommandTemplate {
+
+    /**
+     * Placeholder slots a template can contain.
+     */
+    private enum Placeholder {
+        PLAYER("%player%"),
+        SERVICE("%service%"),
+        TIMESTAMP("%timestamp%"),
+        REWARD("%reward%"),
+        STREAK("%streak%"),
+        TOTAL_VOTES("%totalvotes%"),
+        UUID("%uuid%"),
+        RANK("%rank%");
+
+        private static final Placeholder[] VALUES = values();
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Typical rendered length of a placeholder value, used to pre-size the builder.
+     */
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+    private final String source;
+    private final String[] literals;
+    private final Placeholder[] slots;
+    private final int estimatedLength;
+
+    /**
+     * Creates a compiled template.
+     *
+     * @param source The original command string
+     * @param literals Literal text; literals[i] precedes slots[i], the last literal follows the last slot
+     * @param slots Placeholder slots in order
+     */
+    private CommandTemplate(String source, String[] literals, Placeholder[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        int literalLength = 0;
+        for (String literal : literals) {
+            literalLength += literal.length();
+        }
+        this.estimatedLength = literalLength + slots.length * ESTIMATED_VALUE_LENGTH;
+    }
+
+    /**
+     * Compiles a command string into a template.
+     *
+     * @param command The command string containing placeholders
+     * @return The compiled template (an empty template for null)
+     */
+    public static CommandTemplate compile(String command) {
+        if (command == null) {
+            return new CommandTemplate("", new String[] {""}, new Placeholder[0]);
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> slots = new ArrayList<>();
+        int literalStart = 0;
+        int index = command.indexOf('%');
+        while (index >= 0) {
+            Placeholder match = matchAt(command, index);
+            if (match != null) {
+                literals.add(command.substring(literalStart, index));
+                slots.add(match);
+                literalStart = index + match.token.length();
+                index = command.indexOf('%', literalStart);
+            } else {
+                index = command.indexOf('%', index + 1);
+            }
+        }
+        literals.add(command.substring(literalStart));
+
+        return new CommandTemplate(command, literals.toArray(new String[0]), slots.toArray(new Placeholder[0]));
+    }
+
+    /**
+     * Compiles a list of command strings.
+     *
+     * @param commands The command strings (may be null)
+     * @return Unmodifiable list of compiled templates
+     */
+    public static List<CommandTemplate> compileAll(List<String> commands) {
+        if (commands == null || commands.isEmpty()) {
+            return List.of();
+        }
+        List<CommandTemplate> templates = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            templates.add(compile(command));
+        }
+        return List.copyOf(templates);
+    }
+
+    /**
+     * Renders the template with the given values in a single pass.
+     *
+     * <p>Null string values render as empty text. When {@code vote} is null the
+     * {@code %player%}, {@code %service%} and {@code %timestamp%} placeholders are
+     * left in place, matching {@link PlaceholderProcessor}.
+     *
+     * @param vote The vote supplying player, service and timestamp (may be null)
+     * @param rewardName Value for %reward%
+     * @param streak Value for %streak%
+     * @param totalVotes Value for %totalvotes%
+     * @param rank Value for %rank%
+     * @param uuid Value for %uuid%
+     * @return The rendered command
+     */
+    public String render(Vote vote, String rewardName, int streak, int totalVotes, int rank, String uuid) {
+        if (vote == null) {
+            return render(false, null, null, 0, rewardName, streak, totalVotes, rank, uuid);
+        }
+        return render(true, vote.username(), vote.serviceName(), vote.timestamp(), rewardName, streak, totalVotes,
+                rank, uuid);
+    }
+
+    /**
+     * Renders the template with vote values captured earlier.
+     *
+     * Produces the same text as {@link #render(Vote, String, int, int, int, String)}
+     * for a vote with the given player, service and timestamp, so pending
+     * rewards can be expanded at delivery time instead of at vote time.
+     *
+     * @param player Value for %player%
+     * @param service Value for %service%
+     * @param timestamp Value for %timestamp%
+     * @param rewardName Value for %reward%
+     * @param streak Value for %streak%
+     * @param totalVotes Value for %totalvotes%
+     * @param rank Value for %rank%
+     * @param uuid Value for %uuid%
+     * @return The rendered command
+     */
+    public String render(String player, String service, long timestamp, String rewardName, int streak,
+                         int totalVotes, int rank, String uuid) {
+        return render(true, player, service, timestamp, rewardName, streak, totalVotes, rank, uuid);
+    }
+
+    /**
+     * Renders the template in a single pass.
+     *
+     * @param hasVote Whether vote values are available; if not, their tokens are kept
+     */
+    private String render(boolean hasVote, String player, String service, long timestamp, String rewardName,
+                          int streak, int totalVotes, int rank, String uuid) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+
+        StringBuilder builder = new StringBuilder(estimatedLength);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            switch (slots[i]) {
+                case PLAYER -> appendVoteValue(builder, hasVote, player, Placeholder.PLAYER);
+                case SERVICE -> appendVoteValue(builder, hasVote, service, Placeholder.SERVICE);
+                case TIMESTAMP -> {
+                    if (hasVote) {
+                        builder.append(timestamp);
+                    } else {
+                        builder.append(Placeholder.TIMESTAMP.token);
+                    }
+                }
+                case REWARD -> appendNullable(builder, rewardName);
+                case STREAK -> builder.append(streak);
+                case TOTAL_VOTES -> builder.append(totalVotes);
+                case UUID -> appendNullable(builder, uuid);
+                case RANK -> builder.append(rank);
+            }
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+    /**
+     * Gets the original command string.
+     *
+     * @return The uncompiled command
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Finds the placeholder whose token starts at the given index.
+     *
+     * @param command The command string
+     * @param index Index of a '%' character
+     * @return The matching placeholder, or null if none matches
+     */
+    private static Placeholder matchAt(String command, int index) {
+        for (Placeholder placeholder : Placeholder.VALUES) {
+            if (command.startsWith(placeholder.token, index)) {
+                return placeholder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a vote-derived value, keeping the token when there is no vote.
+     */
+    private static void appendVoteValue(StringBuilder builder, boolean hasVote, String value, Placeholder placeholder) {
+        if (!hasVote) {
+            builder.append(placeholder.token);
+        } else {
+            appendNullable(builder, value);
+        }
+    }
+
+    /**
+     * Appends a value, or nothing if it is null.
+     */
+    private static void appendNullable(StringBuilder builder, String value) {
+        if (value != null) {
+            builder.append(value);
+        }
+    }
+}
@@ -10,6 +10,9 @@ import org.hyvote.plugins.votifier.vote.Vote;
  * - %service% - The name of the voting service
  * - %uuid% - The UUID of the player (if available)
  * - %timestamp% - The timestamp of the vote
+ *
+ * Commands from the config are compiled into {@link CommandTemplate}s at load
+ * time and rendered directly; these methods remain for ad-hoc command strings.
  */
 public final class PlaceholderProcessor {
 
@@ -78,6 +81,13 @@ public final class PlaceholderProcessor {
      * <p>This overloaded method provides full placeholder support for streak bonus commands,
      * including all standard vote placeholders plus %reward%, %streak%, %totalvotes%, and %uuid%.
      *
+     * <p>The command is expanded in a single pass, so placeholders that appear
+     * inside a substituted value (for example a username containing
+     * {@code %service%}) are copied as they are. Earlier versions replaced one
+     * placeholder after another and expanded such values again.
+     *
+     * @deprecated Compiles the command on every call. Compile it once with
+     *             {@link CommandTemplate#compile(String)} and render the template instead.
      * @param command The command string containing placeholders
      * @param vote The vote object containing replacement values
      * @param rewardName The name of the reward tier to replace %reward% placeholder
@@ -86,19 +96,10 @@ public final class PlaceholderProcessor {
      * @param uuid The player's UUID to replace %uuid% placeholder
      * @return The processed command with all placeholders replaced
      */
+    @Deprecated
     public static String process(String command, Vote vote, String rewardName, int streak, int totalVotes, String uuid) {
-        // First process standard vote and reward placeholders
-        String result = process(command, vote, rewardName);
-
-        // Replace %streak% with streak value
-        result = result.replace("%streak%", String.valueOf(streak));
-
-        // Replace %totalvotes% with total votes value
-        result = result.replace("%totalvotes%", String.valueOf(totalVotes));
-
-        // Replace %uuid% with UUID
-        result = result.replace("%uuid%", uuid != null ? uuid : "");
-
-        return result;
+        // Single pass over the command; configured commands are precompiled, see CommandTemplate
+        // Rank is not known here; %rank% renders as 0
+        return CommandTemplate.compile(command).render(vote, rewardName, streak, totalVotes, 0, uuid);
     }
 }
@@ -0,0 +1,185 @@
+package com.hyvote.votelistener.data;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests for concurrent use of {@link PendingRewardsManager}.
+ *
+ * Producer threads queue rewards while delivering threads claim them and
+ * either deliver them or release them with progress, and another thread
+ * flushes. Every reward must end up delivered exactly once or still pending,
+ * both in memory and after reloading the data folder.
+ */
+class PendingRewardsManagerStressTest {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int PRODUCERS = 4;
+    private static final int DELIVERERS = 4;
+    private static final int PLAYERS = 16;
+
+    @Test
+    void concurrentClaimsDeliverEachRewardOnceWithoutJournal(@TempDir Path dataFolder) throws Exception {
+        assertEveryRewardAccountedFor(dataFolder, false, 50);
+    }
+
+    @Test
+    void concurrentClaimsDeliverEachRewardOnceWithJournal(@TempDir Path dataFolder) throws Exception {
+        assertEveryRewardAccountedFor(dataFolder, true, 500);
+    }
+
+    /**
+     * Queues, claims, delivers and releases rewards from several threads, then
+     * checks that no reward was delivered twice, lost or left in two states.
+     *
+     * @param dataFolder Folder for the data files
+     * @param journal Whether to enable the journal
+     * @param rewardsPerProducer Rewards queued by each producer thread
+     */
+    private void assertEveryRewardAccountedFor(Path dataFolder, boolean journal, int rewardsPerProducer)
+            throws Exception {
+        List<String> keys = playerKeys();
+        Set<String> added = ConcurrentHashMap.newKeySet();
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+        Set<String> deliveredTwice = ConcurrentHashMap.newKeySet();
+
+        PendingRewardsManager manager = new PendingRewardsManager(dataFolder, LOGGER);
+        manager.load();
+        if (journal) {
+            manager.enableJournal(32, 1);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + DELIVERERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int thread = 0; thread < PRODUCERS; thread++) {
+                producers.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < rewardsPerProducer; i++) {
+                        int player = random.nextInt(PLAYERS);
+                        PendingReward reward = new PendingReward(keys.get(player), "player" + player,
+                                "service", System.currentTimeMillis(), List.of("first", "second"));
+                        added.add(reward.getId());
+                        manager.addPendingReward(keys.get(player), reward);
+                    }
+                    return null;
+                }));
+            }
+
+            List<Future<?>> others = new ArrayList<>();
+            for (int thread = 0; thread < DELIVERERS; thread++) {
+                others.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (producing.get()) {
+                        String key = keys.get(random.nextInt(PLAYERS));
+                        List<PendingReward> claimed = manager.claimPendingRewards(key);
+                        DeliveryBatch batch = new DeliveryBatch();
+                        List<PendingReward> released = new ArrayList<>();
+                        for (PendingReward reward : claimed) {
+                            if (random.nextBoolean()) {
+                                batch.delivered(key, reward);
+                                if (!delivered.add(reward.getId())) {
+                                    deliveredTwice.add(reward.getId());
+                                }
+                            } else {
+                                released.add(reward.withProgress(1, reward.getFailedAttempts() + 1));
+                            }
+                        }
+                        manager.applyDeliveryBatch(batch);
+                        manager.releasePendingRewards(key, released);
+                    }
+                    return null;
+                }));
+            }
+            others.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                while (producing.get()) {
+                    manager.flush();
+                }
+                return null;
+            }));
+
+            start.countDown();
+            for (Future<?> future : producers) {
+                future.get();
+            }
+            producing.set(false);
+            for (Future<?> future : others) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(PRODUCERS * rewardsPerProducer, added.size(), "rewards added");
+        assertTrue(deliveredTwice.isEmpty(), "rewards delivered twice: " + deliveredTwice);
+
+        manager.shutdown();
+        PendingRewardsManager reloaded = new PendingRewardsManager(dataFolder, LOGGER);
+        reloaded.load();
+
+        for (PendingRewardsManager store : List.of(manager, reloaded)) {
+            Set<String> pending = pendingIds(store.getAllPendingRewards());
+            for (String id : pending) {
+                assertTrue(!delivered.contains(id), "delivered reward still pending: " + id);
+            }
+            Set<String> accountedFor = new HashSet<>(pending);
+            accountedFor.addAll(delivered);
+            assertEquals(added, accountedFor, "every reward delivered or pending");
+        }
+        reloaded.shutdown();
+    }
+
+    /**
+     * Collects the IDs of all pending rewards, failing on any reward queued twice.
+     *
+     * @param pendingRewards Player key to pending rewards
+     * @return The reward IDs
+     */
+    private static Set<String> pendingIds(Map<String, List<PendingReward>> pendingRewards) {
+        Set<String> ids = new HashSet<>();
+        for (List<PendingReward> rewards : pendingRewards.values()) {
+            for (PendingReward reward : rewards) {
+                assertTrue(ids.add(reward.getId()), "reward queued twice: " + reward.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the player keys used by the tests.
+     *
+     * @return One UUID key per player
+     */
+    private static List<String> playerKeys() {
+        List<String> keys = new ArrayList<>(PLAYERS);
+        for (int player = 0; player < PLAYERS; player++) {
+            keys.add(new UUID(0x5eed, player).toString());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,200 @@
+package com.hyvote.votelistener.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link PlayerVoteTable}: lookups across index and column growth,
+ * and the per-player footprint the class documents.
+ */
+class PlayerVoteTableTest {
+
+    private static final long FIRST_VOTE = 1_700_000_000_000L;
+
+    @Test
+    void everyKeyIsFoundAfterManyIndexRebuilds() {
+        PlayerVoteTable table = new PlayerVoteTable();
+        List<String> keys = randomKeys(50_000, 0x5eedL);
+        for (int i = 0; i < keys.size(); i++) {
+            table.put(keys.get(i), record(keys.get(i), i));
+            if (i % 1_000 == 0) {
+                // Usernames of players never seen online share slots with UUID keys
+                table.put("Offline" + i, record("Offline" + i, i));
+            }
+        }
+
+        assertEquals(keys.size() + 50, table.size());
+        for (int i = 0; i < keys.size(); i++) {
+            PlayerVoteData data = table.get(keys.get(i));
+            assertNotNull(data, keys.get(i));
+            assertEquals(i % 500, data.getTotalVotes(), "total votes of " + keys.get(i));
+            assertEquals("player" + i, data.getUsername());
+        }
+        assertNotNull(table.get("Offline49000"));
+        assertNull(table.get(new UUID(1, 2).toString()));
+        assertNull(table.get("Offline1"));
+    }
+
+    @Test
+    void computeAddsEachNewKeyOnce() {
+        PlayerVoteTable table = new PlayerVoteTable();
+        List<String> keys = randomKeys(10_000, 42L);
+        for (int round = 0; round < 3; round++) {
+            for (String key : keys) {
+                table.compute(key, existing -> {
+                    PlayerVoteData data = existing != null ? existing : record(key, 0);
+                    data.setTotalVotes(data.getTotalVotes() + 1);
+                    return data;
+                });
+            }
+        }
+
+        assertEquals(keys.size(), table.size());
+        int[] slots = {0};
+        table.forEach((key, data) -> {
+            assertEquals(3, data.getTotalVotes(), "total votes of " + key);
+            slots[0]++;
+        });
+        assertEquals(keys.size(), slots[0]);
+    }
+
+    @Test
+    void forEachDoesNotBlockWritersWhileTheActionRuns() throws Exception {
+        PlayerVoteTable table = new PlayerVoteTable();
+        List<String> keys = randomKeys(3, 7L);
+        for (int i = 0; i < 2; i++) {
+            table.put(keys.get(i), record(keys.get(i), i));
+        }
+
+        List<String> visited = new ArrayList<>();
+        table.forEach((key, data) -> {
+            visited.add(key);
+            Thread writer = new Thread(() -> table.put(keys.get(2), record(keys.get(2), 2)));
+            writer.start();
+            try {
+                writer.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(writer.isAlive(), "writer blocked by forEach");
+        });
+
+        // Players added during the iteration are not visited
+        assertEquals(keys.subList(0, 2), visited);
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void concurrentVotesForDifferentPlayersAreAllApplied() throws Exception {
+        PlayerVoteTable table = new PlayerVoteTable();
+        List<String> keys = randomKeys(256, 11L);
+        int threads = 8;
+        int votesPerThread = 20_000;
+        List<Thread> voters = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            int first = thread;
+            voters.add(new Thread(() -> {
+                for (int i = 0; i < votesPerThread; i++) {
+                    String key = keys.get((first + i * threads) % keys.size());
+                    table.compute(key, existing -> {
+                        PlayerVoteData data = existing != null ? existing : record(key, 0);
+                        data.setTotalVotes(data.getTotalVotes() + 1);
+                        return data;
+                    });
+                }
+            }));
+        }
+        for (Thread voter : voters) {
+            voter.start();
+        }
+        for (Thread voter : voters) {
+            voter.join();
+        }
+
+        assertEquals(keys.size(), table.size());
+        long total = 0;
+        for (String key : keys) {
+            total += table.get(key).getTotalVotes();
+        }
+        assertEquals((long) threads * votesPerThread, total);
+    }
+
+    @Test
+    void trimmedTableStaysUnder90BytesPerPlayer() {
+        for (int players : new int[] {100_000, 200_000}) {
+            long before = usedHeapAfterGc();
+            PlayerVoteTable table = new PlayerVoteTable();
+            SplittableRandom random = new SplittableRandom(players);
+            for (int i = 0; i < players; i++) {
+                String key = new UUID(random.nextLong(), i).toString();
+                table.put(key, record(key, i));
+            }
+            table.trimToSize();
+            long after = usedHeapAfterGc();
+
+            // Measured on the heap rather than with estimateHeapBytes(), which shares the table's arithmetic
+            double bytesPerPlayer = (double) (after - before) / players;
+            assertEquals(players, table.size());
+            assertTrue(bytesPerPlayer < 90.0, players + " players take " + bytesPerPlayer + " bytes each");
+        }
+    }
+
+    /**
+     * Gets the heap in use once garbage has been collected.
+     *
+     * @return Used heap in bytes
+     */
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        // Collect until the figure stops falling, so garbage from the previous step is gone
+        for (int attempt = 0; attempt < 10; attempt++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    /**
+     * Creates a record with a username of up to twelve characters.
+     *
+     * @param key Player key
+     * @param index Player number
+     * @return The record
+     */
+    private static PlayerVoteData record(String key, int index) {
+        return new PlayerVoteData(key, "player" + index, index % 500, index % 30, FIRST_VOTE + index);
+    }
+
+    /**
+     * Generates distinct canonical UUID keys.
+     *
+     * @param count Number of keys
+     * @param seed Random seed
+     * @return The keys
+     */
+    private static List<String> randomKeys(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new UUID(random.nextLong(), i).toString());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,255 @@
+package com.hyvote.votelistener.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.hypixel.hytale.logger.HytaleLogger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Stress tests for concurrent use of {@link VoteDataManager}.
+ *
+ * Voting threads share players while other threads flush and read, then every
+ * player's total and streak is checked in memory and again after reloading the
+ * data folder, which replays the journal on top of the last snapshot.
+ */
+class VoteDataManagerStressTest {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int THREADS = 8;
+    private static final int PLAYERS = 64;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @Test
+    void concurrentVotesKeepExactTotalsWithSaveOnEveryVote(@TempDir Path dataFolder) throws Exception {
+        assertConcurrentTotals(dataFolder, false, 100);
+    }
+
+    @Test
+    void concurrentVotesKeepExactTotalsWithWriteBehindAndJournal(@TempDir Path dataFolder) throws Exception {
+        assertConcurrentTotals(dataFolder, true, 2_500);
+    }
+
+    @Test
+    void concurrentVotesOverSeveralDaysKeepStreaks(@TempDir Path dataFolder) throws Exception {
+        int days = 30;
+        long firstDay = LocalDate.of(2024, 1, 1).atTime(12, 0).atZone(ZoneId.systemDefault())
+                .toInstant().toEpochMilli();
+        List<String> keys = playerKeys();
+
+        VoteDataManager manager = openManager(dataFolder, true);
+        runConcurrently(manager, thread -> {
+            // Each thread owns every THREADS-th player, so a player's days arrive in order
+            for (int day = 0; day < days; day++) {
+                long noon = firstDay + day * DAY_MILLIS;
+                for (int player = thread; player < PLAYERS; player += THREADS) {
+                    manager.recordVote(keys.get(player), "player" + player, noon);
+                    manager.recordVote(keys.get(player), "player" + player, noon + 60_000);
+                }
+            }
+        });
+
+        for (VoteDataManager store : reopen(manager, dataFolder)) {
+            for (int player = 0; player < PLAYERS; player++) {
+                PlayerVoteData data = store.getPlayerData(keys.get(player));
+                assertNotNull(data, "player" + player);
+                assertEquals(2 * days, data.getTotalVotes(), "total votes of player" + player);
+                assertEquals(days, data.getCurrentStreak(), "streak of player" + player);
+            }
+        }
+    }
+
+    @Test
+    void replayKeepsTheHighestNumberedEntryForEachPlayer(@TempDir Path dataFolder) throws Exception {
+        String key = playerKeys().get(0);
+        // Appended out of order, as two racing votes for one player can be
+        String journal = journalEntry(2, key, new PlayerVoteData(key, "player0", 2, 1, 0))
+                + journalEntry(1, key, new PlayerVoteData(key, "player0", 1, 1, 0));
+        Files.writeString(dataFolder.resolve("vote-data.journal"), journal);
+
+        VoteDataManager manager = new VoteDataManager(dataFolder, LOGGER);
+        manager.loadVoteData();
+        assertEquals(2, manager.getPlayerData(key).getTotalVotes());
+        manager.shutdown();
+    }
+
+    /**
+     * Formats a vote journal line.
+     *
+     * @param sequence Entry sequence number
+     * @param key Player key
+     * @param data Record after the vote
+     * @return The JSON line
+     */
+    private static String journalEntry(long sequence, String key, PlayerVoteData data) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("op", "vote");
+        entry.addProperty("seq", sequence);
+        entry.addProperty("key", key);
+        entry.add("data", new Gson().toJsonTree(data));
+        return entry + "\n";
+    }
+
+    /**
+     * Records random votes from several threads while others flush and read,
+     * then checks every total in memory and after reloading.
+     *
+     * @param dataFolder Folder for the data files
+     * @param writeBehind Whether to enable write-behind and the journal
+     * @param votesPerThread Votes recorded by each voting thread
+     */
+    private void assertConcurrentTotals(Path dataFolder, boolean writeBehind, int votesPerThread) throws Exception {
+        List<String> keys = playerKeys();
+        AtomicIntegerArray expected = new AtomicIntegerArray(PLAYERS);
+
+        VoteDataManager manager = openManager(dataFolder, writeBehind);
+        runConcurrently(manager, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < votesPerThread; i++) {
+                int player = random.nextInt(PLAYERS);
+                manager.recordVote(keys.get(player), "player" + player);
+                expected.incrementAndGet(player);
+            }
+        });
+
+        for (VoteDataManager store : reopen(manager, dataFolder)) {
+            long sum = 0;
+            for (int player = 0; player < PLAYERS; player++) {
+                PlayerVoteData data = store.getPlayerData(keys.get(player));
+                int votes = data != null ? data.getTotalVotes() : 0;
+                assertEquals(expected.get(player), votes, "total votes of player" + player);
+                sum += votes;
+            }
+            assertEquals((long) THREADS * votesPerThread, sum, "total votes of all players");
+        }
+    }
+
+    /**
+     * Runs the voting task on every voting thread, with a flushing and a reading
+     * thread active until all votes are recorded.
+     *
+     * @param manager The manager under test
+     * @param voter Voting task, given the thread number
+     */
+    private void runConcurrently(VoteDataManager manager, Voter voter) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean voting = new AtomicBoolean(true);
+        try {
+            List<Future<?>> voters = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                voters.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    voter.vote(threadNumber);
+                    return null;
+                }));
+            }
+            Future<?> flusher = executor.submit((Callable<Void>) () -> {
+                start.await();
+                while (voting.get()) {
+                    manager.flush();
+                }
+                return null;
+            });
+            Future<?> reader = executor.submit((Callable<Void>) () -> {
+                start.await();
+                while (voting.get()) {
+                    manager.forEachPlayer((key, data) -> data.getTotalVotes());
+                    manager.getPlayerCount();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> future : voters) {
+                future.get();
+            }
+            voting.set(false);
+            flusher.get();
+            reader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shuts a manager down and loads the data folder into a new one.
+     *
+     * @param manager The manager under test
+     * @param dataFolder Folder for the data files
+     * @return The manager before shutdown and the reloaded one
+     */
+    private List<VoteDataManager> reopen(VoteDataManager manager, Path dataFolder) {
+        List<VoteDataManager> stores = new ArrayList<>();
+        stores.add(manager);
+        manager.shutdown();
+        VoteDataManager reloaded = new VoteDataManager(dataFolder, LOGGER);
+        reloaded.loadVoteData();
+        stores.add(reloaded);
+        return stores;
+    }
+
+    /**
+     * Creates and loads a manager.
+     *
+     * @param dataFolder Folder for the data files
+     * @param writeBehind Whether to enable write-behind and the journal
+     * @return The loaded manager
+     */
+    private VoteDataManager openManager(Path dataFolder, boolean writeBehind) {
+        VoteDataManager manager = new VoteDataManager(dataFolder, LOGGER);
+        manager.loadVoteData();
+        if (writeBehind) {
+            manager.enableJournal(32);
+            manager.enableWriteBehind(1, 50);
+        }
+        return manager;
+    }
+
+    /**
+     * Gets the player keys used by the tests.
+     *
+     * @return One UUID key per player
+     */
+    private static List<String> playerKeys() {
+        List<String> keys = new ArrayList<>(PLAYERS);
+        for (int player = 0; player < PLAYERS; player++) {
+            keys.add(new UUID(0x5eed, player).toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Work done by one voting thread.
+     */
+    @FunctionalInterface
+    private interface Voter {
+
+        /**
+         * Records this thread's votes.
+         *
+         * @param thread Thread number from 0
+         */
+        void vote(int thread);
+    }
+}
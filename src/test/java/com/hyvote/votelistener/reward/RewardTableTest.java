@@ -0,0 +1,188 @@
+package com.hyvote.votelistener.reward;
+
+import com.hyvote.votelistener.config.RandomReward;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statistical tests of {@link RewardTable} sampling against the configured weights.
+ *
+ * Each test draws from a seeded generator and runs a chi-squared goodness-of-fit
+ * test at the 0.1% level, so the results are reproducible. Rewards whose
+ * expected count is below five are pooled into one category, as the test
+ * requires, and rewards with no weight must never be drawn.
+ */
+class RewardTableTest {
+
+    private static final int SAMPLES = 1_000_000;
+    private static final long SEED = 0x5eedL;
+
+    @Test
+    void samplingMatchesTypicalWeights() {
+        assertSamplingMatches(70.0, 25.0, 5.0);
+        assertSamplingMatches(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0);
+        assertSamplingMatches(0.5, 0.25, 0.125, 0.0625, 0.0625);
+    }
+
+    @Test
+    void samplingMatchesEqualWeights() {
+        double[] weights = new double[64];
+        Arrays.fill(weights, 3.0);
+        assertSamplingMatches(weights);
+    }
+
+    @Test
+    void zeroNegativeAndNaNWeightsAreNeverSelected() {
+        assertSamplingMatches(0.0, 5.0, 0.0, 5.0, -3.0);
+        assertSamplingMatches(Double.NaN, 1.0, 2.0);
+        assertSamplingMatches(0.0, 0.0, 1.0);
+    }
+
+    @Test
+    void samplingMatchesExtremeWeights() {
+        assertSamplingMatches(1.0, 1_000.0);
+        assertSamplingMatches(1e-9, 1.0, 1e9, 1.0);
+        assertSamplingMatches(Double.MIN_VALUE, 1.0, 1.0);
+        assertSamplingMatches(Double.MAX_VALUE, Double.MAX_VALUE / 2, Double.MAX_VALUE / 2);
+        assertSamplingMatches(Double.MAX_VALUE, Double.MAX_VALUE, 1.0);
+        assertSamplingMatches(Double.POSITIVE_INFINITY, 1.0, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    void noPositiveWeightAlwaysSelectsTheFirstReward() {
+        RewardTable table = RewardTable.build(rewards(0.0, -1.0, 0.0));
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("reward0", table.sample(random).getName());
+        }
+    }
+
+    @Test
+    void emptyTableSamplesNull() {
+        assertTrue(RewardTable.build(null).isEmpty());
+        assertTrue(RewardTable.build(List.of()).isEmpty());
+        assertNull(RewardTable.build(List.of()).sample(new SplittableRandom(SEED)));
+    }
+
+    /**
+     * Samples a table built from the given weights and checks the frequencies.
+     *
+     * Infinite weights are expected to share the selection equally; zero,
+     * negative and NaN weights must never be selected.
+     *
+     * @param weights Chance of each reward, in order
+     */
+    private static void assertSamplingMatches(double... weights) {
+        RewardTable table = RewardTable.build(rewards(weights));
+        int[] observed = new int[weights.length];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            String name = table.sample(random).getName();
+            observed[Integer.parseInt(name.substring("reward".length()))]++;
+        }
+
+        double[] probability = probabilities(weights);
+        double chiSquared = 0.0;
+        int categories = 0;
+        double pooledExpected = 0.0;
+        long pooledObserved = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double expected = probability[i] * SAMPLES;
+            if (probability[i] == 0.0) {
+                assertEquals(0, observed[i], "draws of reward" + i + " with weight " + weights[i]);
+            } else if (expected < 5.0) {
+                pooledExpected += expected;
+                pooledObserved += observed[i];
+            } else {
+                chiSquared += square(observed[i] - expected) / expected;
+                categories++;
+            }
+        }
+        if (pooledExpected >= 5.0) {
+            chiSquared += square(pooledObserved - pooledExpected) / pooledExpected;
+            categories++;
+        } else {
+            // Too rare to test for fit, but a handful of draws at most
+            assertTrue(pooledObserved <= 10 + 10 * pooledExpected,
+                    "draws of rare rewards: " + pooledObserved + ", expected " + pooledExpected);
+        }
+
+        if (categories > 1) {
+            double critical = chiSquaredCritical(categories - 1);
+            assertTrue(chiSquared < critical, "chi-squared " + chiSquared + " exceeds " + critical
+                    + " for weights " + Arrays.toString(weights));
+        }
+    }
+
+    /**
+     * Gets the selection probability each weight should give.
+     *
+     * @param weights Chance of each reward
+     * @return Probability of each reward
+     */
+    private static double[] probabilities(double[] weights) {
+        double[] probability = new double[weights.length];
+        int infinite = 0;
+        double max = 0.0;
+        for (double weight : weights) {
+            if (weight == Double.POSITIVE_INFINITY) {
+                infinite++;
+            } else if (weight > max) {
+                max = weight;
+            }
+        }
+        double total = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            if (infinite > 0) {
+                probability[i] = weights[i] == Double.POSITIVE_INFINITY ? 1.0 : 0.0;
+            } else {
+                probability[i] = weights[i] > 0.0 ? weights[i] / max : 0.0;
+            }
+            total += probability[i];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            probability[i] /= total;
+        }
+        return probability;
+    }
+
+    /**
+     * Approximates the chi-squared value exceeded with probability 0.001,
+     * using the Wilson-Hilferty transformation.
+     *
+     * @param degreesOfFreedom Categories minus one
+     * @return The critical value
+     */
+    private static double chiSquaredCritical(int degreesOfFreedom) {
+        double z = 3.090;
+        double k = degreesOfFreedom;
+        double term = 1.0 - 2.0 / (9.0 * k) + z * Math.sqrt(2.0 / (9.0 * k));
+        return k * term * term * term;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    /**
+     * Creates rewards named reward0, reward1, ... with the given chances.
+     *
+     * @param weights Chance of each reward
+     * @return The rewards
+     */
+    private static List<RandomReward> rewards(double... weights) {
+        List<RandomReward> rewards = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            rewards.add(new RandomReward("reward" + i, weights[i], List.of("say reward" + i)));
+        }
+        return rewards;
+    }
+}